@@ -0,0 +1,41 @@
+package com.cg.training.service;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link AppointmentSystemBenchmark} and {@link ShardedAppointmentSystemBenchmark}
+ * once per thread count with the GC profiler switched on, so every result also
+ * reports the bytes allocated per operation.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar com.cg.training.service.AppointmentBenchmarkRunner [threads] [sizes]}
+ * where both arguments are comma separated lists, for example {@code 1,4,8 10000,1000000}.
+ * By default it runs with one thread and with one thread per core, at every data size.
+ * </p>
+ */
+public class AppointmentBenchmarkRunner {
+
+    /**
+     * Entry point of the benchmark run.
+     *
+     * @param args optional thread counts and data sizes, each comma separated
+     * @throws RunnerException if JMH fails to run a benchmark
+     */
+    public static void main(String[] args) throws RunnerException {
+        String threads = args.length > 0 ? args[0] : "1," + Runtime.getRuntime().availableProcessors();
+        for (String count : threads.split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(AppointmentSystemBenchmark.class.getSimpleName())
+                    .include(ShardedAppointmentSystemBenchmark.class.getSimpleName())
+                    .threads(Integer.parseInt(count.trim()))
+                    .addProfiler(GCProfiler.class);
+            if (args.length > 1) {
+                options.param("size", args[1].split(","));
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.cg.training.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cg.training.dao.AppointmentJournal;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.security.Role;
+
+/**
+ * JMH benchmarks for every AppointmentSystemDAO operation on the hot path:
+ * registration, booking and completion, lookups, the per-doctor and
+ * per-patient listings, and saving to the journal.
+ * <p>
+ * Each benchmark runs against a system preloaded with {@code size} patients,
+ * one appointment each, spread over {@link #DOCTORS} doctors. The service's
+ * console output is discarded so that only the operation itself is measured.
+ * Thread counts and the allocation profiler are set by
+ * {@link AppointmentBenchmarkRunner}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentSystemBenchmark {
+
+    /** Number of doctors registered in the preloaded system. */
+    static final int DOCTORS = 1_000;
+
+    /** Number of names in one bulk registration. */
+    static final int BATCH = 1_000;
+
+    /** Names submitted by the bulk registration benchmark. */
+    private static final List<String> BATCH_NAMES = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < BATCH; i++) {
+            BATCH_NAMES.add("Patient");
+        }
+    }
+
+    /**
+     * A preloaded system shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Loaded {
+
+        /** Number of preloaded patients and appointments. */
+        @Param({ "10000", "100000", "1000000" })
+        public int size;
+
+        /** The system under test. */
+        AppointmentSystem system;
+
+        /** The same system with every call measured. */
+        MeasuredAppointmentSystem measured;
+
+        /** The same system with every call checked against the caller's role. */
+        SecuredAppointmentSystem secured;
+
+        /** Journal file used by the save benchmark. */
+        File journalFile;
+
+        /** Console to restore after the run. */
+        private PrintStream console;
+
+        /**
+         * Silences the console and loads the system.
+         */
+        @Setup(Level.Trial)
+        public void load() throws IOException {
+            console = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+            journalFile = File.createTempFile("benchmark", ".journal");
+            system = new AppointmentSystem(new AppointmentJournal(journalFile.getPath()));
+            for (int i = 0; i < DOCTORS; i++) {
+                system.registerDoctor("Doctor");
+            }
+            for (int i = 0; i < size; i++) {
+                system.registerPatient("Patient");
+                system.bookAppointment(system.patients.get(i));
+                if ((i + 1) % DOCTORS == 0) {
+                    for (int j = i + 1 - DOCTORS; j <= i; j++) {
+                        system.completeAppointment(j);
+                    }
+                }
+            }
+            system.saveAppointmentsToFile();
+            measured = new MeasuredAppointmentSystem(system);
+            secured = new SecuredAppointmentSystem(system, Role.PATIENT);
+        }
+
+        /**
+         * Restores the console and deletes the journal.
+         */
+        @TearDown(Level.Trial)
+        public void unload() throws IOException {
+            system.clearAllContentsOfTheFile();
+            journalFile.delete();
+            System.setOut(console);
+        }
+
+        /**
+         * Returns the ID of a random preloaded patient.
+         *
+         * @return a patient ID
+         */
+        String randomPatientId() {
+            return "P" + (1000 + ThreadLocalRandom.current().nextInt(size));
+        }
+
+        /**
+         * Returns the ID of a random doctor.
+         *
+         * @return a doctor ID
+         */
+        String randomDoctorId() {
+            return "D" + (1000 + ThreadLocalRandom.current().nextInt(DOCTORS));
+        }
+    }
+
+    /**
+     * A patient of its own for every benchmark thread, so concurrent
+     * book-and-complete loops can find their own appointment.
+     */
+    @State(Scope.Thread)
+    public static class Visitor {
+
+        /** Hands out distinct patient numbers to threads. */
+        private static final AtomicInteger NEXT = new AtomicInteger(900_000_000);
+
+        /** The thread's patient. */
+        Patient patient;
+
+        /**
+         * Creates the thread's patient.
+         */
+        @Setup(Level.Trial)
+        public void create() {
+            patient = new Patient("P" + NEXT.getAndIncrement(), "Visitor");
+        }
+    }
+
+    /**
+     * Registers one more patient.
+     *
+     * @param state the loaded system
+     */
+    @Benchmark
+    public void registerPatient(Loaded state) {
+        state.system.registerPatient("Ram");
+    }
+
+    /**
+     * Registers a batch of {@link #BATCH} patients in one call.
+     * Divide the score by the batch size to compare with {@link #registerPatient}.
+     *
+     * @param state the loaded system
+     * @return the registration result
+     */
+    @Benchmark
+    public RegistrationResult registerPatients(Loaded state) {
+        return state.system.registerPatients(BATCH_NAMES);
+    }
+
+    /**
+     * Registers one more doctor. Doctors go to the pool as well, so this
+     * also covers the cost of making a doctor bookable.
+     *
+     * @param state the loaded system
+     */
+    @Benchmark
+    public void registerDoctor(Loaded state) {
+        state.system.registerDoctor("Sushir");
+    }
+
+    /**
+     * Books an appointment and completes it again, both through the DAO.
+     * The two are measured together because a booking ties up a doctor
+     * until it is completed.
+     *
+     * @param state   the loaded system
+     * @param visitor the thread's own patient
+     * @return the booked appointment
+     */
+    @Benchmark
+    public Appointment bookAndComplete(Loaded state, Visitor visitor) {
+        AppointmentSystem system = state.system;
+        Appointment appointment = system.bookAppointment(visitor.patient);
+        if (appointment != null) {
+            List<Integer> own = system.appointmentsByPatientId.get(visitor.patient.getKey());
+            system.completeAppointment(own.get(own.size() - 1));
+        }
+        return appointment;
+    }
+
+    /**
+     * Books the earliest free time slot across all {@link #DOCTORS} doctors.
+     * Calendars fill up as the benchmark runs, so this also shows that the
+     * search does not slow down as the booked horizon moves further out.
+     *
+     * @param state   the loaded system
+     * @param visitor the thread's own patient
+     * @return the booked appointment
+     */
+    @Benchmark
+    public SlottedAppointment bookEarliestSlot(Loaded state, Visitor visitor) {
+        return state.system.bookAppointment(visitor.patient, LocalDateTime.now());
+    }
+
+    /**
+     * Looks up a random patient by ID.
+     *
+     * @param state the loaded system
+     * @return the patient found
+     */
+    @Benchmark
+    public Patient findPatientById(Loaded state) {
+        return state.system.findPatientById(state.randomPatientId());
+    }
+
+    /**
+     * Looks up a random patient by ID through {@link MeasuredAppointmentSystem}.
+     * The difference to {@link #findPatientById} is the cost of measuring a call.
+     *
+     * @param state the loaded system
+     * @return the patient found
+     */
+    @Benchmark
+    public Patient findPatientByIdMeasured(Loaded state) {
+        return state.measured.findPatientById(state.randomPatientId());
+    }
+
+    /**
+     * Looks up a random patient by ID through {@link SecuredAppointmentSystem}.
+     * The difference to {@link #findPatientById} is the cost of a role check.
+     *
+     * @param state the loaded system
+     * @return the patient found
+     */
+    @Benchmark
+    public Patient findPatientByIdSecured(Loaded state) {
+        return state.secured.findPatientById(state.randomPatientId());
+    }
+
+    /**
+     * Looks up a random doctor by ID.
+     *
+     * @param state the loaded system
+     * @return the doctor found
+     */
+    @Benchmark
+    public Doctor findDoctorById(Loaded state) {
+        return state.system.findDoctorById(state.randomDoctorId());
+    }
+
+    /**
+     * Lists the appointments of a random doctor.
+     *
+     * @param state the loaded system
+     */
+    @Benchmark
+    public void showAppointmentsByDoctorId(Loaded state) {
+        state.system.showAppointmentsByDoctorId(state.randomDoctorId());
+    }
+
+    /**
+     * Lists the appointments of a random patient.
+     *
+     * @param state the loaded system
+     */
+    @Benchmark
+    public void showAppointmentsByPatientId(Loaded state) {
+        state.system.showAppointmentsByPatientId(state.randomPatientId());
+    }
+
+    /**
+     * Reads the first page of a random doctor's appointments, as Main does.
+     *
+     * @param state the loaded system
+     * @return the page read
+     */
+    @Benchmark
+    public Page<Integer> findAppointmentsByDoctorId(Loaded state) {
+        return state.system.findAppointmentsByDoctorId(state.randomDoctorId(), 0, 20);
+    }
+
+    /**
+     * Books, completes and saves, as Main does after every user action.
+     *
+     * @param state   the loaded system
+     * @param visitor the thread's own patient
+     * @return the booked appointment
+     */
+    @Benchmark
+    public Appointment bookCompleteAndSave(Loaded state, Visitor visitor) {
+        Appointment appointment = bookAndComplete(state, visitor);
+        state.system.saveAppointmentsToFile();
+        return appointment;
+    }
+}
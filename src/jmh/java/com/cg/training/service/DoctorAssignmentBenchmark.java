@@ -0,0 +1,156 @@
+package com.cg.training.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+
+/**
+ * JMH benchmark comparing the {@link DoctorAssignment} strategies: what a
+ * walk-in booking costs with each, and how evenly each spreads appointments.
+ * <p>
+ * Every thread keeps {@link Visitor#OPEN} appointments open and, after each
+ * booking, completes one of them at random, so doctors come back to the pool
+ * in a shuffled order as they would with real service times. A tenth of the
+ * doctors start with {@link #BACKLOG} appointments already on their record,
+ * which a load-aware strategy should steer around. The score is the time per
+ * booking and completion. The spread of appointments per doctor is printed
+ * after each run: the lower the standard deviation, the fairer the strategy.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DoctorAssignmentBenchmark {
+
+    /** Number of existing appointments of each busy doctor. */
+    static final int BACKLOG = 100;
+
+    /**
+     * A system with {@link AppointmentSystemBenchmark#DOCTORS} doctors shared
+     * by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Clinic {
+
+        /** The assignment strategy under test. */
+        @Param({ "LONGEST_AVAILABLE", "LEAST_LOADED", "ROUND_ROBIN", "TWO_CHOICES" })
+        public DoctorAssignment assignment;
+
+        /** The system under test. */
+        AppointmentSystem system;
+
+        /**
+         * Registers the doctors, gives every tenth a backlog and sets the strategy.
+         */
+        @Setup(Level.Trial)
+        public void load() {
+            system = new AppointmentSystem();
+            system.setEventSink(EventSink.DISCARD);
+            Patient patient = new Patient("P1000", "Patient");
+            for (int i = 0; i < AppointmentSystemBenchmark.DOCTORS; i++) {
+                system.registerDoctor("Doctor");
+            }
+            for (int i = 0; i < AppointmentSystemBenchmark.DOCTORS; i += 10) {
+                Doctor doctor = system.doctors.get(i);
+                for (int j = 0; j < BACKLOG; j++) {
+                    system.addAppointment(Appointment.withoutReservation(patient, doctor));
+                }
+            }
+            system.setDoctorAssignment(assignment);
+        }
+
+        /**
+         * Prints how many appointments the least and the most loaded doctor
+         * have, and the mean and standard deviation over all doctors.
+         */
+        @TearDown(Level.Trial)
+        public void report() {
+            int min = Integer.MAX_VALUE;
+            int max = 0;
+            long sum = 0;
+            long squares = 0;
+            for (Doctor doctor : system.doctors) {
+                int count = system.appointmentCount(doctor);
+                min = Math.min(min, count);
+                max = Math.max(max, count);
+                sum += count;
+                squares += (long) count * count;
+            }
+            int n = system.doctors.size();
+            double mean = (double) sum / n;
+            System.out.printf("%n%s appointments per doctor: min %d, max %d, mean %.1f, stddev %.1f%n",
+                    assignment, min, max, mean, Math.sqrt(Math.max(0, (double) squares / n - mean * mean)));
+        }
+    }
+
+    /**
+     * The appointments a benchmark thread has open.
+     */
+    @State(Scope.Thread)
+    public static class Visitor {
+
+        /** Number of appointments each thread keeps open. */
+        static final int OPEN = 32;
+
+        /** Hands out distinct patient numbers to threads. */
+        private static final AtomicInteger NEXT = new AtomicInteger(900_000_000);
+
+        /** The thread's patient. */
+        Patient patient;
+
+        /** Positions of the open appointments; -1 for a free place. */
+        final int[] open = new int[OPEN];
+
+        /**
+         * Creates the thread's patient.
+         */
+        @Setup(Level.Trial)
+        public void create() {
+            patient = new Patient("P" + NEXT.getAndIncrement(), "Visitor");
+            Arrays.fill(open, -1);
+        }
+    }
+
+    /**
+     * Books a walk-in appointment with the doctor the strategy picks, and
+     * completes a random one of the thread's open appointments in its place.
+     *
+     * @param clinic  the shared system
+     * @param visitor the thread's open appointments
+     * @return the booked appointment
+     */
+    @Benchmark
+    public Appointment bookAndCompleteRandom(Clinic clinic, Visitor visitor) {
+        AppointmentSystem system = clinic.system;
+        Appointment appointment = system.bookAppointment(visitor.patient);
+        int place = ThreadLocalRandom.current().nextInt(Visitor.OPEN);
+        int done = visitor.open[place];
+        if (done >= 0) {
+            system.completeAppointment(done);
+        }
+        visitor.open[place] = appointment == null ? -1 : appointment.getIdNumber();
+        return appointment;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.cg.training.service;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cg.training.events.ConsoleRenderer;
+import com.cg.training.events.DirectEventSink;
+import com.cg.training.events.EventSink;
+import com.cg.training.events.RingBufferEventSink;
+
+/**
+ * JMH benchmark of what reporting an event costs the booking thread: printing
+ * it on the spot, as the system did before, against queuing it for the
+ * background consumer of a {@link RingBufferEventSink}. The console is
+ * replaced by a stream that discards its output but keeps PrintStream's lock
+ * and flushing. Run it with several threads to see the console lock contend.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventSinkBenchmark {
+
+    /** How events are reported. */
+    @Param({ "direct", "ring" })
+    public String sink;
+
+    /** The system under test. */
+    private AppointmentSystem system;
+
+    /** The ring buffer sink, closed after the run. */
+    private RingBufferEventSink ring;
+
+    /** Console to restore after the run. */
+    private PrintStream console;
+
+    /**
+     * Silences the console and creates the system with the chosen sink.
+     */
+    @Setup(Level.Trial)
+    public void load() {
+        console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, true));
+        system = new AppointmentSystem();
+        EventSink events;
+        if (sink.equals("ring")) {
+            ring = new RingBufferEventSink(new ConsoleRenderer(), 4096);
+            events = ring;
+        } else {
+            events = new DirectEventSink(new ConsoleRenderer());
+        }
+        system.setEventSink(events);
+        for (int i = 0; i < AppointmentSystemBenchmark.DOCTORS; i++) {
+            system.registerDoctor("Doctor");
+        }
+    }
+
+    /**
+     * Stops the consumer and restores the console.
+     */
+    @TearDown(Level.Trial)
+    public void unload() {
+        if (ring != null) {
+            ring.close();
+        }
+        System.setOut(console);
+    }
+
+    /**
+     * Registers a patient, which reports one event.
+     */
+    @Benchmark
+    public void registerPatient() {
+        system.registerPatient("Ram");
+    }
+
+    /**
+     * Reports a failure event without changing anything.
+     */
+    @Benchmark
+    public void reportError() {
+        system.completeAppointment(-1);
+    }
+}
\ No newline at end of file
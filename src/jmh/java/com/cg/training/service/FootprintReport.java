@@ -0,0 +1,121 @@
+package com.cg.training.service;
+
+import com.cg.training.events.EventSink;
+
+/**
+ * A small stand-alone report of how much heap the appointment system keeps
+ * per patient and per appointment.
+ * <p>
+ * It loads a system the way a clinic fills it over time: a fixed set of doctors,
+ * patients drawn from a limited set of names, and a few appointments per patient
+ * that are booked and completed a round of doctors at a time. The live heap is
+ * measured after a full collection before and after loading, and the difference
+ * is divided by the number of appointments.
+ * </p>
+ * <p>
+ * Run it with a fixed heap so the collector settles, for example
+ * {@code java -Xms2g -Xmx2g -cp target/benchmarks.jar com.cg.training.service.FootprintReport [patients] [intern|offheap]}.
+ * </p>
+ */
+public class FootprintReport {
+
+    /** Number of doctors registered. */
+    private static final int DOCTORS = 1_000;
+
+    /** Number of appointments booked for every patient. */
+    private static final int VISITS = 4;
+
+    /** Number of distinct names handed out to patients. */
+    private static final int NAMES = 5_000;
+
+    /**
+     * Entry point of the report.
+     *
+     * @param args optional number of patients (default 250,000), and "intern"
+     *             to share one instance among equal names or "offheap" to
+     *             keep the appointments outside the heap
+     */
+    public static void main(String[] args) {
+        int patients = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        boolean intern = args.length > 1 && args[1].equals("intern");
+        boolean offHeap = args.length > 1 && args[1].equals("offheap");
+        long before = liveHeap();
+        AppointmentSystem system = load(patients, intern, offHeap);
+        long after = liveHeap();
+        long bytes = after - before;
+        int appointments = system.appointments.size();
+        System.out.printf("patients=%d appointments=%d heap=%.1f MB%n", system.patients.size(), appointments,
+                bytes / (1024.0 * 1024.0));
+        System.out.printf("heap bytes per appointment (everything included): %.1f%n", (double) bytes / appointments);
+        if (system.doctors.isEmpty()) {
+            System.out.println(); // keep the system reachable until measured
+        }
+    }
+
+    /**
+     * Builds a system with the given number of patients.
+     *
+     * @param patients the number of patients to register
+     * @param intern   whether equal names share one instance
+     * @param offHeap  whether the appointments are kept outside the heap
+     * @return the loaded system
+     */
+    private static AppointmentSystem load(int patients, boolean intern, boolean offHeap) {
+        AppointmentSystem system = new AppointmentSystem(intern, offHeap);
+        system.setEventSink(EventSink.DISCARD);
+        for (int i = 0; i < DOCTORS; i++) {
+            system.registerDoctor("Doctor " + name(i));
+        }
+        for (int i = 0; i < patients; i++) {
+            system.registerPatient("Patient " + name(i % NAMES));
+        }
+        int booked = 0;
+        for (int visit = 0; visit < VISITS; visit++) {
+            for (int i = 0; i < patients; i++) {
+                system.bookAppointment(system.patients.get(i));
+                booked++;
+                if (booked % DOCTORS == 0) {
+                    for (int j = booked - DOCTORS; j < booked; j++) {
+                        system.completeAppointment(j);
+                    }
+                }
+            }
+        }
+        return system;
+    }
+
+    /**
+     * Turns a number into a name made of letters only.
+     *
+     * @param n the number
+     * @return a name that is valid for a user
+     */
+    private static String name(int n) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return name.toString();
+    }
+
+    /**
+     * Returns the heap in use after the collector has settled.
+     *
+     * @return the used heap in bytes
+     */
+    private static long liveHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
\ No newline at end of file
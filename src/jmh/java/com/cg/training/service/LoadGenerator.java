@@ -0,0 +1,596 @@
+package com.cg.training.service;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.cg.training.dao.AppointmentJournal;
+import com.cg.training.dao.WriteBehindJournal;
+import com.cg.training.events.EventType;
+import com.cg.training.metrics.LatencyHistogram;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+
+/**
+ * Drives an appointment system with a realistic mix of registrations,
+ * bookings, completions and lookups for as long as asked, and reports
+ * throughput, latency percentiles, heap and GC figures as it goes.
+ * <p>
+ * Where the JMH benchmarks measure one operation at a time, this measures
+ * the whole workflow: every walk-in booking ties up a doctor until the
+ * appointment is completed after a random service time, so bookings start
+ * to be turned away once the doctors are busy, just as at the front desk.
+ * </p>
+ * <p>
+ * Requests arrive as a Poisson process at a fixed rate, split evenly over the
+ * worker threads. Latency is taken from the moment a request was due, not the
+ * moment a worker got round to it, so a system that falls behind shows it in
+ * the percentiles instead of hiding it (coordinated omission). A rate of 0
+ * runs closed-loop, each worker issuing its next request as soon as the last
+ * one returns, which shows the most the system can do but not the latency at
+ * a given load. Several rates can be given; each runs for the full duration
+ * in turn, and a stage whose workers end up more than one report interval
+ * behind schedule is marked as saturated. The highest rate that is not is
+ * the capacity of this node.
+ * </p>
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar com.cg.training.service.LoadGenerator [--option=value ...]}
+ * with the options listed in {@link #DEFAULTS}, for example
+ * {@code --rate=5000,10000,20000 --duration=10m --threads=16}. Durations take
+ * an {@code s}, {@code m} or {@code h} suffix. The latency report of
+ * {@link MeasuredAppointmentSystem} printed at the end gives the service time
+ * of each DAO operation without the time spent waiting to be served.
+ * </p>
+ */
+public class LoadGenerator {
+
+    /** Options and their default values. */
+    static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("patients", "100000"); // patients registered before the run
+        DEFAULTS.put("doctors", "1000"); // doctors registered before the run
+        DEFAULTS.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        DEFAULTS.put("rate", "10000"); // requests per second, comma separated for stages; 0 is closed-loop
+        DEFAULTS.put("duration", "60s"); // length of each stage
+        DEFAULTS.put("report", "5s"); // time between progress lines
+        DEFAULTS.put("service", "50"); // mean milliseconds from walk-in booking to completion
+        DEFAULTS.put("shards", "0"); // 0 runs a single AppointmentSystem
+        DEFAULTS.put("journal", ""); // journal file; empty keeps everything in memory
+        DEFAULTS.put("offheap", "false"); // keep appointments in direct memory
+        DEFAULTS.put("assignment", DoctorAssignment.LONGEST_AVAILABLE.name()); // how walk-ins get a doctor
+        DEFAULTS.put("mix", "register:5,book:30,slot:10,lookup:40,history:15,save:0");
+    }
+
+    /**
+     * The kinds of request a worker sends. Completions are not part of the
+     * mix; they follow from walk-in bookings once their service time is up.
+     */
+    enum Kind {
+
+        /** Registers a new patient. */
+        REGISTER,
+
+        /** Books a walk-in appointment with a free doctor. */
+        BOOK,
+
+        /** Books the earliest free time slot. */
+        SLOT,
+
+        /** Completes a walk-in appointment whose service time is up. */
+        COMPLETE,
+
+        /** Looks up a patient or an appointment by ID. */
+        LOOKUP,
+
+        /** Reads the first page of a doctor's or a patient's appointments. */
+        HISTORY,
+
+        /** Saves the appointments to the journal. */
+        SAVE
+    }
+
+    /**
+     * A walk-in appointment waiting for its service time to end.
+     */
+    static final class Visit implements Delayed {
+
+        /** The appointment to complete. */
+        final String appointmentId;
+
+        /** The value of {@link System#nanoTime()} at which it ends. */
+        final long dueNanos;
+
+        /**
+         * Creates a visit.
+         *
+         * @param appointmentId the appointment to complete
+         * @param dueNanos      when it ends
+         */
+        Visit(String appointmentId, long dueNanos) {
+            this.appointmentId = appointmentId;
+            this.dueNanos = dueNanos;
+        }
+
+        /**
+         * Returns the time left until the visit ends.
+         *
+         * @param unit the unit of the result
+         * @return the remaining time, negative once it has ended
+         */
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Orders visits by the time they end.
+         *
+         * @param other another visit
+         * @return the order of the two end times
+         */
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Visit) other).dueNanos);
+        }
+    }
+
+    /** The system under load, with every DAO call measured. */
+    private final MeasuredAppointmentSystem system;
+
+    /** Patients that can book; grows with every registration. */
+    private final ConcurrentAppendList<Patient> patients = new ConcurrentAppendList<>();
+
+    /** IDs of the registered doctors. */
+    private List<String> doctorIds;
+
+    /** IDs of booked appointments, for lookups. */
+    private final ConcurrentAppendList<String> appointmentIds = new ConcurrentAppendList<>();
+
+    /** Walk-in appointments in progress. */
+    private final DelayQueue<Visit> visits = new DelayQueue<>();
+
+    /** Cumulative share of the mix up to and including each kind, by ordinal. */
+    private final int[] mix = new int[Kind.values().length];
+
+    /** Mean service time of a walk-in appointment in nanoseconds. */
+    private final double serviceNanos;
+
+    /** Response times of the whole run, one histogram per kind. */
+    private final LatencyHistogram[] totals = new LatencyHistogram[Kind.values().length];
+
+    /** Response times since the last progress line; replaced by every line. */
+    private volatile LatencyHistogram interval = new LatencyHistogram();
+
+    /** Walk-in bookings turned away because no doctor was free. */
+    private final LongAdder turnedAway = new LongAdder();
+
+    /** ERROR events reported by the system. */
+    private final LongAdder errors = new LongAdder();
+
+    /** Time the slowest worker of the current stage is behind schedule, in nanoseconds. */
+    private final AtomicLong lag = new AtomicLong();
+
+    /** Garbage collectors, read for the GC columns. */
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /** Heap memory pools outside the young generation, read for the old heap column. */
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+
+    /**
+     * Creates a generator for a system.
+     *
+     * @param system        the system to drive
+     * @param mixSpec       the weight of each kind, as {@code kind:weight,...}
+     * @param serviceMillis the mean service time of a walk-in appointment
+     * @throws IllegalArgumentException if the mix names an unknown kind or has no weight
+     */
+    LoadGenerator(MeasuredAppointmentSystem system, String mixSpec, double serviceMillis) {
+        this.system = system;
+        int[] weights = new int[mix.length];
+        for (String entry : mixSpec.split(",")) {
+            String[] pair = entry.trim().split(":");
+            weights[Kind.valueOf(pair[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(pair[1].trim());
+        }
+        weights[Kind.COMPLETE.ordinal()] = 0;
+        int sum = 0;
+        for (int i = 0; i < mix.length; i++) {
+            sum += weights[i];
+            mix[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Invalid mix: " + mixSpec);
+        }
+        serviceNanos = serviceMillis * 1e6;
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LatencyHistogram();
+        }
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String name = pool.getName();
+            if (pool.getType() == MemoryType.HEAP && !name.contains("Eden") && !name.contains("Survivor")) {
+                heapPools.add(pool);
+            }
+        }
+    }
+
+    /**
+     * Registers the patients and doctors the run starts with, and forgets the
+     * latencies of their registration.
+     *
+     * @param patientCount the number of patients to register
+     * @param doctorCount  the number of doctors to register
+     */
+    void load(int patientCount, int doctorCount) {
+        doctorIds = system.registerDoctors(Collections.nCopies(doctorCount, "Doctor")).getAssignedIds();
+        for (int done = 0; done < patientCount; done += 10_000) {
+            RegistrationResult result = system.registerPatients(
+                    Collections.nCopies(Math.min(10_000, patientCount - done), "Patient"));
+            for (String id : result.getAssignedIds()) {
+                patients.add(system.findPatientById(id));
+            }
+        }
+        system.getMetrics().reset();
+    }
+
+    /**
+     * Runs the generator with the options given on the command line.
+     *
+     * @param args options of the form {@code --name=value}
+     * @throws Exception if a worker fails or the journal cannot be closed
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (name == null || !DEFAULTS.containsKey(name)) {
+                System.err.println("Error: unknown option " + arg + "; options are " + DEFAULTS.keySet());
+                return;
+            }
+            options.put(name, arg.substring(equals + 1));
+        }
+        int shards = Integer.parseInt(options.get("shards"));
+        String journalFile = options.get("journal").isEmpty() ? null : options.get("journal");
+        DoctorAssignment assignment = DoctorAssignment.valueOf(options.get("assignment").toUpperCase());
+        boolean offHeap = Boolean.parseBoolean(options.get("offheap"));
+        AppointmentJournal journal = null;
+        MeasuredAppointmentSystem measured;
+        LoadGenerator generator;
+        if (shards > 0) {
+            ShardedAppointmentSystem sharded = new ShardedAppointmentSystem(shards, journalFile, false, offHeap);
+            measured = new MeasuredAppointmentSystem(sharded);
+            generator = new LoadGenerator(measured, options.get("mix"), Double.parseDouble(options.get("service")));
+            sharded.setEventSink(generator::countError);
+            sharded.setDoctorAssignment(assignment);
+        } else {
+            journal = journalFile == null ? null : new WriteBehindJournal(journalFile);
+            AppointmentSystem single = journal == null ? new AppointmentSystem(false, offHeap)
+                    : new AppointmentSystem(null, journal, false, offHeap);
+            measured = new MeasuredAppointmentSystem(single);
+            generator = new LoadGenerator(measured, options.get("mix"), Double.parseDouble(options.get("service")));
+            single.setEventSink(generator::countError);
+            single.setDoctorAssignment(assignment);
+        }
+        System.out.println("Options: " + options);
+        try {
+            generator.load(Integer.parseInt(options.get("patients")), Integer.parseInt(options.get("doctors")));
+            int threads = Integer.parseInt(options.get("threads"));
+            long duration = parseNanos(options.get("duration"));
+            long report = parseNanos(options.get("report"));
+            for (String rate : options.get("rate").split(",")) {
+                generator.runStage(threads, Double.parseDouble(rate.trim()), duration, report);
+            }
+            System.out.print(generator.summary());
+            System.out.print(measured.getMetrics().dump());
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    /**
+     * Counts the ERROR events of the system and drops every other event, so
+     * that console output does not become the bottleneck.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the first number
+     * @param value2  the second number
+     * @param text    the message, or null
+     */
+    void countError(EventType type, String subject, long value, long value2, String text) {
+        if (type == EventType.ERROR) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * Runs the workload at one rate for the given time, printing a progress
+     * line every report interval.
+     *
+     * @param threads  the number of worker threads
+     * @param rate     requests per second over all workers, or 0 for closed-loop
+     * @param duration the length of the stage in nanoseconds
+     * @param report   the time between progress lines in nanoseconds
+     * @return true if the workers kept up with the rate
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    boolean runStage(int threads, double rate, long duration, long report) throws InterruptedException {
+        System.out.printf("Stage: %s requests/s on %d threads%n", rate > 0 ? String.format("%.0f", rate) : "unlimited",
+                threads);
+        System.out.printf("%8s %10s %10s %10s %10s %10s %10s %8s %8s %8s %8s %8s%n", "Time s", "Requests/s",
+                "p50 us", "p99 us", "p99.9 us", "Max us", "Lag ms", "Away", "Errors", "Heap MB", "Old MB", "GC ms");
+        long start = System.nanoTime();
+        long end = start + duration;
+        lag.set(0);
+        CountDownLatch finished = new CountDownLatch(threads);
+        double meanGapNanos = rate > 0 ? threads * 1e9 / rate : 0;
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    work(start, end, meanGapNanos);
+                } finally {
+                    finished.countDown();
+                }
+            }, "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        long worstLag = 0;
+        long gcMillis = gcMillis();
+        long next = start + report;
+        while (!finished.await(Math.max(0, next - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            LatencyHistogram done = interval;
+            interval = new LatencyHistogram();
+            long now = System.nanoTime();
+            long gc = gcMillis();
+            worstLag = Math.max(worstLag, lag.get());
+            printLine(now - start, done, report, gc - gcMillis);
+            gcMillis = gc;
+            next += report;
+        }
+        boolean keptUp = rate <= 0 || worstLag <= report;
+        System.out.println(keptUp ? "Kept up with the rate." : "Saturated: the workers fell "
+                + TimeUnit.NANOSECONDS.toMillis(worstLag) + " ms behind schedule.");
+        return keptUp;
+    }
+
+    /**
+     * The worker loop: sends requests at random intervals until the stage ends,
+     * completing the walk-in appointments whose service time is up on the way.
+     *
+     * @param start        the value of {@link System#nanoTime()} at which the stage started
+     * @param end          the value of {@link System#nanoTime()} at which the stage ends
+     * @param meanGapNanos the mean time between two requests of this worker, or 0 for closed-loop
+     */
+    private void work(long start, long end, double meanGapNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long due = start;
+        while (true) {
+            if (meanGapNanos > 0) {
+                due += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+                if (due >= end) {
+                    return;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    lag.accumulateAndGet(-wait, Math::max);
+                }
+            } else {
+                due = System.nanoTime();
+                if (due >= end) {
+                    return;
+                }
+            }
+            Visit visit = visits.poll();
+            if (visit != null) {
+                system.completeAppointments(Collections.singletonList(visit.appointmentId));
+                record(Kind.COMPLETE, Math.max(visit.dueNanos, due));
+            }
+            Kind kind = pick(random.nextInt(mix[mix.length - 1]));
+            send(kind, random);
+            record(kind, due);
+        }
+    }
+
+    /**
+     * Returns the kind a random draw from the mix falls on.
+     *
+     * @param draw a number from 0 to the sum of the weights, exclusive
+     * @return the kind
+     */
+    private Kind pick(int draw) {
+        for (Kind kind : Kind.values()) {
+            if (draw < mix[kind.ordinal()]) {
+                return kind;
+            }
+        }
+        return Kind.LOOKUP;
+    }
+
+    /**
+     * Sends one request of the given kind with random arguments.
+     *
+     * @param kind   the kind of request
+     * @param random the worker's random numbers
+     */
+    private void send(Kind kind, ThreadLocalRandom random) {
+        switch (kind) {
+        case REGISTER:
+            String id = system.registerPatients(Collections.singletonList("Patient")).getId(0);
+            if (id != null) {
+                patients.add(system.findPatientById(id));
+            }
+            break;
+        case BOOK:
+            Appointment appointment = system.bookAppointment(randomPatient(random));
+            if (appointment == null) {
+                turnedAway.increment();
+            } else {
+                appointmentIds.add(appointment.getId());
+                long service = (long) (-Math.log(1 - random.nextDouble()) * serviceNanos);
+                visits.add(new Visit(appointment.getId(), System.nanoTime() + service));
+            }
+            break;
+        case SLOT:
+            appointment = system.bookAppointment(randomPatient(random), LocalDateTime.now());
+            if (appointment != null) {
+                appointmentIds.add(appointment.getId());
+            }
+            break;
+        case LOOKUP:
+            int booked = appointmentIds.size();
+            if (booked > 0 && random.nextBoolean()) {
+                system.findAppointmentById(appointmentIds.get(random.nextInt(booked)));
+            } else {
+                system.findPatientById(randomPatient(random).getId());
+            }
+            break;
+        case HISTORY:
+            if (random.nextBoolean()) {
+                system.findAppointmentsByDoctorId(doctorIds.get(random.nextInt(doctorIds.size())), 0, 20);
+            } else {
+                system.findAppointmentsByPatientId(randomPatient(random).getId(), 0, 20);
+            }
+            break;
+        case SAVE:
+            system.saveAppointmentsToFile();
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Returns a random registered patient.
+     *
+     * @param random the worker's random numbers
+     * @return the patient
+     */
+    private Patient randomPatient(ThreadLocalRandom random) {
+        return patients.get(random.nextInt(patients.size()));
+    }
+
+    /**
+     * Records the response time of a request that was due at the given time.
+     *
+     * @param kind the kind of request
+     * @param due  the value of {@link System#nanoTime()} at which it was due
+     */
+    private void record(Kind kind, long due) {
+        long nanos = System.nanoTime() - due;
+        totals[kind.ordinal()].record(nanos);
+        interval.record(nanos);
+    }
+
+    /**
+     * Prints one progress line. Completions count as requests, so the rate
+     * shown is above the configured one by the share of walk-in bookings.
+     *
+     * @param elapsed the time since the stage started in nanoseconds
+     * @param done    the response times of the interval
+     * @param report  the length of the interval in nanoseconds
+     * @param gcMillis the time spent in GC during the interval
+     */
+    private void printLine(long elapsed, LatencyHistogram done, long report, long gcMillis) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.printf("%8d %10.0f %10.1f %10.1f %10.1f %10.1f %10d %8d %8d %8d %8d %8d%n",
+                TimeUnit.NANOSECONDS.toSeconds(elapsed), done.getCount() * 1e9 / report,
+                done.getValueAtPercentile(50) / 1000.0, done.getValueAtPercentile(99) / 1000.0,
+                done.getValueAtPercentile(99.9) / 1000.0, done.getMax() / 1000.0,
+                TimeUnit.NANOSECONDS.toMillis(lag.getAndSet(0)), turnedAway.sum(), errors.sum(),
+                heap.getUsed() >> 20, oldBytes() >> 20, gcMillis);
+    }
+
+    /**
+     * Returns the summary of the whole run, one line per kind of request.
+     *
+     * @return the summary
+     */
+    String summary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%-10s %10s %10s %10s %10s %10s%n", "Request", "Count", "p50 us", "p99 us",
+                "p99.9 us", "Max us"));
+        for (Kind kind : Kind.values()) {
+            LatencyHistogram histogram = totals[kind.ordinal()];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            summary.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", kind, histogram.getCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMax() / 1000.0));
+        }
+        summary.append(String.format("Turned away: %d, Errors: %d, Old heap: %d MB, GC: %d ms%n",
+                turnedAway.sum(), errors.sum(), oldBytes() >> 20, gcMillis()));
+        return summary.toString();
+    }
+
+    /**
+     * Returns the heap in use outside the young generation. Objects only get
+     * there by surviving collections, so over a soak run this follows the
+     * data set rather than the garbage. Collectors without generations report
+     * their whole heap.
+     *
+     * @return the old heap in bytes
+     */
+    private long oldBytes() {
+        long bytes = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            bytes += pool.getUsage().getUsed();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the time spent in garbage collection since the JVM started.
+     *
+     * @return the GC time in milliseconds
+     */
+    private long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Parses a duration with an optional {@code s}, {@code m} or {@code h} suffix.
+     *
+     * @param text the duration; seconds without a suffix
+     * @return the duration in nanoseconds
+     */
+    static long parseNanos(String text) {
+        String value = text.trim().toLowerCase();
+        TimeUnit unit = TimeUnit.SECONDS;
+        if (value.endsWith("h")) {
+            unit = TimeUnit.HOURS;
+        } else if (value.endsWith("m")) {
+            unit = TimeUnit.MINUTES;
+        }
+        if (!Character.isDigit(value.charAt(value.length() - 1))) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return unit.toNanos(Long.parseLong(value));
+    }
+}
\ No newline at end of file
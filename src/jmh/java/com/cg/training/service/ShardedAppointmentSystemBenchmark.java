@@ -0,0 +1,191 @@
+package com.cg.training.service;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+
+/**
+ * JMH benchmarks for the write paths of {@link ShardedAppointmentSystem},
+ * next to {@link AppointmentSystemBenchmark} for the unsharded system.
+ * <p>
+ * The throughput of the write benchmarks should grow with the thread count
+ * when there are at least as many shards as threads; with one shard it shows
+ * the contention of the unsharded system. The patient listing shows what the
+ * fan-out over all shards costs a read.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedAppointmentSystemBenchmark {
+
+    /**
+     * A preloaded sharded system shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Loaded {
+
+        /** Number of shards. */
+        @Param({ "1", "4", "16" })
+        public int shards;
+
+        /** Number of preloaded patients and appointments. */
+        @Param({ "10000", "100000", "1000000" })
+        public int size;
+
+        /** The system under test. */
+        ShardedAppointmentSystem system;
+
+        /** Console to restore after the run. */
+        private PrintStream console;
+
+        /**
+         * Silences the console and loads the system.
+         */
+        @Setup(Level.Trial)
+        public void load() {
+            console = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+            system = new ShardedAppointmentSystem(shards);
+            for (int i = 0; i < AppointmentSystemBenchmark.DOCTORS; i++) {
+                system.registerDoctor("Doctor");
+            }
+            for (int i = 0; i < size; i++) {
+                system.registerPatient("Patient");
+                Appointment appointment = system.bookAppointment(system.findPatientById("P" + (1000 + i)));
+                if (appointment != null) {
+                    complete(system, appointment);
+                }
+            }
+        }
+
+        /**
+         * Restores the console.
+         */
+        @TearDown(Level.Trial)
+        public void unload() {
+            System.setOut(console);
+        }
+
+        /**
+         * Returns the ID of a random preloaded patient.
+         *
+         * @return a patient ID
+         */
+        String randomPatientId() {
+            return "P" + (1000 + ThreadLocalRandom.current().nextInt(size));
+        }
+    }
+
+    /**
+     * A patient of its own for every benchmark thread. Consecutive threads get
+     * consecutive ID numbers, so their bookings start at different shards.
+     */
+    @State(Scope.Thread)
+    public static class Visitor {
+
+        /** Hands out distinct patient numbers to threads. */
+        private static final AtomicInteger NEXT = new AtomicInteger(900_000_000);
+
+        /** The thread's patient. */
+        Patient patient;
+
+        /**
+         * Creates the thread's patient.
+         */
+        @Setup(Level.Trial)
+        public void create() {
+            patient = new Patient("P" + NEXT.getAndIncrement(), "Visitor");
+        }
+    }
+
+    /**
+     * Completes an appointment that was just booked, found through its doctor's shard.
+     *
+     * @param system      the sharded system
+     * @param appointment the appointment to complete
+     */
+    static void complete(ShardedAppointmentSystem system, Appointment appointment) {
+        int s = system.shardIndex(appointment.doctor.getIdNumber());
+        ConcurrentIntList own = system.shards[s].appointmentsByPatientId.get(appointment.patient.getKey());
+        system.completeAppointment(system.globalIndex(s, own.getInt(own.size() - 1)));
+    }
+
+    /**
+     * Registers one more patient.
+     *
+     * @param state the loaded system
+     */
+    @Benchmark
+    public void registerPatient(Loaded state) {
+        state.system.registerPatient("Ram");
+    }
+
+    /**
+     * Books an appointment and completes it again.
+     *
+     * @param state   the loaded system
+     * @param visitor the thread's own patient
+     * @return the booked appointment
+     */
+    @Benchmark
+    public Appointment bookAndComplete(Loaded state, Visitor visitor) {
+        Appointment appointment = state.system.bookAppointment(visitor.patient);
+        if (appointment != null) {
+            complete(state.system, appointment);
+        }
+        return appointment;
+    }
+
+    /**
+     * Looks up a random patient by ID.
+     *
+     * @param state the loaded system
+     * @return the patient found
+     */
+    @Benchmark
+    public Patient findPatientById(Loaded state) {
+        return state.system.findPatientById(state.randomPatientId());
+    }
+
+    /**
+     * Reads the first page of a random patient's appointments from all shards.
+     *
+     * @param state the loaded system
+     * @return the page read
+     */
+    @Benchmark
+    public Page<Integer> findAppointmentsByPatientId(Loaded state) {
+        return state.system.findAppointmentsByPatientId(state.randomPatientId(), 0, 20);
+    }
+}
\ No newline at end of file
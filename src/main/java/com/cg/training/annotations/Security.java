@@ -6,11 +6,19 @@ import java.lang.annotation.Target;
 import java.lang.annotation.ElementType;
 
 /**
- * The Security annotation is used to mark a class with a required user role.
+ * The Security annotation is used to mark a class or method with a required user role.
  * It can help implement role-based access control in your application.
  * 
- * This annotation can only be applied to types (i.e., classes or interfaces),
- * and it is retained at runtime so it can be accessed via reflection.
+ * This annotation can be applied to types (i.e., classes or interfaces) and to
+ * methods, and it is retained at runtime so it can be accessed via reflection.
+ * Within one class or interface, an annotation on a method takes precedence
+ * over one on the type. Across a class, its superclasses and its interfaces,
+ * every annotation that applies must allow the caller, so the stricter one
+ * wins: a class locked to Admin stays locked even where the interface opens a
+ * method to Doctor and Admin.
+ * {@link com.cg.training.security.SecurityPolicy} resolves the annotations of
+ * an appointment system once, and
+ * {@link com.cg.training.service.SecuredAppointmentSystem} enforces them.
  * 
  * Example:
  * <pre>
@@ -21,13 +29,14 @@ import java.lang.annotation.ElementType;
  * </pre>
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.TYPE)
+@Target({ ElementType.TYPE, ElementType.METHOD })
 public @interface Security {
 
     /**
-     * Specifies the role required to access the annotated class.
+     * Specifies the roles allowed to access the annotated class or method;
+     * any one of them is enough.
      * 
-     * @return The required role (e.g., "Admin", "Doctor").
+     * @return The allowed roles (e.g., {@code "Admin"} or {@code { "Doctor", "Admin" }}).
      */
-    String role();
+    String[] role();
 }
\ No newline at end of file
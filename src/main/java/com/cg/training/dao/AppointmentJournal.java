@@ -0,0 +1,233 @@
+package com.cg.training.dao;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * AppointmentJournal is an append-only record file for the appointment system.
+ * <p>
+ * Every change to the system (a registration, a booking, a completion, a
+ * cancellation or a doctor removal) is written as one comma separated line, so the cost of
+ * persisting an operation does not depend on how much history exists.
+ * On startup the journal is replayed from the beginning to rebuild the
+ * patients, doctors and appointments.
+ * </p>
+ * <p>
+ * Record layout (first field is the record type):
+ * </p>
+ * <pre>
+ * P,&lt;patientId&gt;,&lt;name&gt;                       patient registered
+ * D,&lt;doctorId&gt;,&lt;name&gt;                        doctor registered
+ * R,&lt;doctorId&gt;                               doctor removed
+ * B,&lt;patientId&gt;,&lt;patientName&gt;,&lt;doctorId&gt;,&lt;appointmentId&gt;   appointment booked
+ * S,&lt;patientId&gt;,&lt;patientName&gt;,&lt;doctorId&gt;,&lt;slot&gt;,&lt;appointmentId&gt;   appointment booked in a time slot
+ * C,&lt;appointmentId&gt;                          appointment completed
+ * X,&lt;appointmentId&gt;                          appointment cancelled
+ * </pre>
+ * Names can never contain a comma because they are validated to letters and spaces.
+ * Journals written before appointments had IDs end their booking records at
+ * the doctor ID or slot, and name the appointment of a completion by its
+ * position instead.
+ */
+public class AppointmentJournal {
+
+    /** Record type for a registered patient. */
+    public static final String PATIENT = "P";
+
+    /** Record type for a registered doctor. */
+    public static final String DOCTOR = "D";
+
+    /** Record type for a removed doctor. */
+    public static final String REMOVE_DOCTOR = "R";
+
+    /** Record type for a booked appointment. */
+    public static final String BOOK = "B";
+
+    /** Record type for an appointment booked in a time slot. */
+    public static final String BOOK_SLOT = "S";
+
+    /** Record type for a completed appointment. */
+    public static final String COMPLETE = "C";
+
+    /** Record type for a cancelled appointment. */
+    public static final String CANCEL = "X";
+
+    /** Separator between the fields of one record. */
+    private static final char SEPARATOR = ',';
+
+    /** Path of the journal file. */
+    private final String fileName;
+
+    /** Writer kept open in append mode, created on the first append. */
+    private BufferedWriter writer;
+
+    /**
+     * Creates a journal backed by the given file.
+     * The file is created on the first append if it does not exist yet.
+     *
+     * @param fileName the path of the journal file
+     */
+    public AppointmentJournal(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Returns the path of the journal file.
+     *
+     * @return the journal file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Appends one record to the journal. The record is buffered and
+     * reaches the disk on the next {@link #flush()}.
+     *
+     * @param fields the record type followed by its values
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void append(String... fields) throws IOException {
+        if (writer == null) {
+            writer = new BufferedWriter(new FileWriter(fileName, true));
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            writer.write(fields[i]);
+        }
+        writer.newLine();
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        flushWriter();
+    }
+
+    /**
+     * Makes the records appended so far durable. This journal writes them
+     * to the file at once, like {@link #flush()}; {@link WriteBehindJournal}
+     * leaves them to its background writer and returns immediately.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void commit() throws IOException {
+        flush();
+    }
+
+    /**
+     * Reads the journal from the beginning and hands every record,
+     * split into its fields, to the given handler.
+     * A missing file is treated as an empty journal.
+     *
+     * @param handler receives the fields of each record in file order
+     * @throws IOException if the file exists but cannot be read
+     */
+    public synchronized void replay(Consumer<String[]> handler) throws IOException {
+        flush();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    handler.accept(line.split(String.valueOf(SEPARATOR)));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing has been journaled yet.
+        }
+    }
+
+    /**
+     * Writes the buffered records and returns the length of the file. Unlike
+     * {@link #flush()} this never calls a method a subclass can override, so
+     * a subclass can use it in the middle of writing a batch.
+     *
+     * @return the length in bytes, 0 if nothing has been journaled yet
+     * @throws IOException if the file cannot be written
+     */
+    final synchronized long rawLength() throws IOException {
+        flushWriter();
+        return new File(fileName).length();
+    }
+
+    /**
+     * Cuts the file back to the given length, dropping every record written
+     * or buffered after it. Like {@link #rawLength()} it never calls a method
+     * a subclass can override, in particular not {@link #close()}.
+     *
+     * @param length the length in bytes returned by {@link #rawLength()}
+     * @throws IOException if the file cannot be truncated
+     */
+    final synchronized void rawTruncate(long length) throws IOException {
+        try {
+            closeWriter();
+        } finally {
+            if (new File(fileName).exists()) {
+                try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.WRITE)) {
+                    channel.truncate(length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every record from the journal.
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    public synchronized void clear() throws IOException {
+        closeWriter();
+        new FileOutputStream(fileName).close();
+    }
+
+    /**
+     * Flushes and closes the underlying file. A later append reopens it.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void close() throws IOException {
+        closeWriter();
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void flushWriter() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Flushes and closes the writer. It is dropped even if closing fails, so
+     * the next append opens the file again.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+}
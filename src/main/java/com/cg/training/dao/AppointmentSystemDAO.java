@@ -1,7 +1,16 @@
 package com.cg.training.dao;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import com.cg.training.annotations.Security;
 import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
 import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
 
 /**
  * AppointmentSystemDAO defines the operations for managing patients,
@@ -9,6 +18,8 @@ import com.cg.training.models.Patient;
  * 
  * This interface includes methods for registration, booking, displaying,
  * and managing appointments and related data.
+ * Operations limited to some roles carry a {@link Security} annotation;
+ * the others are open to every role.
  * 
  * @author 
  */
@@ -28,8 +39,43 @@ public interface AppointmentSystemDAO {
      * 
      * @param name The name of the doctor.
      */
+    @Security(role = { "Doctor", "Admin" })
     void registerDoctor(String name);
 
+    /**
+     * Registers many patients in one call.
+     * A contiguous block of IDs is reserved for the whole batch, one per name,
+     * and every name is validated. Rows with an invalid name are reported in
+     * the result and their reserved ID is left unused.
+     * 
+     * @param names The names of the patients.
+     * @return The ID assigned to each row and the error of each rejected row.
+     */
+    RegistrationResult registerPatients(Collection<String> names);
+
+    /**
+     * Registers many doctors in one call.
+     * A contiguous block of IDs is reserved for the whole batch, one per name,
+     * and every name is validated. Rows with an invalid name are reported in
+     * the result and their reserved ID is left unused.
+     * 
+     * @param names The names of the doctors.
+     * @return The ID assigned to each row and the error of each rejected row.
+     */
+    @Security(role = { "Doctor", "Admin" })
+    RegistrationResult registerDoctors(Collection<String> names);
+
+    /**
+     * Imports patients and doctors from a CSV roster with one {@code role,name}
+     * row per person, where the role is "patient" or "doctor".
+     * Rejected rows are listed in the report and written next to the roster.
+     * 
+     * @param fileName The path of the roster file.
+     * @return The counts and rejected rows, or null if the roster could not be read.
+     */
+    @Security(role = "Admin")
+    ImportReport importRoster(String fileName);
+
     /**
      * Books an appointment for a given patient with the first available doctor.
      * 
@@ -38,13 +84,35 @@ public interface AppointmentSystemDAO {
      */
     Appointment bookAppointment(Patient patient);
 
+    /**
+     * Books an appointment for a given patient in the earliest free time slot
+     * of any doctor, starting no earlier than the given time. A slot that
+     * has already started is never booked.
+     * 
+     * @param patient   The patient for whom the appointment is to be booked.
+     * @param notBefore The earliest acceptable start of the appointment.
+     * @return The booked appointment, or null if no doctor is registered.
+     */
+    SlottedAppointment bookAppointment(Patient patient, LocalDateTime notBefore);
+
     /**
      * Marks the appointment at the specified index as completed.
      * 
      * @param index The index of the appointment in the list.
      */
+    @Security(role = { "Doctor", "Admin" })
     void completeAppointment(int index);
 
+    /**
+     * Marks many appointments as completed in one pass, as when a shift is closed.
+     * Appointments that are unknown, already completed or cancelled are skipped.
+     * 
+     * @param appointmentIds The IDs of the appointments, such as "A12".
+     * @return The number of appointments completed.
+     */
+    @Security(role = { "Doctor", "Admin" })
+    int completeAppointments(Collection<String> appointmentIds);
+
     /**
      * Displays the profile of all registered doctors.
      */
@@ -69,6 +137,63 @@ public interface AppointmentSystemDAO {
      */
     void showAppointmentsByPatientId(String patientId);
 
+    /**
+     * Returns one page of the registered doctors, in registration order.
+     * 
+     * @param offset The position of the first doctor to return.
+     * @param limit  The largest number of doctors to return.
+     * @return The requested page of doctors.
+     */
+    Page<Doctor> findDoctors(int offset, int limit);
+
+    /**
+     * Returns one page of all appointment indexes, in booking order.
+     * Use {@link #getAppointment(int)} to read the appointment behind an index.
+     * 
+     * @param offset The position of the first appointment to return.
+     * @param limit  The largest number of appointments to return.
+     * @return The requested page of appointment indexes.
+     */
+    Page<Integer> findAppointments(int offset, int limit);
+
+    /**
+     * Returns one page of the appointment indexes of a doctor, in booking order.
+     * Only the requested page is read, however long the doctor's history is.
+     * 
+     * @param doctorId The unique ID of the doctor.
+     * @param offset   The position of the first appointment to return.
+     * @param limit    The largest number of appointments to return.
+     * @return The requested page, empty if the doctor has no appointments.
+     */
+    Page<Integer> findAppointmentsByDoctorId(String doctorId, int offset, int limit);
+
+    /**
+     * Returns one page of the appointment indexes of a patient, in booking order.
+     * 
+     * @param patientId The unique ID of the patient.
+     * @param offset    The position of the first appointment to return.
+     * @param limit     The largest number of appointments to return.
+     * @return The requested page, empty if the patient has no appointments.
+     */
+    Page<Integer> findAppointmentsByPatientId(String patientId, int offset, int limit);
+
+    /**
+     * Returns the appointment at the given index.
+     * 
+     * @param index The index of the appointment in the list.
+     * @return The Appointment object, or null if the index is out of range.
+     */
+    Appointment getAppointment(int index);
+
+    /**
+     * Finds an appointment by its stable ID, such as "A12", in constant time.
+     * The number in the ID is the appointment's index, so the ID never changes.
+     * 
+     * @param appointmentId The unique ID of the appointment.
+     * @return The Appointment object, or null if not found.
+     */
+    Appointment findAppointmentById(String appointmentId);
+
     /**
      * Finds and returns a patient by their ID.
      * 
@@ -78,14 +203,44 @@ public interface AppointmentSystemDAO {
     Patient findPatientById(String id);
 
     /**
-     * Saves all appointment details to a file.
-     * This method can be used to persist appointment data.
+     * Finds and returns a doctor by their ID.
+     * 
+     * @param id The unique ID of the doctor.
+     * @return The Doctor object, or null if not found.
+     */
+    Doctor findDoctorById(String id);
+
+    /**
+     * Removes a registered doctor using their ID.
+     * Appointments of the doctor that have not taken place are cancelled.
+     * All appointments remain in the history.
+     * 
+     * @param doctorId The unique ID of the doctor.
+     */
+    @Security(role = "Admin")
+    void removeDoctor(String doctorId);
+
+    /**
+     * Removes many doctors in one call, as when a department closes.
+     * Appointments of these doctors that have not taken place are cancelled.
+     * Unknown IDs are skipped.
+     * 
+     * @param doctorIds The unique IDs of the doctors.
+     * @return The number of doctors removed.
+     */
+    @Security(role = "Admin")
+    int removeDoctors(Collection<String> doctorIds);
+
+    /**
+     * Saves the appointment changes made since the last save to a file.
+     * Only the new changes are written, so the cost does not grow with history.
      */
     void saveAppointmentsToFile();
 
     /**
      * Clears the contents of the appointment file.
-     * Typically used before exiting the application to reset the data file.
+     * Used to reset the persisted data so the next start begins empty.
      */
+    @Security(role = "Admin")
     void clearAllContentsOfTheFile();
 }
\ No newline at end of file
@@ -0,0 +1,310 @@
+package com.cg.training.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotFile reads and writes compact binary snapshots through memory-mapped
+ * file channels.
+ * <p>
+ * A snapshot starts with a magic number and a format version. After that the
+ * content is a plain sequence of bytes, ints and length-prefixed UTF-8 strings
+ * whose layout is decided by the caller. The file is mapped in windows of at
+ * most {@link #WINDOW_SIZE} bytes, so snapshots larger than 2 GB work as well.
+ * Values never straddle two windows: a new window is mapped starting at the
+ * value that would not fit.
+ * </p>
+ */
+public final class SnapshotFile {
+
+    /** Magic number at the start of every snapshot ("MAS1"). */
+    public static final int MAGIC = 0x4D415331;
+
+    /**
+     * Version of the snapshot layout. Version 2 added appointments in time
+     * slots; version 1 files are still read.
+     */
+    public static final int VERSION = 2;
+
+    /** Number of bytes taken by the magic number and version. */
+    public static final int HEADER_SIZE = 8;
+
+    /** Largest region of the file mapped at once. */
+    static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Not instantiated; use {@link Output} and {@link Input}.
+     */
+    private SnapshotFile() {
+    }
+
+    /**
+     * Returns the number of bytes a string takes in a snapshot.
+     *
+     * @param value the string
+     * @return the encoded size including the two-byte length prefix
+     */
+    public static int sizeOf(String value) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return 2 + bytes;
+    }
+
+    /**
+     * Writes a snapshot of a size known in advance.
+     */
+    public static final class Output implements Closeable {
+
+        /** Channel of the snapshot file. */
+        private final FileChannel channel;
+
+        /** Total size of the snapshot in bytes. */
+        private final long size;
+
+        /** File position at which {@link #buffer} starts. */
+        private long windowStart;
+
+        /** The currently mapped window. */
+        private MappedByteBuffer buffer;
+
+        /**
+         * Creates (or replaces) a snapshot file of exactly the given size and
+         * writes its header.
+         *
+         * @param file the snapshot file
+         * @param size the total size in bytes, including the header
+         * @throws IOException if the file cannot be created or mapped
+         */
+        public Output(Path file, long size) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.size = size;
+            map(0);
+            putInt(MAGIC);
+            putInt(VERSION);
+        }
+
+        /**
+         * Writes one byte.
+         *
+         * @param value the byte
+         * @throws IOException if the next window cannot be mapped
+         */
+        public void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Writes one int.
+         *
+         * @param value the int
+         * @throws IOException if the next window cannot be mapped
+         */
+        public void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes a string as a two-byte length followed by its UTF-8 bytes.
+         *
+         * @param value the string, at most 65535 encoded bytes
+         * @throws IOException if the next window cannot be mapped
+         */
+        public void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("String too long for snapshot: " + bytes.length + " bytes");
+            }
+            ensure(2 + bytes.length);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        /**
+         * Forces the written bytes to disk and closes the file.
+         *
+         * @throws IOException if the data cannot be forced or the file closed
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (windowStart + buffer.position() != size) {
+                    throw new IOException("Snapshot size mismatch: wrote " + (windowStart + buffer.position())
+                            + " of " + size + " bytes");
+                }
+                buffer.force();
+            } finally {
+                channel.close();
+            }
+        }
+
+        /**
+         * Makes sure the current window has room for the given number of bytes.
+         *
+         * @param bytes the number of bytes about to be written
+         * @throws IOException if the next window cannot be mapped
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                buffer.force();
+                map(windowStart + buffer.position());
+                if (buffer.remaining() < bytes) {
+                    throw new IOException("Snapshot larger than its declared size " + size);
+                }
+            }
+        }
+
+        /**
+         * Maps the window starting at the given position.
+         *
+         * @param position the file position of the new window
+         * @throws IOException if the window cannot be mapped
+         */
+        private void map(long position) throws IOException {
+            windowStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(WINDOW_SIZE, size - position));
+        }
+    }
+
+    /**
+     * Reads a snapshot from start to end.
+     */
+    public static final class Input implements Closeable {
+
+        /** Channel of the snapshot file. */
+        private final FileChannel channel;
+
+        /** Total size of the snapshot in bytes. */
+        private final long size;
+
+        /** File position at which {@link #buffer} starts. */
+        private long windowStart;
+
+        /** The currently mapped window. */
+        private MappedByteBuffer buffer;
+
+        /** Reusable buffer for decoding strings. */
+        private byte[] scratch = new byte[64];
+
+        /**
+         * Opens a snapshot file and checks its header.
+         *
+         * @param file the snapshot file
+         * @throws IOException if the file cannot be read or is not a snapshot
+         */
+        public Input(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                this.size = channel.size();
+                if (size < HEADER_SIZE) {
+                    throw new IOException("Not an appointment snapshot: " + file);
+                }
+                map(0);
+                if (getInt() != MAGIC) {
+                    throw new IOException("Not an appointment snapshot: " + file);
+                }
+                int version = getInt();
+                if (version < 1 || version > VERSION) {
+                    throw new IOException("Unsupported snapshot version " + version);
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Reads one byte.
+         *
+         * @return the byte as an unsigned value
+         * @throws IOException if the snapshot ends early
+         */
+        public int getByte() throws IOException {
+            ensure(1);
+            return buffer.get() & 0xFF;
+        }
+
+        /**
+         * Reads one int.
+         *
+         * @return the int
+         * @throws IOException if the snapshot ends early
+         */
+        public int getInt() throws IOException {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        /**
+         * Reads a string written by {@link Output#putString(String)}.
+         *
+         * @return the string
+         * @throws IOException if the snapshot ends early
+         */
+        public String getString() throws IOException {
+            ensure(2);
+            int length = buffer.getShort() & 0xFFFF;
+            ensure(length);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException if the file cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Makes sure the current window holds the given number of unread bytes.
+         *
+         * @param bytes the number of bytes about to be read
+         * @throws IOException if the snapshot ends early
+         */
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                map(windowStart + buffer.position());
+                if (buffer.remaining() < bytes) {
+                    throw new IOException("Snapshot is truncated.");
+                }
+            }
+        }
+
+        /**
+         * Maps the window starting at the given position.
+         *
+         * @param position the file position of the new window
+         * @throws IOException if the window cannot be mapped
+         */
+        private void map(long position) throws IOException {
+            windowStart = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.cg.training.dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AppointmentJournal} whose records are written by a background
+ * thread, so a booking or completion never waits for the disk.
+ * <p>
+ * {@link #append(String...)} only queues the record. The writer thread wakes
+ * on the first queued record, waits for the durability window so that the
+ * records of other users pile up behind it, and then writes and flushes the
+ * whole batch at once (group commit). {@link #commit()} returns immediately;
+ * {@link #flush()} writes everything queued on the calling thread and is
+ * what shutdown, snapshots and replay use.
+ * </p>
+ * <p>
+ * Durability: a record reaches the operating system at most one window
+ * after it was appended, and is then as safe as with a plain journal, which
+ * never forces the file to the device either. If the process dies in
+ * between, the records of that window are lost; the state they describe was
+ * already visible to users. A batch whose write fails is cut from the file
+ * again, kept and retried with the next batch, so no record is written
+ * twice; its error is thrown by the next {@link #commit()} or
+ * {@link #flush()}.
+ * </p>
+ */
+public class WriteBehindJournal extends AppointmentJournal {
+
+    /** Durability window used unless another is given, in milliseconds. */
+    public static final long DEFAULT_WINDOW_MILLIS = 200;
+
+    /** Longest time a record waits in the queue, in nanoseconds. */
+    private final long windowNanos;
+
+    /**
+     * Guards the queue, the writer thread and the failure. Batches are
+     * written under the journal's own lock, which is always taken first, so
+     * records reach the file in append order.
+     */
+    private final Object queueLock = new Object();
+
+    /** Records appended and not yet taken by a batch. */
+    private List<String[]> pending = new ArrayList<>();
+
+    /** Number of records in the batch being written. */
+    private int writing;
+
+    /**
+     * Length the file must be cut back to before the next batch, because a
+     * failed batch could not be removed from it; -1 when the file is whole.
+     * Guarded by the journal's own lock.
+     */
+    private long cutLength = -1;
+
+    /** The current writer thread, started on the first append; null when stopped. */
+    private Thread writer;
+
+    /** The last error of the writer thread not yet reported, or null. */
+    private IOException failure;
+
+    /**
+     * Creates a journal with the default durability window.
+     *
+     * @param fileName the path of the journal file
+     */
+    public WriteBehindJournal(String fileName) {
+        this(fileName, DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * Creates a journal with the given durability window.
+     *
+     * @param fileName     the path of the journal file
+     * @param windowMillis the longest time a record waits before it is written;
+     *                     0 writes every batch as soon as the writer wakes
+     * @throws IllegalArgumentException if the window is negative
+     */
+    public WriteBehindJournal(String fileName, long windowMillis) {
+        super(fileName);
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Invalid durability window: " + windowMillis);
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * Queues one record for the writer thread.
+     *
+     * @param fields the record type followed by its values
+     */
+    @Override
+    public void append(String... fields) {
+        synchronized (queueLock) {
+            pending.add(fields);
+            if (writer == null) {
+                writer = new Thread(this::writeBehind, "appointment-journal");
+                writer.setDaemon(true);
+                writer.start();
+            } else if (pending.size() == 1) {
+                queueLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Returns at once; the queued records are written within the durability
+     * window.
+     *
+     * @throws IOException if an earlier background write failed
+     */
+    @Override
+    public void commit() throws IOException {
+        reportFailure();
+    }
+
+    /**
+     * Writes every queued record to the file on the calling thread.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        reportFailure();
+        writePending();
+    }
+
+    /**
+     * Drops the queued records and removes every record from the journal.
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    @Override
+    public void clear() throws IOException {
+        synchronized (this) {
+            synchronized (queueLock) {
+                pending = new ArrayList<>();
+                failure = null;
+            }
+            cutLength = -1;
+            super.clear();
+        }
+    }
+
+    /**
+     * Stops the writer thread, writes every queued record and closes the
+     * file. A later append starts a new writer.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (queueLock) {
+            writer = null;
+            queueLock.notifyAll();
+        }
+        synchronized (this) {
+            writePending();
+            super.close();
+        }
+    }
+
+    /**
+     * Returns the number of records appended and not yet written.
+     *
+     * @return the length of the queue
+     */
+    public int getPendingCount() {
+        synchronized (queueLock) {
+            return pending.size() + writing;
+        }
+    }
+
+    /**
+     * Throws the error of a failed background write once.
+     *
+     * @throws IOException the error, if there was one
+     */
+    private void reportFailure() throws IOException {
+        IOException error;
+        synchronized (queueLock) {
+            error = failure;
+            failure = null;
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Takes every queued record and writes it as one batch. If the write
+     * fails, the part of the batch already written is cut from the file and
+     * the whole batch is put back in front of the queue, ahead of the records
+     * appended meanwhile. Only the raw file operations of the base journal
+     * are used here: the overridden {@link #flush()} and {@link #close()}
+     * would write those newer records ahead of the batch or stop the writer.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void writePending() throws IOException {
+        synchronized (this) {
+            List<String[]> batch;
+            synchronized (queueLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                writing = batch.size();
+            }
+            long start = -1;
+            try {
+                if (cutLength >= 0) {
+                    rawTruncate(cutLength);
+                    cutLength = -1;
+                }
+                start = rawLength();
+                for (String[] fields : batch) {
+                    writeRecord(fields);
+                }
+                super.flush();
+            } catch (IOException e) {
+                if (start >= 0) {
+                    cutLength = start;
+                    try {
+                        rawTruncate(start);
+                        cutLength = -1;
+                    } catch (IOException cut) {
+                        e.addSuppressed(cut);
+                    }
+                }
+                synchronized (queueLock) {
+                    batch.addAll(pending);
+                    pending = batch;
+                    writing = 0;
+                }
+                throw e;
+            }
+            synchronized (queueLock) {
+                writing = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes one record of a batch to the file buffer. Tests override it to
+     * make a batch fail part way.
+     *
+     * @param fields the record type followed by its values
+     * @throws IOException if the file cannot be written
+     */
+    void writeRecord(String[] fields) throws IOException {
+        super.append(fields);
+    }
+
+    /**
+     * The writer loop: waits for a record, lets the window pass and writes
+     * the batch, until {@link #close()} replaces this thread.
+     */
+    private void writeBehind() {
+        Thread self = Thread.currentThread();
+        try {
+            while (true) {
+                synchronized (queueLock) {
+                    while (pending.isEmpty() && writer == self) {
+                        queueLock.wait();
+                    }
+                    long deadline = System.nanoTime() + windowNanos;
+                    for (long left = windowNanos; left > 0 && writer == self; left = deadline - System.nanoTime()) {
+                        TimeUnit.NANOSECONDS.timedWait(queueLock, left);
+                    }
+                    if (writer != self) {
+                        return; // close() writes what is left
+                    }
+                }
+                try {
+                    writePending();
+                } catch (IOException e) {
+                    synchronized (queueLock) {
+                        failure = e;
+                    }
+                    System.err.println("Error: journal could not be written: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
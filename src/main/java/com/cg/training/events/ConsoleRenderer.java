@@ -0,0 +1,34 @@
+package com.cg.training.events;
+
+/**
+ * Renders events as message lines on {@link System#out}. The lines of a
+ * batch are collected and printed with one call, so the console lock is
+ * taken once per batch.
+ */
+public class ConsoleRenderer implements EventRenderer {
+
+    /** The lines of the current batch. */
+    private final StringBuilder lines = new StringBuilder();
+
+    /**
+     * Adds the event's message to the current batch.
+     *
+     * @param event the event
+     */
+    @Override
+    public void render(SystemEvent event) {
+        lines.append(event.getMessage()).append(System.lineSeparator());
+    }
+
+    /**
+     * Prints the current batch.
+     */
+    @Override
+    public void endOfBatch() {
+        if (lines.length() > 0) {
+            System.out.print(lines);
+            System.out.flush();
+            lines.setLength(0);
+        }
+    }
+}
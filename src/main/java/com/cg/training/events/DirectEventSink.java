@@ -0,0 +1,36 @@
+package com.cg.training.events;
+
+/**
+ * Renders every event on the thread that reports it, one event at a time.
+ * This is what the appointment system uses unless another sink is set, so
+ * messages appear before the reporting call returns.
+ */
+public class DirectEventSink implements EventSink {
+
+    /** The renderer every event is handed to. */
+    private final EventRenderer renderer;
+
+    /**
+     * Creates a sink that renders through the given renderer.
+     *
+     * @param renderer the renderer
+     */
+    public DirectEventSink(EventRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Renders an event at once.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the first number
+     * @param value2  the second number
+     * @param text    the message of an INFO or ERROR event, or null
+     */
+    @Override
+    public synchronized void publish(EventType type, String subject, long value, long value2, String text) {
+        renderer.render(new SystemEvent(type, subject, value, value2, text));
+        renderer.endOfBatch();
+    }
+}
@@ -0,0 +1,26 @@
+package com.cg.training.events;
+
+/**
+ * An EventRenderer turns events into output. A sink calls it from one thread
+ * at a time, so implementations need not be thread-safe.
+ */
+public interface EventRenderer {
+
+    /** A renderer that ignores every event. */
+    EventRenderer NONE = event -> {
+    };
+
+    /**
+     * Renders one event. The event must not be kept after this returns.
+     *
+     * @param event the event
+     */
+    void render(SystemEvent event);
+
+    /**
+     * Called after a run of events, so buffered output can be written out once
+     * per run instead of once per event.
+     */
+    default void endOfBatch() {
+    }
+}
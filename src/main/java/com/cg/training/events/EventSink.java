@@ -0,0 +1,63 @@
+package com.cg.training.events;
+
+/**
+ * An EventSink receives the events reported by the appointment system.
+ * <p>
+ * Implementations must be safe to call from many threads at once.
+ * {@link DirectEventSink} renders every event on the calling thread;
+ * {@link RingBufferEventSink} queues it for a background thread.
+ * </p>
+ */
+public interface EventSink {
+
+    /** A sink that drops every event. */
+    EventSink DISCARD = (type, subject, value, value2, text) -> {
+    };
+
+    /**
+     * Reports an event.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the first number, as described by the type
+     * @param value2  the second number, as described by the type
+     * @param text    the message of an INFO or ERROR event, or null
+     */
+    void publish(EventType type, String subject, long value, long value2, String text);
+
+    /**
+     * Reports an event about one ID and at most one number.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the number, as described by the type
+     */
+    default void publish(EventType type, String subject, long value) {
+        publish(type, subject, value, 0, null);
+    }
+
+    /**
+     * Reports a notice.
+     *
+     * @param text the message
+     */
+    default void info(String text) {
+        publish(EventType.INFO, null, 0, 0, text);
+    }
+
+    /**
+     * Reports a failure.
+     *
+     * @param text the message
+     */
+    default void error(String text) {
+        publish(EventType.ERROR, null, 0, 0, text);
+    }
+
+    /**
+     * Waits until every event reported before this call has been rendered.
+     * Sinks that render on the calling thread return at once.
+     */
+    default void flush() {
+    }
+}
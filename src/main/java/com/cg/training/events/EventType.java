@@ -0,0 +1,54 @@
+package com.cg.training.events;
+
+/**
+ * The EventType enum lists the events the appointment system reports.
+ * Each constant documents which fields of a {@link SystemEvent} it uses;
+ * unused fields are null or 0.
+ */
+public enum EventType {
+
+    /** A patient was registered; subject is the patient ID. */
+    PATIENT_REGISTERED,
+
+    /** A doctor was registered; subject is the doctor ID. */
+    DOCTOR_REGISTERED,
+
+    /** A batch of patients was registered; value is the registered count, value2 the rejected count. */
+    PATIENTS_REGISTERED,
+
+    /** A batch of doctors was registered; value is the registered count, value2 the rejected count. */
+    DOCTORS_REGISTERED,
+
+    /** A walk-in appointment was booked; value is the appointment ID number, value2 the doctor's ID number. */
+    APPOINTMENT_BOOKED,
+
+    /** An appointment in a time slot was booked; subject is the appointment ID, value the slot, value2 the doctor's ID number. */
+    SLOT_BOOKED,
+
+    /** An appointment was completed; value is the appointment ID number. */
+    APPOINTMENT_COMPLETED,
+
+    /** Many appointments were completed at once; value is the number completed, value2 the number skipped. */
+    APPOINTMENTS_COMPLETED,
+
+    /** A doctor was removed; subject is the doctor ID, value the number of appointments cancelled. */
+    DOCTOR_REMOVED,
+
+    /** Many doctors were removed at once; value is the number removed, value2 the appointments cancelled. */
+    DOCTORS_REMOVED,
+
+    /** The journal was written to disk. */
+    JOURNAL_SAVED,
+
+    /** The journal was cleared. */
+    JOURNAL_CLEARED,
+
+    /** A snapshot was written; value is the number of appointments in it. */
+    SNAPSHOT_SAVED,
+
+    /** Any other notice; text is the message. */
+    INFO,
+
+    /** Something failed; text is the message. */
+    ERROR
+}
@@ -0,0 +1,74 @@
+package com.cg.training.events;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends events to a text file, one line per event:
+ * {@code time,type,subject,message}. The file is flushed once per batch.
+ */
+public class FileRenderer implements EventRenderer, Closeable {
+
+    /** The open event file. */
+    private final BufferedWriter writer;
+
+    /**
+     * Opens an event file for appending, creating it if needed.
+     *
+     * @param fileName the path of the event file
+     * @throws IOException if the file cannot be opened
+     */
+    public FileRenderer(String fileName) throws IOException {
+        writer = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Writes one event line.
+     *
+     * @param event the event
+     */
+    @Override
+    public void render(SystemEvent event) {
+        try {
+            writer.write(Long.toString(event.getTime()));
+            writer.write(',');
+            writer.write(event.getType().name());
+            writer.write(',');
+            writer.write(event.getSubject() == null ? "" : event.getSubject());
+            writer.write(',');
+            writer.write(event.getMessage());
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the lines written so far.
+     */
+    @Override
+    public void endOfBatch() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes and closes the event file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
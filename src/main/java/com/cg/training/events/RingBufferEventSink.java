@@ -0,0 +1,233 @@
+package com.cg.training.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Queues events in a lock-free ring buffer and renders them on a background
+ * thread, so the threads that report events never wait for console or file I/O.
+ * <p>
+ * The ring holds a fixed number of preallocated {@link SystemEvent}s. A
+ * producer takes the next sequence number with one atomic increment, fills in
+ * the event at that position and publishes it by writing the event's volatile
+ * sequence. The single consumer thread renders events in sequence order and
+ * hands each one back for the sequence one lap later. Reporting an event
+ * therefore allocates nothing and takes no lock.
+ * </p>
+ * <p>
+ * When the ring is full, producers wait for the consumer instead of dropping
+ * events. The consumer calls {@link EventRenderer#endOfBatch()} whenever it
+ * catches up, or after {@link #MAX_BATCH} events, and sleeps while the ring
+ * is empty.
+ * </p>
+ * <p>
+ * Closing sets the {@link #CLOSED} bit of the sequence counter in the same
+ * atomic step that reads it. A producer therefore either claimed its sequence
+ * before the sink was closed, and the consumer renders the event before it
+ * stops, or it sees the bit in its claim and is refused; no event is lost
+ * in between.
+ * </p>
+ */
+public class RingBufferEventSink implements EventSink, AutoCloseable {
+
+    /** Largest number of events rendered before the renderer's batch is ended. */
+    static final int MAX_BATCH = 256;
+
+    /** Bit of {@link #claimed} that is set once the sink is closed. */
+    private static final long CLOSED = 1L << 62;
+
+    /** Longest time the consumer sleeps before looking for events again. */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** The preallocated events; position {@code sequence & mask}. */
+    private final SystemEvent[] ring;
+
+    /** Ring size minus one; the ring size is a power of two. */
+    private final int mask;
+
+    /** Next sequence number handed to a producer, plus {@link #CLOSED} once closed. */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /** Number of events claimed before the sink was closed, or Long.MAX_VALUE while open. */
+    private volatile long end = Long.MAX_VALUE;
+
+    /** Sequence number of the first event not yet rendered and batch-ended. */
+    private volatile long rendered;
+
+    /** True while the consumer is sleeping or about to sleep. */
+    private volatile boolean sleeping;
+
+    /** The renderer, only used by the consumer thread. */
+    private final EventRenderer renderer;
+
+    /** The consumer thread. */
+    private final Thread consumer;
+
+    /**
+     * Creates a sink and starts its consumer thread.
+     *
+     * @param renderer the renderer the consumer hands events to
+     * @param capacity the number of events the ring holds, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public RingBufferEventSink(EventRenderer renderer, int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        ring = new SystemEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new SystemEvent();
+            ring[i].sequence = i;
+        }
+        mask = size - 1;
+        this.renderer = renderer;
+        consumer = new Thread(this::consume, "appointment-events");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Queues an event, waiting only if the ring is full.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the first number
+     * @param value2  the second number
+     * @param text    the message of an INFO or ERROR event, or null
+     * @throws IllegalStateException if the sink is closed
+     */
+    @Override
+    public void publish(EventType type, String subject, long value, long value2, String text) {
+        long sequence = claimed.getAndIncrement();
+        if (sequence >= CLOSED) {
+            throw new IllegalStateException("Event sink is closed.");
+        }
+        SystemEvent event = ring[(int) sequence & mask];
+        while (event.sequence != sequence) {
+            if (!consumer.isAlive()) {
+                throw new IllegalStateException("Event sink is closed.");
+            }
+            wake(); // the ring is full; let the consumer catch up
+            Thread.yield();
+        }
+        event.set(type, subject, value, value2, text);
+        event.sequence = sequence + 1;
+        if (sleeping) {
+            wake();
+        }
+    }
+
+    /**
+     * Waits until every event queued before this call has been rendered and
+     * its batch ended, or until the sink is closed.
+     */
+    @Override
+    public void flush() {
+        long target = claimedCount();
+        while (rendered < target && consumer.isAlive()) {
+            wake();
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(50));
+        }
+    }
+
+    /**
+     * Renders every queued event and stops the consumer thread. Events
+     * reported after this call fail with an IllegalStateException. If the
+     * calling thread is interrupted while waiting, this returns at once with
+     * the interrupt flag set, and the consumer still renders the rest.
+     */
+    @Override
+    public void close() {
+        long last = claimed.getAndUpdate(c -> c | CLOSED);
+        if (last < CLOSED) {
+            end = last;
+        }
+        wake();
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of events queued and not yet rendered.
+     *
+     * @return the backlog of the consumer
+     */
+    public long getBacklog() {
+        return Math.max(0, claimedCount() - rendered);
+    }
+
+    /**
+     * Returns the number of sequence numbers handed out to producers whose
+     * events will be rendered.
+     *
+     * @return the claimed count, without refused claims after closing
+     */
+    private long claimedCount() {
+        return Math.min(claimed.get() & ~CLOSED, end);
+    }
+
+    /**
+     * Wakes the consumer if it is sleeping.
+     */
+    private void wake() {
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * The consumer loop: renders events in sequence order until the sink is
+     * closed and every event claimed before that has been rendered.
+     */
+    private void consume() {
+        long next = 0;
+        int batch = 0;
+        while (next < end) {
+            SystemEvent event = ring[(int) next & mask];
+            if (event.sequence == next + 1) {
+                try {
+                    renderer.render(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Error: event could not be rendered: " + e.getMessage());
+                }
+                event.clear();
+                event.sequence = next + ring.length; // free for the producer one lap later
+                next++;
+                if (++batch < MAX_BATCH) {
+                    continue;
+                }
+            }
+            if (batch > 0) {
+                endBatch(next);
+                batch = 0;
+                continue;
+            }
+            sleeping = true;
+            if (event.sequence != next + 1 && end == Long.MAX_VALUE) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            sleeping = false;
+        }
+        if (batch > 0) {
+            endBatch(next);
+        }
+    }
+
+    /**
+     * Ends the renderer's batch and records how far rendering has got.
+     *
+     * @param next the sequence number of the first event not yet rendered
+     */
+    private void endBatch(long next) {
+        try {
+            renderer.endOfBatch();
+        } catch (RuntimeException e) {
+            System.err.println("Error: events could not be written: " + e.getMessage());
+        }
+        rendered = next;
+    }
+}
\ No newline at end of file
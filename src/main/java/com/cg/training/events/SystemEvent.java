@@ -0,0 +1,194 @@
+package com.cg.training.events;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.TimeSlots;
+
+/**
+ * One event reported by the appointment system.
+ * <p>
+ * An event only holds the raw values; the message text is built by
+ * {@link #getMessage()} when a renderer asks for it, so a service thread that
+ * reports an event does not pay for string formatting. Doctors are referred
+ * to by ID number for the same reason. Events handed to a
+ * renderer by a {@link RingBufferEventSink} are reused for later events, so a
+ * renderer must not keep them after {@link EventRenderer#render(SystemEvent)}
+ * returns.
+ * </p>
+ */
+public final class SystemEvent {
+
+    /** What happened. */
+    private EventType type;
+
+    /** The ID the event is about, or null. */
+    private String subject;
+
+    /** The first number of the event, as described by its type. */
+    private long value;
+
+    /** The second number of the event, as described by its type. */
+    private long value2;
+
+    /** The message of an INFO or ERROR event, or null. */
+    private String text;
+
+    /** When the event was reported, in milliseconds since the epoch. */
+    private long time;
+
+    /**
+     * Ring buffer sequence that may use this event next; written last by a
+     * producer so that the fields above are visible to the consumer.
+     */
+    volatile long sequence;
+
+    /**
+     * Creates an empty event.
+     */
+    SystemEvent() {
+    }
+
+    /**
+     * Creates an event.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the first number
+     * @param value2  the second number
+     * @param text    the message of an INFO or ERROR event, or null
+     */
+    public SystemEvent(EventType type, String subject, long value, long value2, String text) {
+        set(type, subject, value, value2, text);
+    }
+
+    /**
+     * Fills in the fields of this event and stamps it with the current time.
+     *
+     * @param type    what happened
+     * @param subject the ID the event is about, or null
+     * @param value   the first number
+     * @param value2  the second number
+     * @param text    the message of an INFO or ERROR event, or null
+     */
+    void set(EventType type, String subject, long value, long value2, String text) {
+        this.type = type;
+        this.subject = subject;
+        this.value = value;
+        this.value2 = value2;
+        this.text = text;
+        this.time = System.currentTimeMillis();
+    }
+
+    /**
+     * Drops the references held by this event, so a reused event does not
+     * keep IDs and messages alive.
+     */
+    void clear() {
+        subject = null;
+        text = null;
+    }
+
+    /**
+     * Returns what happened.
+     *
+     * @return the event type
+     */
+    public EventType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the ID the event is about.
+     *
+     * @return the subject, or null
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the first number of the event.
+     *
+     * @return the value
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Returns the second number of the event.
+     *
+     * @return the second value
+     */
+    public long getValue2() {
+        return value2;
+    }
+
+    /**
+     * Returns the message of an INFO or ERROR event.
+     *
+     * @return the text, or null
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns when the event was reported.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the message shown to users for this event, the same text the
+     * system used to print directly.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        switch (type) {
+            case PATIENT_REGISTERED:
+                return "Patient registered with ID: " + subject;
+            case DOCTOR_REGISTERED:
+                return "Doctor registered with ID: " + subject;
+            case PATIENTS_REGISTERED:
+                return "Registered " + value + " patients, rejected " + value2 + ".";
+            case DOCTORS_REGISTERED:
+                return "Registered " + value + " doctors, rejected " + value2 + ".";
+            case APPOINTMENT_BOOKED:
+                return "Appointment booked with ID: " + Appointment.ID_TAG + value + ".";
+            case SLOT_BOOKED:
+                return "Appointment " + (subject == null ? "" : subject + " ") + "booked for "
+                        + TimeSlots.format((int) value) + " with Doctor ID: " + Doctor.ID_TAG + value2 + ".";
+            case APPOINTMENT_COMPLETED:
+                return "Appointment marked completed.";
+            case APPOINTMENTS_COMPLETED:
+                return "Completed " + value + " appointments, skipped " + value2 + ".";
+            case DOCTOR_REMOVED:
+                return value == 0 ? "Doctor removed." : "Doctor removed, cancelled " + value + " appointments.";
+            case DOCTORS_REMOVED:
+                return "Removed " + value + " doctors, cancelled " + value2 + " appointments.";
+            case JOURNAL_SAVED:
+                return "Appointments saved to file.";
+            case JOURNAL_CLEARED:
+                return "File contents cleared successfully.";
+            case SNAPSHOT_SAVED:
+                return "Snapshot saved with " + value + " appointments.";
+            default:
+                return text;
+        }
+    }
+
+    /**
+     * Returns the message of this event.
+     *
+     * @return the message
+     */
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,684 @@
+package com.cg.training.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.security.Role;
+import com.cg.training.service.SecuredAppointmentSystem;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP server that exposes an {@link AppointmentSystemDAO} as a
+ * JSON API, built only on the JDK's {@code com.sun.net.httpserver}.
+ * <p>
+ * Every request runs on its own thread. On a JDK with virtual threads the
+ * server uses one virtual thread per request, so thousands of kiosks and
+ * front desks waiting on slow connections cost little memory; on older JDKs
+ * it falls back to a cached pool of platform threads. The DAO is already
+ * safe for concurrent callers, so requests are not serialized here.
+ * </p>
+ * <p>
+ * Every request must carry {@code Authorization: Bearer <token>} with one of
+ * the tokens the server was given. The token's role decides what the request
+ * may do: each role is served through its own {@link SecuredAppointmentSystem},
+ * so the {@link com.cg.training.annotations.Security} roles of the DAO are
+ * enforced here as everywhere else. A missing or unknown token is answered
+ * with 401, an operation the role may not call with 403.
+ * </p>
+ * <pre>
+ * GET    /patients/{id}               POST   /patients            (names, one per line)
+ * GET    /doctors?offset=&amp;limit=      POST   /doctors             (names, one per line)
+ * GET    /doctors/{id}                DELETE /doctors/{id}
+ * POST   /doctors/remove              (IDs, one per line)
+ * GET    /appointments?offset=&amp;limit=[&amp;doctor=|&amp;patient=]
+ * GET    /appointments/{id}           POST   /appointments?patient=[&amp;notBefore=now|ISO time]
+ * POST   /appointments/{id}/complete  POST   /appointments/complete (IDs, one per line)
+ * POST   /roster                      (CSV roster)         POST   /journal
+ * </pre>
+ * <p>
+ * A roster is uploaded as the request body and imported from a temporary
+ * file that is deleted afterwards, together with its rejects file; the
+ * rejected rows are part of the response. Responses are JSON; failures
+ * carry {@code {"error": message}} with a 400, 401, 403, 404, 405 or 409 status. The console listings of the DAO are served by the
+ * paged queries above instead.
+ * </p>
+ */
+public class AppointmentHttpServer {
+
+    /** Number of connections the operating system queues before they are accepted. */
+    private static final int BACKLOG = 1024;
+
+    /** Number of rows a page holds when the request does not say. */
+    private static final int DEFAULT_LIMIT = 20;
+
+    /** Largest number of rows a page may hold. */
+    private static final int MAX_LIMIT = 1000;
+
+    /** Prefix of the Authorization header value that carries a token. */
+    private static final String BEARER = "Bearer ";
+
+    /** The system each token's requests are served from, guarded for the token's role. */
+    private final Map<String, AppointmentSystemDAO> systemsByToken = new HashMap<>();
+
+    /** The JDK server. */
+    private final HttpServer server;
+
+    /** The executor running the requests. */
+    private final ExecutorService executor;
+
+    /**
+     * A request that cannot be served, with the status to answer it with.
+     */
+    private static final class ApiException extends RuntimeException {
+
+        /** Serialization version. */
+        private static final long serialVersionUID = 1L;
+
+        /** The HTTP status of the response. */
+        final int status;
+
+        /**
+         * Creates the exception.
+         *
+         * @param status  the HTTP status of the response
+         * @param message the error message sent to the client
+         */
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Creates a server bound to the given address; it accepts requests once
+     * {@link #start()} is called.
+     *
+     * @param dao     the system to serve
+     * @param tokens  the role of every token a client may present
+     * @param address the address to listen on; port 0 picks a free port
+     * @throws IOException if the address cannot be bound
+     */
+    public AppointmentHttpServer(AppointmentSystemDAO dao, Map<String, Role> tokens, InetSocketAddress address)
+            throws IOException {
+        Map<Role, AppointmentSystemDAO> systemsByRole = new EnumMap<>(Role.class);
+        for (Map.Entry<String, Role> token : tokens.entrySet()) {
+            systemsByToken.put(token.getKey(), systemsByRole.computeIfAbsent(token.getValue(),
+                    role -> new SecuredAppointmentSystem(dao, role)));
+        }
+        server = HttpServer.create(address, BACKLOG);
+        server.createContext("/", this::handle);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given time for the ones
+     * being served to finish.
+     *
+     * @param delaySeconds the longest time to wait
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return the bound address, with the port actually chosen
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Returns an executor that runs every task on a new virtual thread, or a
+     * cached pool of daemon threads if the JDK has no virtual threads. The
+     * virtual-thread executor is looked up reflectively so the code still
+     * builds for older JDKs.
+     *
+     * @return the executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory factory = task -> {
+                Thread thread = new Thread(task, "appointment-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(factory);
+        }
+    }
+
+    /**
+     * Serves one request and always sends a response.
+     *
+     * @param exchange the request and its response
+     */
+    private void handle(HttpExchange exchange) {
+        try {
+            int status;
+            StringBuilder body = new StringBuilder(128);
+            try {
+                status = route(exchange, authenticate(exchange), body);
+            } catch (ApiException e) {
+                status = e.status;
+                body.setLength(0);
+                Json.field(body, "error", e.getMessage());
+            } catch (SecurityException e) {
+                status = 403;
+                body.setLength(0);
+                Json.field(body, "error", e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                body.setLength(0);
+                Json.field(body, "error", "Error: " + e.getMessage());
+            }
+            send(exchange, status, body);
+        } catch (IOException e) {
+            // the client went away; nothing is left to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the system a request is served from, chosen by its token.
+     *
+     * @param exchange the request
+     * @return the system guarded for the token's role
+     * @throws ApiException with 401 if the token is missing or unknown
+     */
+    private AppointmentSystemDAO authenticate(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        AppointmentSystemDAO dao = authorization != null && authorization.startsWith(BEARER)
+                ? systemsByToken.get(authorization.substring(BEARER.length()).trim())
+                : null;
+        if (dao == null) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            throw new ApiException(401, "A valid bearer token is required.");
+        }
+        return dao;
+    }
+
+    /**
+     * Calls the operation a request asks for and writes its result.
+     *
+     * @param exchange the request
+     * @param dao      the system guarded for the caller's role
+     * @param body     receives the JSON response
+     * @return the HTTP status of the response
+     * @throws IOException if the request body cannot be read
+     */
+    private int route(HttpExchange exchange, AppointmentSystemDAO dao, StringBuilder body) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String resource = path[0];
+        String id = path.length > 1 ? path[1] : null;
+        String action = path.length > 2 ? path[2] : null;
+        if (path.length > 3) {
+            throw new ApiException(404, "Not found.");
+        }
+
+        switch (resource) {
+            case "patients":
+                if (id == null) {
+                    requireMethod(method, "POST");
+                    return registered(body, dao.registerPatients(readLines(exchange)));
+                }
+                requireMethod(method, "GET");
+                Patient patient = dao.findPatientById(id);
+                if (patient == null || action != null) {
+                    throw new ApiException(404, "Patient not found.");
+                }
+                Json.patient(body, patient);
+                return 200;
+
+            case "doctors":
+                if (id == null) {
+                    if (method.equals("POST")) {
+                        return registered(body, dao.registerDoctors(readLines(exchange)));
+                    }
+                    requireMethod(method, "GET");
+                    return doctorPage(body, dao.findDoctors(offset(query), limit(query)));
+                }
+                if (id.equals("remove") && action == null) {
+                    requireMethod(method, "POST");
+                    Json.field(body, "removed", dao.removeDoctors(readLines(exchange)));
+                    return 200;
+                }
+                if (action != null) {
+                    throw new ApiException(404, "Not found.");
+                }
+                if (method.equals("DELETE")) {
+                    if (dao.removeDoctors(Collections.singletonList(id)) == 0) {
+                        throw new ApiException(404, "Doctor not found.");
+                    }
+                    Json.field(body, "removed", 1);
+                    return 200;
+                }
+                requireMethod(method, "GET");
+                Doctor doctor = dao.findDoctorById(id);
+                if (doctor == null) {
+                    throw new ApiException(404, "Doctor not found.");
+                }
+                Json.doctor(body, doctor);
+                return 200;
+
+            case "appointments":
+                return appointments(exchange, dao, method, id, action, query, body);
+
+            case "roster":
+                if (id != null) {
+                    throw new ApiException(404, "Not found.");
+                }
+                requireMethod(method, "POST");
+                Json.importReport(body, importRoster(exchange, dao));
+                return 200;
+
+            case "journal":
+                if (id != null) {
+                    throw new ApiException(404, "Not found.");
+                }
+                requireMethod(method, "POST");
+                dao.saveAppointmentsToFile();
+                return 204;
+
+            default:
+                throw new ApiException(404, "Not found.");
+        }
+    }
+
+    /**
+     * Imports the roster uploaded as the request body. The body is copied
+     * to a temporary file, since the importer reads chunks of a file in
+     * parallel, and the file and its rejects file are deleted afterwards.
+     *
+     * @param exchange the request
+     * @param dao      the system guarded for the caller's role
+     * @return the counts and rejected rows
+     * @throws IOException if the body cannot be read or the temporary file written
+     */
+    private static ImportReport importRoster(HttpExchange exchange, AppointmentSystemDAO dao) throws IOException {
+        Path roster = Files.createTempFile("roster", ".csv");
+        try {
+            try (InputStream in = exchange.getRequestBody()) {
+                Files.copy(in, roster, StandardCopyOption.REPLACE_EXISTING);
+            }
+            ImportReport report = dao.importRoster(roster.toString());
+            if (report == null) {
+                throw new ApiException(400, "Roster could not be read.");
+            }
+            return report;
+        } finally {
+            Files.deleteIfExists(roster);
+            Files.deleteIfExists(Paths.get(roster + ".rejects.csv"));
+        }
+    }
+
+    /**
+     * Serves the appointment routes.
+     *
+     * @param exchange the request
+     * @param dao      the system guarded for the caller's role
+     * @param method   the HTTP method
+     * @param id       the appointment ID or "complete", or null
+     * @param action   the action on the appointment, or null
+     * @param query    the query parameters
+     * @param body     receives the JSON response
+     * @return the HTTP status of the response
+     * @throws IOException if the request body cannot be read
+     */
+    private int appointments(HttpExchange exchange, AppointmentSystemDAO dao, String method, String id,
+            String action, Map<String, String> query, StringBuilder body) throws IOException {
+        if (id == null) {
+            if (method.equals("POST")) {
+                return book(dao, query, body);
+            }
+            requireMethod(method, "GET");
+            int offset = offset(query);
+            int limit = limit(query);
+            Page<Integer> page;
+            if (query.containsKey("doctor")) {
+                page = dao.findAppointmentsByDoctorId(query.get("doctor"), offset, limit);
+            } else if (query.containsKey("patient")) {
+                page = dao.findAppointmentsByPatientId(query.get("patient"), offset, limit);
+            } else {
+                page = dao.findAppointments(offset, limit);
+            }
+            return appointmentPage(dao, body, page);
+        }
+        if (id.equals("complete") && action == null) {
+            requireMethod(method, "POST");
+            Json.field(body, "completed", dao.completeAppointments(readLines(exchange)));
+            return 200;
+        }
+        Appointment appointment = dao.findAppointmentById(id);
+        if (appointment == null) {
+            throw new ApiException(404, "Appointment not found.");
+        }
+        if (action == null) {
+            requireMethod(method, "GET");
+        } else if (action.equals("complete")) {
+            requireMethod(method, "POST");
+            if (dao.completeAppointments(Collections.singletonList(id)) == 0) {
+                throw new ApiException(409, "Appointment is already " + appointment.getStatus().toLowerCase() + ".");
+            }
+        } else {
+            throw new ApiException(404, "Not found.");
+        }
+        Json.appointment(body, appointment);
+        return 200;
+    }
+
+    /**
+     * Books a walk-in appointment, or a time slot if {@code notBefore} is given.
+     *
+     * @param dao   the system guarded for the caller's role
+     * @param query the query parameters
+     * @param body  receives the JSON response
+     * @return the HTTP status of the response
+     */
+    private static int book(AppointmentSystemDAO dao, Map<String, String> query, StringBuilder body) {
+        Patient patient = dao.findPatientById(require(query, "patient"));
+        if (patient == null) {
+            throw new ApiException(404, "Patient not found.");
+        }
+        String notBefore = query.get("notBefore");
+        Appointment appointment;
+        if (notBefore == null) {
+            appointment = dao.bookAppointment(patient);
+        } else {
+            appointment = dao.bookAppointment(patient, parseTime(notBefore));
+        }
+        if (appointment == null) {
+            throw new ApiException(409, "No doctor is available.");
+        }
+        Json.appointment(body, appointment);
+        return 201;
+    }
+
+    /**
+     * Writes the outcome of a bulk registration.
+     *
+     * @param body   receives the JSON response
+     * @param result the outcome
+     * @return 201 if any name was registered, otherwise 400
+     */
+    private static int registered(StringBuilder body, RegistrationResult result) {
+        Json.registration(body, result);
+        return result.getRegisteredCount() > 0 ? 201 : 400;
+    }
+
+    /**
+     * Writes a page of doctors.
+     *
+     * @param body receives the JSON response
+     * @param page the page
+     * @return 200
+     */
+    private static int doctorPage(StringBuilder body, Page<Doctor> page) {
+        pageHeader(body, page);
+        List<Doctor> items = page.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            Json.doctor(body, items.get(i));
+        }
+        body.append("]}");
+        return 200;
+    }
+
+    /**
+     * Writes a page of appointments, reading each one by its index.
+     *
+     * @param dao  the system guarded for the caller's role
+     * @param body receives the JSON response
+     * @param page the page of indexes
+     * @return 200
+     */
+    private static int appointmentPage(AppointmentSystemDAO dao, StringBuilder body, Page<Integer> page) {
+        pageHeader(body, page);
+        boolean first = true;
+        for (Integer index : page.getItems()) {
+            Appointment appointment = dao.getAppointment(index);
+            if (appointment == null) {
+                continue;
+            }
+            if (!first) {
+                body.append(',');
+            }
+            first = false;
+            Json.appointment(body, appointment);
+        }
+        body.append("]}");
+        return 200;
+    }
+
+    /**
+     * Writes the position fields of a page and opens its item array.
+     *
+     * @param body receives the JSON response
+     * @param page the page
+     */
+    private static void pageHeader(StringBuilder body, Page<?> page) {
+        body.append("{\"offset\":").append(page.getOffset()).append(",\"total\":").append(page.getTotal());
+        if (page.hasNext()) {
+            body.append(",\"nextOffset\":").append(page.getNextOffset());
+        }
+        body.append(",\"items\":[");
+    }
+
+    /**
+     * Rejects a request made with the wrong method.
+     *
+     * @param method   the method of the request
+     * @param expected the method the route takes
+     */
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Method " + method + " is not allowed here.");
+        }
+    }
+
+    /**
+     * Returns a query parameter that must be present.
+     *
+     * @param query the query parameters
+     * @param name  the parameter name
+     * @return its value
+     */
+    private static String require(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new ApiException(400, "Parameter '" + name + "' is missing.");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the {@code offset} parameter.
+     *
+     * @param query the query parameters
+     * @return the offset, 0 if absent
+     */
+    private static int offset(Map<String, String> query) {
+        return number(query, "offset", 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the {@code limit} parameter.
+     *
+     * @param query the query parameters
+     * @return the limit, {@link #DEFAULT_LIMIT} if absent
+     */
+    private static int limit(Map<String, String> query) {
+        return query.containsKey("limit") ? number(query, "limit", 1, MAX_LIMIT) : DEFAULT_LIMIT;
+    }
+
+    /**
+     * Returns a numeric query parameter.
+     *
+     * @param query the query parameters
+     * @param name  the parameter name
+     * @param min   the smallest value allowed, also the value if absent
+     * @param max   the largest value allowed
+     * @return the value
+     */
+    private static int number(Map<String, String> query, String name, int min, int max) {
+        String value = query.get(name);
+        if (value == null) {
+            return min;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ApiException(400, "Parameter '" + name + "' must be a number from " + min + " to " + max + ".");
+    }
+
+    /**
+     * Parses the {@code notBefore} parameter.
+     *
+     * @param value "now" or an ISO local date and time such as 2024-05-01T09:30
+     * @return the time
+     */
+    private static LocalDateTime parseTime(String value) {
+        if (value.equals("now")) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Parameter 'notBefore' must be 'now' or a time such as 2024-05-01T09:30.");
+        }
+    }
+
+    /**
+     * Splits a raw query string into decoded parameters; a repeated
+     * parameter keeps its last value.
+     *
+     * @param rawQuery the query, or null
+     * @return the parameters
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> query = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(decode(name), decode(value));
+        }
+        return query;
+    }
+
+    /**
+     * Decodes one URL-encoded query component.
+     *
+     * @param text the encoded text
+     * @return the decoded text
+     */
+    private static String decode(String text) {
+        try {
+            return URLDecoder.decode(text, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            throw new ApiException(400, "Malformed query.");
+        }
+    }
+
+    /**
+     * Reads the request body as UTF-8 lines, dropping blank lines.
+     *
+     * @param exchange the request
+     * @return the trimmed lines
+     * @throws IOException if the body cannot be read
+     */
+    private static List<String> readLines(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\r?\n")) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Sends the response.
+     *
+     * @param exchange the request
+     * @param status   the HTTP status
+     * @param body     the JSON body; ignored for 204
+     * @throws IOException if the client cannot be written to
+     */
+    private static void send(HttpExchange exchange, int status, StringBuilder body) throws IOException {
+        if (status == 204) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
\ No newline at end of file
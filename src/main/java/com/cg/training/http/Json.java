@@ -0,0 +1,192 @@
+package com.cg.training.http;
+
+import java.util.List;
+import java.util.Map;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.models.TimeSlots;
+
+/**
+ * Writes the models as JSON into a caller's buffer. Only what the HTTP API
+ * returns is supported, so no JSON library is needed.
+ */
+final class Json {
+
+    /**
+     * Not instantiated; all methods are static.
+     */
+    private Json() {
+    }
+
+    /**
+     * Appends a string as a quoted and escaped JSON value.
+     *
+     * @param out   the buffer
+     * @param value the string, or null
+     * @return the buffer
+     */
+    static StringBuilder string(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Appends an object with a single field.
+     *
+     * @param out   the buffer
+     * @param name  the field name
+     * @param value the field value
+     * @return the buffer
+     */
+    static StringBuilder field(StringBuilder out, String name, String value) {
+        out.append('{');
+        string(out, name).append(':');
+        return string(out, value).append('}');
+    }
+
+    /**
+     * Appends an object with a single number.
+     *
+     * @param out   the buffer
+     * @param name  the field name
+     * @param value the number
+     * @return the buffer
+     */
+    static StringBuilder field(StringBuilder out, String name, long value) {
+        out.append('{');
+        return string(out, name).append(':').append(value).append('}');
+    }
+
+    /**
+     * Appends a patient.
+     *
+     * @param out     the buffer
+     * @param patient the patient
+     * @return the buffer
+     */
+    static StringBuilder patient(StringBuilder out, Patient patient) {
+        out.append("{\"id\":");
+        string(out, patient.getId()).append(",\"name\":");
+        return string(out, patient.getName()).append('}');
+    }
+
+    /**
+     * Appends a doctor.
+     *
+     * @param out    the buffer
+     * @param doctor the doctor
+     * @return the buffer
+     */
+    static StringBuilder doctor(StringBuilder out, Doctor doctor) {
+        out.append("{\"id\":");
+        string(out, doctor.getId()).append(",\"name\":");
+        return string(out, doctor.getName()).append(",\"available\":").append(doctor.isAvailable()).append('}');
+    }
+
+    /**
+     * Appends an appointment, with its time if it was booked for a slot.
+     *
+     * @param out         the buffer
+     * @param appointment the appointment
+     * @return the buffer
+     */
+    static StringBuilder appointment(StringBuilder out, Appointment appointment) {
+        out.append("{\"id\":");
+        string(out, appointment.getId()).append(",\"patient\":");
+        string(out, appointment.patient.getId()).append(",\"doctor\":");
+        string(out, appointment.doctor.getId()).append(",\"status\":");
+        string(out, appointment.getStatus());
+        if (appointment instanceof SlottedAppointment) {
+            out.append(",\"time\":");
+            string(out, TimeSlots.format(((SlottedAppointment) appointment).getSlot()));
+        }
+        return out.append('}');
+    }
+
+    /**
+     * Appends the outcome of a bulk registration.
+     *
+     * @param out    the buffer
+     * @param result the outcome
+     * @return the buffer
+     */
+    static StringBuilder registration(StringBuilder out, RegistrationResult result) {
+        out.append("{\"ids\":[");
+        List<String> ids = result.getAssignedIds();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            string(out, ids.get(i));
+        }
+        out.append("],\"errors\":{");
+        boolean first = true;
+        for (Map.Entry<Integer, String> error : result.getErrors().entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            string(out, error.getKey().toString()).append(':');
+            string(out, error.getValue());
+        }
+        return out.append("}}");
+    }
+
+    /**
+     * Appends the outcome of a roster import.
+     *
+     * @param out    the buffer
+     * @param report the outcome
+     * @return the buffer
+     */
+    static StringBuilder importReport(StringBuilder out, ImportReport report) {
+        out.append("{\"rowsRead\":").append(report.getRowsRead())
+                .append(",\"patientsImported\":").append(report.getPatientsImported())
+                .append(",\"doctorsImported\":").append(report.getDoctorsImported())
+                .append(",\"rejects\":[");
+        List<ImportReport.Reject> rejects = report.getRejects();
+        for (int i = 0; i < rejects.size(); i++) {
+            ImportReport.Reject reject = rejects.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"line\":").append(reject.getLine()).append(",\"reason\":");
+            string(out, reject.getReason()).append('}');
+        }
+        return out.append("]}");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,184 @@
+package com.cg.training.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * AppointmentMetrics keeps a {@link LatencyHistogram} for every
+ * {@link Operation} and reads the size gauges of the system it measures.
+ * <p>
+ * An operation is measured by taking {@link System#nanoTime()} before the
+ * call and passing it to {@link #record(Operation, long)} afterwards. The
+ * gauges are read only when asked for, so they cost nothing in between.
+ * The figures can be read directly, dumped as text, or published over JMX
+ * with {@link #register(String)}.
+ * </p>
+ */
+public class AppointmentMetrics implements AppointmentMetricsMXBean {
+
+    /** JMX domain the metrics are registered under. */
+    public static final String JMX_DOMAIN = "com.cg.training";
+
+    /** One histogram per operation, by ordinal. */
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+
+    /** Reads the number of registered patients. */
+    private final IntSupplier patients;
+
+    /** Reads the number of registered doctors. */
+    private final IntSupplier doctors;
+
+    /** Reads the number of appointments. */
+    private final IntSupplier appointments;
+
+    /** Reads the number of doctors free for a walk-in appointment. */
+    private final IntSupplier availableDoctors;
+
+    /**
+     * Creates metrics with empty histograms.
+     *
+     * @param patients         reads the number of registered patients
+     * @param doctors          reads the number of registered doctors
+     * @param appointments     reads the number of appointments
+     * @param availableDoctors reads the number of doctors free for a walk-in appointment
+     */
+    public AppointmentMetrics(IntSupplier patients, IntSupplier doctors, IntSupplier appointments,
+            IntSupplier availableDoctors) {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        this.patients = patients;
+        this.doctors = doctors;
+        this.appointments = appointments;
+        this.availableDoctors = availableDoctors;
+    }
+
+    /**
+     * Records one call of an operation that started at the given time.
+     *
+     * @param operation  the operation
+     * @param startNanos the value of {@link System#nanoTime()} before the call
+     */
+    public void record(Operation operation, long startNanos) {
+        histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the histogram of an operation.
+     *
+     * @param operation the operation
+     * @return its histogram
+     */
+    public LatencyHistogram getHistogram(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    /**
+     * Returns the number of registered patients.
+     *
+     * @return the patient count
+     */
+    @Override
+    public int getPatientCount() {
+        return patients.getAsInt();
+    }
+
+    /**
+     * Returns the number of registered doctors.
+     *
+     * @return the doctor count
+     */
+    @Override
+    public int getDoctorCount() {
+        return doctors.getAsInt();
+    }
+
+    /**
+     * Returns the number of appointments booked.
+     *
+     * @return the appointment count
+     */
+    @Override
+    public int getAppointmentCount() {
+        return appointments.getAsInt();
+    }
+
+    /**
+     * Returns the number of doctors free for a walk-in appointment.
+     *
+     * @return the available doctor count
+     */
+    @Override
+    public int getAvailableDoctorCount() {
+        return availableDoctors.getAsInt();
+    }
+
+    /**
+     * Returns the call count and latency figures of every operation.
+     *
+     * @return one entry per operation, in {@link Operation} order
+     */
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>(histograms.length);
+        for (Operation operation : Operation.values()) {
+            stats.add(OperationStats.of(operation.getLabel(), histograms[operation.ordinal()]));
+        }
+        return stats;
+    }
+
+    /**
+     * Returns a text report of the gauges and of every operation called so
+     * far, with times in microseconds.
+     *
+     * @return the report
+     */
+    @Override
+    public String dump() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Patients: %d, Doctors: %d (%d available), Appointments: %d%n",
+                getPatientCount(), getDoctorCount(), getAvailableDoctorCount(), getAppointmentCount()));
+        report.append(String.format("%-28s %10s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Mean us", "p50 us", "p99 us", "p99.9 us", "Max us"));
+        for (OperationStats stats : getOperations()) {
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("%-28s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    stats.getOperation(), stats.getCount(), stats.getMean() / 1000, stats.getP50() / 1000.0,
+                    stats.getP99() / 1000.0, stats.getP999() / 1000.0, stats.getMax() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Forgets every latency recorded so far. The gauges are not affected.
+     */
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Publishes these metrics on the platform MBean server as
+     * {@code com.cg.training:type=AppointmentMetrics,name=<name>}.
+     *
+     * @param name the name that tells this system apart from others in the same JVM
+     * @return the name the metrics were registered under
+     * @throws JMException if the name is invalid or already taken
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=AppointmentMetrics,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.cg.training.metrics;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link AppointmentMetrics}: gauges for the sizes of the
+ * system and latency figures for every operation.
+ */
+public interface AppointmentMetricsMXBean {
+
+    /**
+     * Returns the number of registered patients.
+     *
+     * @return the patient count
+     */
+    int getPatientCount();
+
+    /**
+     * Returns the number of registered doctors.
+     *
+     * @return the doctor count
+     */
+    int getDoctorCount();
+
+    /**
+     * Returns the number of appointments booked.
+     *
+     * @return the appointment count
+     */
+    int getAppointmentCount();
+
+    /**
+     * Returns the number of doctors free for a walk-in appointment.
+     *
+     * @return the available doctor count
+     */
+    int getAvailableDoctorCount();
+
+    /**
+     * Returns the call count and latency figures of every operation.
+     *
+     * @return one entry per operation
+     */
+    List<OperationStats> getOperations();
+
+    /**
+     * Returns a text report of the gauges and of every operation called so far.
+     *
+     * @return the report
+     */
+    String dump();
+
+    /**
+     * Forgets every latency recorded so far.
+     */
+    void reset();
+}
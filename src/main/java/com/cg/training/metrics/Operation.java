@@ -0,0 +1,104 @@
+package com.cg.training.metrics;
+
+/**
+ * The Operation enum lists the AppointmentSystemDAO operations whose
+ * latency is measured, one histogram each.
+ */
+public enum Operation {
+
+    /** registerPatient. */
+    REGISTER_PATIENT("registerPatient"),
+
+    /** registerDoctor. */
+    REGISTER_DOCTOR("registerDoctor"),
+
+    /** registerPatients. */
+    REGISTER_PATIENTS("registerPatients"),
+
+    /** registerDoctors. */
+    REGISTER_DOCTORS("registerDoctors"),
+
+    /** importRoster. */
+    IMPORT_ROSTER("importRoster"),
+
+    /** bookAppointment for a walk-in. */
+    BOOK_APPOINTMENT("bookAppointment"),
+
+    /** bookAppointment in a time slot. */
+    BOOK_TIME_SLOT("bookTimeSlot"),
+
+    /** completeAppointment. */
+    COMPLETE_APPOINTMENT("completeAppointment"),
+
+    /** completeAppointments. */
+    COMPLETE_APPOINTMENTS("completeAppointments"),
+
+    /** showAllDoctors. */
+    SHOW_ALL_DOCTORS("showAllDoctors"),
+
+    /** showAllAppointments. */
+    SHOW_ALL_APPOINTMENTS("showAllAppointments"),
+
+    /** showAppointmentsByDoctorId. */
+    SHOW_APPOINTMENTS_BY_DOCTOR("showAppointmentsByDoctorId"),
+
+    /** showAppointmentsByPatientId. */
+    SHOW_APPOINTMENTS_BY_PATIENT("showAppointmentsByPatientId"),
+
+    /** findDoctors. */
+    FIND_DOCTORS("findDoctors"),
+
+    /** findAppointments. */
+    FIND_APPOINTMENTS("findAppointments"),
+
+    /** findAppointmentsByDoctorId. */
+    FIND_APPOINTMENTS_BY_DOCTOR("findAppointmentsByDoctorId"),
+
+    /** findAppointmentsByPatientId. */
+    FIND_APPOINTMENTS_BY_PATIENT("findAppointmentsByPatientId"),
+
+    /** getAppointment. */
+    GET_APPOINTMENT("getAppointment"),
+
+    /** findAppointmentById. */
+    FIND_APPOINTMENT_BY_ID("findAppointmentById"),
+
+    /** findPatientById. */
+    FIND_PATIENT_BY_ID("findPatientById"),
+
+    /** findDoctorById. */
+    FIND_DOCTOR_BY_ID("findDoctorById"),
+
+    /** removeDoctor. */
+    REMOVE_DOCTOR("removeDoctor"),
+
+    /** removeDoctors. */
+    REMOVE_DOCTORS("removeDoctors"),
+
+    /** saveAppointmentsToFile. */
+    SAVE_APPOINTMENTS("saveAppointmentsToFile"),
+
+    /** clearAllContentsOfTheFile. */
+    CLEAR_FILE("clearAllContentsOfTheFile");
+
+    /** The name shown in reports, the DAO method name. */
+    private final String label;
+
+    /**
+     * Creates an operation with its report name.
+     *
+     * @param label the DAO method name
+     */
+    Operation(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the name shown in reports.
+     *
+     * @return the DAO method name
+     */
+    public String getLabel() {
+        return label;
+    }
+}
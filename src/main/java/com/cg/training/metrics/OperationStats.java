@@ -0,0 +1,129 @@
+package com.cg.training.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The figures of one operation at the time they were read, as published
+ * over JMX. All times are in nanoseconds.
+ */
+public class OperationStats {
+
+    /** The DAO method name. */
+    private final String operation;
+
+    /** Number of calls. */
+    private final long count;
+
+    /** Mean latency. */
+    private final double mean;
+
+    /** Median latency. */
+    private final long p50;
+
+    /** 99th percentile latency. */
+    private final long p99;
+
+    /** 99.9th percentile latency. */
+    private final long p999;
+
+    /** Largest latency. */
+    private final long max;
+
+    /**
+     * Creates the figures of an operation.
+     *
+     * @param operation the DAO method name
+     * @param count     the number of calls
+     * @param mean      the mean latency
+     * @param p50       the median latency
+     * @param p99       the 99th percentile latency
+     * @param p999      the 99.9th percentile latency
+     * @param max       the largest latency
+     */
+    @ConstructorProperties({ "operation", "count", "mean", "p50", "p99", "p999", "max" })
+    public OperationStats(String operation, long count, double mean, long p50, long p99, long p999, long max) {
+        this.operation = operation;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * Reads the figures of a histogram.
+     *
+     * @param operation the DAO method name
+     * @param histogram the histogram of the operation
+     * @return the figures
+     */
+    static OperationStats of(String operation, LatencyHistogram histogram) {
+        return new OperationStats(operation, histogram.getCount(), histogram.getMean(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMax());
+    }
+
+    /**
+     * Returns the DAO method name.
+     *
+     * @return the operation
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the number of calls.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return the mean in nanoseconds
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the median latency.
+     *
+     * @return the median in nanoseconds
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return the 99th percentile in nanoseconds
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * Returns the 99.9th percentile latency.
+     *
+     * @return the 99.9th percentile in nanoseconds
+     */
+    public long getP999() {
+        return p999;
+    }
+
+    /**
+     * Returns the largest latency.
+     *
+     * @return the maximum in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+}
@@ -1,8 +1,10 @@
 package com.cg.training.models;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.cg.training.annotations.Security;
+import com.cg.training.dao.AppointmentSystemDAO;
 
 /**
  * The Admin class represents an administrative user in the system.
@@ -31,15 +33,21 @@ public class Admin extends User {
      */
     @Override
     public void showProfile() {
-        System.out.println("Admin ID: " + id + ", Name: " + name);
+        System.out.println("Admin ID: " + getId() + ", Name: " + name);
     }
 
     /**
-     * Removes a doctor from the list based on the given doctor ID.
+     * Removes a doctor from a plain list based on the given doctor ID.
+     * Only the list changes: an appointment system would keep the doctor in
+     * its ID index and pool of available doctors, and go on booking it.
      * 
      * @param doctors  The list of doctors.
      * @param doctorId The ID of the doctor to be removed.
+     * @deprecated Doctors held by an appointment system are removed with
+     *             {@link #removeDoctor(AppointmentSystemDAO, String)} or
+     *             {@link #removeDoctors(AppointmentSystemDAO, Collection)}.
      */
+    @Deprecated
     public void removeDoctor(List<Doctor> doctors, String doctorId) {
         if (doctors.size() == 0) {
             System.out.println("No doctor in the list");
@@ -47,7 +55,7 @@ public class Admin extends User {
             for (int i = 0; i < doctors.size(); i++) {
                 Doctor d = doctors.get(i);
                 if (d.getId().equals(doctorId)) {
-                    doctors.remove(i);
+                    doctors.remove(d);
                     System.out.println("Doctor removed.");
                     return;
                 }
@@ -55,4 +63,27 @@ public class Admin extends User {
             System.out.println("Doctor ID not found.");
         }
     }
+
+    /**
+     * Removes a doctor through the appointment system so that its
+     * ID-keyed indexes stay consistent with the doctor list.
+     * 
+     * @param system   The appointment system holding the doctor.
+     * @param doctorId The ID of the doctor to be removed.
+     */
+    public void removeDoctor(AppointmentSystemDAO system, String doctorId) {
+        system.removeDoctor(doctorId);
+    }
+
+    /**
+     * Removes many doctors through the appointment system in one call,
+     * for roster changes such as closing a department.
+     * 
+     * @param system    The appointment system holding the doctors.
+     * @param doctorIds The IDs of the doctors to be removed.
+     * @return The number of doctors removed.
+     */
+    public int removeDoctors(AppointmentSystemDAO system, Collection<String> doctorIds) {
+        return system.removeDoctors(doctorIds);
+    }
 }
\ No newline at end of file
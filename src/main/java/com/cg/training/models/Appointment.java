@@ -1,19 +1,76 @@
 package com.cg.training.models;
 
+import com.cg.training.exceptions.InvalidAppointmentException;
+
 /**
  * The Appointment class represents an appointment between a patient and a doctor.
  * It includes details such as the patient, the doctor, and the appointment status.
+ * <p>
+ * Once stored by an appointment system, an appointment has a stable ID such
+ * as "A12". Its status only changes through {@link #moveTo(AppointmentStatus)},
+ * which follows the transitions allowed by {@link AppointmentStatus}.
+ * </p>
  */
 public class Appointment {
 
+    /** Letter in front of every appointment ID. */
+    public static final char ID_TAG = 'A';
+
+    /** Number of an appointment that has not been stored yet. */
+    public static final int UNASSIGNED = -1;
+
     /** The patient involved in the appointment. */
     public Patient patient;
 
     /** The doctor involved in the appointment. */
     public Doctor doctor;
 
-    /** The current status of the appointment. Default is "Scheduled". */
-    String status = "Scheduled";
+    /** The current status of the appointment. Default is {@link AppointmentStatus#SCHEDULED}. */
+    private volatile AppointmentStatus status = AppointmentStatus.SCHEDULED;
+
+    /** The number of the appointment ID, or {@link #UNASSIGNED}. */
+    private volatile int idNumber = UNASSIGNED;
+
+    /** Whether the doctor is unavailable until the appointment is completed. */
+    private final boolean occupiesDoctor;
+
+    /** The details last rendered and what they were rendered from, or null. */
+    private volatile Rendered rendered;
+
+    /**
+     * Rendered details together with the names and status they show. The
+     * text is still valid while the appointment has the same status and the
+     * users still hold the same name instances.
+     */
+    private static final class Rendered {
+
+        /** The patient's name when rendered. */
+        final String patientName;
+
+        /** The doctor's name when rendered. */
+        final String doctorName;
+
+        /** The status when rendered. */
+        final AppointmentStatus status;
+
+        /** The rendered details. */
+        final String text;
+
+        /**
+         * Creates a rendered form.
+         *
+         * @param patientName the patient's name
+         * @param doctorName  the doctor's name
+         * @param status      the status
+         * @param text        the details rendered from them
+         */
+        Rendered(String patientName, String doctorName, AppointmentStatus status, String text) {
+            this.patientName = patientName;
+            this.doctorName = doctorName;
+            this.status = status;
+            this.text = text;
+        }
+    }
 
     /**
      * Constructor to create a new appointment.
@@ -23,34 +80,198 @@ public class Appointment {
      * @param doctor  The doctor assigned to the appointment.
      */
     public Appointment(Patient patient, Doctor doctor) {
+        this(patient, doctor, true);
+    }
+
+    /**
+     * Constructor for subclasses that reserve the doctor in another way.
+     * 
+     * @param patient        The patient attending the appointment.
+     * @param doctor         The doctor assigned to the appointment.
+     * @param occupiesDoctor Whether the doctor becomes unavailable until completion.
+     */
+    protected Appointment(Patient patient, Doctor doctor, boolean occupiesDoctor) {
         this.patient = patient;
         this.doctor = doctor;
-        doctor.setAvailable(false); // Mark doctor as unavailable
+        this.occupiesDoctor = occupiesDoctor;
+        if (occupiesDoctor) {
+            doctor.setAvailable(false); // Mark doctor as unavailable
+        }
+    }
+
+    /**
+     * Creates a walk-in appointment that leaves the doctor's availability
+     * alone, for rebuilding an appointment that has already ended, such as
+     * one read back from an archive.
+     * 
+     * @param patient The patient who attended the appointment.
+     * @param doctor  The doctor of the appointment.
+     * @return A scheduled appointment that does not occupy the doctor.
+     */
+    public static Appointment withoutReservation(Patient patient, Doctor doctor) {
+        return new Appointment(patient, doctor, false);
     }
 
     /**
      * Marks the appointment as completed and makes the doctor available again.
+     * 
+     * @throws InvalidAppointmentException if the appointment is not scheduled
      */
     public void completeAppointment() {
-        status = "Completed";
-        doctor.setAvailable(true); // Doctor is now available for another appointment
+        moveTo(AppointmentStatus.COMPLETED);
+    }
+
+    /**
+     * Marks the appointment as cancelled because its doctor was removed.
+     * The doctor's availability is left as it is, since the doctor no longer
+     * takes appointments.
+     * 
+     * @throws InvalidAppointmentException if the appointment is not scheduled
+     */
+    public void cancelAppointment() {
+        moveTo(AppointmentStatus.CANCELLED);
+    }
+
+    /**
+     * Moves the appointment to another status. Completing a walk-in
+     * appointment makes the doctor available again. The check and the change
+     * hold the appointment's lock, so two threads cannot both complete it.
+     * 
+     * @param next The status to move to.
+     * @throws InvalidAppointmentException if the transition is not allowed
+     */
+    public synchronized void moveTo(AppointmentStatus next) {
+        AppointmentStatus current = getAppointmentStatus();
+        if (!current.canMoveTo(next)) {
+            switch (current) {
+                case COMPLETED:
+                    throw new InvalidAppointmentException("Appointment already completed.");
+                case CANCELLED:
+                    throw new InvalidAppointmentException("Appointment was cancelled.");
+                default:
+                    throw new InvalidAppointmentException("Appointment is already " + current.getLabel() + ".");
+            }
+        }
+        storeStatus(next);
+        if (next == AppointmentStatus.COMPLETED && occupiesDoctor()) {
+            doctor.setAvailable(true); // Doctor is now available for another appointment
+        }
+    }
+
+    /**
+     * Stores a new status once {@link #moveTo(AppointmentStatus)} has checked
+     * the transition. Subclasses that keep the status elsewhere override this
+     * together with {@link #getAppointmentStatus()}.
+     * 
+     * @param next The new status.
+     */
+    protected void storeStatus(AppointmentStatus next) {
+        status = next;
+    }
+
+    /**
+     * Tells whether the doctor is unavailable until the appointment is completed.
+     * 
+     * @return true for a walk-in appointment that reserved its doctor.
+     */
+    public boolean occupiesDoctor() {
+        return occupiesDoctor;
+    }
+
+    /**
+     * Gives the appointment its ID number. Called once by the appointment
+     * system that stores it.
+     * 
+     * @param idNumber The number of the appointment ID, not negative.
+     * @throws IllegalStateException if the appointment already has an ID
+     */
+    public void assignIdNumber(int idNumber) {
+        if (this.idNumber != UNASSIGNED) {
+            throw new IllegalStateException("Appointment already has ID " + getId());
+        }
+        this.idNumber = idNumber;
+    }
+
+    /**
+     * Gets the number of the appointment ID.
+     * 
+     * @return The ID number, or {@link #UNASSIGNED} if the appointment is not stored.
+     */
+    public int getIdNumber() {
+        return idNumber;
+    }
+
+    /**
+     * Gets the appointment ID, such as "A12".
+     * 
+     * @return The ID, or null if the appointment is not stored.
+     */
+    public String getId() {
+        int number = getIdNumber();
+        return number == UNASSIGNED ? null : ID_TAG + Integer.toString(number);
     }
 
     /**
      * Gets the current status of the appointment.
      * 
-     * @return The appointment status ("Scheduled" or "Completed").
+     * @return The appointment status ("Scheduled", "Completed" or "Cancelled").
      */
     public String getStatus() {
+        return getAppointmentStatus().getLabel();
+    }
+
+    /**
+     * Gets the current status of the appointment as an enum constant.
+     * 
+     * @return The appointment status.
+     */
+    public AppointmentStatus getAppointmentStatus() {
         return status;
     }
 
     /**
      * Returns a string with details about the appointment.
+     * The text is rendered once and reused until the status or a name changes.
      * 
      * @return A formatted string showing patient name, doctor name, and status.
      */
     public String appointmentDetails() {
-        return "Appointment: Patient[" + patient.name + "] - Doctor[" + doctor.name + "] - Status: " + status;
+        String patientName = patient.name;
+        String doctorName = doctor.name;
+        AppointmentStatus current = status;
+        Rendered last = rendered;
+        if (last == null || last.status != current || last.patientName != patientName
+                || last.doctorName != doctorName) {
+            StringBuilder text = new StringBuilder(80);
+            renderDetails(text, patientName, doctorName, current);
+            last = new Rendered(patientName, doctorName, current, text.toString());
+            rendered = last;
+        }
+        return last.text;
+    }
+
+    /**
+     * Appends the details of the appointment to a caller's buffer, so a
+     * listing can be built without a string per line.
+     * 
+     * @param out The buffer to append to.
+     * @return The same buffer.
+     */
+    public StringBuilder appendDetails(StringBuilder out) {
+        return out.append(appointmentDetails());
+    }
+
+    /**
+     * Writes the details of the appointment. Subclasses add their own fields
+     * after calling this method.
+     * 
+     * @param out         The buffer to write to.
+     * @param patientName The patient's name.
+     * @param doctorName  The doctor's name.
+     * @param status      The status to show.
+     */
+    protected void renderDetails(StringBuilder out, String patientName, String doctorName, AppointmentStatus status) {
+        out.append("Appointment: Patient[").append(patientName).append("] - Doctor[").append(doctorName)
+                .append("] - Status: ").append(status.getLabel());
     }
 }
\ No newline at end of file
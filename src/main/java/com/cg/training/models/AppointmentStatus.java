@@ -0,0 +1,63 @@
+package com.cg.training.models;
+
+/**
+ * The AppointmentStatus enum lists the states an appointment can be in.
+ * Every appointment refers to one of these shared constants, so the status
+ * costs a single reference per appointment and is compared by identity.
+ * <p>
+ * The states form a small state machine: a SCHEDULED appointment can become
+ * COMPLETED or CANCELLED, and both of those are final.
+ * </p>
+ */
+public enum AppointmentStatus {
+
+    /** The appointment is booked and the doctor is busy with it. */
+    SCHEDULED("Scheduled"),
+
+    /** The appointment has taken place and the doctor is free again. */
+    COMPLETED("Completed"),
+
+    /** The doctor was removed before the appointment took place. */
+    CANCELLED("Cancelled");
+
+    /** The text shown to users. */
+    private final String label;
+
+    /**
+     * Creates a status with its display text.
+     *
+     * @param label the text shown to users
+     */
+    AppointmentStatus(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Tells whether an appointment in this state may move to another one.
+     *
+     * @param next the state to move to
+     * @return true if the transition is allowed
+     */
+    public boolean canMoveTo(AppointmentStatus next) {
+        return this == SCHEDULED && next != SCHEDULED;
+    }
+
+    /**
+     * Returns the text shown to users, such as "Scheduled".
+     *
+     * @return the display text
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the display text.
+     *
+     * @return the display text
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.cg.training.models;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
 /**
  * The Doctor class represents a doctor in the system.
  * It extends the User class and adds specific functionality 
@@ -7,11 +10,21 @@ package com.cg.training.models;
  */
 public class Doctor extends User {
 
+    /** Letter in front of every doctor ID. */
+    public static final char ID_TAG = 'D';
+
     /**
      * Indicates whether the doctor is available for appointments.
-     * Default is true (available).
+     * Default is true (available). Held atomically so that concurrent
+     * bookings can claim the doctor with a single compare-and-set.
+     */
+    private final AtomicBoolean available = new AtomicBoolean(true);
+
+    /**
+     * Called whenever the doctor changes from unavailable to available,
+     * or null if nobody is interested.
      */
-    private boolean available = true;
+    private volatile Consumer<Doctor> availabilityListener;
 
     /**
      * Constructor to create a new Doctor.
@@ -23,13 +36,23 @@ public class Doctor extends User {
         super(id, name);
     }
 
+    /**
+     * Constructor to create a new Doctor from the number part of its ID.
+     * 
+     * @param idNumber The number after the "D" of the ID.
+     * @param name     The name of the doctor.
+     */
+    public Doctor(int idNumber, String name) {
+        super(ID_TAG, idNumber, name);
+    }
+
     /**
      * Checks if the doctor is available.
      * 
      * @return true if available, false if not.
      */
     public boolean isAvailable() {
-        return available;
+        return available.get();
     }
 
     /**
@@ -38,7 +61,41 @@ public class Doctor extends User {
      * @param available true if the doctor should be marked available, false otherwise.
      */
     public void setAvailable(boolean available) {
-        this.available = available;
+        if (!available) {
+            this.available.set(false);
+        } else if (!this.available.getAndSet(true)) {
+            notifyAvailable();
+        }
+    }
+
+    /**
+     * Sets the listener that is told each time the doctor becomes available again,
+     * for example when an appointment is completed.
+     * 
+     * @param listener the listener, or null to remove it.
+     */
+    public void setAvailabilityListener(Consumer<Doctor> listener) {
+        this.availabilityListener = listener;
+    }
+
+    /**
+     * Informs the availability listener, if any, that the doctor is free.
+     */
+    private void notifyAvailable() {
+        Consumer<Doctor> listener = availabilityListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+    }
+
+    /**
+     * Atomically claims the doctor for an appointment.
+     * Only one of several threads calling this at the same time can succeed.
+     * 
+     * @return true if the doctor was available and is now reserved, false otherwise.
+     */
+    public boolean tryReserve() {
+        return available.compareAndSet(true, false);
     }
 
     /**
@@ -47,6 +104,6 @@ public class Doctor extends User {
      */
     @Override
     public void showProfile() {
-        System.out.println("Doctor ID: " + id + ", Name: " + name + ", Available: " + available);
+        System.out.println("Doctor ID: " + getId() + ", Name: " + name + ", Available: " + available.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.cg.training.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The ImportReport class holds the outcome of a roster import.
+ * <p>
+ * It counts the rows read and the patients and doctors registered, and lists
+ * every rejected row with its line number in the roster and the reason.
+ * </p>
+ */
+public class ImportReport {
+
+    /** Number of data rows read from the roster, blank lines and header excluded. */
+    private final long rowsRead;
+
+    /** Number of patients registered. */
+    private final int patientsImported;
+
+    /** Number of doctors registered. */
+    private final int doctorsImported;
+
+    /** The rejected rows, ordered by line number. */
+    private final List<Reject> rejects;
+
+    /**
+     * Creates a report.
+     *
+     * @param rowsRead         the number of data rows read
+     * @param patientsImported the number of patients registered
+     * @param doctorsImported  the number of doctors registered
+     * @param rejects          the rejected rows, ordered by line number
+     */
+    public ImportReport(long rowsRead, int patientsImported, int doctorsImported, List<Reject> rejects) {
+        this.rowsRead = rowsRead;
+        this.patientsImported = patientsImported;
+        this.doctorsImported = doctorsImported;
+        this.rejects = Collections.unmodifiableList(rejects);
+    }
+
+    /**
+     * Returns the number of data rows read from the roster.
+     *
+     * @return the row count
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Returns the number of patients registered.
+     *
+     * @return the patient count
+     */
+    public int getPatientsImported() {
+        return patientsImported;
+    }
+
+    /**
+     * Returns the number of doctors registered.
+     *
+     * @return the doctor count
+     */
+    public int getDoctorsImported() {
+        return doctorsImported;
+    }
+
+    /**
+     * Returns the rejected rows, ordered by line number.
+     *
+     * @return the rejected rows
+     */
+    public List<Reject> getRejects() {
+        return rejects;
+    }
+
+    /**
+     * One roster row that could not be imported.
+     */
+    public static class Reject {
+
+        /** Line number of the row in the roster, starting at 1. */
+        private final long line;
+
+        /** Why the row was rejected. */
+        private final String reason;
+
+        /** The row as it appeared in the roster. */
+        private final String row;
+
+        /**
+         * Creates a rejected row.
+         *
+         * @param line   the line number in the roster
+         * @param reason why the row was rejected
+         * @param row    the row as read
+         */
+        public Reject(long line, String reason, String row) {
+            this.line = line;
+            this.reason = reason;
+            this.row = row;
+        }
+
+        /**
+         * Returns the line number of the row in the roster.
+         *
+         * @return the line number, starting at 1
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns why the row was rejected.
+         *
+         * @return the reason
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Returns the row as it appeared in the roster.
+         *
+         * @return the raw row
+         */
+        public String getRow() {
+            return row;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.cg.training.models;
+
+/**
+ * NameValidator checks user names without regular expressions.
+ * <p>
+ * It accepts exactly the names that {@code name.matches("^[A-Za-z||A-Za-z\\s]+")}
+ * accepts: one or more characters, each an ASCII letter, a '|' or a whitespace
+ * character as defined by {@code \s}. The check is a single pass over the
+ * characters and allocates nothing, so it can be used on large imports.
+ * </p>
+ */
+public final class NameValidator {
+
+    /** Message of the exception thrown for an invalid name. */
+    public static final String INVALID_NAME = "Name must contain only alphabets and single spaces between words.";
+
+    /**
+     * Not instantiated; all methods are static.
+     */
+    private NameValidator() {
+    }
+
+    /**
+     * Tells whether a name, already trimmed, is valid.
+     *
+     * @param name the name to check
+     * @return true if the name is not empty and only has allowed characters
+     */
+    public static boolean isValid(String name) {
+        int length = name.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isAllowed(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Trims a name and checks it.
+     *
+     * @param name the name as entered
+     * @return the trimmed name
+     * @throws IllegalArgumentException if the trimmed name is not valid
+     */
+    public static String validate(String name) {
+        name = name.trim(); // Remove leading/trailing spaces
+        if (!isValid(name)) {
+            throw new IllegalArgumentException(INVALID_NAME);
+        }
+        return name;
+    }
+
+    /**
+     * Tells whether a character may appear in a name.
+     *
+     * @param c the character
+     * @return true for ASCII letters, '|' and the whitespace characters of {@code \s}
+     */
+    private static boolean isAllowed(char c) {
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+            return true;
+        }
+        switch (c) {
+            case '|':
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
\ No newline at end of file
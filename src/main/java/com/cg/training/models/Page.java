@@ -0,0 +1,84 @@
+package com.cg.training.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Page class holds one page of a query result.
+ * <p>
+ * A page keeps only the rows between its offset and offset plus limit, together
+ * with the total number of rows the query matched when it ran. Callers ask for
+ * the next page with {@link #getNextOffset()} until {@link #hasNext()} is false.
+ * </p>
+ *
+ * @param <T> the row type
+ */
+public class Page<T> {
+
+    /** The rows of this page. */
+    private final List<T> items;
+
+    /** Position of the first row of this page within the whole result. */
+    private final int offset;
+
+    /** Number of rows the whole result had when the page was taken. */
+    private final int total;
+
+    /**
+     * Creates a page.
+     *
+     * @param items  the rows of the page
+     * @param offset the position of the first row within the whole result
+     * @param total  the number of rows in the whole result
+     */
+    public Page(List<T> items, int offset, int total) {
+        this.items = Collections.unmodifiableList(items);
+        this.offset = offset;
+        this.total = total;
+    }
+
+    /**
+     * Returns the rows of this page.
+     *
+     * @return the rows, never null
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the position of the first row of this page within the whole result.
+     *
+     * @return the offset
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of rows in the whole result.
+     *
+     * @return the total row count
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the offset to ask for to get the next page.
+     *
+     * @return the offset just after this page
+     */
+    public int getNextOffset() {
+        return offset + items.size();
+    }
+
+    /**
+     * Tells whether more rows follow this page.
+     *
+     * @return true if a next page exists
+     */
+    public boolean hasNext() {
+        return getNextOffset() < total;
+    }
+}
\ No newline at end of file
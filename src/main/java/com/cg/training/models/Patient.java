@@ -10,6 +10,9 @@ package com.cg.training.models;
  */
 public class Patient extends User {
 
+    /** Letter in front of every patient ID. */
+    public static final char ID_TAG = 'P';
+
     /**
      * Constructor to create a new Patient.
      * 
@@ -20,12 +23,22 @@ public class Patient extends User {
         super(id, name);
     }
 
+    /**
+     * Constructor to create a new Patient from the number part of its ID.
+     * 
+     * @param idNumber The number after the "P" of the ID.
+     * @param name     The name of the patient.
+     */
+    public Patient(int idNumber, String name) {
+        super(ID_TAG, idNumber, name);
+    }
+
     /**
      * Displays the patient's profile information.
      * This method overrides the showProfile method from the User class.
      */
     @Override
     public void showProfile() {
-        System.out.println("Patient ID: " + id + ", Name: " + name);
+        System.out.println("Patient ID: " + getId() + ", Name: " + name);
     }
 }
\ No newline at end of file
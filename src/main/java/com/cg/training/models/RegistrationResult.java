@@ -0,0 +1,104 @@
+package com.cg.training.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The RegistrationResult class holds the outcome of a bulk registration.
+ * <p>
+ * Every input row either received an ID or was rejected with an error message.
+ * Rows are numbered from 0 in the order the names were given.
+ * </p>
+ */
+public class RegistrationResult {
+
+    /** Assigned ID per row, or null if the row was rejected. */
+    private final String[] ids;
+
+    /** Error message per rejected row, in row order. */
+    private final Map<Integer, String> errors = new LinkedHashMap<>();
+
+    /**
+     * Creates an empty result for the given number of rows.
+     *
+     * @param rows the number of names submitted
+     */
+    public RegistrationResult(int rows) {
+        this.ids = new String[rows];
+    }
+
+    /**
+     * Records that a row was registered.
+     *
+     * @param row the row number
+     * @param id  the ID assigned to the row
+     */
+    public void registered(int row, String id) {
+        ids[row] = id;
+    }
+
+    /**
+     * Records that a row was rejected.
+     *
+     * @param row     the row number
+     * @param message the reason the row was rejected
+     */
+    public void rejected(int row, String message) {
+        errors.put(row, message);
+    }
+
+    /**
+     * Returns the ID assigned to a row.
+     *
+     * @param row the row number
+     * @return the assigned ID, or null if the row was rejected
+     */
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Returns the IDs of all registered rows, in row order.
+     *
+     * @return the assigned IDs
+     */
+    public List<String> getAssignedIds() {
+        List<String> assigned = new ArrayList<>(ids.length - errors.size());
+        for (String id : ids) {
+            if (id != null) {
+                assigned.add(id);
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Returns the error message of every rejected row, keyed by row number.
+     *
+     * @return the errors in row order
+     */
+    public Map<Integer, String> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Returns the number of rows that were registered.
+     *
+     * @return the registered count
+     */
+    public int getRegisteredCount() {
+        return ids.length - errors.size();
+    }
+
+    /**
+     * Returns the number of rows that were rejected.
+     *
+     * @return the rejected count
+     */
+    public int getRejectedCount() {
+        return errors.size();
+    }
+}
@@ -0,0 +1,52 @@
+package com.cg.training.models;
+
+/**
+ * The SlottedAppointment class is an appointment booked for a time slot in the
+ * doctor's calendar.
+ * <p>
+ * Unlike a walk-in {@link Appointment} it does not make the doctor unavailable:
+ * the doctor's calendar slot is what is reserved, so the doctor can hold many
+ * slotted appointments on the same day.
+ * </p>
+ */
+public class SlottedAppointment extends Appointment {
+
+    /** The slot of the appointment, see {@link TimeSlots}. */
+    private final int slot;
+
+    /**
+     * Constructor to create an appointment in a time slot.
+     * The doctor's availability is left unchanged.
+     *
+     * @param patient The patient attending the appointment.
+     * @param doctor  The doctor assigned to the appointment.
+     * @param slot    The slot reserved in the doctor's calendar.
+     */
+    public SlottedAppointment(Patient patient, Doctor doctor, int slot) {
+        super(patient, doctor, false);
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the slot of the appointment.
+     *
+     * @return the slot number
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Writes the details of the appointment, followed by its time.
+     *
+     * @param out         The buffer to write to.
+     * @param patientName The patient's name.
+     * @param doctorName  The doctor's name.
+     * @param status      The status to show.
+     */
+    @Override
+    protected void renderDetails(StringBuilder out, String patientName, String doctorName, AppointmentStatus status) {
+        super.renderDetails(out, patientName, doctorName, status);
+        out.append(" - Time: ").append(TimeSlots.format(getSlot()));
+    }
+}
\ No newline at end of file
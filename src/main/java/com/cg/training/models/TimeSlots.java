@@ -0,0 +1,78 @@
+package com.cg.training.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * TimeSlots maps appointment slots to clock times.
+ * <p>
+ * The clinic opens at {@link #OPENING} every day and offers
+ * {@link #SLOTS_PER_DAY} slots of {@link #SLOT_MINUTES} minutes. Slots are
+ * numbered continuously from the first slot of 1 January 1970, so a slot
+ * number alone identifies a day and a time and later slots have larger numbers.
+ * </p>
+ */
+public final class TimeSlots {
+
+    /** Start of the first slot of every day. */
+    public static final LocalTime OPENING = LocalTime.of(9, 0);
+
+    /** Length of one slot in minutes. */
+    public static final int SLOT_MINUTES = 30;
+
+    /** Number of slots offered per day. */
+    public static final int SLOTS_PER_DAY = 16;
+
+    /** Format used to show the start of a slot. */
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** Length of one slot in nanoseconds. */
+    private static final long SLOT_NANOS = SLOT_MINUTES * 60L * 1_000_000_000L;
+
+    /**
+     * Not instantiated; all methods are static.
+     */
+    private TimeSlots() {
+    }
+
+    /**
+     * Returns the time at which a slot starts.
+     *
+     * @param slot the slot number
+     * @return the start of the slot
+     */
+    public static LocalDateTime startOf(int slot) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(slot, SLOTS_PER_DAY));
+        return day.atTime(OPENING).plusMinutes((long) Math.floorMod(slot, SLOTS_PER_DAY) * SLOT_MINUTES);
+    }
+
+    /**
+     * Returns the first slot that starts at or after the given time.
+     * After the last slot of a day this is the first slot of the next day.
+     *
+     * @param time the earliest acceptable start
+     * @return the slot number
+     */
+    public static int firstSlotAtOrAfter(LocalDateTime time) {
+        long day = time.toLocalDate().toEpochDay();
+        long sinceOpening = time.toLocalTime().toNanoOfDay() - OPENING.toNanoOfDay();
+        long index = sinceOpening <= 0 ? 0 : (sinceOpening + SLOT_NANOS - 1) / SLOT_NANOS;
+        if (index >= SLOTS_PER_DAY) {
+            day++;
+            index = 0;
+        }
+        return Math.toIntExact(day * SLOTS_PER_DAY + index);
+    }
+
+    /**
+     * Returns the start of a slot as text, such as "2024-05-01 09:30".
+     *
+     * @param slot the slot number
+     * @return the formatted start time
+     */
+    public static String format(int slot) {
+        return startOf(slot).format(FORMAT);
+    }
+}
\ No newline at end of file
@@ -6,13 +6,21 @@ package com.cg.training.models;
  * <p>
  * A User has an ID and a name. The name must only contain alphabets and spaces.
  * </p>
+ * <p>
+ * An ID is one letter followed by a number, such as "P1000". It is kept as the
+ * letter and an int and only turned back into text when asked for, which keeps
+ * every user a few dozen bytes smaller than holding the ID string.
+ * </p>
  * 
  * @author Rajarshi Das
  */
 public abstract class User {
 
-    /** Unique ID for the user. */
-    protected String id;
+    /** Letter in front of the ID number, such as 'P' for patients. */
+    private final char idTag;
+
+    /** Number part of the unique ID. */
+    private final int idNumber;
 
     /** Name of the user. */
     protected String name;
@@ -30,26 +38,129 @@ public abstract class User {
      * Constructor to create a user with a given ID and name.
      * The name is trimmed and validated to contain only alphabets and spaces.
      *
-     * @param id   the unique ID of the user
+     * @param id   the unique ID of the user, one letter followed by a number
      * @param name the name of the user (must be alphabetic)
-     * @throws IllegalArgumentException if the name is invalid
+     * @throws IllegalArgumentException if the ID or the name is invalid
      */
     public User(String id, String name) {
-        name = name.trim(); // Remove leading/trailing spaces
-        if (!name.matches("^[A-Za-z||A-Za-z\\s]+")) {
-            throw new IllegalArgumentException("Name must contain only alphabets and single spaces between words.");
-        }
-        this.id = id;
-        this.name = name;
+        this(tagOf(id), numberOf(id), name);
     }
 
     /**
-     * Returns the ID of the user.
+     * Constructor to create a user from the two parts of its ID.
+     * The name is trimmed and validated to contain only alphabets and spaces,
+     * see {@link NameValidator}.
+     *
+     * @param idTag    the letter in front of the ID number
+     * @param idNumber the number part of the ID, not negative
+     * @param name     the name of the user (must be alphabetic)
+     * @throws IllegalArgumentException if the name is invalid
+     */
+    protected User(char idTag, int idNumber, String name) {
+        this.idTag = idTag;
+        this.idNumber = idNumber;
+        this.name = NameValidator.validate(name);
+    }
+
+    /**
+     * Returns the ID of the user. The text is built on every call.
      *
      * @return the user's ID
      */
     public String getId() {
-        return id;
+        return idTag + Integer.toString(idNumber);
+    }
+
+    /**
+     * Returns the letter in front of the ID number.
+     *
+     * @return the ID tag, such as 'P'
+     */
+    public char getIdTag() {
+        return idTag;
+    }
+
+    /**
+     * Returns the number part of the ID.
+     *
+     * @return the ID number
+     */
+    public int getIdNumber() {
+        return idNumber;
+    }
+
+    /**
+     * Returns the ID packed into one long, suitable as a map key.
+     * Equal to {@link #parseKey(String)} of {@link #getId()}.
+     *
+     * @return the packed ID
+     */
+    public long getKey() {
+        return key(idTag, idNumber);
+    }
+
+    /**
+     * Packs an ID tag and number into one long.
+     *
+     * @param idTag    the letter in front of the ID number
+     * @param idNumber the number part of the ID
+     * @return the packed ID
+     */
+    public static long key(char idTag, int idNumber) {
+        return ((long) idTag << 32) | idNumber;
+    }
+
+    /**
+     * Packs an ID such as "P1000" into one long without creating any objects.
+     *
+     * @param id the ID text
+     * @return the packed ID, or -1 if the text is not a valid ID
+     */
+    public static long parseKey(String id) {
+        if (id == null || id.length() < 2 || id.length() > 11) {
+            return -1;
+        }
+        char tag = id.charAt(0);
+        if (!(tag >= 'A' && tag <= 'Z' || tag >= 'a' && tag <= 'z')) {
+            return -1;
+        }
+        if (id.charAt(1) == '0' && id.length() > 2) {
+            return -1; // a leading zero would not survive formatting
+        }
+        long number = 0;
+        for (int i = 1; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number > Integer.MAX_VALUE ? -1 : key(tag, (int) number);
+    }
+
+    /**
+     * Returns the tag of an ID, checking that the whole ID is valid.
+     *
+     * @param id the ID text
+     * @return the letter in front of the number
+     * @throws IllegalArgumentException if the ID is not a letter followed by a number
+     */
+    private static char tagOf(String id) {
+        long key = parseKey(id);
+        if (key < 0) {
+            throw new IllegalArgumentException("ID must be one letter followed by a number: " + id);
+        }
+        return (char) (key >>> 32);
+    }
+
+    /**
+     * Returns the number part of an ID that {@link #tagOf(String)} accepted.
+     *
+     * @param id the ID text
+     * @return the number after the tag
+     */
+    private static int numberOf(String id) {
+        return (int) parseKey(id);
     }
 
     /**
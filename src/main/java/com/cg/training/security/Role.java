@@ -0,0 +1,93 @@
+package com.cg.training.security;
+
+import com.cg.training.models.Admin;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+import com.cg.training.models.User;
+
+/**
+ * The Role enum lists the roles a caller of the appointment system can have.
+ * Each role is one bit, so a policy can hold the roles allowed to call an
+ * operation in one int.
+ */
+public enum Role {
+
+    /** An administrator, see {@link Admin}. */
+    ADMIN("Admin"),
+
+    /** A doctor. */
+    DOCTOR("Doctor"),
+
+    /** A patient. */
+    PATIENT("Patient");
+
+    /** The name used in {@link com.cg.training.annotations.Security}. */
+    private final String label;
+
+    /** The bit of this role in a policy mask. */
+    private final int bit;
+
+    /**
+     * Creates a role with its annotation name.
+     *
+     * @param label the name used in annotations
+     */
+    Role(String label) {
+        this.label = label;
+        this.bit = 1 << ordinal();
+    }
+
+    /**
+     * Returns the name used in annotations.
+     *
+     * @return the role name, such as "Admin"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns the bit of this role in a policy mask.
+     *
+     * @return a mask with only this role set
+     */
+    int bit() {
+        return bit;
+    }
+
+    /**
+     * Returns the role with the given annotation name.
+     *
+     * @param label the role name, such as "Doctor"
+     * @return the role
+     * @throws IllegalArgumentException if no role has that name
+     */
+    public static Role fromLabel(String label) {
+        for (Role role : values()) {
+            if (role.label.equals(label)) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown role: " + label);
+    }
+
+    /**
+     * Returns the role of a user.
+     *
+     * @param user an admin, doctor or patient
+     * @return the user's role
+     * @throws IllegalArgumentException if the user has no role
+     */
+    public static Role of(User user) {
+        if (user instanceof Admin) {
+            return ADMIN;
+        }
+        if (user instanceof Doctor) {
+            return DOCTOR;
+        }
+        if (user instanceof Patient) {
+            return PATIENT;
+        }
+        throw new IllegalArgumentException("User has no role: " + user.getId());
+    }
+}
\ No newline at end of file
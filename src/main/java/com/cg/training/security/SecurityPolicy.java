@@ -0,0 +1,183 @@
+package com.cg.training.security;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.cg.training.annotations.Security;
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.metrics.Operation;
+
+/**
+ * The roles allowed to call each {@link AppointmentSystemDAO} operation on
+ * one class, resolved once from its {@link Security} annotations.
+ * <p>
+ * Every class and interface in the hierarchy has its say: its annotation on
+ * the method if it declares the method with one, otherwise its annotation on
+ * the type. A role may call the operation only if every one of them allows
+ * it, so an interface that opens a method cannot undo a stricter lock on the
+ * class, and an empty intersection closes the operation to everyone. An
+ * operation without any annotation is open to every role. The result is
+ * one role mask per {@link Operation}, cached per class in a
+ * {@link ClassValue}, so {@link #check(Operation, Role)} is an array read
+ * and a bit test: no reflection and no allocation unless access is denied.
+ * </p>
+ */
+public final class SecurityPolicy {
+
+    /** Mask of an operation every role may call. */
+    private static final int ANY_ROLE = -1;
+
+    /** The policy of every class asked for so far. */
+    private static final ClassValue<SecurityPolicy> POLICIES = new ClassValue<SecurityPolicy>() {
+        @Override
+        protected SecurityPolicy computeValue(Class<?> type) {
+            return new SecurityPolicy(type);
+        }
+    };
+
+    /** Allowed roles per operation, by ordinal. */
+    private final int[] allowed = new int[Operation.values().length];
+
+
+    /**
+     * Resolves the policy of a class.
+     *
+     * @param type a class implementing AppointmentSystemDAO, or the interface itself
+     */
+    private SecurityPolicy(Class<?> type) {
+        for (Method method : AppointmentSystemDAO.class.getMethods()) {
+            allowed[operationOf(method).ordinal()] = resolve(type, method);
+        }
+    }
+
+    /**
+     * Returns the policy of a class, resolving it on first use.
+     *
+     * @param type a class implementing AppointmentSystemDAO, or the interface itself
+     * @return the policy
+     * @throws IllegalArgumentException if an annotation names an unknown role
+     */
+    public static SecurityPolicy of(Class<?> type) {
+        return POLICIES.get(type);
+    }
+
+    /**
+     * Tells whether a role may call an operation.
+     *
+     * @param operation the operation
+     * @param role      the caller's role
+     * @return true if the call is allowed
+     */
+    public boolean allows(Operation operation, Role role) {
+        return (allowed[operation.ordinal()] & role.bit()) != 0;
+    }
+
+    /**
+     * Rejects a call the role may not make.
+     *
+     * @param operation the operation
+     * @param role      the caller's role
+     * @throws SecurityException if the role may not call the operation
+     */
+    public void check(Operation operation, Role role) {
+        if ((allowed[operation.ordinal()] & role.bit()) == 0) {
+            throw new SecurityException("Access denied: " + operation.getLabel() + " "
+                    + describe(allowed[operation.ordinal()]) + ", not " + role.getLabel() + ".");
+        }
+    }
+
+    /**
+     * Describes the roles in a mask for an error message.
+     *
+     * @param mask the allowed roles
+     * @return such as "requires role Admin" or "requires role Doctor or Admin"
+     */
+    private static String describe(int mask) {
+        StringBuilder roles = new StringBuilder();
+        for (Role role : Role.values()) {
+            if ((mask & role.bit()) != 0) {
+                roles.append(roles.length() == 0 ? "requires role " : " or ").append(role.getLabel());
+            }
+        }
+        return roles.length() == 0 ? "is closed to every role" : roles.toString();
+    }
+
+    /**
+     * Returns the operation a DAO method is measured and checked as.
+     *
+     * @param method a method of AppointmentSystemDAO
+     * @return its operation
+     */
+    static Operation operationOf(Method method) {
+        if (method.getName().equals("bookAppointment") && method.getParameterCount() == 2) {
+            return Operation.BOOK_TIME_SLOT;
+        }
+        for (Operation operation : Operation.values()) {
+            if (operation.getLabel().equals(method.getName())) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("No operation for " + method.getName());
+    }
+
+    /**
+     * Resolves the roles allowed to call a method of a class: the
+     * intersection of what every class and interface in its hierarchy allows,
+     * each through its method annotation if it has one, else its type annotation.
+     *
+     * @param type   the class
+     * @param method the DAO method
+     * @return the mask of allowed roles, {@link #ANY_ROLE} if nothing is annotated
+     * @throws IllegalArgumentException if an annotation names an unknown role
+     */
+    private static int resolve(Class<?> type, Method method) {
+        int mask = ANY_ROLE;
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        Set<Class<?>> seen = new HashSet<>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            Class<?> current = queue.poll();
+            if (!seen.add(current)) {
+                continue;
+            }
+            Security security = null;
+            try {
+                security = current.getDeclaredMethod(method.getName(), method.getParameterTypes())
+                        .getAnnotation(Security.class);
+            } catch (NoSuchMethodException e) {
+                // not declared here
+            }
+            if (security == null) {
+                security = current.getAnnotation(Security.class);
+            }
+            if (security != null) {
+                mask &= maskOf(security);
+            }
+            if (current.getSuperclass() != null) {
+                queue.add(current.getSuperclass());
+            }
+            for (Class<?> implemented : current.getInterfaces()) {
+                queue.add(implemented);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the roles an annotation allows.
+     *
+     * @param security the annotation
+     * @return the mask of its roles
+     * @throws IllegalArgumentException if it names an unknown role
+     */
+    private static int maskOf(Security security) {
+        int mask = 0;
+        for (String label : security.role()) {
+            mask |= Role.fromLabel(label.trim()).bit();
+        }
+        return mask;
+    }
+}
\ No newline at end of file
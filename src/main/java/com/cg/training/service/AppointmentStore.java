@@ -0,0 +1,565 @@
+package com.cg.training.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.LongFunction;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.AppointmentStatus;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.models.User;
+
+/**
+ * The appointment list of one system, split into a hot tier on the heap and
+ * a cold tier of compressed segment files.
+ * <p>
+ * Every appointment is appended to a {@link ConcurrentAppendList}. Once an
+ * appointment has ended (completed or cancelled) it can no longer change, so
+ * after {@link #archiveTo(Path, long)} a background thread moves ended
+ * appointments, {@link #SEGMENT_RECORDS} at a time, into append-only,
+ * deflate-compressed segment files. The list slot of a moved appointment
+ * then holds the shared {@link Segment} marker instead of the appointment,
+ * so the heap keeps one reference per archived appointment and no objects
+ * or rendered text. The doctor and patient indexes of the system keep
+ * working unchanged, since they hold positions and {@link #get(int)}
+ * resolves any position.
+ * </p>
+ * <p>
+ * A segment file holds its record count, the sorted positions of its
+ * records and then the records. Reading an archived appointment decodes
+ * its whole segment; the last {@link #CACHED_SEGMENTS} decoded segments
+ * are kept, so a listing or a patient's history touches each file once.
+ * Archived appointments are rebuilt as new objects that share the
+ * registered patient and doctor; they are read-only in effect, since an
+ * ended appointment cannot change status.
+ * </p>
+ * <p>
+ * A store created off the heap keeps no appointment objects at all: every
+ * appointment is copied into an {@link OffHeapAppointments} record and read
+ * through flyweight views. Such a store has nothing to archive.
+ * </p>
+ */
+final class AppointmentStore extends AbstractList<Appointment> implements RandomAccess {
+
+    /** Number of ended appointments written to one segment. */
+    static final int SEGMENT_RECORDS = 1024;
+
+    /** Number of decoded segments kept in memory. */
+    private static final int CACHED_SEGMENTS = 8;
+
+    /** Prefix of segment file names. */
+    private static final String SEGMENT_PREFIX = "appointments-";
+
+    /** Suffix of segment file names. */
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /** Record flag added to the status of an appointment in a time slot. */
+    private static final int SLOTTED = 0x80;
+
+    /**
+     * The marker left in the list for an archived appointment.
+     */
+    static final class Segment {
+
+        /** The segment file. */
+        final Path file;
+
+        /**
+         * Creates a marker for a written segment.
+         *
+         * @param file the segment file
+         */
+        Segment(Path file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * A segment read back from disk.
+     */
+    private static final class Decoded {
+
+        /** Sorted positions of the records. */
+        final int[] positions;
+
+        /** The rebuilt appointments, in position order. */
+        final Appointment[] appointments;
+
+        /**
+         * Creates a decoded segment.
+         *
+         * @param positions    the sorted positions
+         * @param appointments the appointments in the same order
+         */
+        Decoded(int[] positions, Appointment[] appointments) {
+            this.positions = positions;
+            this.appointments = appointments;
+        }
+    }
+
+    /** Appointments, or the segment markers of archived ones; empty when off the heap. */
+    private final ConcurrentAppendList<Object> log = new ConcurrentAppendList<>();
+
+    /** The records of every appointment, or null if appointments are kept on the heap. */
+    private final OffHeapAppointments offHeap;
+
+    /** Finds a registered patient by key, or returns null. */
+    private final LongFunction<Patient> patients;
+
+    /** Finds a registered doctor by key, or returns null. */
+    private final LongFunction<Doctor> doctors;
+
+    /** Directory of the segment files, or null until archiving is enabled. */
+    private volatile Path directory;
+
+    /** Positions of ended appointments not yet archived; guarded by this. */
+    private int[] ended = new int[64];
+
+    /** Number of entries used in {@link #ended}; guarded by this. */
+    private int endedCount;
+
+    /** Number of segment files written; guarded by {@link #sealLock}. */
+    private int segmentCount;
+
+    /** Held while a segment is written, so segments are written one at a time. */
+    private final Object sealLock = new Object();
+
+    /** The most recently read segments, least recently used first; guarded by itself. */
+    private final Map<Segment, Decoded> cache = new LinkedHashMap<Segment, Decoded>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Segment, Decoded> eldest) {
+            return size() > CACHED_SEGMENTS;
+        }
+    };
+
+    /** The background thread moving ended appointments, or null. */
+    private Thread archiver;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param patients finds a registered patient by {@link User#getKey()}
+     * @param doctors  finds a registered doctor by {@link User#getKey()}
+     */
+    AppointmentStore(LongFunction<Patient> patients, LongFunction<Doctor> doctors) {
+        this(patients, doctors, false);
+    }
+
+    /**
+     * Creates an empty store on or off the heap.
+     *
+     * @param patients finds a registered patient by {@link User#getKey()}
+     * @param doctors  finds a registered doctor by {@link User#getKey()}
+     * @param offHeap  whether appointments are copied to direct memory
+     */
+    AppointmentStore(LongFunction<Patient> patients, LongFunction<Doctor> doctors, boolean offHeap) {
+        this.patients = patients;
+        this.doctors = doctors;
+        this.offHeap = offHeap ? new OffHeapAppointments(patients, doctors) : null;
+    }
+
+    /**
+     * Appends an appointment; see {@link ConcurrentAppendList#append}. Off the
+     * heap, the appointment is copied and the object itself is not kept.
+     *
+     * @param appointment the appointment
+     * @param inOrder     optional callback run in position order before publication
+     * @return the position of the appointment
+     */
+    int append(Appointment appointment, IntConsumer inOrder) {
+        return offHeap != null ? offHeap.append(appointment, inOrder) : log.append(appointment, inOrder);
+    }
+
+    /**
+     * Tells whether appointments are kept off the heap.
+     *
+     * @return true if appointments are records in direct memory
+     */
+    boolean isOffHeap() {
+        return offHeap != null;
+    }
+
+    /**
+     * Returns the appointment at a position, reading it back from its
+     * segment if it has been archived.
+     *
+     * @param index the position
+     * @return the appointment
+     * @throws IndexOutOfBoundsException if there is no such position
+     * @throws UncheckedIOException if the segment cannot be read
+     */
+    @Override
+    public Appointment get(int index) {
+        if (offHeap != null) {
+            return offHeap.view(index);
+        }
+        Object element = log.get(index);
+        if (element instanceof Appointment) {
+            return (Appointment) element;
+        }
+        return read((Segment) element, index);
+    }
+
+    /**
+     * Returns the appointment at a position like {@link #get(int)}, reusing
+     * a view returned by an earlier call when appointments are kept off the
+     * heap. A listing calls it with its previous result, so it walks every
+     * appointment without creating one object per line.
+     *
+     * @param index the position
+     * @param reuse the appointment returned by the previous call, or null
+     * @return the appointment, possibly the same object as {@code reuse}
+     */
+    Appointment get(int index, Appointment reuse) {
+        return offHeap != null ? offHeap.view(index, reuse) : get(index);
+    }
+
+    /**
+     * Returns the lock under which an appointment of this store changes
+     * status: the appointment itself on the heap, or the lock of its record.
+     *
+     * @param appointment an appointment returned by this store
+     * @return the lock
+     */
+    static Object monitorOf(Appointment appointment) {
+        return OffHeapAppointments.monitorOf(appointment);
+    }
+
+    /**
+     * Returns the appointment at a position if it is still on the heap, or
+     * its view if appointments are kept off the heap. Archived appointments
+     * have ended, so callers looking for appointments that can still change
+     * skip them without reading their segment.
+     *
+     * @param index the position
+     * @return the appointment, or null if it has been archived
+     */
+    Appointment getResident(int index) {
+        if (offHeap != null) {
+            return offHeap.view(index);
+        }
+        Object element = log.get(index);
+        return element instanceof Appointment ? (Appointment) element : null;
+    }
+
+    /**
+     * Returns the number of appointments, archived or not.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return offHeap != null ? offHeap.size() : log.size();
+    }
+
+    /**
+     * Notes that the appointment at a position has ended, so it can be
+     * archived. Does nothing until archiving is enabled.
+     *
+     * @param position the position
+     */
+    void ended(int position) {
+        if (directory == null) {
+            return;
+        }
+        synchronized (this) {
+            if (endedCount == ended.length) {
+                ended = Arrays.copyOf(ended, endedCount * 2);
+            }
+            ended[endedCount++] = position;
+        }
+    }
+
+    /**
+     * Starts moving ended appointments to segment files in a directory.
+     * Segment files left there by an earlier run are deleted, since the
+     * system is always rebuilt from its snapshot and journal. Appointments
+     * that have already ended are queued at once.
+     *
+     * @param directory      the directory of the segment files, created if missing
+     * @param intervalMillis how often the background thread looks for full segments
+     * @throws IOException if the directory cannot be prepared
+     * @throws IllegalStateException if archiving is already enabled or appointments are off the heap
+     */
+    synchronized void archiveTo(Path directory, long intervalMillis) throws IOException {
+        if (offHeap != null) {
+            throw new IllegalStateException("Appointments are kept off the heap and are not archived.");
+        }
+        if (this.directory != null) {
+            throw new IllegalStateException("Appointments are already archived to " + this.directory);
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> old = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : old) {
+                Files.delete(file);
+            }
+        }
+        this.directory = directory;
+        int size = log.size();
+        for (int i = 0; i < size; i++) {
+            Appointment appointment = getResident(i);
+            if (appointment != null && appointment.getAppointmentStatus() != AppointmentStatus.SCHEDULED) {
+                ended(i);
+            }
+        }
+        if (intervalMillis > 0) {
+            archiver = new Thread(() -> archiveLoop(intervalMillis), "appointment-archiver");
+            archiver.setDaemon(true);
+            archiver.start();
+        }
+    }
+
+    /**
+     * Stops the background thread. Segments already written stay readable.
+     */
+    synchronized void stopArchiving() {
+        if (archiver != null) {
+            archiver.interrupt();
+            archiver = null;
+        }
+    }
+
+    /**
+     * Returns the number of ended appointments waiting for a full segment.
+     *
+     * @return the length of the queue
+     */
+    synchronized int getPendingCount() {
+        return endedCount;
+    }
+
+    /**
+     * Writes a segment for every full batch of ended appointments and
+     * leaves a marker in their list slots.
+     *
+     * @return the number of appointments archived
+     * @throws IOException if a segment cannot be written; its appointments stay queued
+     */
+    int archiveEnded() throws IOException {
+        int archived = 0;
+        synchronized (sealLock) {
+            while (true) {
+                int[] batch;
+                synchronized (this) {
+                    if (endedCount < SEGMENT_RECORDS) {
+                        return archived;
+                    }
+                    batch = Arrays.copyOf(ended, SEGMENT_RECORDS);
+                    endedCount -= SEGMENT_RECORDS;
+                    System.arraycopy(ended, SEGMENT_RECORDS, ended, 0, endedCount);
+                }
+                try {
+                    archived += seal(batch);
+                } catch (IOException e) {
+                    requeue(batch);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the positions of a segment that could not be written back in
+     * front of the queue.
+     *
+     * @param batch the positions
+     */
+    private synchronized void requeue(int[] batch) {
+        int[] queue = new int[Math.max(ended.length, endedCount + batch.length)];
+        System.arraycopy(batch, 0, queue, 0, batch.length);
+        System.arraycopy(ended, 0, queue, batch.length, endedCount);
+        ended = queue;
+        endedCount += batch.length;
+    }
+
+    /**
+     * Writes one segment and replaces its appointments by the segment's marker.
+     *
+     * @param batch positions of ended appointments, possibly repeated
+     * @return the number of appointments written
+     * @throws IOException if the segment cannot be written
+     */
+    private int seal(int[] batch) throws IOException {
+        Arrays.sort(batch);
+        int[] positions = new int[batch.length];
+        Appointment[] appointments = new Appointment[batch.length];
+        int count = 0;
+        for (int i = 0; i < batch.length; i++) {
+            if (i > 0 && batch[i] == batch[i - 1]) {
+                continue;
+            }
+            Appointment appointment = getResident(batch[i]);
+            if (appointment != null) {
+                positions[count] = batch[i];
+                appointments[count++] = appointment;
+            }
+        }
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segmentCount, SEGMENT_SUFFIX));
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(file), deflater)))) {
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(positions[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                write(out, appointments[i]);
+            }
+        } finally {
+            deflater.end();
+        }
+        segmentCount++;
+        Segment segment = new Segment(file);
+        for (int i = 0; i < count; i++) {
+            log.replace(positions[i], segment);
+        }
+        return count;
+    }
+
+    /**
+     * Writes one ended appointment to a segment.
+     *
+     * @param out         the segment being written
+     * @param appointment the appointment
+     * @throws IOException if the segment cannot be written
+     */
+    private static void write(DataOutputStream out, Appointment appointment) throws IOException {
+        int status = appointment.getAppointmentStatus().ordinal();
+        if (appointment instanceof SlottedAppointment) {
+            out.writeByte(status | SLOTTED);
+            out.writeInt(((SlottedAppointment) appointment).getSlot());
+        } else {
+            out.writeByte(status);
+        }
+        out.writeInt(appointment.getIdNumber());
+        out.writeUTF(appointment.patient.getId());
+        out.writeUTF(appointment.patient.getName());
+        out.writeUTF(appointment.doctor.getId());
+        out.writeUTF(appointment.doctor.getName());
+    }
+
+    /**
+     * Returns an archived appointment, decoding its segment if it is not cached.
+     *
+     * @param segment the segment holding the appointment
+     * @param index   the position of the appointment
+     * @return the rebuilt appointment
+     */
+    private Appointment read(Segment segment, int index) {
+        Decoded decoded;
+        synchronized (cache) {
+            decoded = cache.get(segment);
+        }
+        if (decoded == null) {
+            try {
+                decoded = decode(segment.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Archived appointment " + index + " could not be read", e);
+            }
+            synchronized (cache) {
+                cache.put(segment, decoded);
+            }
+        }
+        return decoded.appointments[Arrays.binarySearch(decoded.positions, index)];
+    }
+
+    /**
+     * Reads a whole segment file and rebuilds its appointments.
+     *
+     * @param file the segment file
+     * @return the decoded segment
+     * @throws IOException if the file cannot be read
+     */
+    private Decoded decode(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(Files.newInputStream(file))))) {
+            int count = in.readInt();
+            int[] positions = new int[count];
+            for (int i = 0; i < count; i++) {
+                positions[i] = in.readInt();
+            }
+            AppointmentStatus[] statuses = AppointmentStatus.values();
+            Appointment[] appointments = new Appointment[count];
+            for (int i = 0; i < count; i++) {
+                int status = in.readUnsignedByte();
+                int slot = (status & SLOTTED) != 0 ? in.readInt() : -1;
+                int idNumber = in.readInt();
+                Patient patient = patient(in.readUTF(), in.readUTF());
+                Doctor doctor = doctor(in.readUTF(), in.readUTF());
+                Appointment appointment = slot >= 0
+                        ? new SlottedAppointment(patient, doctor, slot)
+                        : Appointment.withoutReservation(patient, doctor);
+                appointment.moveTo(statuses[status & ~SLOTTED]);
+                appointment.assignIdNumber(idNumber);
+                appointments[i] = appointment;
+            }
+            return new Decoded(positions, appointments);
+        }
+    }
+
+    /**
+     * Returns the registered patient with an ID, or a stand-in if the
+     * patient is not registered.
+     *
+     * @param id   the patient ID
+     * @param name the patient's name when archived
+     * @return the patient
+     */
+    private Patient patient(String id, String name) {
+        Patient patient = patients.apply(User.parseKey(id));
+        return patient != null ? patient : new Patient(id, name);
+    }
+
+    /**
+     * Returns the registered doctor with an ID, or a stand-in if the doctor
+     * has been removed.
+     *
+     * @param id   the doctor ID
+     * @param name the doctor's name when archived
+     * @return the doctor
+     */
+    private Doctor doctor(String id, String name) {
+        Doctor doctor = doctors.apply(User.parseKey(id));
+        return doctor != null ? doctor : new Doctor(id, name);
+    }
+
+    /**
+     * The background loop: archives full segments at a fixed interval until
+     * stopped.
+     *
+     * @param intervalMillis the time between two looks at the queue
+     */
+    private void archiveLoop(long intervalMillis) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(intervalMillis);
+                archiveEnded();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error: appointments could not be archived: " + e.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
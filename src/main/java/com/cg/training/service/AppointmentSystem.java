@@ -1,22 +1,56 @@
 package com.cg.training.service;
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.cg.training.dao.AppointmentJournal;
 import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.dao.SnapshotFile;
+import com.cg.training.events.ConsoleRenderer;
+import com.cg.training.events.DirectEventSink;
+import com.cg.training.events.EventSink;
+import com.cg.training.events.EventType;
 import com.cg.training.exceptions.InvalidAppointmentException;
 import com.cg.training.models.Appointment;
+import com.cg.training.models.AppointmentStatus;
 import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
 import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.models.TimeSlots;
+import com.cg.training.models.User;
 
 /**
  * This class handles the main functionality of the appointment system.
  * It manages the registration of patients and doctors, booking appointments,
  * and tracking appointment status.
+ * <p>
+ * All operations are safe to call from several threads at once. Doctors are
+ * claimed with an atomic compare-and-set, and patients, appointments and the
+ * ID indexes are kept in lock-free concurrent structures, so bookings do not
+ * serialize on a global lock.
+ * </p>
+ * <p>
+ * The outcome of every change is reported as an event to the
+ * {@link EventSink} set with {@link #setEventSink(EventSink)}; by default the
+ * messages are printed to the console on the calling thread. The show
+ * methods print their listings directly.
+ * </p>
  * 
  * Author: Shrestha Das
  */
@@ -31,19 +65,207 @@ public class AppointmentSystem implements AppointmentSystemDAO {
     /** List to store all booked appointments. */
     public List<Appointment> appointments;
 
+    /** The appointment list, typed so that bookings can be appended in order and ended ones archived. */
+    private final AppointmentStore appointmentStore;
+
+    /** Index of registered patients keyed by {@link User#getKey()}. */
+    Map<Long, Patient> patientsById;
+
+    /** Index of registered doctors keyed by {@link User#getKey()}. */
+    Map<Long, Doctor> doctorsById;
+
+    /** Positions in {@link #appointments} grouped by the doctor's {@link User#getKey()}. */
+    Map<Long, ConcurrentIntList> appointmentsByDoctorId;
+
+    /** Positions in {@link #appointments} grouped by the patient's {@link User#getKey()}. */
+    Map<Long, ConcurrentIntList> appointmentsByPatientId;
+
+    /** One shared instance per distinct user name, or null when names are not interned. */
+    private final Map<String, String> names;
+
+    /** How the next walk-in appointment is assigned to a free doctor. */
+    private volatile DoctorAssignment assignment = DoctorAssignment.LONGEST_AVAILABLE;
+
+    /** Doctors who are free to take the next appointment, in the order of {@link #assignment}. */
+    volatile DoctorAssignmentStrategy availableDoctors = assignment.create(this::appointmentCount);
+
+    /** Calendars of all registered doctors, for appointments in time slots. */
+    final SlotScheduler scheduler = new SlotScheduler();
+
     /** Counter to generate unique patient IDs. */
-    int patientCounter = 1000;
+    final AtomicInteger patientCounter = new AtomicInteger(1000);
 
     /** Counter to generate unique doctor IDs. */
-    int doctorCounter = 1000;
+    final AtomicInteger doctorCounter = new AtomicInteger(1000);
+
+    /** Number of buffered characters after which a listing is printed. */
+    static final int PRINT_CHUNK = 8192;
+
+    /** Time between two looks for full archive segments, in milliseconds. */
+    private static final long ARCHIVE_INTERVAL_MILLIS = 1000;
+
+    /** Snapshot code of a scheduled appointment. */
+    private static final int SNAPSHOT_SCHEDULED = 0;
+
+    /** Snapshot code of a completed appointment. */
+    private static final int SNAPSHOT_COMPLETED = 1;
+
+    /** Snapshot code of an appointment cancelled because its doctor was removed. */
+    private static final int SNAPSHOT_CANCELLED = 2;
+
+    /** Snapshot flag added to the status code of an appointment in a time slot. */
+    private static final int SNAPSHOT_SLOTTED = 0x80;
+
+    /** Snapshot reference written in place of an ID for users that are not registered. */
+    private static final int SNAPSHOT_INLINE_USER = -1;
+
+    /** Appointment ID number of position p is {@code p * idStride + idOffset}; see {@link #numberAppointments}. */
+    private int idStride = 1;
+
+    /** Appointment ID number of the first position. */
+    private int idOffset;
+
+    /** Journal receiving one record per change, or null when nothing is persisted. */
+    private volatile AppointmentJournal journal;
+
+    /** Receives an event for the outcome of every change. */
+    private volatile EventSink events = new DirectEventSink(new ConsoleRenderer());
 
     /**
-     * Constructor to initialize the lists for patients, doctors, and appointments.
+     * Constructor to initialize the lists for patients, doctors, and appointments,
+     * together with the ID-keyed indexes used for lookups.
      */
     public AppointmentSystem() {
-        patients = new ArrayList<>();
-        doctors = new ArrayList<>();
-        appointments = new ArrayList<>();
+        this(false);
+    }
+
+    /**
+     * Constructor that can share one String instance among all users with the
+     * same name. This pays off when many users share a name; with mostly
+     * distinct names it costs an extra map entry per name.
+     *
+     * @param internNames whether equal names should share one instance
+     */
+    public AppointmentSystem(boolean internNames) {
+        this(internNames, false);
+    }
+
+    /**
+     * Constructor that can also keep the appointments off the heap, as
+     * fixed-width records in direct memory read through flyweight views (see
+     * {@link OffHeapAppointments}). Garbage collection then no longer slows
+     * down as appointments pile up, at the price of rebuilding the patient
+     * and doctor of an appointment each time it is read. Appointments off
+     * the heap are not archived.
+     *
+     * @param internNames whether equal names should share one instance
+     * @param offHeap     whether appointments are kept in direct memory
+     */
+    public AppointmentSystem(boolean internNames, boolean offHeap) {
+        appointmentStore = new AppointmentStore(key -> patientsById.get(key), key -> doctorsById.get(key), offHeap);
+        names = internNames ? new ConcurrentHashMap<String, String>() : null;
+        patients = new ConcurrentAppendList<>();
+        doctors = new TombstoneList<>();
+        appointments = appointmentStore;
+        patientsById = new ConcurrentHashMap<>();
+        doctorsById = new ConcurrentHashMap<>();
+        appointmentsByDoctorId = new ConcurrentHashMap<>();
+        appointmentsByPatientId = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructor that rebuilds the system from an existing journal and then
+     * records every further change in it.
+     *
+     * @param journal the journal to replay and append to
+     */
+    public AppointmentSystem(AppointmentJournal journal) {
+        this(null, journal);
+    }
+
+    /**
+     * Constructor that rebuilds the system from a binary snapshot followed by
+     * the journal of changes made since that snapshot, and then records every
+     * further change in the journal. A missing snapshot or journal file is
+     * treated as empty. If either cannot be read, or a journal record cannot
+     * be applied, the error is printed and no change is saved from then on.
+     *
+     * @param snapshotFile the snapshot written by {@link #saveSnapshot(String)}, or null
+     * @param journal      the journal to replay and append to, or null
+     */
+    public AppointmentSystem(String snapshotFile, AppointmentJournal journal) {
+        this(snapshotFile, journal, false);
+    }
+
+    /**
+     * Constructor that restores the system like
+     * {@link #AppointmentSystem(String, AppointmentJournal)} and optionally
+     * shares one String instance among all users with the same name.
+     *
+     * @param snapshotFile the snapshot written by {@link #saveSnapshot(String)}, or null
+     * @param journal      the journal to replay and append to, or null
+     * @param internNames  whether equal names should share one instance
+     */
+    public AppointmentSystem(String snapshotFile, AppointmentJournal journal, boolean internNames) {
+        this(snapshotFile, journal, internNames, false);
+    }
+
+    /**
+     * Constructor that restores the system like
+     * {@link #AppointmentSystem(String, AppointmentJournal, boolean)} into
+     * appointments kept on or off the heap; see
+     * {@link #AppointmentSystem(boolean, boolean)}.
+     *
+     * @param snapshotFile the snapshot written by {@link #saveSnapshot(String)}, or null
+     * @param journal      the journal to replay and append to, or null
+     * @param internNames  whether equal names should share one instance
+     * @param offHeap      whether appointments are kept in direct memory
+     */
+    public AppointmentSystem(String snapshotFile, AppointmentJournal journal, boolean internNames, boolean offHeap) {
+        this(internNames, offHeap);
+        try {
+            restore(snapshotFile, journal);
+            events.info("Restored " + patients.size() + " patients, " + doctors.size()
+                    + " doctors and " + appointments.size() + " appointments.");
+        } catch (IOException e) {
+            events.error("Error: " + e.getMessage() + " Changes will not be saved.");
+        }
+    }
+
+    /**
+     * Rebuilds this (still empty) system from a snapshot and a journal, and
+     * then records every further change in the journal. Nothing is printed.
+     * <p>
+     * Replay stops at the first record that cannot be applied. Skipping it
+     * would leave every later record to act on the wrong state, so instead
+     * the journal is not attached at all: the file stays as it is for
+     * repair, and nothing is appended to a journal this system does not match.
+     * </p>
+     *
+     * @param snapshotFile the snapshot written by {@link #saveSnapshot(String)}, or null
+     * @param journal      the journal to replay and append to, or null
+     * @throws IOException if the snapshot or the journal cannot be read or applied
+     */
+    void restore(String snapshotFile, AppointmentJournal journal) throws IOException {
+        if (snapshotFile != null && Files.exists(Paths.get(snapshotFile))) {
+            readSnapshot(Paths.get(snapshotFile));
+        }
+        if (journal != null) {
+            Map<Long, Doctor> removedDoctors = new HashMap<>();
+            try {
+                journal.replay(fields -> applyRecord(fields, removedDoctors));
+            } catch (IllegalStateException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        this.journal = journal;
+    }
+
+    /**
+     * Stops recording changes, as when a restore failed part of the way.
+     */
+    void detachJournal() {
+        journal = null;
     }
 
     /**
@@ -55,11 +277,10 @@ public class AppointmentSystem implements AppointmentSystemDAO {
     @Override
     public void registerPatient(String name) {
         try {
-            String id = "P" + patientCounter++;
-            patients.add(new Patient(id, name));
-            System.out.println("Patient registered with ID: " + id);
+            String id = storePatient(patientCounter.getAndIncrement(), name);
+            events.publish(EventType.PATIENT_REGISTERED, id, 0);
         } catch (IllegalArgumentException e) {
-            System.out.println("Error: " + e.getMessage());
+            events.error("Error: " + e.getMessage());
         }
     }
 
@@ -72,16 +293,176 @@ public class AppointmentSystem implements AppointmentSystemDAO {
     @Override
     public void registerDoctor(String name) {
         try {
-            String id = "D" + doctorCounter++;
-            doctors.add(new Doctor(id, name));
-            System.out.println("Doctor registered with ID: " + id);
+            Doctor doctor = createDoctor(doctorCounter.getAndIncrement(), name);
+            addDoctor(doctor);
+            events.publish(EventType.DOCTOR_REGISTERED, doctor.getId(), 0);
         } catch (IllegalArgumentException e) {
-            System.out.println("Error: " + e.getMessage());
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers many patients in one pass. The whole ID range is reserved with
+     * a single atomic step, so concurrent batches never interleave their IDs.
+     * Only a summary line is printed.
+     *
+     * @param names the names of the patients
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    @Override
+    public RegistrationResult registerPatients(Collection<String> names) {
+        RegistrationResult result = addPatients(names);
+        events.publish(EventType.PATIENTS_REGISTERED, null, result.getRegisteredCount(),
+                result.getRejectedCount(), null);
+        return result;
+    }
+
+    /**
+     * Registers many patients without printing anything.
+     *
+     * @param names the names of the patients
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    RegistrationResult addPatients(Collection<String> names) {
+        RegistrationResult result = new RegistrationResult(names.size());
+        int next = patientCounter.getAndAdd(names.size());
+        int row = 0;
+        for (String name : names) {
+            int number = next++;
+            try {
+                result.registered(row, storePatient(number, requireName(name)));
+            } catch (IllegalArgumentException e) {
+                result.rejected(row, e.getMessage());
+            }
+            row++;
         }
+        return result;
     }
 
     /**
-     * Books an appointment for a given patient with the first available doctor.
+     * Registers many doctors in one pass. The whole ID range is reserved with
+     * a single atomic step and the doctor list is extended once for the batch,
+     * instead of once per doctor. Only a summary line is printed.
+     *
+     * @param names the names of the doctors
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    @Override
+    public RegistrationResult registerDoctors(Collection<String> names) {
+        RegistrationResult result = addDoctors(names);
+        events.publish(EventType.DOCTORS_REGISTERED, null, result.getRegisteredCount(),
+                result.getRejectedCount(), null);
+        return result;
+    }
+
+    /**
+     * Registers many doctors without printing anything.
+     *
+     * @param names the names of the doctors
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    RegistrationResult addDoctors(Collection<String> names) {
+        RegistrationResult result = new RegistrationResult(names.size());
+        List<Doctor> batch = new ArrayList<>(names.size());
+        int next = doctorCounter.getAndAdd(names.size());
+        int row = 0;
+        for (String name : names) {
+            int number = next++;
+            try {
+                Doctor doctor = createDoctor(number, requireName(name));
+                batch.add(doctor);
+                result.registered(row, doctor.getId());
+            } catch (IllegalArgumentException e) {
+                result.rejected(row, e.getMessage());
+            }
+            row++;
+        }
+        storeDoctors(batch);
+        return result;
+    }
+
+    /**
+     * Creates, journals and stores a patient with a given ID number.
+     *
+     * @param number the ID number, already taken from a counter
+     * @param name   the name of the patient
+     * @return the ID of the patient
+     * @throws IllegalArgumentException if the name is invalid
+     */
+    String storePatient(int number, String name) {
+        Patient patient = new Patient(number, intern(name));
+        String id = patient.getId();
+        record(AppointmentJournal.PATIENT, id, patient.getName());
+        addPatient(patient);
+        return id;
+    }
+
+    /**
+     * Creates and journals a doctor with a given ID number. The doctor is not
+     * stored yet, so a batch of doctors can be stored at once.
+     *
+     * @param number the ID number, already taken from a counter
+     * @param name   the name of the doctor
+     * @return the new doctor
+     * @throws IllegalArgumentException if the name is invalid
+     */
+    Doctor createDoctor(int number, String name) {
+        Doctor doctor = new Doctor(number, intern(name));
+        record(AppointmentJournal.DOCTOR, doctor.getId(), doctor.getName());
+        return doctor;
+    }
+
+    /**
+     * Stores a batch of doctors, extending the doctor list once for the batch.
+     *
+     * @param batch the doctors to store
+     */
+    void storeDoctors(List<Doctor> batch) {
+        doctors.addAll(batch);
+        for (Doctor doctor : batch) {
+            indexDoctor(doctor);
+        }
+    }
+
+    /**
+     * Imports patients and doctors from a CSV roster. Chunks of the roster are
+     * parsed and registered in parallel, one worker per processor. Rejected
+     * rows are written to a file named after the roster with ".rejects.csv"
+     * appended. Only a summary is printed.
+     *
+     * @param fileName the path of the roster file
+     * @return the counts and rejected rows, or null if the roster could not be read
+     */
+    @Override
+    public ImportReport importRoster(String fileName) {
+        try {
+            return new RosterImporter(this::addPatients, this::addDoctors,
+                    Runtime.getRuntime().availableProcessors()).importAndReport(fileName, events);
+        } catch (IOException e) {
+            events.error("Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Rejects a missing name in a bulk registration.
+     *
+     * @param name the submitted name
+     * @return the name, if present
+     * @throws IllegalArgumentException if the name is null
+     */
+    static String requireName(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name is missing.");
+        }
+        return name;
+    }
+
+    /**
+     * Books an appointment for a given patient with the doctor who has been
+     * available the longest. The doctor is taken from the available-doctor pool
+     * and claimed atomically, so booking is constant-time and two concurrent
+     * bookings can never receive the same doctor.
      *
      * @param patient the patient who wants to book the appointment
      * @return the booked Appointment object, or null if no doctor is available
@@ -89,33 +470,170 @@ public class AppointmentSystem implements AppointmentSystemDAO {
     @Override
     public Appointment bookAppointment(Patient patient) {
         try {
-            for (Doctor doctor : doctors) {
-                if (doctor.isAvailable()) {
-                    Appointment appointment = new Appointment(patient, doctor);
-                    appointments.add(appointment);
-                    System.out.println("Appointment booked.");
+            Doctor doctor = availableDoctors.claim(this::isRegistered);
+            if (doctor != null) {
+                Appointment appointment = new Appointment(patient, doctor);
+                addAppointment(appointment);
+                if (cancelIfRemoved(appointment)) {
                     return appointment;
                 }
+                events.publish(EventType.APPOINTMENT_BOOKED, null, appointment.getIdNumber(), doctor.getIdNumber(), null);
+                return appointment;
+            }
+        } catch (Exception e) {
+            events.error("Error: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Books an appointment for a given patient in the earliest free time slot
+     * of any doctor, starting no earlier than the given time. The doctor's
+     * walk-in availability is not affected; see {@link SlotScheduler} for how
+     * the slot is found.
+     *
+     * @param patient   the patient who wants to book the appointment
+     * @param notBefore the earliest acceptable start of the appointment
+     * @return the booked appointment, or null if no doctor is registered
+     */
+    @Override
+    public SlottedAppointment bookAppointment(Patient patient, LocalDateTime notBefore) {
+        try {
+            SlotScheduler.Claim claim = scheduler.claimEarliest(TimeSlots.firstSlotAtOrAfter(notBefore));
+            if (claim == null) {
+                events.error("Error: No doctors registered.");
+                return null;
             }
+            SlottedAppointment appointment = new SlottedAppointment(patient, claim.doctor, claim.slot);
+            addAppointment(appointment);
+            if (cancelIfRemoved(appointment)) {
+                return appointment;
+            }
+            events.publish(EventType.SLOT_BOOKED, appointment.getId(), claim.slot, claim.doctor.getIdNumber(), null);
+            return appointment;
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            events.error("Error: " + e.getMessage());
         }
         return null;
     }
 
     /**
-     * Saves all the appointment details to a CSV file.
+     * Cancels an appointment that was stored while its doctor was being
+     * removed, so it is not left scheduled with a doctor who is gone.
+     *
+     * @param appointment the appointment just stored
+     * @return true if the doctor was removed and the appointment cancelled
+     */
+    private boolean cancelIfRemoved(Appointment appointment) {
+        if (isRegistered(appointment.doctor)) {
+            return false;
+        }
+        int position = (appointment.getIdNumber() - idOffset) / idStride;
+        cancel(position, appointments.get(position));
+        events.error("Error: Doctor " + appointment.doctor.getId() + " was removed; appointment cancelled.");
+        return true;
+    }
+
+    /**
+     * Tells whether a doctor is still registered with this system.
+     *
+     * @param doctor the doctor to check
+     * @return true if the doctor has not been removed
+     */
+    private boolean isRegistered(Doctor doctor) {
+        return doctorsById.get(doctor.getKey()) == doctor;
+    }
+
+    /**
+     * Adds a patient to the list and the patient index.
+     *
+     * @param patient the patient to store
+     */
+    void addPatient(Patient patient) {
+        patients.add(patient);
+        patientsById.put(patient.getKey(), patient);
+        shareName(patient);
+    }
+
+    /**
+     * Adds a doctor to the list and the doctor index, and lets the
+     * available-doctor pool follow the doctor's availability.
+     *
+     * @param doctor the doctor to store
+     */
+    void addDoctor(Doctor doctor) {
+        doctors.add(doctor);
+        indexDoctor(doctor);
+    }
+
+    /**
+     * Adds a doctor who is already in the list to the doctor index and the
+     * available-doctor pool.
+     *
+     * @param doctor the doctor to index
+     */
+    private void indexDoctor(Doctor doctor) {
+        doctorsById.put(doctor.getKey(), doctor);
+        shareName(doctor);
+        doctor.setAvailabilityListener(d -> availableDoctors.offer(d));
+        if (doctor.isAvailable()) {
+            availableDoctors.offer(doctor);
+        }
+        scheduler.add(doctor);
+    }
+
+    /**
+     * Appends an appointment to the list and records its position
+     * in the doctor and patient indexes. The booking is journaled in
+     * position order before the appointment becomes visible, so a completion
+     * record can never reach the journal ahead of its booking. Without a
+     * journal, as while a snapshot is restored, no record is built at all.
+     *
+     * @param appointment the appointment to store
+     * @return the position of the appointment in {@link #appointments}
+     */
+    int addAppointment(Appointment appointment) {
+        Patient patient = appointment.patient;
+        shareName(patient);
+        Doctor doctor = appointment.doctor;
+        int position = appointmentStore.append(appointment, i -> {
+            appointment.assignIdNumber(i * idStride + idOffset);
+            if (journal == null) {
+                return;
+            }
+            if (appointment instanceof SlottedAppointment) {
+                record(AppointmentJournal.BOOK_SLOT, patient.getId(), patient.getName(), doctor.getId(),
+                        String.valueOf(((SlottedAppointment) appointment).getSlot()), appointment.getId());
+            } else {
+                record(AppointmentJournal.BOOK, patient.getId(), patient.getName(), doctor.getId(),
+                        appointment.getId());
+            }
+        });
+        appointmentsByDoctorId.computeIfAbsent(doctor.getKey(), k -> new ConcurrentIntList()).addInt(position);
+        appointmentsByPatientId.computeIfAbsent(patient.getKey(), k -> new ConcurrentIntList()).addInt(position);
+        if (appointment.getAppointmentStatus() != AppointmentStatus.SCHEDULED) {
+            appointmentStore.ended(position);
+        }
+        return position;
+    }
+
+    /**
+     * Writes every change not yet saved to the appointment journal.
+     * Only the new records are written, never the whole history. With a
+     * {@link com.cg.training.dao.WriteBehindJournal} this returns at once and
+     * the records reach the file within the journal's durability window.
      */
     @Override
     public void saveAppointmentsToFile() {
-        try (BufferedWriter write = new BufferedWriter(new FileWriter("D:\\filesCreating\\Appointments.csv", true))) {
-            for (int i = 0; i < appointments.size(); i++) {
-                write.write("Appointment Index: " + i + ": " + appointments.get(i).appointmentDetails());
-                write.newLine();
-            }
-            System.out.println("Appointments saved to file.");
+        if (journal == null) {
+            events.error("Error: No appointment file configured.");
+            return;
+        }
+        try {
+            journal.commit();
+            events.publish(EventType.JOURNAL_SAVED, null, 0);
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            events.error("Error: " + e.getMessage());
         }
     }
 
@@ -127,18 +645,104 @@ public class AppointmentSystem implements AppointmentSystemDAO {
     @Override
     public void completeAppointment(int index) {
         try {
-            if (index < 0 || index >= appointments.size()) {
-                throw new InvalidAppointmentException("Invalid appointment index.");
+            Appointment appointment = complete(index);
+            events.publish(EventType.APPOINTMENT_COMPLETED, null, appointment.getIdNumber());
+        } catch (Exception e) {
+            events.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Completes many appointments in one pass, as when a shift is closed.
+     * Each appointment is found by ID in constant time. Unknown, completed
+     * and cancelled appointments are skipped, and only a summary is printed.
+     *
+     * @param appointmentIds the IDs of the appointments to complete
+     * @return the number of appointments completed
+     */
+    @Override
+    public int completeAppointments(Collection<String> appointmentIds) {
+        int completed = completeQuietly(appointmentIds);
+        events.publish(EventType.APPOINTMENTS_COMPLETED, null, completed, appointmentIds.size() - completed, null);
+        return completed;
+    }
+
+    /**
+     * Completes many appointments without printing anything.
+     *
+     * @param appointmentIds the IDs of the appointments to complete
+     * @return the number of appointments completed
+     */
+    int completeQuietly(Collection<String> appointmentIds) {
+        int completed = 0;
+        for (String appointmentId : appointmentIds) {
+            int position = positionOf(appointmentId);
+            if (position < 0) {
+                continue;
             }
-            Appointment appointment = appointments.get(index);
-            if ("Completed".equals(appointment.getStatus())) {
-                throw new InvalidAppointmentException("Appointment already completed.");
+            try {
+                complete(position);
+                completed++;
+            } catch (InvalidAppointmentException e) {
+                // completed or cancelled already; counted as skipped
             }
+        }
+        return completed;
+    }
+
+    /**
+     * Completes the appointment at a position and journals the change by
+     * appointment ID. The record is written under the appointment's lock, so
+     * it follows the booking record and is never written twice.
+     *
+     * @param position the position of the appointment in {@link #appointments}
+     * @return the completed appointment
+     * @throws InvalidAppointmentException if there is no such appointment or it is not scheduled
+     */
+    private Appointment complete(int position) {
+        if (position < 0 || position >= appointments.size()) {
+            throw new InvalidAppointmentException("Invalid appointment index.");
+        }
+        Appointment appointment = appointments.get(position);
+        synchronized (AppointmentStore.monitorOf(appointment)) {
             appointment.completeAppointment();
-            System.out.println("Appointment marked completed.");
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+            record(AppointmentJournal.COMPLETE, appointment.getId());
         }
+        appointmentStore.ended(position);
+        return appointment;
+    }
+
+    /**
+     * Finds an appointment by its ID, such as "A12". The ID number says where
+     * the appointment is stored, so the append-only appointment list serves
+     * as the ID index and the lookup takes constant time.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the appointment, or null if there is none with that ID
+     */
+    @Override
+    public Appointment findAppointmentById(String appointmentId) {
+        int position = positionOf(appointmentId);
+        return position < 0 ? null : appointments.get(position);
+    }
+
+    /**
+     * Returns the position in {@link #appointments} of an appointment ID.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the position, or -1 if the ID is invalid or belongs to no appointment here
+     */
+    private int positionOf(String appointmentId) {
+        long key = User.parseKey(appointmentId);
+        if (key < 0 || (char) (key >>> 32) != Appointment.ID_TAG) {
+            return -1;
+        }
+        int number = (int) key - idOffset;
+        if (number < 0 || number % idStride != 0) {
+            return -1;
+        }
+        int position = number / idStride;
+        return position < appointments.size() ? position : -1;
     }
 
     /**
@@ -161,9 +765,13 @@ public class AppointmentSystem implements AppointmentSystemDAO {
      */
     @Override
     public void showAllAppointments() {
+        StringBuilder lines = new StringBuilder(PRINT_CHUNK);
+        Appointment appointment = null;
         for (int i = 0; i < appointments.size(); i++) {
-            System.out.println(i + ": " + appointments.get(i).appointmentDetails());
+            appointment = appointmentStore.get(i, appointment);
+            appendLine(lines, "", i, appointment);
         }
+        System.out.print(lines);
     }
 
     /**
@@ -173,17 +781,12 @@ public class AppointmentSystem implements AppointmentSystemDAO {
      */
     @Override
     public void showAppointmentsByDoctorId(String doctorId) {
-        boolean found = false;
-        for (int i = 0; i < appointments.size(); i++) {
-            Appointment a = appointments.get(i);
-            if (a.doctor.getId().equals(doctorId)) {
-                System.out.println("Appointment Index: " + i + ": " + a.appointmentDetails());
-                found = true;
-            }
-        }
-        if (!found) {
+        ConcurrentIntList positions = appointmentsByDoctorId.get(User.parseKey(doctorId));
+        if (positions == null) {
             System.out.println("No appointments found for Doctor ID: " + doctorId);
+            return;
         }
+        printAppointments(positions);
     }
 
     /**
@@ -193,30 +796,304 @@ public class AppointmentSystem implements AppointmentSystemDAO {
      */
     @Override
     public void showAppointmentsByPatientId(String patientId) {
-        boolean found = false;
-        for (int i = 0; i < appointments.size(); i++) {
-            Appointment a = appointments.get(i);
-            if (a.patient.getId().equals(patientId)) {
-                System.out.println("Appointment Index: " + i + ": " + a.appointmentDetails());
-                found = true;
+        ConcurrentIntList positions = appointmentsByPatientId.get(User.parseKey(patientId));
+        if (positions == null) {
+            System.out.println("No appointments found for Patient ID: " + patientId);
+            return;
+        }
+        printAppointments(positions);
+    }
+
+    /**
+     * Prints the appointments at the given positions, one per line.
+     *
+     * @param positions the positions in {@link #appointments}
+     */
+    private void printAppointments(ConcurrentIntList positions) {
+        StringBuilder lines = new StringBuilder(PRINT_CHUNK);
+        int count = positions.size();
+        Appointment appointment = null;
+        for (int n = 0; n < count; n++) {
+            int i = positions.getInt(n);
+            appointment = appointmentStore.get(i, appointment);
+            appendLine(lines, "Appointment Index: ", i, appointment);
+        }
+        System.out.print(lines);
+    }
+
+    /**
+     * Adds one listing line to a buffer, printing the buffer whenever it
+     * fills up. The appointment writes its cached details straight into the
+     * buffer, so a listing allocates one string per chunk instead of several
+     * per line. The caller prints what is left at the end.
+     *
+     * @param lines       the buffer of the listing
+     * @param prefix      the text shown before the index
+     * @param index       the index of the appointment
+     * @param appointment the appointment
+     */
+    static void appendLine(StringBuilder lines, String prefix, int index, Appointment appointment) {
+        lines.append(prefix).append(index).append(": ");
+        appointment.appendDetails(lines).append(System.lineSeparator());
+        if (lines.length() >= PRINT_CHUNK) {
+            System.out.print(lines);
+            lines.setLength(0);
+        }
+    }
+
+    /**
+     * Returns one page of the registered doctors.
+     *
+     * @param offset the position of the first doctor to return
+     * @param limit  the largest number of doctors to return
+     * @return the requested page of doctors
+     */
+    @Override
+    public Page<Doctor> findDoctors(int offset, int limit) {
+        return page(doctors, offset, limit);
+    }
+
+    /**
+     * Returns one page of all appointment indexes.
+     *
+     * @param offset the position of the first appointment to return
+     * @param limit  the largest number of appointments to return
+     * @return the requested page of appointment indexes
+     */
+    @Override
+    public Page<Integer> findAppointments(int offset, int limit) {
+        checkPage(offset, limit);
+        int total = appointments.size();
+        int from = Math.min(offset, total);
+        int to = (int) Math.min(total, (long) from + limit);
+        List<Integer> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            items.add(i);
+        }
+        return new Page<>(items, offset, total);
+    }
+
+    /**
+     * Returns one page of the appointment indexes of a doctor.
+     *
+     * @param doctorId the ID of the doctor
+     * @param offset   the position of the first appointment to return
+     * @param limit    the largest number of appointments to return
+     * @return the requested page, empty if the doctor has no appointments
+     */
+    @Override
+    public Page<Integer> findAppointmentsByDoctorId(String doctorId, int offset, int limit) {
+        return page(appointmentsByDoctorId.get(User.parseKey(doctorId)), offset, limit);
+    }
+
+    /**
+     * Returns one page of the appointment indexes of a patient.
+     *
+     * @param patientId the ID of the patient
+     * @param offset    the position of the first appointment to return
+     * @param limit     the largest number of appointments to return
+     * @return the requested page, empty if the patient has no appointments
+     */
+    @Override
+    public Page<Integer> findAppointmentsByPatientId(String patientId, int offset, int limit) {
+        return page(appointmentsByPatientId.get(User.parseKey(patientId)), offset, limit);
+    }
+
+    /**
+     * Returns the appointment at the given index.
+     *
+     * @param index the index of the appointment
+     * @return the appointment, or null if the index is out of range
+     */
+    @Override
+    public Appointment getAppointment(int index) {
+        if (index < 0 || index >= appointments.size()) {
+            return null;
+        }
+        return appointments.get(index);
+    }
+
+    /**
+     * Copies one page out of a list. Only the rows of the page are visited:
+     * the lists used here start a list iterator at any position in constant time.
+     *
+     * @param source the list to page through, or null for an empty result
+     * @param offset the position of the first row to return
+     * @param limit  the largest number of rows to return
+     * @return the requested page
+     */
+    private static <T> Page<T> page(List<T> source, int offset, int limit) {
+        checkPage(offset, limit);
+        if (source == null) {
+            return new Page<>(Collections.<T>emptyList(), offset, 0);
+        }
+        int total = source.size();
+        ListIterator<T> rows;
+        try {
+            rows = source.listIterator(Math.min(offset, total));
+        } catch (IndexOutOfBoundsException e) {
+            // The list shrank since its size was read; the offset is past the end now.
+            return new Page<>(Collections.<T>emptyList(), offset, source.size());
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, Math.max(total - offset, 0)));
+        while (items.size() < limit && rows.hasNext()) {
+            items.add(rows.next());
+        }
+        return new Page<>(items, offset, total);
+    }
+
+    /**
+     * Checks the arguments of a paged query.
+     *
+     * @param offset the position of the first row to return
+     * @param limit  the largest number of rows to return
+     * @throws IllegalArgumentException if the offset is negative or the limit not positive
+     */
+    static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Invalid page: offset " + offset + ", limit " + limit);
+        }
+    }
+
+    /**
+     * Sets where the outcome of every change is reported, for example a
+     * {@link com.cg.training.events.RingBufferEventSink} that renders the
+     * messages on a background thread.
+     *
+     * @param events the event sink, never null
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+    }
+
+    /**
+     * Returns where the outcome of every change is reported.
+     *
+     * @return the event sink
+     */
+    public EventSink getEventSink() {
+        return events;
+    }
+
+    /**
+     * Changes how walk-in appointments are assigned to free doctors. The
+     * doctors who are free now are handed to the new strategy. Meant to be
+     * called at startup: a doctor who becomes free while the strategy is
+     * being changed may not be offered to the new one until they are free again.
+     *
+     * @param assignment the assignment strategy
+     */
+    public void setDoctorAssignment(DoctorAssignment assignment) {
+        DoctorAssignmentStrategy strategy = assignment.create(this::appointmentCount);
+        for (Doctor doctor : doctors) {
+            if (doctor.isAvailable()) {
+                strategy.offer(doctor);
             }
         }
-        if (!found) {
-            System.out.println("No appointments found for Patient ID: " + patientId);
+        this.availableDoctors = strategy;
+        this.assignment = assignment;
+    }
+
+    /**
+     * Returns how walk-in appointments are assigned to free doctors.
+     *
+     * @return the assignment strategy
+     */
+    public DoctorAssignment getDoctorAssignment() {
+        return assignment;
+    }
+
+    /**
+     * Returns the number of appointments, of any status, booked with a doctor.
+     *
+     * @param doctor the doctor
+     * @return the appointment count
+     */
+    int appointmentCount(Doctor doctor) {
+        ConcurrentIntList positions = appointmentsByDoctorId.get(doctor.getKey());
+        return positions == null ? 0 : positions.size();
+    }
+
+    /**
+     * Counts the registered doctors who are free for a walk-in appointment.
+     * This walks the doctor list, so it is meant for monitoring, not for booking.
+     *
+     * @return the number of available doctors
+     */
+    int availableDoctorCount() {
+        int count = 0;
+        for (Doctor doctor : doctors) {
+            if (doctor.isAvailable()) {
+                count++;
+            }
         }
+        return count;
     }
 
     /**
-     * Clears the contents of the Appointments CSV file.
+     * Sets how appointment IDs are numbered, so that the shards of a
+     * {@link ShardedAppointmentSystem} hand out distinct IDs. Must be called
+     * before any appointment is stored.
+     *
+     * @param stride the number of shards
+     * @param offset the number of this shard
+     */
+    void numberAppointments(int stride, int offset) {
+        idStride = stride;
+        idOffset = offset;
+    }
+
+    /**
+     * Moves appointments that have ended out of the heap, into compressed
+     * segment files in the given directory. A background thread writes a
+     * segment whenever {@link AppointmentStore#SEGMENT_RECORDS} ended
+     * appointments have piled up; archived appointments are still found by
+     * ID, doctor and patient, and are read back from their segment. The
+     * segment files are a cache of the heap, not a backup: the snapshot and
+     * journal still hold every appointment.
+     *
+     * @param directory the directory of the segment files, created if missing
+     */
+    public void archiveTo(String directory) {
+        try {
+            appointmentStore.archiveTo(Paths.get(directory), ARCHIVE_INTERVAL_MILLIS);
+        } catch (IOException | RuntimeException e) {
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the store behind {@link #appointments}.
+     *
+     * @return the hot and cold appointment tiers
+     */
+    AppointmentStore getAppointmentStore() {
+        return appointmentStore;
+    }
+
+    /**
+     * Returns the journal receiving this system's changes.
+     *
+     * @return the journal, or null when nothing is persisted
+     */
+    AppointmentJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Clears the contents of the appointment journal.
      */
     @Override
     public void clearAllContentsOfTheFile() {
+        if (journal == null) {
+            events.error("Error: No appointment file configured.");
+            return;
+        }
         try {
-            FileOutputStream fileOutputStream = new FileOutputStream("D:\\filesCreating\\Appointments.csv");
-            fileOutputStream.close();
-            System.out.println("File contents cleared successfully.");
+            journal.clear();
+            events.publish(EventType.JOURNAL_CLEARED, null, 0);
         } catch (IOException e) {
-            System.err.println("An error occurred while clearing the file: " + e.getMessage());
+            events.error("An error occurred while clearing the file: " + e.getMessage());
         }
     }
 
@@ -228,11 +1105,553 @@ public class AppointmentSystem implements AppointmentSystemDAO {
      */
     @Override
     public Patient findPatientById(String id) {
-        for (Patient p : patients) {
-            if (p.getId().equals(id)) {
-                return p;
+        return patientsById.get(User.parseKey(id));
+    }
+
+    /**
+     * Finds and returns a doctor by their ID.
+     *
+     * @param id the ID of the doctor to find
+     * @return the Doctor object if found, otherwise null
+     */
+    @Override
+    public Doctor findDoctorById(String id) {
+        return doctorsById.get(User.parseKey(id));
+    }
+
+    /**
+     * Removes a registered doctor by ID and drops it from the doctor index.
+     * The doctor's slot in the doctor list becomes a tombstone, so nothing is
+     * shifted (see {@link TombstoneList}). Appointments that have not taken
+     * place are cancelled; all of them stay in the history.
+     *
+     * @param doctorId the ID of the doctor to remove
+     */
+    @Override
+    public void removeDoctor(String doctorId) {
+        Doctor doctor = doctorsById.remove(User.parseKey(doctorId));
+        if (doctor == null) {
+            events.error(doctors.isEmpty() ? "No doctor in the list" : "Doctor ID not found.");
+            return;
+        }
+        doctors.remove(doctor);
+        record(AppointmentJournal.REMOVE_DOCTOR, doctor.getId());
+        events.publish(EventType.DOCTOR_REMOVED, doctorId, retire(doctor));
+    }
+
+    /**
+     * Removes many doctors at once, as when a department closes. The doctor
+     * list is packed at most once for the whole batch. Unknown IDs are skipped.
+     *
+     * @param doctorIds the IDs of the doctors to remove
+     * @return the number of doctors removed
+     */
+    @Override
+    public int removeDoctors(Collection<String> doctorIds) {
+        List<Doctor> removed = unregisterDoctors(doctorIds);
+        int cancelled = 0;
+        for (Doctor doctor : removed) {
+            cancelled += retire(doctor);
+        }
+        events.publish(EventType.DOCTORS_REMOVED, null, removed.size(), cancelled, null);
+        return removed.size();
+    }
+
+    /**
+     * Takes doctors out of the doctor index and list and journals each removal,
+     * without printing anything. Their appointments are not touched yet.
+     *
+     * @param doctorIds the IDs of the doctors to remove; unknown IDs are skipped
+     * @return the doctors removed
+     */
+    List<Doctor> unregisterDoctors(Collection<String> doctorIds) {
+        List<Doctor> removed = new ArrayList<>(doctorIds.size());
+        for (String doctorId : doctorIds) {
+            Doctor doctor = doctorsById.remove(User.parseKey(doctorId));
+            if (doctor != null) {
+                record(AppointmentJournal.REMOVE_DOCTOR, doctor.getId());
+                removed.add(doctor);
             }
         }
-        return null;
+        doctors.removeAll(removed);
+        return removed;
+    }
+
+    /**
+     * Stops offering a removed doctor for walk-ins and time slots, and cancels
+     * the doctor's appointments that have not taken place. Only the doctor's
+     * own appointments are visited, through the doctor index.
+     *
+     * @param doctor the doctor, already taken out of the doctor index
+     * @return the number of appointments cancelled
+     */
+    int retire(Doctor doctor) {
+        doctor.setAvailabilityListener(null);
+        scheduler.remove(doctor);
+        ConcurrentIntList positions = appointmentsByDoctorId.get(doctor.getKey());
+        if (positions == null) {
+            return 0;
+        }
+        int cancelled = 0;
+        int count = positions.size();
+        for (int n = 0; n < count; n++) {
+            int position = positions.getInt(n);
+            Appointment appointment = appointmentStore.getResident(position);
+            if (appointment != null && cancel(position, appointment)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancels an appointment unless it has already taken place, and journals
+     * the change. Holds the appointment's lock, like {@link #complete(int)},
+     * so an appointment is never both completed and cancelled.
+     *
+     * @param position    the position of the appointment in {@link #appointments}
+     * @param appointment the appointment to cancel
+     * @return true if it was scheduled and is now cancelled
+     */
+    private boolean cancel(int position, Appointment appointment) {
+        synchronized (AppointmentStore.monitorOf(appointment)) {
+            if (!appointment.getAppointmentStatus().canMoveTo(AppointmentStatus.CANCELLED)) {
+                return false;
+            }
+            appointment.cancelAppointment();
+            record(AppointmentJournal.CANCEL, appointment.getId());
+        }
+        appointmentStore.ended(position);
+        return true;
+    }
+
+    /**
+     * Writes the whole system to a compact binary snapshot through memory-mapped
+     * file channels. The snapshot is written to a temporary file that then
+     * replaces the old one, and once it is on disk the journal is cleared,
+     * since every change it holds is now part of the snapshot.
+     * <p>
+     * This is meant for shutdown: changes made while the snapshot is written
+     * may be missing from it. The counts, the doctors and whether each
+     * appointment's patient and doctor are registered are taken once, while
+     * the size is computed, and the file is written from that copy, so a
+     * doctor removed in between cannot make the snapshot overflow its size.
+     * </p>
+     * Layout after the {@link SnapshotFile} header:
+     * <pre>
+     * int patientCounter, int doctorCounter
+     * int count, then per patient:     int idNumber, string name
+     * int count, then per doctor:      int idNumber, string name, byte available
+     * int count, then per appointment: byte status, [int slot], ref patient, ref doctor
+     * status = 0 scheduled, 1 completed or 2 cancelled, plus 0x80 if an int slot follows
+     * ref = int idNumber of a registered user, or -1 followed by string id, string name
+     * </pre>
+     *
+     * @param fileName the snapshot file to write
+     */
+    public void saveSnapshot(String fileName) {
+        try {
+            int appointmentCount = appointments.size();
+            int patientCount = patients.size();
+            Doctor[] doctorArray = doctors.toArray(new Doctor[0]);
+
+            long size = SnapshotFile.HEADER_SIZE + 5 * 4;
+            for (int i = 0; i < patientCount; i++) {
+                size += 4 + SnapshotFile.sizeOf(patients.get(i).getName());
+            }
+            for (Doctor doctor : doctorArray) {
+                size += 4 + SnapshotFile.sizeOf(doctor.getName()) + 1;
+            }
+            byte[] registered = new byte[appointmentCount];
+            Appointment appointment = null;
+            for (int i = 0; i < appointmentCount; i++) {
+                appointment = appointmentStore.get(i, appointment);
+                boolean patientRegistered = isRegistered(appointment.patient);
+                boolean doctorRegistered = isRegistered(appointment.doctor);
+                registered[i] = (byte) ((patientRegistered ? 1 : 0) | (doctorRegistered ? 2 : 0));
+                size += (appointment instanceof SlottedAppointment ? 5 : 1)
+                        + referenceSize(appointment.patient, patientRegistered)
+                        + referenceSize(appointment.doctor, doctorRegistered);
+            }
+
+            Path target = Paths.get(fileName);
+            Path temporary = Paths.get(fileName + ".tmp");
+            try (SnapshotFile.Output out = new SnapshotFile.Output(temporary, size)) {
+                out.putInt(patientCounter.get());
+                out.putInt(doctorCounter.get());
+                out.putInt(patientCount);
+                for (int i = 0; i < patientCount; i++) {
+                    Patient patient = patients.get(i);
+                    out.putInt(patient.getIdNumber());
+                    out.putString(patient.getName());
+                }
+                out.putInt(doctorArray.length);
+                for (Doctor doctor : doctorArray) {
+                    out.putInt(doctor.getIdNumber());
+                    out.putString(doctor.getName());
+                    out.putByte(doctor.isAvailable() ? 1 : 0);
+                }
+                out.putInt(appointmentCount);
+                for (int i = 0; i < appointmentCount; i++) {
+                    appointment = appointmentStore.get(i, appointment);
+                    int status = snapshotCode(appointment.getAppointmentStatus());
+                    if (appointment instanceof SlottedAppointment) {
+                        out.putByte(status | SNAPSHOT_SLOTTED);
+                        out.putInt(((SlottedAppointment) appointment).getSlot());
+                    } else {
+                        out.putByte(status);
+                    }
+                    writeReference(out, appointment.patient, (registered[i] & 1) != 0);
+                    writeReference(out, appointment.doctor, (registered[i] & 2) != 0);
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (journal != null) {
+                journal.clear();
+            }
+            events.publish(EventType.SNAPSHOT_SAVED, null, appointmentCount);
+        } catch (IOException e) {
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the snapshot code of an appointment status.
+     *
+     * @param status the status
+     * @return the code written to the snapshot
+     */
+    private static int snapshotCode(AppointmentStatus status) {
+        switch (status) {
+            case COMPLETED:
+                return SNAPSHOT_COMPLETED;
+            case CANCELLED:
+                return SNAPSHOT_CANCELLED;
+            default:
+                return SNAPSHOT_SCHEDULED;
+        }
+    }
+
+    /**
+     * Loads a snapshot into this (still empty) system. The indexes are
+     * recreated at their final size first, so they never rehash while loading.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the snapshot cannot be read or is corrupt
+     */
+    private void readSnapshot(Path file) throws IOException {
+        try (SnapshotFile.Input in = new SnapshotFile.Input(file)) {
+            advance(patientCounter, in.getInt());
+            advance(doctorCounter, in.getInt());
+
+            int patientCount = in.getInt();
+            patientsById = new ConcurrentHashMap<>(patientCount);
+            appointmentsByPatientId = new ConcurrentHashMap<>(patientCount);
+            Patient[] patientsByNumber = new Patient[patientCounter.get()];
+            for (int i = 0; i < patientCount; i++) {
+                int number = in.getInt();
+                Patient patient = new Patient(number, intern(in.getString()));
+                addPatient(patient);
+                patientsByNumber[number] = patient;
+            }
+
+            int doctorCount = in.getInt();
+            doctorsById = new ConcurrentHashMap<>(doctorCount);
+            appointmentsByDoctorId = new ConcurrentHashMap<>(doctorCount);
+            Doctor[] doctorsByNumber = new Doctor[doctorCounter.get()];
+            boolean[] available = new boolean[doctorCount];
+            Doctor[] doctorOrder = new Doctor[doctorCount];
+            for (int i = 0; i < doctorCount; i++) {
+                int number = in.getInt();
+                Doctor doctor = new Doctor(number, intern(in.getString()));
+                available[i] = in.getByte() == 1;
+                addDoctor(doctor);
+                doctorsByNumber[number] = doctor;
+                doctorOrder[i] = doctor;
+            }
+
+            int appointmentCount = in.getInt();
+            for (int i = 0; i < appointmentCount; i++) {
+                int status = in.getByte();
+                int slot = (status & SNAPSHOT_SLOTTED) != 0 ? in.getInt() : -1;
+                int patientNumber = in.getInt();
+                Patient patient = patientNumber == SNAPSHOT_INLINE_USER
+                        ? new Patient(in.getString(), intern(in.getString()))
+                        : patientsByNumber[patientNumber];
+                int doctorNumber = in.getInt();
+                Doctor doctor = doctorNumber == SNAPSHOT_INLINE_USER
+                        ? new Doctor(in.getString(), intern(in.getString()))
+                        : doctorsByNumber[doctorNumber];
+                if (patient == null || doctor == null) {
+                    throw new IOException("Snapshot refers to an unknown patient or doctor.");
+                }
+                Appointment appointment;
+                if (slot >= 0) {
+                    appointment = new SlottedAppointment(patient, doctor, slot);
+                    scheduler.reserve(doctor, slot);
+                } else {
+                    appointment = new Appointment(patient, doctor);
+                }
+                if ((status & ~SNAPSHOT_SLOTTED) == SNAPSHOT_COMPLETED) {
+                    appointment.completeAppointment();
+                } else if ((status & ~SNAPSHOT_SLOTTED) == SNAPSHOT_CANCELLED) {
+                    appointment.cancelAppointment();
+                }
+                addAppointment(appointment);
+            }
+
+            for (int i = 0; i < doctorCount; i++) {
+                doctorOrder[i].setAvailable(available[i]);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Snapshot refers to an unknown patient or doctor.");
+        }
+    }
+
+    /**
+     * Tells whether a patient is registered with this system.
+     *
+     * @param patient the patient to check
+     * @return true if the patient is the one stored under its ID
+     */
+    private boolean isRegistered(Patient patient) {
+        return patientsById.get(patient.getKey()) == patient;
+    }
+
+    /**
+     * Returns the size of a user reference in a snapshot.
+     *
+     * @param user       the patient or doctor
+     * @param registered whether the user can be referenced by ID number
+     * @return the encoded size in bytes
+     */
+    private static long referenceSize(User user, boolean registered) {
+        return registered ? 4 : 4 + SnapshotFile.sizeOf(user.getId()) + SnapshotFile.sizeOf(user.getName());
+    }
+
+    /**
+     * Writes a user reference to a snapshot: the ID number of a registered user,
+     * or the full ID and name of anyone else.
+     *
+     * @param out        the snapshot being written
+     * @param user       the patient or doctor
+     * @param registered whether the user can be referenced by ID number
+     * @throws IOException if the snapshot cannot be written
+     */
+    private static void writeReference(SnapshotFile.Output out, User user, boolean registered) throws IOException {
+        if (registered) {
+            out.putInt(user.getIdNumber());
+        } else {
+            out.putInt(SNAPSHOT_INLINE_USER);
+            out.putString(user.getId());
+            out.putString(user.getName());
+        }
+    }
+
+    /**
+     * Appends a record to the journal, if one is configured.
+     *
+     * @param fields the record type followed by its values
+     */
+    private void record(String... fields) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(fields);
+        } catch (IOException e) {
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies one journal record while the system is being restored.
+     * Nothing is printed or journaled again, and the ID counters are
+     * moved past every ID found in the journal.
+     * <p>
+     * A booking may have been journaled just after its doctor's removal, when
+     * the two happened at the same moment; such a booking is given the
+     * removed doctor and cancelled, as it was when it was made.
+     * </p>
+     *
+     * @param fields         the record type followed by its values
+     * @param removedDoctors the doctors removed so far in this replay, by key
+     * @throws IllegalStateException if the record cannot be applied
+     */
+    private void applyRecord(String[] fields, Map<Long, Doctor> removedDoctors) {
+        try {
+            switch (fields[0]) {
+                case AppointmentJournal.PATIENT:
+                    addPatient(new Patient(fields[1], intern(fields[2])));
+                    advance(patientCounter, idNumber(fields[1]) + 1);
+                    break;
+                case AppointmentJournal.DOCTOR:
+                    addDoctor(new Doctor(fields[1], intern(fields[2])));
+                    advance(doctorCounter, idNumber(fields[1]) + 1);
+                    break;
+                case AppointmentJournal.REMOVE_DOCTOR:
+                    Doctor removed = doctorsById.remove(User.parseKey(fields[1]));
+                    if (removed == null) {
+                        throw new IllegalArgumentException("unknown doctor " + fields[1]);
+                    }
+                    doctors.remove(removed);
+                    retire(removed);
+                    removedDoctors.put(removed.getKey(), removed);
+                    break;
+                case AppointmentJournal.BOOK:
+                    Appointment booked = new Appointment(replayedPatient(fields),
+                            replayedDoctor(fields[3], removedDoctors));
+                    replayBooking(booked, fields.length > 4 ? fields[4] : null);
+                    break;
+                case AppointmentJournal.BOOK_SLOT:
+                    Doctor slotDoctor = replayedDoctor(fields[3], removedDoctors);
+                    int slot = Integer.parseInt(fields[4]);
+                    replayBooking(new SlottedAppointment(replayedPatient(fields), slotDoctor, slot),
+                            fields.length > 5 ? fields[5] : null);
+                    if (isRegistered(slotDoctor)) {
+                        scheduler.reserve(slotDoctor, slot);
+                    }
+                    break;
+                case AppointmentJournal.COMPLETE:
+                    int completed = replayedPosition(fields[1]);
+                    appointments.get(completed).completeAppointment();
+                    appointmentStore.ended(completed);
+                    break;
+                case AppointmentJournal.CANCEL:
+                    int position = replayedPosition(fields[1]);
+                    Appointment cancelled = appointments.get(position);
+                    // Already cancelled when the removal of its doctor was replayed.
+                    if (cancelled.getAppointmentStatus() != AppointmentStatus.CANCELLED) {
+                        cancelled.cancelAppointment();
+                        appointmentStore.ended(position);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown record type " + fields[0]);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Corrupt journal record " + String.join(",", fields) + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the patient of a replayed booking record: the registered
+     * patient, or one made from the record if the patient is not registered.
+     *
+     * @param fields the booking record
+     * @return the patient
+     */
+    private Patient replayedPatient(String[] fields) {
+        Patient patient = patientsById.get(User.parseKey(fields[1]));
+        return patient != null ? patient : new Patient(fields[1], intern(fields[2]));
+    }
+
+    /**
+     * Returns the doctor of a replayed booking record.
+     *
+     * @param doctorId       the doctor ID in the record
+     * @param removedDoctors the doctors removed so far in this replay, by key
+     * @return the registered or removed doctor
+     * @throws IllegalArgumentException if no such doctor was ever registered
+     */
+    private Doctor replayedDoctor(String doctorId, Map<Long, Doctor> removedDoctors) {
+        long key = User.parseKey(doctorId);
+        Doctor doctor = doctorsById.get(key);
+        if (doctor == null) {
+            doctor = removedDoctors.get(key);
+        }
+        if (doctor == null) {
+            throw new IllegalArgumentException("unknown doctor " + doctorId);
+        }
+        return doctor;
+    }
+
+    /**
+     * Stores a replayed booking, checks that it got the ID it was booked
+     * under, and cancels it if its doctor had already been removed.
+     *
+     * @param appointment   the appointment to store
+     * @param appointmentId the ID in the record, or null in an older journal
+     * @throws IllegalArgumentException if the appointment gets a different ID
+     */
+    private void replayBooking(Appointment appointment, String appointmentId) {
+        int position = addAppointment(appointment);
+        if (appointmentId != null && !appointmentId.equals(appointment.getId())) {
+            throw new IllegalArgumentException("replayed as " + appointment.getId());
+        }
+        if (!isRegistered(appointment.doctor)) {
+            appointment.cancelAppointment();
+            appointmentStore.ended(position);
+        }
+    }
+
+    /**
+     * Returns the position of the appointment named in a replayed record.
+     *
+     * @param appointment the appointment ID, or its position in an older journal
+     * @return the position in {@link #appointments}
+     * @throws IllegalArgumentException if there is no such appointment
+     */
+    private int replayedPosition(String appointment) {
+        int position = Character.isDigit(appointment.charAt(0)) ? Integer.parseInt(appointment)
+                : positionOf(appointment);
+        if (position < 0 || position >= appointments.size()) {
+            throw new IllegalArgumentException("unknown appointment " + appointment);
+        }
+        return position;
+    }
+
+    /**
+     * Moves an ID counter forward so it never hands out a number below the given one.
+     *
+     * @param counter the counter to move
+     * @param next    the lowest number the counter may return next
+     */
+    static void advance(AtomicInteger counter, int next) {
+        counter.accumulateAndGet(next, Math::max);
+    }
+
+    /**
+     * Returns the number part of an ID such as "P1000".
+     *
+     * @param id the ID with its one-letter tag
+     * @return the number after the tag
+     * @throws IllegalArgumentException if the text is not a valid ID
+     */
+    private static int idNumber(String id) {
+        long key = User.parseKey(id);
+        if (key < 0) {
+            throw new IllegalArgumentException("invalid ID " + id);
+        }
+        return (int) key;
+    }
+
+    /**
+     * Returns the shared instance of a name that an earlier user already has,
+     * so a new user with the same name can refer to it. Names are only added
+     * to the pool by {@link #shareName(User)} once a user has accepted them,
+     * so rejected names never take up room.
+     *
+     * @param name the name of a user, not yet validated
+     * @return the shared instance, or the name itself if it is not pooled
+     */
+    private String intern(String name) {
+        if (names == null || name == null) {
+            return name;
+        }
+        String shared = names.get(name.trim());
+        return shared != null ? shared : name;
+    }
+
+    /**
+     * Adds a stored user's name to the pool of shared names.
+     *
+     * @param user a user that has been stored
+     */
+    private void shareName(User user) {
+        if (names != null) {
+            names.putIfAbsent(user.getName(), user.getName());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package com.cg.training.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * A pool of doctors who are free to take an appointment, handed out in the
+ * order they became available; see {@link DoctorAssignment#LONGEST_AVAILABLE}.
+ * <p>
+ * Doctors are added when they are registered and every time they become
+ * available again (see {@link Doctor#setAvailabilityListener}). Doctors that
+ * become unavailable are not searched for and taken out; instead a stale entry
+ * is simply dropped when it reaches the head of the queue and the doctor
+ * cannot be reserved. Every offer is matched by at most one poll, so claiming
+ * a doctor is amortized O(1) no matter how many doctors are registered or busy.
+ * </p>
+ * The pool is lock-free and safe to use from several threads.
+ */
+final class AvailableDoctorPool implements DoctorAssignmentStrategy {
+
+    /** Candidate doctors, in the order they became available. */
+    private final ConcurrentLinkedQueue<Doctor> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Adds a doctor who has just become available.
+     *
+     * @param doctor the available doctor
+     */
+    @Override
+    public void offer(Doctor doctor) {
+        queue.offer(doctor);
+    }
+
+    /**
+     * Reserves the doctor who has been available the longest.
+     *
+     * @param registered tells whether a doctor is still registered; removed
+     *                   doctors are dropped from the pool
+     * @return the reserved doctor, or null if no doctor is available
+     */
+    @Override
+    public Doctor claim(Predicate<Doctor> registered) {
+        Doctor doctor;
+        while ((doctor = queue.poll()) != null) {
+            if (registered.test(doctor) && doctor.tryReserve()) {
+                return doctor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries in the pool, including stale ones.
+     *
+     * @return the number of queued entries
+     */
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,203 @@
+package com.cg.training.service;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntConsumer;
+
+/**
+ * A thread-safe list that only supports appending and reading by index.
+ * <p>
+ * Elements live in segments whose sizes double (8, 16, 32, ...), so the list
+ * never copies existing elements while it grows. A writer makes sure the
+ * segment for the next index exists, reserves the index with a
+ * compare-and-set and stores the element without taking a lock. Nothing
+ * between reserving and publishing can fail, because a later writer waits
+ * for every earlier one. Elements become visible in index order:
+ * {@link #size()} only moves past an index once every earlier append has
+ * finished, so readers always see a gap free prefix of the list.
+ * </p>
+ * <p>
+ * The list is also used for the small per-patient and per-doctor indexes, so
+ * an empty or short list is kept cheap: the first segment is allocated with
+ * the list and the table of further segments only once the list outgrows it.
+ * </p>
+ *
+ * @param <E> the element type
+ */
+final class ConcurrentAppendList<E> extends AbstractList<E> implements RandomAccess {
+
+    /** Number of bits addressing the first segment (8 elements). */
+    private static final int FIRST_SEGMENT_BITS = 3;
+
+    /** Number of elements in the first segment. */
+    private static final int FIRST_SEGMENT_SIZE = 1 << FIRST_SEGMENT_BITS;
+
+    /** Enough doubling segments to address every index up to {@code Integer.MAX_VALUE - 8}. */
+    private static final int MAX_SEGMENTS = 31 - FIRST_SEGMENT_BITS;
+
+    /** Atomic access to {@link #reserved}. */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConcurrentAppendList> RESERVED =
+            AtomicIntegerFieldUpdater.newUpdater(ConcurrentAppendList.class, "reserved");
+
+    /** Atomic access to {@link #segments}. */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentAppendList, AtomicReferenceArray> SEGMENTS =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentAppendList.class, AtomicReferenceArray.class, "segments");
+
+    /** The first segment, allocated with the list. */
+    private final Object[] first = new Object[FIRST_SEGMENT_SIZE];
+
+    /** Further segments, allocated the first time an index falls into them. */
+    private volatile AtomicReferenceArray<Object[]> segments;
+
+    /** Next index handed out to a writer. */
+    private volatile int reserved;
+
+    /** Number of elements visible to readers. */
+    private volatile int size;
+
+    /**
+     * Appends an element to the end of the list.
+     *
+     * @param element the element to add, never null
+     * @return always true
+     */
+    @Override
+    public boolean add(E element) {
+        append(element, null);
+        return true;
+    }
+
+    /**
+     * Appends an element and returns the index it was stored at.
+     * <p>
+     * If {@code inOrder} is given it is called with the new index just before
+     * the element becomes visible. Those calls happen one at a time and in
+     * index order, which lets callers write the element to an ordered log
+     * without a separate lock.
+     * </p>
+     *
+     * @param element the element to add, never null
+     * @param inOrder optional callback run in index order before publication
+     * @return the index of the element
+     */
+    int append(E element, IntConsumer inOrder) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        int index;
+        int n;
+        Object[] elements;
+        do {
+            index = reserved;
+            if (index > Integer.MAX_VALUE - FIRST_SEGMENT_SIZE) {
+                throw new IllegalStateException("List is full.");
+            }
+            n = index + FIRST_SEGMENT_SIZE;
+            elements = segment(segmentOf(n));
+        } while (!RESERVED.compareAndSet(this, index, index + 1));
+        elements[n - (FIRST_SEGMENT_SIZE << segmentOf(n))] = element;
+        while (size != index) {
+            Thread.yield(); // an earlier append is still being written
+        }
+        try {
+            if (inOrder != null) {
+                inOrder.accept(index);
+            }
+        } finally {
+            size = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param index the index of the element
+     * @return the element
+     * @throws IndexOutOfBoundsException if the index is not yet visible
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int n = index + FIRST_SEGMENT_SIZE;
+        int segment = segmentOf(n);
+        Object[] elements = segment == 0 ? first : segments.get(segment);
+        return (E) elements[n - (FIRST_SEGMENT_SIZE << segment)];
+    }
+
+    /**
+     * Replaces the element at a visible index, as when an element is moved
+     * to another store and only a marker is left behind. The store is a plain
+     * write; callers publish whatever the marker points to before calling.
+     *
+     * @param index   the index of the element
+     * @param element the new element, never null
+     * @throws IndexOutOfBoundsException if the index is not yet visible
+     */
+    void replace(int index, E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int n = index + FIRST_SEGMENT_SIZE;
+        int segment = segmentOf(n);
+        Object[] elements = segment == 0 ? first : segments.get(segment);
+        elements[n - (FIRST_SEGMENT_SIZE << segment)] = element;
+    }
+
+    /**
+     * Returns the number of visible elements.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the segment holding the shifted index {@code n = index + 8}.
+     *
+     * @param n the index shifted by the first segment size
+     * @return the segment number
+     */
+    private static int segmentOf(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n) - FIRST_SEGMENT_BITS;
+    }
+
+    /**
+     * Returns a segment, allocating it if no writer has done so yet.
+     *
+     * @param segment the segment number
+     * @return the segment array
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] segment(int segment) {
+        if (segment == 0) {
+            return first;
+        }
+        AtomicReferenceArray<Object[]> table = segments;
+        if (table == null) {
+            SEGMENTS.compareAndSet(this, null, new AtomicReferenceArray<Object[]>(MAX_SEGMENTS));
+            table = segments;
+        }
+        Object[] elements = table.get(segment);
+        if (elements == null) {
+            elements = new Object[FIRST_SEGMENT_SIZE << segment];
+            if (!table.compareAndSet(segment, null, elements)) {
+                elements = table.get(segment);
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,167 @@
+package com.cg.training.service;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A thread-safe, append-only list of ints, used for the appointment positions
+ * kept per doctor and per patient.
+ * <p>
+ * It works like {@link ConcurrentAppendList} but stores plain ints, so a
+ * position costs four bytes instead of a boxed Integer and a reference.
+ * Most patients only ever have a few appointments, so the first segment
+ * holds four values, the segments after it double in size, and the table of
+ * further segments grows one slot at a time instead of being allocated at
+ * its largest size.
+ * </p>
+ * <p>
+ * The {@link java.util.List} view boxes values as they are read; use
+ * {@link #getInt(int)} to avoid that.
+ * </p>
+ */
+final class ConcurrentIntList extends AbstractList<Integer> implements RandomAccess {
+
+    /** Number of bits addressing the first segment (4 values). */
+    private static final int FIRST_SEGMENT_BITS = 2;
+
+    /** Number of values in the first segment. */
+    private static final int FIRST_SEGMENT_SIZE = 1 << FIRST_SEGMENT_BITS;
+
+    /** Atomic access to {@link #reserved}. */
+    private static final AtomicIntegerFieldUpdater<ConcurrentIntList> RESERVED =
+            AtomicIntegerFieldUpdater.newUpdater(ConcurrentIntList.class, "reserved");
+
+    /** The first segment, allocated with the list. */
+    private final int[] first = new int[FIRST_SEGMENT_SIZE];
+
+    /**
+     * Further segments, allocated the first time an index falls into them.
+     * Slot 0 stays empty. The table is replaced by a longer copy when a new
+     * segment is added, always while holding the list's lock.
+     */
+    private volatile int[][] segments;
+
+    /** Next index handed out to a writer. */
+    private volatile int reserved;
+
+    /** Number of values visible to readers. */
+    private volatile int size;
+
+    /**
+     * Appends a value to the end of the list. Values become visible in
+     * index order, as in {@link ConcurrentAppendList#append}, and the segment
+     * is allocated before the index is reserved, so a reserved index is
+     * always published.
+     *
+     * @param value the value to add
+     */
+    void addInt(int value) {
+        int index;
+        int n;
+        int[] values;
+        do {
+            index = reserved;
+            if (index > Integer.MAX_VALUE - FIRST_SEGMENT_SIZE) {
+                throw new IllegalStateException("List is full.");
+            }
+            n = index + FIRST_SEGMENT_SIZE;
+            values = segment(segmentOf(n));
+        } while (!RESERVED.compareAndSet(this, index, index + 1));
+        values[n - (FIRST_SEGMENT_SIZE << segmentOf(n))] = value;
+        while (size != index) {
+            Thread.yield(); // an earlier append is still being written
+        }
+        size = index + 1;
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value the value to add, never null
+     * @return always true
+     */
+    @Override
+    public boolean add(Integer value) {
+        addInt(value);
+        return true;
+    }
+
+    /**
+     * Returns the value at the given index without boxing it.
+     *
+     * @param index the index of the value
+     * @return the value
+     * @throws IndexOutOfBoundsException if the index is not yet visible
+     */
+    int getInt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int n = index + FIRST_SEGMENT_SIZE;
+        int segment = segmentOf(n);
+        int[] values = segment == 0 ? first : segments[segment];
+        return values[n - (FIRST_SEGMENT_SIZE << segment)];
+    }
+
+    /**
+     * Returns the value at the given index.
+     *
+     * @param index the index of the value
+     * @return the value
+     * @throws IndexOutOfBoundsException if the index is not yet visible
+     */
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    /**
+     * Returns the number of visible values.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the segment holding the shifted index {@code n = index + 4}.
+     *
+     * @param n the index shifted by the first segment size
+     * @return the segment number
+     */
+    private static int segmentOf(int n) {
+        return 31 - Integer.numberOfLeadingZeros(n) - FIRST_SEGMENT_BITS;
+    }
+
+    /**
+     * Returns a segment, allocating it if no writer has done so yet.
+     * Allocation happens only once per segment, so it takes the lock.
+     *
+     * @param segment the segment number
+     * @return the segment array
+     */
+    private int[] segment(int segment) {
+        if (segment == 0) {
+            return first;
+        }
+        int[][] table = segments;
+        if (table != null && segment < table.length && table[segment] != null) {
+            return table[segment];
+        }
+        synchronized (this) {
+            table = segments;
+            if (table == null || segment >= table.length) {
+                table = table == null ? new int[segment + 1][] : Arrays.copyOf(table, segment + 1);
+            }
+            if (table[segment] == null) {
+                table[segment] = new int[FIRST_SEGMENT_SIZE << segment];
+            }
+            segments = table; // publishes the new segment to readers
+            return table[segment];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.cg.training.service;
+
+import java.util.function.ToIntFunction;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * The DoctorAssignment enum lists the ways a walk-in appointment can be
+ * assigned to one of the free doctors; see
+ * {@link AppointmentSystem#setDoctorAssignment(DoctorAssignment)}.
+ */
+public enum DoctorAssignment {
+
+    /** The doctor who has been free the longest; lock-free, O(1). The default. */
+    LONGEST_AVAILABLE,
+
+    /** The free doctor with the fewest appointments so far; O(log n). */
+    LEAST_LOADED,
+
+    /** The free doctors in turn, in registration order; O(log n). */
+    ROUND_ROBIN,
+
+    /** The less loaded of two random free doctors; O(1). */
+    TWO_CHOICES;
+
+    /**
+     * Creates an empty strategy of this kind.
+     *
+     * @param load reads the number of appointments of a doctor
+     * @return the strategy
+     */
+    DoctorAssignmentStrategy create(ToIntFunction<Doctor> load) {
+        switch (this) {
+            case LEAST_LOADED:
+                return new LeastLoadedDoctorPool(load);
+            case ROUND_ROBIN:
+                return new RoundRobinDoctorPool();
+            case TWO_CHOICES:
+                return new TwoChoicesDoctorPool(load);
+            default:
+                return new AvailableDoctorPool();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.cg.training.service;
+
+import java.util.function.Predicate;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * Decides which free doctor gets the next walk-in appointment.
+ * <p>
+ * A strategy only holds doctors who are, or were recently, available. Every
+ * doctor is offered once on registration and again each time they become
+ * available; a doctor who was taken elsewhere, or removed, stays behind as a
+ * stale entry until a claim meets it and drops it. Claiming reserves the
+ * chosen doctor with {@link Doctor#tryReserve()}, so two concurrent claims
+ * never receive the same doctor. See {@link DoctorAssignment} for the
+ * strategies on offer.
+ * </p>
+ */
+interface DoctorAssignmentStrategy {
+
+    /**
+     * Adds a doctor who has just become available.
+     *
+     * @param doctor the available doctor
+     */
+    void offer(Doctor doctor);
+
+    /**
+     * Chooses a free doctor and reserves them.
+     *
+     * @param registered tells whether a doctor is still registered; removed
+     *                   doctors are dropped
+     * @return the reserved doctor, or null if no doctor is available
+     */
+    Doctor claim(Predicate<Doctor> registered);
+
+    /**
+     * Returns the number of entries held, including stale ones.
+     *
+     * @return the number of entries
+     */
+    int size();
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.cg.training.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The booked time slots of one doctor, kept as a bitmap.
+ * <p>
+ * The bitmap is split into blocks of {@link #BLOCK_SIZE} slots (64 days of
+ * 16 slots). A block is allocated only once a slot in it is booked, so the
+ * calendar has no fixed horizon and an empty stretch of time costs nothing.
+ * Finding the next free slot skips 64 booked slots per word with a
+ * trailing-zero count.
+ * </p>
+ * <p>
+ * Not thread-safe; {@link SlotScheduler} guards every calendar with its lock.
+ * </p>
+ */
+final class DoctorCalendar {
+
+    /** Number of bits addressing a slot within a block. */
+    private static final int BLOCK_BITS = 10;
+
+    /** Number of slots per block. */
+    static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    /** Number of 64-bit words per block. */
+    private static final int WORDS = BLOCK_SIZE / 64;
+
+    /** Allocated blocks keyed by block number; a set bit is a booked slot. */
+    private final TreeMap<Integer, long[]> blocks = new TreeMap<>();
+
+    /**
+     * Tells whether a slot is booked.
+     *
+     * @param slot the slot number
+     * @return true if the slot is booked
+     */
+    boolean isBooked(int slot) {
+        long[] words = blocks.get(slot >> BLOCK_BITS);
+        return words != null && (words[(slot & (BLOCK_SIZE - 1)) >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Books a slot.
+     *
+     * @param slot the slot number
+     * @return true if the slot was free and is now booked
+     */
+    boolean book(int slot) {
+        long[] words = blocks.computeIfAbsent(slot >> BLOCK_BITS, b -> new long[WORDS]);
+        int word = (slot & (BLOCK_SIZE - 1)) >>> 6;
+        long bit = 1L << slot;
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+        words[word] |= bit;
+        return true;
+    }
+
+    /**
+     * Frees a booked slot.
+     *
+     * @param slot the slot number
+     */
+    void release(int slot) {
+        long[] words = blocks.get(slot >> BLOCK_BITS);
+        if (words != null) {
+            words[(slot & (BLOCK_SIZE - 1)) >>> 6] &= ~(1L << slot);
+        }
+    }
+
+    /**
+     * Returns the first free slot at or after the given one.
+     *
+     * @param from the earliest slot to consider
+     * @return the first free slot
+     */
+    int nextFree(int from) {
+        int block = from >> BLOCK_BITS;
+        int offset = from & (BLOCK_SIZE - 1);
+        while (true) {
+            long[] words = blocks.get(block);
+            if (words == null) {
+                return (block << BLOCK_BITS) + offset;
+            }
+            for (int w = offset >>> 6; w < WORDS; w++) {
+                long free = ~words[w];
+                if (w == offset >>> 6) {
+                    free &= -1L << offset; // ignore slots before the start
+                }
+                if (free != 0) {
+                    return (block << BLOCK_BITS) + (w << 6) + Long.numberOfTrailingZeros(free);
+                }
+            }
+            block++;
+            offset = 0;
+        }
+    }
+
+    /**
+     * Drops the blocks that end before the given slot, since slots in the past
+     * can no longer be booked.
+     *
+     * @param slot the first slot that still matters
+     */
+    void forgetBefore(int slot) {
+        Map<Integer, long[]> past = blocks.headMap(slot >> BLOCK_BITS);
+        past.clear();
+    }
+}
\ No newline at end of file
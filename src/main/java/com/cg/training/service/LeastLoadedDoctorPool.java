@@ -0,0 +1,126 @@
+package com.cg.training.service;
+
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * Hands the next appointment to the free doctor with the fewest appointments;
+ * see {@link DoctorAssignment#LEAST_LOADED}.
+ * <p>
+ * Free doctors sit in a min-heap keyed by their appointment count when they
+ * were offered, ties going to the doctor offered first. A doctor can gain
+ * appointments while in the heap, for example time-slot bookings, so the
+ * count is read again when the doctor reaches the top: if it has grown, the
+ * doctor goes back in with the new count. Counts never shrink, so the doctor
+ * finally taken really has the fewest. Offer and claim are O(log n).
+ * </p>
+ * All methods are synchronized.
+ */
+final class LeastLoadedDoctorPool implements DoctorAssignmentStrategy {
+
+    /**
+     * A doctor in the heap with the count they were filed under.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        /** The doctor. */
+        final Doctor doctor;
+
+        /** The doctor's appointment count when filed. */
+        final int load;
+
+        /** Order in which entries were filed, to break ties. */
+        final long sequence;
+
+        /**
+         * Creates an entry.
+         *
+         * @param doctor   the doctor
+         * @param load     the doctor's appointment count
+         * @param sequence the filing order
+         */
+        Entry(Doctor doctor, int load, long sequence) {
+            this.doctor = doctor;
+            this.load = load;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Orders entries by count and then by filing order.
+         *
+         * @param other another entry
+         * @return the order of the two entries
+         */
+        @Override
+        public int compareTo(Entry other) {
+            int order = Integer.compare(load, other.load);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /** Free doctors, least loaded on top. */
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>();
+
+    /** Reads the number of appointments of a doctor. */
+    private final ToIntFunction<Doctor> load;
+
+    /** Filing order of the next entry. */
+    private long sequence;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param load reads the number of appointments of a doctor
+     */
+    LeastLoadedDoctorPool(ToIntFunction<Doctor> load) {
+        this.load = load;
+    }
+
+    /**
+     * Files a doctor who has just become available under their current count.
+     *
+     * @param doctor the available doctor
+     */
+    @Override
+    public synchronized void offer(Doctor doctor) {
+        heap.add(new Entry(doctor, load.applyAsInt(doctor), sequence++));
+    }
+
+    /**
+     * Reserves the free doctor with the fewest appointments.
+     *
+     * @param registered tells whether a doctor is still registered; removed
+     *                   doctors are dropped from the pool
+     * @return the reserved doctor, or null if no doctor is available
+     */
+    @Override
+    public synchronized Doctor claim(Predicate<Doctor> registered) {
+        Entry entry;
+        while ((entry = heap.poll()) != null) {
+            Doctor doctor = entry.doctor;
+            if (!registered.test(doctor) || !doctor.isAvailable()) {
+                continue;
+            }
+            int current = load.applyAsInt(doctor);
+            if (current > entry.load) {
+                heap.add(new Entry(doctor, current, entry.sequence));
+            } else if (doctor.tryReserve()) {
+                return doctor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries in the heap, including stale ones.
+     *
+     * @return the number of entries
+     */
+    @Override
+    public synchronized int size() {
+        return heap.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,464 @@
+package com.cg.training.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.metrics.AppointmentMetrics;
+import com.cg.training.metrics.Operation;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+
+/**
+ * This class measures every call to another appointment system.
+ * <p>
+ * Each operation is timed with {@link System#nanoTime()} and recorded in the
+ * operation's histogram in {@link AppointmentMetrics}, whether it returns or
+ * throws. Recording allocates nothing and takes no lock, so the decorator can
+ * stay in place in production. The size gauges read the measured system only
+ * when the metrics are looked at.
+ * </p>
+ */
+public class MeasuredAppointmentSystem implements AppointmentSystemDAO {
+
+    /** The system whose operations are measured. */
+    private final AppointmentSystemDAO delegate;
+
+    /** The latency histograms and size gauges. */
+    private final AppointmentMetrics metrics;
+
+    /**
+     * Constructor to measure a single appointment system.
+     *
+     * @param system the system to measure
+     */
+    public MeasuredAppointmentSystem(AppointmentSystem system) {
+        this(system, new AppointmentMetrics(() -> system.patients.size(), () -> system.doctors.size(),
+                () -> system.appointments.size(), system::availableDoctorCount));
+    }
+
+    /**
+     * Constructor to measure a sharded appointment system; the gauges add up
+     * all shards.
+     *
+     * @param system the system to measure
+     */
+    public MeasuredAppointmentSystem(ShardedAppointmentSystem system) {
+        this(system, new AppointmentMetrics(system::patientCount, system::doctorCount,
+                system::appointmentCount, system::availableDoctorCount));
+    }
+
+    /**
+     * Constructor to measure any system with metrics whose gauges are already set up.
+     *
+     * @param delegate the system to measure
+     * @param metrics  the metrics to record into
+     */
+    public MeasuredAppointmentSystem(AppointmentSystemDAO delegate, AppointmentMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics this system records into.
+     *
+     * @return the metrics
+     */
+    public AppointmentMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers a patient and records how long it took.
+     *
+     * @param name the name of the patient
+     */
+    @Override
+    public void registerPatient(String name) {
+        long start = System.nanoTime();
+        try {
+            delegate.registerPatient(name);
+        } finally {
+            metrics.record(Operation.REGISTER_PATIENT, start);
+        }
+    }
+
+    /**
+     * Registers a doctor and records how long it took.
+     *
+     * @param name the name of the doctor
+     */
+    @Override
+    public void registerDoctor(String name) {
+        long start = System.nanoTime();
+        try {
+            delegate.registerDoctor(name);
+        } finally {
+            metrics.record(Operation.REGISTER_DOCTOR, start);
+        }
+    }
+
+    /**
+     * Registers many patients and records how long the whole batch took.
+     *
+     * @param names the names of the patients
+     * @return the ID assigned to each row and the error of each rejected row
+     */
+    @Override
+    public RegistrationResult registerPatients(Collection<String> names) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerPatients(names);
+        } finally {
+            metrics.record(Operation.REGISTER_PATIENTS, start);
+        }
+    }
+
+    /**
+     * Registers many doctors and records how long the whole batch took.
+     *
+     * @param names the names of the doctors
+     * @return the ID assigned to each row and the error of each rejected row
+     */
+    @Override
+    public RegistrationResult registerDoctors(Collection<String> names) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerDoctors(names);
+        } finally {
+            metrics.record(Operation.REGISTER_DOCTORS, start);
+        }
+    }
+
+    /**
+     * Imports a roster and records how long it took.
+     *
+     * @param fileName the path of the roster file
+     * @return the counts and rejected rows, or null if the roster could not be read
+     */
+    @Override
+    public ImportReport importRoster(String fileName) {
+        long start = System.nanoTime();
+        try {
+            return delegate.importRoster(fileName);
+        } finally {
+            metrics.record(Operation.IMPORT_ROSTER, start);
+        }
+    }
+
+    /**
+     * Books a walk-in appointment and records how long it took.
+     *
+     * @param patient the patient to book for
+     * @return the booked appointment
+     */
+    @Override
+    public Appointment bookAppointment(Patient patient) {
+        long start = System.nanoTime();
+        try {
+            return delegate.bookAppointment(patient);
+        } finally {
+            metrics.record(Operation.BOOK_APPOINTMENT, start);
+        }
+    }
+
+    /**
+     * Books the earliest free time slot and records how long it took.
+     *
+     * @param patient   the patient to book for
+     * @param notBefore the earliest acceptable start of the appointment
+     * @return the booked appointment, or null if no doctor is registered
+     */
+    @Override
+    public SlottedAppointment bookAppointment(Patient patient, LocalDateTime notBefore) {
+        long start = System.nanoTime();
+        try {
+            return delegate.bookAppointment(patient, notBefore);
+        } finally {
+            metrics.record(Operation.BOOK_TIME_SLOT, start);
+        }
+    }
+
+    /**
+     * Completes an appointment and records how long it took.
+     *
+     * @param index the index of the appointment
+     */
+    @Override
+    public void completeAppointment(int index) {
+        long start = System.nanoTime();
+        try {
+            delegate.completeAppointment(index);
+        } finally {
+            metrics.record(Operation.COMPLETE_APPOINTMENT, start);
+        }
+    }
+
+    /**
+     * Completes many appointments and records how long the whole batch took.
+     *
+     * @param appointmentIds the IDs of the appointments
+     * @return the number of appointments completed
+     */
+    @Override
+    public int completeAppointments(Collection<String> appointmentIds) {
+        long start = System.nanoTime();
+        try {
+            return delegate.completeAppointments(appointmentIds);
+        } finally {
+            metrics.record(Operation.COMPLETE_APPOINTMENTS, start);
+        }
+    }
+
+    /**
+     * Prints all doctors and records how long it took.
+     */
+    @Override
+    public void showAllDoctors() {
+        long start = System.nanoTime();
+        try {
+            delegate.showAllDoctors();
+        } finally {
+            metrics.record(Operation.SHOW_ALL_DOCTORS, start);
+        }
+    }
+
+    /**
+     * Prints all appointments and records how long it took.
+     */
+    @Override
+    public void showAllAppointments() {
+        long start = System.nanoTime();
+        try {
+            delegate.showAllAppointments();
+        } finally {
+            metrics.record(Operation.SHOW_ALL_APPOINTMENTS, start);
+        }
+    }
+
+    /**
+     * Prints a doctor's appointments and records how long it took.
+     *
+     * @param doctorId the ID of the doctor
+     */
+    @Override
+    public void showAppointmentsByDoctorId(String doctorId) {
+        long start = System.nanoTime();
+        try {
+            delegate.showAppointmentsByDoctorId(doctorId);
+        } finally {
+            metrics.record(Operation.SHOW_APPOINTMENTS_BY_DOCTOR, start);
+        }
+    }
+
+    /**
+     * Prints a patient's appointments and records how long it took.
+     *
+     * @param patientId the ID of the patient
+     */
+    @Override
+    public void showAppointmentsByPatientId(String patientId) {
+        long start = System.nanoTime();
+        try {
+            delegate.showAppointmentsByPatientId(patientId);
+        } finally {
+            metrics.record(Operation.SHOW_APPOINTMENTS_BY_PATIENT, start);
+        }
+    }
+
+    /**
+     * Returns one page of doctors and records how long it took.
+     *
+     * @param offset the position of the first doctor
+     * @param limit  the largest number of doctors
+     * @return the requested page
+     */
+    @Override
+    public Page<Doctor> findDoctors(int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findDoctors(offset, limit);
+        } finally {
+            metrics.record(Operation.FIND_DOCTORS, start);
+        }
+    }
+
+    /**
+     * Returns one page of appointment indexes and records how long it took.
+     *
+     * @param offset the position of the first appointment
+     * @param limit  the largest number of appointments
+     * @return the requested page
+     */
+    @Override
+    public Page<Integer> findAppointments(int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAppointments(offset, limit);
+        } finally {
+            metrics.record(Operation.FIND_APPOINTMENTS, start);
+        }
+    }
+
+    /**
+     * Returns one page of a doctor's appointment indexes and records how long it took.
+     *
+     * @param doctorId the ID of the doctor
+     * @param offset   the position of the first appointment
+     * @param limit    the largest number of appointments
+     * @return the requested page
+     */
+    @Override
+    public Page<Integer> findAppointmentsByDoctorId(String doctorId, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAppointmentsByDoctorId(doctorId, offset, limit);
+        } finally {
+            metrics.record(Operation.FIND_APPOINTMENTS_BY_DOCTOR, start);
+        }
+    }
+
+    /**
+     * Returns one page of a patient's appointment indexes and records how long it took.
+     *
+     * @param patientId the ID of the patient
+     * @param offset    the position of the first appointment
+     * @param limit     the largest number of appointments
+     * @return the requested page
+     */
+    @Override
+    public Page<Integer> findAppointmentsByPatientId(String patientId, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAppointmentsByPatientId(patientId, offset, limit);
+        } finally {
+            metrics.record(Operation.FIND_APPOINTMENTS_BY_PATIENT, start);
+        }
+    }
+
+    /**
+     * Returns an appointment and records how long it took.
+     *
+     * @param index the index of the appointment
+     * @return the appointment, or null if the index is out of range
+     */
+    @Override
+    public Appointment getAppointment(int index) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAppointment(index);
+        } finally {
+            metrics.record(Operation.GET_APPOINTMENT, start);
+        }
+    }
+
+    /**
+     * Finds an appointment by ID and records how long it took.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the appointment, or null if not found
+     */
+    @Override
+    public Appointment findAppointmentById(String appointmentId) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findAppointmentById(appointmentId);
+        } finally {
+            metrics.record(Operation.FIND_APPOINTMENT_BY_ID, start);
+        }
+    }
+
+    /**
+     * Finds a patient and records how long it took.
+     *
+     * @param id the ID of the patient
+     * @return the patient, or null if not found
+     */
+    @Override
+    public Patient findPatientById(String id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPatientById(id);
+        } finally {
+            metrics.record(Operation.FIND_PATIENT_BY_ID, start);
+        }
+    }
+
+    /**
+     * Finds a doctor and records how long it took.
+     *
+     * @param id the ID of the doctor
+     * @return the doctor, or null if not found
+     */
+    @Override
+    public Doctor findDoctorById(String id) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findDoctorById(id);
+        } finally {
+            metrics.record(Operation.FIND_DOCTOR_BY_ID, start);
+        }
+    }
+
+    /**
+     * Removes a doctor and records how long it took.
+     *
+     * @param doctorId the ID of the doctor
+     */
+    @Override
+    public void removeDoctor(String doctorId) {
+        long start = System.nanoTime();
+        try {
+            delegate.removeDoctor(doctorId);
+        } finally {
+            metrics.record(Operation.REMOVE_DOCTOR, start);
+        }
+    }
+
+    /**
+     * Removes many doctors and records how long the whole batch took.
+     *
+     * @param doctorIds the IDs of the doctors
+     * @return the number of doctors removed
+     */
+    @Override
+    public int removeDoctors(Collection<String> doctorIds) {
+        long start = System.nanoTime();
+        try {
+            return delegate.removeDoctors(doctorIds);
+        } finally {
+            metrics.record(Operation.REMOVE_DOCTORS, start);
+        }
+    }
+
+    /**
+     * Saves the unsaved changes and records how long it took.
+     */
+    @Override
+    public void saveAppointmentsToFile() {
+        long start = System.nanoTime();
+        try {
+            delegate.saveAppointmentsToFile();
+        } finally {
+            metrics.record(Operation.SAVE_APPOINTMENTS, start);
+        }
+    }
+
+    /**
+     * Clears the appointment file and records how long it took.
+     */
+    @Override
+    public void clearAllContentsOfTheFile() {
+        long start = System.nanoTime();
+        try {
+            delegate.clearAllContentsOfTheFile();
+        } finally {
+            metrics.record(Operation.CLEAR_FILE, start);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,667 @@
+package com.cg.training.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.function.LongFunction;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.AppointmentStatus;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.models.User;
+
+/**
+ * Appointment records kept in fixed-width slots of direct memory, outside
+ * the Java heap, and read through flyweight views.
+ * <p>
+ * Every appointment takes {@link #RECORD_SIZE} bytes in a chunk of
+ * {@link #CHUNK_RECORDS} records allocated with
+ * {@link ByteBuffer#allocateDirect(int)}:
+ * </p>
+ * <pre>
+ * int idNumber, byte status, byte flags, 2 bytes padding, int slot,
+ * 4 bytes padding, long patient key, long doctor key
+ * flags = 1 if the appointment is in a time slot, plus 2 if it occupies its doctor
+ * </pre>
+ * <p>
+ * The patient and doctor are stored by {@link User#getKey()} and looked up
+ * again when a record is read, so a stored appointment leaves no object on
+ * the heap. The garbage collector therefore has the same amount of work
+ * whether a thousand or a hundred million appointments are kept. Doctors,
+ * including removed ones, and patients who were never registered are
+ * remembered in a small map so they can still be found by key.
+ * </p>
+ * <p>
+ * Records are appended like {@link ConcurrentAppendList} appends: the
+ * users are resolved and the chunk allocated before the index is reserved
+ * with a compare-and-set, the record is written without a lock, and records
+ * become visible in index order. Status changes hold one
+ * of {@link #LOCKS} striped locks, which {@link #monitorOf(Appointment)}
+ * hands to callers that must act under the same lock.
+ * </p>
+ * <p>
+ * {@link #view(int)} returns an {@link Appointment}, or a
+ * {@link SlottedAppointment}, whose accessors read the record. A view can be
+ * moved to another record with {@link #view(int, Appointment)}, so a listing
+ * walks any number of appointments with one view. Changing a view's status
+ * changes the record. The object passed to {@link #append} is only copied and
+ * does not follow later changes.
+ * </p>
+ */
+final class OffHeapAppointments {
+
+    /** Number of bytes per record. */
+    static final int RECORD_SIZE = 32;
+
+    /** Offset of the ID number within a record. */
+    private static final int ID = 0;
+
+    /** Offset of the status ordinal within a record. */
+    private static final int STATUS = 4;
+
+    /** Offset of the flags within a record. */
+    private static final int FLAGS = 5;
+
+    /** Offset of the time slot within a record. */
+    private static final int SLOT = 8;
+
+    /** Offset of the patient key within a record. */
+    private static final int PATIENT = 16;
+
+    /** Offset of the doctor key within a record. */
+    private static final int DOCTOR = 24;
+
+    /** Flag of an appointment in a time slot. */
+    private static final int SLOTTED = 1;
+
+    /** Flag of an appointment that keeps its doctor unavailable until completed. */
+    private static final int OCCUPIES_DOCTOR = 2;
+
+    /** Number of bits addressing a record within a chunk. */
+    private static final int CHUNK_BITS = 15;
+
+    /** Number of records per chunk (1 MiB of memory). */
+    static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+
+    /** Enough chunks to address every index up to {@code Integer.MAX_VALUE}. */
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS);
+
+    /** Number of striped locks guarding status changes. */
+    static final int LOCKS = 64;
+
+    /** The status of every ordinal. */
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    /** The chunks, allocated the first time an index falls into them. */
+    private final AtomicReferenceArray<ByteBuffer> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    /** Next index handed out to a writer. */
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    /** Number of records visible to readers. */
+    private volatile int size;
+
+    /** Locks for status changes; record i uses {@code i % LOCKS}. */
+    private final Object[] locks = new Object[LOCKS];
+
+    /** Finds a registered patient by key, or returns null. */
+    private final LongFunction<Patient> patients;
+
+    /** Finds a registered doctor by key, or returns null. */
+    private final LongFunction<Doctor> doctors;
+
+    /** Every doctor booked and every unregistered patient booked, by key. */
+    private final Map<Long, User> others = new ConcurrentHashMap<>();
+
+    /**
+     * A view of one record.
+     */
+    private interface View {
+
+        /**
+         * Returns the store the record belongs to.
+         *
+         * @return the store
+         */
+        OffHeapAppointments store();
+
+        /**
+         * Moves the view to another record.
+         *
+         * @param index the index of the record
+         * @return this view
+         */
+        Appointment at(int index);
+
+        /**
+         * Returns the lock guarding the record's status.
+         *
+         * @return the lock
+         */
+        Object lock();
+    }
+
+    /**
+     * A view of a walk-in appointment.
+     */
+    private final class WalkInView extends Appointment implements View {
+
+        /** The index of the record. */
+        private int index;
+
+        /**
+         * Creates a view of a record.
+         *
+         * @param index the index of the record
+         */
+        WalkInView(int index) {
+            super(null, null, false);
+            at(index);
+        }
+
+        /**
+         * Returns the store the record belongs to.
+         *
+         * @return the store
+         */
+        @Override
+        public OffHeapAppointments store() {
+            return OffHeapAppointments.this;
+        }
+
+        /**
+         * Moves the view to another record.
+         *
+         * @param index the index of the record
+         * @return this view
+         */
+        @Override
+        public Appointment at(int index) {
+            this.index = index;
+            patient = patientOf(index);
+            doctor = doctorOf(index);
+            return this;
+        }
+
+        /**
+         * Returns the lock guarding the record's status.
+         *
+         * @return the lock
+         */
+        @Override
+        public Object lock() {
+            return locks[index % LOCKS];
+        }
+
+        /**
+         * Moves the record to another status under the record's lock.
+         *
+         * @param next the status to move to
+         */
+        @Override
+        public void moveTo(AppointmentStatus next) {
+            synchronized (lock()) {
+                super.moveTo(next);
+            }
+        }
+
+        /**
+         * Writes a new status to the record.
+         *
+         * @param next the new status
+         */
+        @Override
+        protected void storeStatus(AppointmentStatus next) {
+            setStatus(index, next);
+        }
+
+        /**
+         * Reads the status of the record.
+         *
+         * @return the status
+         */
+        @Override
+        public AppointmentStatus getAppointmentStatus() {
+            return statusOf(index);
+        }
+
+        /**
+         * Reads whether the appointment keeps its doctor unavailable.
+         *
+         * @return true for an appointment that reserved its doctor
+         */
+        @Override
+        public boolean occupiesDoctor() {
+            return (flagsOf(index) & OCCUPIES_DOCTOR) != 0;
+        }
+
+        /**
+         * Reads the ID number of the record.
+         *
+         * @return the ID number
+         */
+        @Override
+        public int getIdNumber() {
+            return idNumberOf(index);
+        }
+
+        /**
+         * Refuses to change the ID of a stored appointment.
+         *
+         * @param idNumber ignored
+         * @throws IllegalStateException always
+         */
+        @Override
+        public void assignIdNumber(int idNumber) {
+            throw new IllegalStateException("Appointment already has ID " + getId());
+        }
+
+        /**
+         * Renders the details of the record. Views are reused, so nothing is cached.
+         *
+         * @return the details
+         */
+        @Override
+        public String appointmentDetails() {
+            StringBuilder text = new StringBuilder(80);
+            renderDetails(text, patient.getName(), doctor.getName(), getAppointmentStatus());
+            return text.toString();
+        }
+    }
+
+    /**
+     * A view of an appointment in a time slot.
+     */
+    private final class SlottedView extends SlottedAppointment implements View {
+
+        /** The index of the record. */
+        private int index;
+
+        /**
+         * Creates a view of a record.
+         *
+         * @param index the index of the record
+         */
+        SlottedView(int index) {
+            super(null, null, 0);
+            at(index);
+        }
+
+        /**
+         * Returns the store the record belongs to.
+         *
+         * @return the store
+         */
+        @Override
+        public OffHeapAppointments store() {
+            return OffHeapAppointments.this;
+        }
+
+        /**
+         * Moves the view to another record.
+         *
+         * @param index the index of the record
+         * @return this view
+         */
+        @Override
+        public Appointment at(int index) {
+            this.index = index;
+            patient = patientOf(index);
+            doctor = doctorOf(index);
+            return this;
+        }
+
+        /**
+         * Returns the lock guarding the record's status.
+         *
+         * @return the lock
+         */
+        @Override
+        public Object lock() {
+            return locks[index % LOCKS];
+        }
+
+        /**
+         * Moves the record to another status under the record's lock.
+         *
+         * @param next the status to move to
+         */
+        @Override
+        public void moveTo(AppointmentStatus next) {
+            synchronized (lock()) {
+                super.moveTo(next);
+            }
+        }
+
+        /**
+         * Writes a new status to the record.
+         *
+         * @param next the new status
+         */
+        @Override
+        protected void storeStatus(AppointmentStatus next) {
+            setStatus(index, next);
+        }
+
+        /**
+         * Reads the status of the record.
+         *
+         * @return the status
+         */
+        @Override
+        public AppointmentStatus getAppointmentStatus() {
+            return statusOf(index);
+        }
+
+        /**
+         * Reads whether the appointment keeps its doctor unavailable.
+         *
+         * @return true for an appointment that reserved its doctor
+         */
+        @Override
+        public boolean occupiesDoctor() {
+            return (flagsOf(index) & OCCUPIES_DOCTOR) != 0;
+        }
+
+        /**
+         * Reads the ID number of the record.
+         *
+         * @return the ID number
+         */
+        @Override
+        public int getIdNumber() {
+            return idNumberOf(index);
+        }
+
+        /**
+         * Refuses to change the ID of a stored appointment.
+         *
+         * @param idNumber ignored
+         * @throws IllegalStateException always
+         */
+        @Override
+        public void assignIdNumber(int idNumber) {
+            throw new IllegalStateException("Appointment already has ID " + getId());
+        }
+
+        /**
+         * Reads the time slot of the record.
+         *
+         * @return the slot number
+         */
+        @Override
+        public int getSlot() {
+            return chunkOf(index).getInt(offsetOf(index) + SLOT);
+        }
+
+        /**
+         * Renders the details of the record. Views are reused, so nothing is cached.
+         *
+         * @return the details
+         */
+        @Override
+        public String appointmentDetails() {
+            StringBuilder text = new StringBuilder(96);
+            renderDetails(text, patient.getName(), doctor.getName(), getAppointmentStatus());
+            return text.toString();
+        }
+    }
+
+    /**
+     * Creates an empty store. No memory is allocated until the first append.
+     *
+     * @param patients finds a registered patient by {@link User#getKey()}
+     * @param doctors  finds a registered doctor by {@link User#getKey()}
+     */
+    OffHeapAppointments(LongFunction<Patient> patients, LongFunction<Doctor> doctors) {
+        this.patients = patients;
+        this.doctors = doctors;
+        for (int i = 0; i < LOCKS; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Copies an appointment into the next record and returns its index.
+     * <p>
+     * If {@code inOrder} is given it is called with the new index just before
+     * the record becomes visible, one call at a time and in index order; the
+     * ID number is copied after it, so the callback may assign it. Everything
+     * that can fail happens before the index is reserved: later appends wait
+     * for every earlier one, so a reserved index must always be published.
+     * </p>
+     *
+     * @param appointment the appointment to copy
+     * @param inOrder     optional callback run in index order before publication
+     * @return the index of the record
+     * @throws IllegalStateException if the store is full
+     */
+    int append(Appointment appointment, IntConsumer inOrder) {
+        Patient patient = appointment.patient;
+        Doctor doctor = appointment.doctor;
+        long patientKey = patient.getKey();
+        long doctorKey = doctor.getKey();
+        if (patients.apply(patientKey) != patient) {
+            others.putIfAbsent(patientKey, patient);
+        }
+        others.putIfAbsent(doctorKey, doctor);
+        int flags = appointment.occupiesDoctor() ? OCCUPIES_DOCTOR : 0;
+        int slot = 0;
+        if (appointment instanceof SlottedAppointment) {
+            flags |= SLOTTED;
+            slot = ((SlottedAppointment) appointment).getSlot();
+        }
+        byte status = (byte) appointment.getAppointmentStatus().ordinal();
+
+        int index;
+        ByteBuffer chunk;
+        do {
+            index = reserved.get();
+            if (index == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Appointment store is full.");
+            }
+            chunk = chunk(index >>> CHUNK_BITS);
+        } while (!reserved.compareAndSet(index, index + 1));
+        int at = offsetOf(index);
+        if ((flags & SLOTTED) != 0) {
+            chunk.putInt(at + SLOT, slot);
+        }
+        chunk.put(at + STATUS, status);
+        chunk.put(at + FLAGS, (byte) flags);
+        chunk.putLong(at + PATIENT, patientKey);
+        chunk.putLong(at + DOCTOR, doctorKey);
+        while (size != index) {
+            Thread.yield(); // an earlier append is still being written
+        }
+        try {
+            if (inOrder != null) {
+                inOrder.accept(index);
+            }
+        } finally {
+            chunk.putInt(at + ID, appointment.getIdNumber());
+            size = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Returns a new view of a record.
+     *
+     * @param index the index of the record
+     * @return the view
+     * @throws IndexOutOfBoundsException if the record is not yet visible
+     */
+    Appointment view(int index) {
+        checkIndex(index);
+        return (flagsOf(index) & SLOTTED) != 0 ? new SlottedView(index) : new WalkInView(index);
+    }
+
+    /**
+     * Returns a view of a record, moving the given view there if it is a
+     * view of this store of the right kind.
+     *
+     * @param index the index of the record
+     * @param reuse a view returned earlier, or null
+     * @return the view
+     * @throws IndexOutOfBoundsException if the record is not yet visible
+     */
+    Appointment view(int index, Appointment reuse) {
+        checkIndex(index);
+        boolean slotted = (flagsOf(index) & SLOTTED) != 0;
+        if (reuse instanceof View && ((View) reuse).store() == this && (reuse instanceof SlottedView) == slotted) {
+            return ((View) reuse).at(index);
+        }
+        return slotted ? new SlottedView(index) : new WalkInView(index);
+    }
+
+    /**
+     * Returns the number of visible records.
+     *
+     * @return the number of appointments
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory taken by the records.
+     *
+     * @return the allocated size in bytes
+     */
+    long allocatedBytes() {
+        long chunkCount = (reserved.get() + (long) CHUNK_RECORDS - 1) >>> CHUNK_BITS;
+        return chunkCount * CHUNK_RECORDS * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the lock under which an appointment's status changes: the
+     * record's striped lock for a view, or the appointment itself.
+     *
+     * @param appointment the appointment
+     * @return the lock
+     */
+    static Object monitorOf(Appointment appointment) {
+        return appointment instanceof View ? ((View) appointment).lock() : appointment;
+    }
+
+    /**
+     * Fails unless a record is visible.
+     *
+     * @param index the index of the record
+     * @throws IndexOutOfBoundsException if the record is not yet visible
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Reads the status of a record under its lock.
+     *
+     * @param index the index of the record
+     * @return the status
+     */
+    private AppointmentStatus statusOf(int index) {
+        synchronized (locks[index % LOCKS]) {
+            return STATUSES[chunkOf(index).get(offsetOf(index) + STATUS)];
+        }
+    }
+
+    /**
+     * Writes the status of a record; the caller holds the record's lock.
+     *
+     * @param index the index of the record
+     * @param next  the new status
+     */
+    private void setStatus(int index, AppointmentStatus next) {
+        chunkOf(index).put(offsetOf(index) + STATUS, (byte) next.ordinal());
+    }
+
+    /**
+     * Reads the flags of a record.
+     *
+     * @param index the index of the record
+     * @return the flags
+     */
+    private int flagsOf(int index) {
+        return chunkOf(index).get(offsetOf(index) + FLAGS);
+    }
+
+    /**
+     * Reads the ID number of a record.
+     *
+     * @param index the index of the record
+     * @return the ID number
+     */
+    private int idNumberOf(int index) {
+        return chunkOf(index).getInt(offsetOf(index) + ID);
+    }
+
+    /**
+     * Returns the patient of a record.
+     *
+     * @param index the index of the record
+     * @return the registered patient, or the unregistered one that was booked
+     */
+    private Patient patientOf(int index) {
+        long key = chunkOf(index).getLong(offsetOf(index) + PATIENT);
+        Patient patient = patients.apply(key);
+        return patient != null ? patient : (Patient) others.get(key);
+    }
+
+    /**
+     * Returns the doctor of a record.
+     *
+     * @param index the index of the record
+     * @return the registered doctor, or the one that was booked if removed since
+     */
+    private Doctor doctorOf(int index) {
+        long key = chunkOf(index).getLong(offsetOf(index) + DOCTOR);
+        Doctor doctor = doctors.apply(key);
+        return doctor != null ? doctor : (Doctor) others.get(key);
+    }
+
+    /**
+     * Returns the chunk holding a visible record.
+     *
+     * @param index the index of the record
+     * @return the chunk
+     */
+    private ByteBuffer chunkOf(int index) {
+        return chunks.get(index >>> CHUNK_BITS);
+    }
+
+    /**
+     * Returns the offset of a record within its chunk.
+     *
+     * @param index the index of the record
+     * @return the byte offset
+     */
+    private static int offsetOf(int index) {
+        return (index & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    /**
+     * Returns a chunk, allocating it if no writer has done so yet.
+     *
+     * @param chunk the chunk number
+     * @return the chunk
+     */
+    private ByteBuffer chunk(int chunk) {
+        ByteBuffer buffer = chunks.get(chunk);
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder());
+            if (!chunks.compareAndSet(chunk, null, buffer)) {
+                buffer = chunks.get(chunk);
+            }
+        }
+        return buffer;
+    }
+}
\ No newline at end of file
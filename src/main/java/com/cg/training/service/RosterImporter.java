@@ -0,0 +1,322 @@
+package com.cg.training.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.RegistrationResult;
+
+/**
+ * RosterImporter loads patients and doctors from a CSV roster.
+ * <p>
+ * Every row is {@code role,name}, where the role is {@code patient} or
+ * {@code doctor} (or {@code P} / {@code D}, in any case). Blank lines are
+ * skipped, and so is a first line that reads {@code role,name}. A name may be
+ * wrapped in double quotes.
+ * </p>
+ * <p>
+ * The roster is read sequentially through a large buffer and cut into chunks
+ * of {@link #CHUNK_SIZE} lines. Chunks are parsed and registered in parallel
+ * through the bulk registration it is given, which reserves IDs for a whole chunk
+ * at once; at most two chunks per worker are held in memory. IDs therefore
+ * follow the roster order within a chunk but not across chunks.
+ * </p>
+ */
+final class RosterImporter {
+
+    /** Number of roster lines handed to a worker at a time. */
+    static final int CHUNK_SIZE = 10_000;
+
+    /** Size of the read buffer in characters. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Optional first line naming the columns. */
+    private static final String HEADER = "role,name";
+
+    /** Registers a batch of patients without printing. */
+    private final Function<Collection<String>, RegistrationResult> patientRegistration;
+
+    /** Registers a batch of doctors without printing. */
+    private final Function<Collection<String>, RegistrationResult> doctorRegistration;
+
+    /** Number of worker threads. */
+    private final int threads;
+
+    /**
+     * Creates an importer.
+     *
+     * @param patientRegistration the bulk registration of patients, safe to call concurrently
+     * @param doctorRegistration  the bulk registration of doctors, safe to call concurrently
+     * @param threads             the number of worker threads, at least 1
+     */
+    RosterImporter(Function<Collection<String>, RegistrationResult> patientRegistration,
+            Function<Collection<String>, RegistrationResult> doctorRegistration, int threads) {
+        this.patientRegistration = patientRegistration;
+        this.doctorRegistration = doctorRegistration;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Imports a roster, reports a summary and writes the rejected rows to a
+     * file named after the roster with ".rejects.csv" appended.
+     *
+     * @param fileName the path of the roster file
+     * @param events   the sink the summary is reported to
+     * @return the counts and rejected rows
+     * @throws IOException if the roster cannot be read or the rejects cannot be written
+     */
+    ImportReport importAndReport(String fileName, EventSink events) throws IOException {
+        ImportReport report = importFile(Paths.get(fileName));
+        events.info("Imported " + report.getPatientsImported() + " patients and "
+                + report.getDoctorsImported() + " doctors, rejected " + report.getRejects().size() + " rows.");
+        if (!report.getRejects().isEmpty()) {
+            Path rejectFile = Paths.get(fileName + ".rejects.csv");
+            writeRejects(report, rejectFile);
+            events.info("Rejected rows written to " + rejectFile);
+        }
+        return report;
+    }
+
+    /**
+     * Imports a roster.
+     *
+     * @param roster the CSV file to read
+     * @return the counts and rejected rows
+     * @throws IOException if the roster cannot be read
+     */
+    ImportReport importFile(Path roster) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<ChunkResult>> results = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(roster), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            long lineNumber = 0;
+            String[] lines = new String[CHUNK_SIZE];
+            int count = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.trim().equalsIgnoreCase(HEADER)) {
+                    continue;
+                }
+                lines[count++] = line;
+                if (count == CHUNK_SIZE) {
+                    results.add(submit(workers, inFlight, lines, count, lineNumber - count + 1));
+                    lines = new String[CHUNK_SIZE];
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                results.add(submit(workers, inFlight, lines, count, lineNumber - count + 1));
+            }
+            return collect(results);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Hands one chunk to the workers, waiting while too many are in flight.
+     *
+     * @param workers   the worker pool
+     * @param inFlight  permits limiting the chunks held in memory
+     * @param lines     the lines of the chunk
+     * @param count     the number of lines used in the array
+     * @param firstLine the roster line number of the first line
+     * @return the pending result of the chunk
+     * @throws IOException if the reading thread is interrupted
+     */
+    private Future<ChunkResult> submit(ExecutorService workers, Semaphore inFlight, String[] lines, int count,
+            long firstLine) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Roster import interrupted.");
+        }
+        return workers.submit(() -> {
+            try {
+                return importChunk(lines, count, firstLine);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Waits for every chunk and merges their results into one report.
+     *
+     * @param results the pending chunk results, in roster order
+     * @return the merged report
+     * @throws IOException if a chunk failed or the wait was interrupted
+     */
+    private static ImportReport collect(List<Future<ChunkResult>> results) throws IOException {
+        long rows = 0;
+        int patients = 0;
+        int doctors = 0;
+        List<ImportReport.Reject> rejects = new ArrayList<>();
+        for (Future<ChunkResult> pending : results) {
+            ChunkResult chunk;
+            try {
+                chunk = pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Roster import interrupted.");
+            } catch (ExecutionException e) {
+                throw new IOException("Roster import failed: " + e.getCause(), e.getCause());
+            }
+            rows += chunk.rows;
+            patients += chunk.patients;
+            doctors += chunk.doctors;
+            rejects.addAll(chunk.rejects);
+        }
+        rejects.sort(Comparator.comparingLong(ImportReport.Reject::getLine));
+        return new ImportReport(rows, patients, doctors, rejects);
+    }
+
+    /**
+     * Parses one chunk and registers its patients and doctors in two batches.
+     *
+     * @param lines     the lines of the chunk
+     * @param count     the number of lines used in the array
+     * @param firstLine the roster line number of the first line
+     * @return what the chunk registered and rejected
+     */
+    private ChunkResult importChunk(String[] lines, int count, long firstLine) {
+        ChunkResult result = new ChunkResult();
+        List<String> patientNames = new ArrayList<>();
+        List<String> doctorNames = new ArrayList<>();
+        int[] patientLines = new int[count];
+        int[] doctorLines = new int[count];
+        for (int i = 0; i < count; i++) {
+            String line = lines[i];
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            result.rows++;
+            int comma = line.indexOf(',');
+            if (comma < 0) {
+                result.reject(firstLine + i, "Expected role,name.", line);
+                continue;
+            }
+            String role = line.substring(0, comma).trim();
+            String name = unquote(line.substring(comma + 1));
+            if (role.equalsIgnoreCase("patient") || role.equalsIgnoreCase("P")) {
+                patientLines[patientNames.size()] = i;
+                patientNames.add(name);
+            } else if (role.equalsIgnoreCase("doctor") || role.equalsIgnoreCase("D")) {
+                doctorLines[doctorNames.size()] = i;
+                doctorNames.add(name);
+            } else {
+                result.reject(firstLine + i, "Unknown role: " + role, line);
+            }
+        }
+        if (!patientNames.isEmpty()) {
+            RegistrationResult registered = patientRegistration.apply(patientNames);
+            result.patients = registered.getRegisteredCount();
+            result.reject(registered, patientLines, lines, firstLine);
+        }
+        if (!doctorNames.isEmpty()) {
+            RegistrationResult registered = doctorRegistration.apply(doctorNames);
+            result.doctors = registered.getRegisteredCount();
+            result.reject(registered, doctorLines, lines, firstLine);
+        }
+        return result;
+    }
+
+    /**
+     * Removes surrounding whitespace and one pair of surrounding double quotes.
+     *
+     * @param field the raw field
+     * @return the field value
+     */
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the rejected rows of a report as CSV: line number, reason and the
+     * row as read. The row comes last, so commas in it need no quoting.
+     *
+     * @param report the import report
+     * @param file   the file to write
+     * @throws IOException if the file cannot be written
+     */
+    static void writeRejects(ImportReport report, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("line,reason,row");
+            writer.newLine();
+            for (ImportReport.Reject reject : report.getRejects()) {
+                writer.write(reject.getLine() + "," + reject.getReason() + "," + reject.getRow());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * What one chunk registered and rejected.
+     */
+    private static final class ChunkResult {
+
+        /** Number of non-blank rows in the chunk. */
+        long rows;
+
+        /** Number of patients registered. */
+        int patients;
+
+        /** Number of doctors registered. */
+        int doctors;
+
+        /** Rows of the chunk that were rejected. */
+        final List<ImportReport.Reject> rejects = new ArrayList<>();
+
+        /**
+         * Records one rejected row.
+         *
+         * @param line   the roster line number
+         * @param reason why the row was rejected
+         * @param row    the row as read
+         */
+        void reject(long line, String reason, String row) {
+            rejects.add(new ImportReport.Reject(line, reason, row));
+        }
+
+        /**
+         * Records the rows a bulk registration rejected.
+         *
+         * @param registered the result of the bulk registration
+         * @param rowLines   the chunk line of every submitted name
+         * @param lines      the lines of the chunk
+         * @param firstLine  the roster line number of the first line
+         */
+        void reject(RegistrationResult registered, int[] rowLines, String[] lines, long firstLine) {
+            for (Map.Entry<Integer, String> error : registered.getErrors().entrySet()) {
+                int i = rowLines[error.getKey()];
+                reject(firstLine + i, error.getValue(), lines[i]);
+            }
+        }
+    }
+}
\ No newline at end of file
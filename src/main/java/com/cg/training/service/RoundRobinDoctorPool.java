@@ -0,0 +1,71 @@
+package com.cg.training.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * Hands out free doctors in turn, in registration order; see
+ * {@link DoctorAssignment#ROUND_ROBIN}.
+ * <p>
+ * Free doctors are kept in a tree keyed by {@link Doctor#getKey()}, which
+ * follows registration order. A claim takes the first free doctor after the
+ * one claimed last and wraps around at the end, so busy doctors are skipped
+ * without being looked at. Offer and claim are O(log n).
+ * </p>
+ * All methods are synchronized.
+ */
+final class RoundRobinDoctorPool implements DoctorAssignmentStrategy {
+
+    /** Free doctors by key. */
+    private final TreeMap<Long, Doctor> free = new TreeMap<>();
+
+    /** Key of the doctor claimed last; the next claim starts after it. */
+    private long last = Long.MIN_VALUE;
+
+    /**
+     * Adds a doctor who has just become available.
+     *
+     * @param doctor the available doctor
+     */
+    @Override
+    public synchronized void offer(Doctor doctor) {
+        free.put(doctor.getKey(), doctor);
+    }
+
+    /**
+     * Reserves the next free doctor after the one claimed last.
+     *
+     * @param registered tells whether a doctor is still registered; removed
+     *                   doctors are dropped from the pool
+     * @return the reserved doctor, or null if no doctor is available
+     */
+    @Override
+    public synchronized Doctor claim(Predicate<Doctor> registered) {
+        while (!free.isEmpty()) {
+            Map.Entry<Long, Doctor> next = free.higherEntry(last);
+            if (next == null) {
+                next = free.firstEntry();
+            }
+            free.remove(next.getKey());
+            Doctor doctor = next.getValue();
+            if (registered.test(doctor) && doctor.tryReserve()) {
+                last = next.getKey();
+                return doctor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of doctors held, including stale ones.
+     *
+     * @return the number of entries
+     */
+    @Override
+    public synchronized int size() {
+        return free.size();
+    }
+}
\ No newline at end of file
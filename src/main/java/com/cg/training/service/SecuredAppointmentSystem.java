@@ -0,0 +1,374 @@
+package com.cg.training.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.metrics.Operation;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.security.Role;
+import com.cg.training.security.SecurityPolicy;
+
+/**
+ * This class checks the caller's role before every call to another
+ * appointment system.
+ * <p>
+ * The roles allowed per operation come from the {@link com.cg.training.annotations.Security}
+ * annotations of the wrapped system's class and of {@link AppointmentSystemDAO},
+ * resolved once per class by {@link SecurityPolicy}. A check is an array read
+ * and a bit test, so the decorator costs nanoseconds and allocates nothing
+ * unless it denies a call with a SecurityException.
+ * </p>
+ */
+public class SecuredAppointmentSystem implements AppointmentSystemDAO {
+
+    /** The system whose operations are guarded. */
+    private final AppointmentSystemDAO delegate;
+
+    /** The roles allowed per operation. */
+    private final SecurityPolicy policy;
+
+    /** The role of the caller. */
+    private final Role role;
+
+    /**
+     * Constructor to guard a system for a caller with the given role.
+     *
+     * @param delegate the system to guard
+     * @param role     the role of the caller
+     */
+    public SecuredAppointmentSystem(AppointmentSystemDAO delegate, Role role) {
+        this.delegate = delegate;
+        this.policy = SecurityPolicy.of(delegate.getClass());
+        this.role = role;
+    }
+
+    /**
+     * Returns the role of the caller.
+     *
+     * @return the role every call is checked against
+     */
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Registers a patient if the caller's role allows it.
+     *
+     * @param name the name of the patient
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void registerPatient(String name) {
+        policy.check(Operation.REGISTER_PATIENT, role);
+        delegate.registerPatient(name);
+    }
+
+    /**
+     * Registers a doctor if the caller's role allows it.
+     *
+     * @param name the name of the doctor
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void registerDoctor(String name) {
+        policy.check(Operation.REGISTER_DOCTOR, role);
+        delegate.registerDoctor(name);
+    }
+
+    /**
+     * Registers many patients if the caller's role allows it.
+     *
+     * @param names the names of the patients
+     * @return the ID assigned to each row and the error of each rejected row
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public RegistrationResult registerPatients(Collection<String> names) {
+        policy.check(Operation.REGISTER_PATIENTS, role);
+        return delegate.registerPatients(names);
+    }
+
+    /**
+     * Registers many doctors if the caller's role allows it.
+     *
+     * @param names the names of the doctors
+     * @return the ID assigned to each row and the error of each rejected row
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public RegistrationResult registerDoctors(Collection<String> names) {
+        policy.check(Operation.REGISTER_DOCTORS, role);
+        return delegate.registerDoctors(names);
+    }
+
+    /**
+     * Imports a roster if the caller's role allows it.
+     *
+     * @param fileName the path of the roster file
+     * @return the counts and rejected rows, or null if the roster could not be read
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public ImportReport importRoster(String fileName) {
+        policy.check(Operation.IMPORT_ROSTER, role);
+        return delegate.importRoster(fileName);
+    }
+
+    /**
+     * Books a walk-in appointment if the caller's role allows it.
+     *
+     * @param patient the patient to book for
+     * @return the booked appointment
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Appointment bookAppointment(Patient patient) {
+        policy.check(Operation.BOOK_APPOINTMENT, role);
+        return delegate.bookAppointment(patient);
+    }
+
+    /**
+     * Books the earliest free time slot if the caller's role allows it.
+     *
+     * @param patient   the patient to book for
+     * @param notBefore the earliest acceptable start of the appointment
+     * @return the booked appointment, or null if no doctor is registered
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public SlottedAppointment bookAppointment(Patient patient, LocalDateTime notBefore) {
+        policy.check(Operation.BOOK_TIME_SLOT, role);
+        return delegate.bookAppointment(patient, notBefore);
+    }
+
+    /**
+     * Completes an appointment if the caller's role allows it.
+     *
+     * @param index the index of the appointment
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void completeAppointment(int index) {
+        policy.check(Operation.COMPLETE_APPOINTMENT, role);
+        delegate.completeAppointment(index);
+    }
+
+    /**
+     * Completes many appointments if the caller's role allows it.
+     *
+     * @param appointmentIds the IDs of the appointments
+     * @return the number of appointments completed
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public int completeAppointments(Collection<String> appointmentIds) {
+        policy.check(Operation.COMPLETE_APPOINTMENTS, role);
+        return delegate.completeAppointments(appointmentIds);
+    }
+
+    /**
+     * Prints all doctors if the caller's role allows it.
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void showAllDoctors() {
+        policy.check(Operation.SHOW_ALL_DOCTORS, role);
+        delegate.showAllDoctors();
+    }
+
+    /**
+     * Prints all appointments if the caller's role allows it.
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void showAllAppointments() {
+        policy.check(Operation.SHOW_ALL_APPOINTMENTS, role);
+        delegate.showAllAppointments();
+    }
+
+    /**
+     * Prints a doctor's appointments if the caller's role allows it.
+     *
+     * @param doctorId the ID of the doctor
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void showAppointmentsByDoctorId(String doctorId) {
+        policy.check(Operation.SHOW_APPOINTMENTS_BY_DOCTOR, role);
+        delegate.showAppointmentsByDoctorId(doctorId);
+    }
+
+    /**
+     * Prints a patient's appointments if the caller's role allows it.
+     *
+     * @param patientId the ID of the patient
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void showAppointmentsByPatientId(String patientId) {
+        policy.check(Operation.SHOW_APPOINTMENTS_BY_PATIENT, role);
+        delegate.showAppointmentsByPatientId(patientId);
+    }
+
+    /**
+     * Returns one page of doctors if the caller's role allows it.
+     *
+     * @param offset the position of the first doctor
+     * @param limit  the largest number of doctors
+     * @return the requested page
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Page<Doctor> findDoctors(int offset, int limit) {
+        policy.check(Operation.FIND_DOCTORS, role);
+        return delegate.findDoctors(offset, limit);
+    }
+
+    /**
+     * Returns one page of appointment indexes if the caller's role allows it.
+     *
+     * @param offset the position of the first appointment
+     * @param limit  the largest number of appointments
+     * @return the requested page
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Page<Integer> findAppointments(int offset, int limit) {
+        policy.check(Operation.FIND_APPOINTMENTS, role);
+        return delegate.findAppointments(offset, limit);
+    }
+
+    /**
+     * Returns one page of a doctor's appointment indexes if the caller's role allows it.
+     *
+     * @param doctorId the ID of the doctor
+     * @param offset   the position of the first appointment
+     * @param limit    the largest number of appointments
+     * @return the requested page
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Page<Integer> findAppointmentsByDoctorId(String doctorId, int offset, int limit) {
+        policy.check(Operation.FIND_APPOINTMENTS_BY_DOCTOR, role);
+        return delegate.findAppointmentsByDoctorId(doctorId, offset, limit);
+    }
+
+    /**
+     * Returns one page of a patient's appointment indexes if the caller's role allows it.
+     *
+     * @param patientId the ID of the patient
+     * @param offset    the position of the first appointment
+     * @param limit     the largest number of appointments
+     * @return the requested page
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Page<Integer> findAppointmentsByPatientId(String patientId, int offset, int limit) {
+        policy.check(Operation.FIND_APPOINTMENTS_BY_PATIENT, role);
+        return delegate.findAppointmentsByPatientId(patientId, offset, limit);
+    }
+
+    /**
+     * Returns an appointment if the caller's role allows it.
+     *
+     * @param index the index of the appointment
+     * @return the appointment, or null if the index is out of range
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Appointment getAppointment(int index) {
+        policy.check(Operation.GET_APPOINTMENT, role);
+        return delegate.getAppointment(index);
+    }
+
+    /**
+     * Finds an appointment by ID if the caller's role allows it.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the appointment, or null if not found
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Appointment findAppointmentById(String appointmentId) {
+        policy.check(Operation.FIND_APPOINTMENT_BY_ID, role);
+        return delegate.findAppointmentById(appointmentId);
+    }
+
+    /**
+     * Finds a patient if the caller's role allows it.
+     *
+     * @param id the ID of the patient
+     * @return the patient, or null if not found
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Patient findPatientById(String id) {
+        policy.check(Operation.FIND_PATIENT_BY_ID, role);
+        return delegate.findPatientById(id);
+    }
+
+    /**
+     * Finds a doctor if the caller's role allows it.
+     *
+     * @param id the ID of the doctor
+     * @return the doctor, or null if not found
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public Doctor findDoctorById(String id) {
+        policy.check(Operation.FIND_DOCTOR_BY_ID, role);
+        return delegate.findDoctorById(id);
+    }
+
+    /**
+     * Removes a doctor if the caller's role allows it.
+     *
+     * @param doctorId the ID of the doctor
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void removeDoctor(String doctorId) {
+        policy.check(Operation.REMOVE_DOCTOR, role);
+        delegate.removeDoctor(doctorId);
+    }
+
+    /**
+     * Removes many doctors if the caller's role allows it.
+     *
+     * @param doctorIds the IDs of the doctors
+     * @return the number of doctors removed
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public int removeDoctors(Collection<String> doctorIds) {
+        policy.check(Operation.REMOVE_DOCTORS, role);
+        return delegate.removeDoctors(doctorIds);
+    }
+
+    /**
+     * Saves the unsaved changes if the caller's role allows it.
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void saveAppointmentsToFile() {
+        policy.check(Operation.SAVE_APPOINTMENTS, role);
+        delegate.saveAppointmentsToFile();
+    }
+
+    /**
+     * Clears the appointment file if the caller's role allows it.
+     * @throws SecurityException if the caller's role may not call it
+     */
+    @Override
+    public void clearAllContentsOfTheFile() {
+        policy.check(Operation.CLEAR_FILE, role);
+        delegate.clearAllContentsOfTheFile();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,842 @@
+package com.cg.training.service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.cg.training.dao.AppointmentJournal;
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.events.ConsoleRenderer;
+import com.cg.training.events.DirectEventSink;
+import com.cg.training.events.EventSink;
+import com.cg.training.events.EventType;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.models.TimeSlots;
+import com.cg.training.models.User;
+
+/**
+ * This class splits the appointment system into independent shards so that
+ * writes on different cores do not contend on the same lists and indexes.
+ * <p>
+ * Every shard is a complete {@link AppointmentSystem} with its own lists,
+ * indexes, doctor pool, calendars and journal. Patients and doctors live in
+ * the shard given by their ID number modulo the shard count; the ID numbers
+ * themselves come from one pair of counters, so IDs stay unique and
+ * consecutive registrations land on different shards. An appointment lives
+ * in its doctor's shard.
+ * </p>
+ * <p>
+ * Routing works as follows:
+ * </p>
+ * <ul>
+ * <li>Lookups by patient or doctor ID, and a doctor's appointments, go to one shard.</li>
+ * <li>A patient's appointments, the doctor list and the appointment list are
+ * gathered from all shards, in shard order.</li>
+ * <li>A walk-in booking starts at the patient's own shard and moves on to the
+ * next shard while a shard has no free doctor.</li>
+ * <li>A time-slot booking asks every shard for its earliest free slot and books
+ * in the earliest one. Under concurrent bookings it can get a slot a little
+ * later than the global earliest, never an earlier or a double-booked one.</li>
+ * </ul>
+ * <p>
+ * Appointment indexes are global: the appointment at position {@code p} of
+ * shard {@code s} has index {@code p * shards + s}, which is also the number
+ * in its appointment ID. Each shard keeps its journal
+ * in its own file, named after the given journal file with ".&lt;shard&gt;"
+ * appended, so the same shard count must be used to restore them. Snapshots
+ * are not supported in this mode. Events of all shards go to one
+ * {@link EventSink}.
+ * </p>
+ */
+public class ShardedAppointmentSystem implements AppointmentSystemDAO {
+
+    /** The shards; shard {@code n % shards.length} holds the users with ID number {@code n}. */
+    final AppointmentSystem[] shards;
+
+    /** Counter to generate unique patient IDs across all shards. */
+    final AtomicInteger patientCounter = new AtomicInteger(1000);
+
+    /** Counter to generate unique doctor IDs across all shards. */
+    final AtomicInteger doctorCounter = new AtomicInteger(1000);
+
+    /** Receives an event for the outcome of every change, shared with the shards. */
+    private volatile EventSink events = new DirectEventSink(new ConsoleRenderer());
+
+    /**
+     * A query run against one shard for one part of a page.
+     *
+     * @param <T> the row type
+     */
+    private interface ShardQuery<T> {
+
+        /**
+         * Runs the query against one shard.
+         *
+         * @param shard  the shard number
+         * @param offset the position of the first row to return within the shard
+         * @param limit  the largest number of rows to return
+         * @return the shard's page
+         */
+        Page<T> find(int shard, int offset, int limit);
+    }
+
+    /**
+     * Constructor to create a system of empty in-memory shards.
+     *
+     * @param shardCount the number of shards, usually the number of cores
+     */
+    public ShardedAppointmentSystem(int shardCount) {
+        this(shardCount, null, false);
+    }
+
+    /**
+     * Constructor that restores every shard from its own journal and then
+     * records every further change in it.
+     *
+     * @param shardCount  the number of shards; must match the one the journals were written with
+     * @param journalFile the journal file name the shard number is appended to, or null
+     * @param internNames whether equal names should share one instance within a shard
+     * @throws IllegalArgumentException if the shard count is not positive
+     */
+    public ShardedAppointmentSystem(int shardCount, String journalFile, boolean internNames) {
+        this(shardCount, journalFile, internNames, false);
+    }
+
+    /**
+     * Constructor that restores every shard like
+     * {@link #ShardedAppointmentSystem(int, String, boolean)} and can keep
+     * every shard's appointments off the heap; see
+     * {@link AppointmentSystem#AppointmentSystem(boolean, boolean)}.
+     *
+     * @param shardCount  the number of shards; must match the one the journals were written with
+     * @param journalFile the journal file name the shard number is appended to, or null
+     * @param internNames whether equal names should share one instance within a shard
+     * @param offHeap     whether appointments are kept in direct memory
+     * @throws IllegalArgumentException if the shard count is not positive
+     */
+    public ShardedAppointmentSystem(int shardCount, String journalFile, boolean internNames, boolean offHeap) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Invalid shard count: " + shardCount);
+        }
+        shards = new AppointmentSystem[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            shards[s] = new AppointmentSystem(internNames, offHeap);
+            shards[s].setEventSink(events);
+            shards[s].numberAppointments(shardCount, s);
+        }
+        if (journalFile == null) {
+            return;
+        }
+        try {
+            for (int s = 0; s < shardCount; s++) {
+                AppointmentSystem shard = shards[s];
+                shard.restore(null, new AppointmentJournal(journalFile + "." + s));
+                AppointmentSystem.advance(patientCounter, shard.patientCounter.get());
+                AppointmentSystem.advance(doctorCounter, shard.doctorCounter.get());
+            }
+            events.info("Restored " + patientCount() + " patients, " + doctorCount()
+                    + " doctors and " + appointmentCount() + " appointments in " + shardCount + " shards.");
+        } catch (IOException e) {
+            // Shards that did restore must not record changes the others cannot match.
+            for (AppointmentSystem shard : shards) {
+                shard.detachJournal();
+            }
+            events.error("Error: " + e.getMessage() + " Changes will not be saved.");
+        }
+    }
+
+    /**
+     * Registers a new patient with a unique ID in the patient's shard.
+     *
+     * @param name the name of the patient
+     */
+    @Override
+    public void registerPatient(String name) {
+        try {
+            int number = patientCounter.getAndIncrement();
+            String id = shard(number).storePatient(number, name);
+            events.publish(EventType.PATIENT_REGISTERED, id, 0);
+        } catch (IllegalArgumentException e) {
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers a new doctor with a unique ID in the doctor's shard.
+     *
+     * @param name the name of the doctor
+     */
+    @Override
+    public void registerDoctor(String name) {
+        try {
+            int number = doctorCounter.getAndIncrement();
+            AppointmentSystem shard = shard(number);
+            Doctor doctor = shard.createDoctor(number, name);
+            shard.addDoctor(doctor);
+            events.publish(EventType.DOCTOR_REGISTERED, doctor.getId(), 0);
+        } catch (IllegalArgumentException e) {
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers many patients in one pass, reserving the whole ID range with
+     * a single atomic step. Only a summary line is printed.
+     *
+     * @param names the names of the patients
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    @Override
+    public RegistrationResult registerPatients(Collection<String> names) {
+        RegistrationResult result = addPatients(names);
+        events.publish(EventType.PATIENTS_REGISTERED, null, result.getRegisteredCount(),
+                result.getRejectedCount(), null);
+        return result;
+    }
+
+    /**
+     * Registers many patients without printing anything.
+     *
+     * @param names the names of the patients
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    RegistrationResult addPatients(Collection<String> names) {
+        RegistrationResult result = new RegistrationResult(names.size());
+        int next = patientCounter.getAndAdd(names.size());
+        int row = 0;
+        for (String name : names) {
+            int number = next++;
+            try {
+                result.registered(row, shard(number).storePatient(number, AppointmentSystem.requireName(name)));
+            } catch (IllegalArgumentException e) {
+                result.rejected(row, e.getMessage());
+            }
+            row++;
+        }
+        return result;
+    }
+
+    /**
+     * Registers many doctors in one pass, reserving the whole ID range with a
+     * single atomic step and extending each shard's doctor list once.
+     * Only a summary line is printed.
+     *
+     * @param names the names of the doctors
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    @Override
+    public RegistrationResult registerDoctors(Collection<String> names) {
+        RegistrationResult result = addDoctors(names);
+        events.publish(EventType.DOCTORS_REGISTERED, null, result.getRegisteredCount(),
+                result.getRejectedCount(), null);
+        return result;
+    }
+
+    /**
+     * Registers many doctors without printing anything.
+     *
+     * @param names the names of the doctors
+     * @return the ID of each registered row and the error of each rejected row
+     */
+    RegistrationResult addDoctors(Collection<String> names) {
+        RegistrationResult result = new RegistrationResult(names.size());
+        List<List<Doctor>> batches = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            batches.add(new ArrayList<Doctor>());
+        }
+        int next = doctorCounter.getAndAdd(names.size());
+        int row = 0;
+        for (String name : names) {
+            int number = next++;
+            try {
+                Doctor doctor = shard(number).createDoctor(number, AppointmentSystem.requireName(name));
+                batches.get(shardIndex(number)).add(doctor);
+                result.registered(row, doctor.getId());
+            } catch (IllegalArgumentException e) {
+                result.rejected(row, e.getMessage());
+            }
+            row++;
+        }
+        for (int s = 0; s < shards.length; s++) {
+            shards[s].storeDoctors(batches.get(s));
+        }
+        return result;
+    }
+
+    /**
+     * Imports patients and doctors from a CSV roster, one worker per processor.
+     * Rejected rows are written to a file named after the roster with
+     * ".rejects.csv" appended. Only a summary is printed.
+     *
+     * @param fileName the path of the roster file
+     * @return the counts and rejected rows, or null if the roster could not be read
+     */
+    @Override
+    public ImportReport importRoster(String fileName) {
+        try {
+            return new RosterImporter(this::addPatients, this::addDoctors,
+                    Runtime.getRuntime().availableProcessors()).importAndReport(fileName, events);
+        } catch (IOException e) {
+            events.error("Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Books an appointment with a free doctor, trying the patient's own shard
+     * first and then the following shards in turn.
+     *
+     * @param patient the patient who wants to book the appointment
+     * @return the booked Appointment object, or null if no doctor is available
+     */
+    @Override
+    public Appointment bookAppointment(Patient patient) {
+        int home = patient == null ? 0 : shardIndex(patient.getIdNumber());
+        for (int i = 0; i < shards.length; i++) {
+            Appointment appointment = shards[(home + i) % shards.length].bookAppointment(patient);
+            if (appointment != null) {
+                return appointment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Books an appointment in the earliest free time slot of any doctor,
+     * starting no earlier than the given time.
+     *
+     * @param patient   the patient who wants to book the appointment
+     * @param notBefore the earliest acceptable start of the appointment
+     * @return the booked appointment, or null if no doctor is registered
+     */
+    @Override
+    public SlottedAppointment bookAppointment(Patient patient, LocalDateTime notBefore) {
+        try {
+            int from = TimeSlots.firstSlotAtOrAfter(notBefore);
+            int best = -1;
+            int bestSlot = Integer.MAX_VALUE;
+            for (int s = 0; s < shards.length; s++) {
+                int slot = shards[s].scheduler.peekEarliest(from);
+                if (slot < bestSlot) {
+                    best = s;
+                    bestSlot = slot;
+                }
+            }
+            if (best < 0) {
+                events.error("Error: No doctors registered.");
+                return null;
+            }
+            return shards[best].bookAppointment(patient, notBefore);
+        } catch (Exception e) {
+            events.error("Error: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Marks an appointment as completed using its global index.
+     *
+     * @param index the index of the appointment to complete
+     */
+    @Override
+    public void completeAppointment(int index) {
+        if (index < 0) {
+            events.error("Invalid appointment index.");
+            return;
+        }
+        shards[index % shards.length].completeAppointment(index / shards.length);
+    }
+
+    /**
+     * Completes many appointments, each in the shard its ID number points to.
+     * Only a summary is printed.
+     *
+     * @param appointmentIds the IDs of the appointments to complete
+     * @return the number of appointments completed
+     */
+    @Override
+    public int completeAppointments(Collection<String> appointmentIds) {
+        List<List<String>> batches = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            batches.add(new ArrayList<String>());
+        }
+        for (String appointmentId : appointmentIds) {
+            long key = User.parseKey(appointmentId);
+            if (key >= 0) {
+                batches.get((int) key % shards.length).add(appointmentId);
+            }
+        }
+        int completed = 0;
+        for (int s = 0; s < shards.length; s++) {
+            if (!batches.get(s).isEmpty()) {
+                completed += shards[s].completeQuietly(batches.get(s));
+            }
+        }
+        events.publish(EventType.APPOINTMENTS_COMPLETED, null, completed, appointmentIds.size() - completed, null);
+        return completed;
+    }
+
+    /**
+     * Displays the profiles of all registered doctors, shard by shard.
+     */
+    @Override
+    public void showAllDoctors() {
+        if (doctorCount() == 0) {
+            System.out.println("No registered doctors");
+            return;
+        }
+        System.out.println(".....All Doctors.....");
+        for (AppointmentSystem shard : shards) {
+            for (Doctor d : shard.doctors) {
+                d.showProfile();
+            }
+        }
+    }
+
+    /**
+     * Displays details of all appointments, shard by shard.
+     */
+    @Override
+    public void showAllAppointments() {
+        StringBuilder lines = new StringBuilder(AppointmentSystem.PRINT_CHUNK);
+        for (int s = 0; s < shards.length; s++) {
+            List<Appointment> appointments = shards[s].appointments;
+            for (int i = 0; i < appointments.size(); i++) {
+                AppointmentSystem.appendLine(lines, "", globalIndex(s, i), appointments.get(i));
+            }
+        }
+        System.out.print(lines);
+    }
+
+    /**
+     * Displays all appointments for a given doctor ID.
+     *
+     * @param doctorId the ID of the doctor
+     */
+    @Override
+    public void showAppointmentsByDoctorId(String doctorId) {
+        long key = User.parseKey(doctorId);
+        int s = key < 0 ? 0 : shardIndex((int) key);
+        if (!printAppointments(s, shards[s].appointmentsByDoctorId.get(key))) {
+            System.out.println("No appointments found for Doctor ID: " + doctorId);
+        }
+    }
+
+    /**
+     * Displays all appointments for a given patient ID, gathered from every shard.
+     *
+     * @param patientId the ID of the patient
+     */
+    @Override
+    public void showAppointmentsByPatientId(String patientId) {
+        long key = User.parseKey(patientId);
+        boolean found = false;
+        for (int s = 0; s < shards.length; s++) {
+            found |= printAppointments(s, shards[s].appointmentsByPatientId.get(key));
+        }
+        if (!found) {
+            System.out.println("No appointments found for Patient ID: " + patientId);
+        }
+    }
+
+    /**
+     * Prints the appointments of one shard at the given positions, one per line.
+     *
+     * @param s         the shard number
+     * @param positions the positions in the shard's appointment list, or null
+     * @return true if there was a list of positions to print
+     */
+    private boolean printAppointments(int s, ConcurrentIntList positions) {
+        if (positions == null) {
+            return false;
+        }
+        List<Appointment> appointments = shards[s].appointments;
+        StringBuilder lines = new StringBuilder(AppointmentSystem.PRINT_CHUNK);
+        int count = positions.size();
+        for (int n = 0; n < count; n++) {
+            int i = positions.getInt(n);
+            AppointmentSystem.appendLine(lines, "Appointment Index: ", globalIndex(s, i), appointments.get(i));
+        }
+        System.out.print(lines);
+        return true;
+    }
+
+    /**
+     * Returns one page of the registered doctors, in shard order.
+     *
+     * @param offset the position of the first doctor to return
+     * @param limit  the largest number of doctors to return
+     * @return the requested page of doctors
+     */
+    @Override
+    public Page<Doctor> findDoctors(int offset, int limit) {
+        return gather(offset, limit, (s, o, l) -> shards[s].findDoctors(o, l));
+    }
+
+    /**
+     * Returns one page of all appointment indexes, in shard order.
+     *
+     * @param offset the position of the first appointment to return
+     * @param limit  the largest number of appointments to return
+     * @return the requested page of appointment indexes
+     */
+    @Override
+    public Page<Integer> findAppointments(int offset, int limit) {
+        return gather(offset, limit, (s, o, l) -> globalIndexes(s, shards[s].findAppointments(o, l)));
+    }
+
+    /**
+     * Returns one page of the appointment indexes of a doctor, from the doctor's shard.
+     *
+     * @param doctorId the ID of the doctor
+     * @param offset   the position of the first appointment to return
+     * @param limit    the largest number of appointments to return
+     * @return the requested page, empty if the doctor has no appointments
+     */
+    @Override
+    public Page<Integer> findAppointmentsByDoctorId(String doctorId, int offset, int limit) {
+        long key = User.parseKey(doctorId);
+        int s = key < 0 ? 0 : shardIndex((int) key);
+        return globalIndexes(s, shards[s].findAppointmentsByDoctorId(doctorId, offset, limit));
+    }
+
+    /**
+     * Returns one page of the appointment indexes of a patient, gathered from every shard.
+     *
+     * @param patientId the ID of the patient
+     * @param offset    the position of the first appointment to return
+     * @param limit     the largest number of appointments to return
+     * @return the requested page, empty if the patient has no appointments
+     */
+    @Override
+    public Page<Integer> findAppointmentsByPatientId(String patientId, int offset, int limit) {
+        return gather(offset, limit,
+                (s, o, l) -> globalIndexes(s, shards[s].findAppointmentsByPatientId(patientId, o, l)));
+    }
+
+    /**
+     * Returns the appointment at the given global index.
+     *
+     * @param index the index of the appointment
+     * @return the appointment, or null if the index is out of range
+     */
+    @Override
+    public Appointment getAppointment(int index) {
+        if (index < 0) {
+            return null;
+        }
+        return shards[index % shards.length].getAppointment(index / shards.length);
+    }
+
+    /**
+     * Finds an appointment by its ID in the shard its ID number points to.
+     *
+     * @param appointmentId the ID of the appointment
+     * @return the appointment, or null if not found
+     */
+    @Override
+    public Appointment findAppointmentById(String appointmentId) {
+        long key = User.parseKey(appointmentId);
+        return key < 0 ? null : shards[(int) key % shards.length].findAppointmentById(appointmentId);
+    }
+
+    /**
+     * Finds and returns a patient by their ID.
+     *
+     * @param id the ID of the patient to find
+     * @return the Patient object if found, otherwise null
+     */
+    @Override
+    public Patient findPatientById(String id) {
+        AppointmentSystem shard = shardOf(id);
+        return shard == null ? null : shard.findPatientById(id);
+    }
+
+    /**
+     * Finds and returns a doctor by their ID.
+     *
+     * @param id the ID of the doctor to find
+     * @return the Doctor object if found, otherwise null
+     */
+    @Override
+    public Doctor findDoctorById(String id) {
+        AppointmentSystem shard = shardOf(id);
+        return shard == null ? null : shard.findDoctorById(id);
+    }
+
+    /**
+     * Removes a registered doctor by ID from the doctor's shard.
+     *
+     * @param doctorId the ID of the doctor to remove
+     */
+    @Override
+    public void removeDoctor(String doctorId) {
+        AppointmentSystem shard = shardOf(doctorId);
+        if (shard == null || shard.findDoctorById(doctorId) == null) {
+            events.error(doctorCount() == 0 ? "No doctor in the list" : "Doctor ID not found.");
+            return;
+        }
+        shard.removeDoctor(doctorId);
+    }
+
+    /**
+     * Removes many doctors, one batch per shard. Each doctor's appointments
+     * live in the doctor's shard, so the cancellations stay in that shard.
+     *
+     * @param doctorIds the IDs of the doctors to remove; unknown IDs are skipped
+     * @return the number of doctors removed
+     */
+    @Override
+    public int removeDoctors(Collection<String> doctorIds) {
+        List<List<String>> batches = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            batches.add(new ArrayList<String>());
+        }
+        for (String doctorId : doctorIds) {
+            long key = User.parseKey(doctorId);
+            if (key >= 0) {
+                batches.get(shardIndex((int) key)).add(doctorId);
+            }
+        }
+        int removed = 0;
+        int cancelled = 0;
+        for (int s = 0; s < shards.length; s++) {
+            if (batches.get(s).isEmpty()) {
+                continue;
+            }
+            for (Doctor doctor : shards[s].unregisterDoctors(batches.get(s))) {
+                cancelled += shards[s].retire(doctor);
+                removed++;
+            }
+        }
+        events.publish(EventType.DOCTORS_REMOVED, null, removed, cancelled, null);
+        return removed;
+    }
+
+    /**
+     * Writes every change not yet saved to the journal of every shard. Like
+     * {@link AppointmentSystem#saveAppointmentsToFile()} this commits each
+     * journal, so write-behind journals return at once.
+     */
+    @Override
+    public void saveAppointmentsToFile() {
+        if (shards[0].getJournal() == null) {
+            events.error("Error: No appointment file configured.");
+            return;
+        }
+        try {
+            for (AppointmentSystem shard : shards) {
+                shard.getJournal().commit();
+            }
+            events.publish(EventType.JOURNAL_SAVED, null, 0);
+        } catch (Exception e) {
+            events.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Clears the contents of the journal of every shard.
+     */
+    @Override
+    public void clearAllContentsOfTheFile() {
+        if (shards[0].getJournal() == null) {
+            events.error("Error: No appointment file configured.");
+            return;
+        }
+        try {
+            for (AppointmentSystem shard : shards) {
+                shard.getJournal().clear();
+            }
+            events.publish(EventType.JOURNAL_CLEARED, null, 0);
+        } catch (IOException e) {
+            events.error("An error occurred while clearing the file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets where the outcome of every change is reported, for this system
+     * and all of its shards.
+     *
+     * @param events the event sink, never null
+     */
+    public void setEventSink(EventSink events) {
+        this.events = events;
+        for (AppointmentSystem shard : shards) {
+            shard.setEventSink(events);
+        }
+    }
+
+    /**
+     * Changes how walk-in appointments are assigned to free doctors in every
+     * shard; see {@link AppointmentSystem#setDoctorAssignment(DoctorAssignment)}.
+     * Each shard balances its own doctors.
+     *
+     * @param assignment the assignment strategy
+     */
+    public void setDoctorAssignment(DoctorAssignment assignment) {
+        for (AppointmentSystem shard : shards) {
+            shard.setDoctorAssignment(assignment);
+        }
+    }
+
+    /**
+     * Moves ended appointments of every shard out of the heap, into
+     * compressed segment files; see {@link AppointmentSystem#archiveTo(String)}.
+     * Each shard writes to its own subdirectory.
+     *
+     * @param directory the directory holding the shard directories
+     */
+    public void archiveTo(String directory) {
+        for (int s = 0; s < shards.length; s++) {
+            shards[s].archiveTo(Paths.get(directory, "shard-" + s).toString());
+        }
+    }
+
+    /**
+     * Collects one page from the shards in order, skipping whole shards while
+     * the offset lies beyond them. Every shard is asked once, so the total
+     * counts the rows of all shards.
+     *
+     * @param offset the position of the first row to return
+     * @param limit  the largest number of rows to return
+     * @param query  the query to run against each shard
+     * @return the requested page
+     */
+    private <T> Page<T> gather(int offset, int limit, ShardQuery<T> query) {
+        AppointmentSystem.checkPage(offset, limit);
+        List<T> items = new ArrayList<>(Math.min(limit, 64));
+        int skip = offset;
+        int total = 0;
+        for (int s = 0; s < shards.length; s++) {
+            int wanted = limit - items.size();
+            // Once the page is full, only the shard's total is needed.
+            Page<T> part = query.find(s, wanted > 0 ? skip : Integer.MAX_VALUE, Math.max(wanted, 1));
+            if (wanted > 0) {
+                items.addAll(part.getItems());
+            }
+            total += part.getTotal();
+            skip = Math.max(0, skip - part.getTotal());
+        }
+        return new Page<>(items, offset, total);
+    }
+
+    /**
+     * Turns a page of shard positions into a page of global indexes.
+     *
+     * @param s    the shard number
+     * @param page the page of positions in the shard's appointment list
+     * @return the same page with global indexes
+     */
+    private Page<Integer> globalIndexes(int s, Page<Integer> page) {
+        List<Integer> indexes = new ArrayList<>(page.getItems().size());
+        for (int position : page.getItems()) {
+            indexes.add(globalIndex(s, position));
+        }
+        return new Page<>(indexes, page.getOffset(), page.getTotal());
+    }
+
+    /**
+     * Returns the global index of an appointment.
+     *
+     * @param s        the shard number
+     * @param position the position in the shard's appointment list
+     * @return the global appointment index
+     */
+    int globalIndex(int s, int position) {
+        return position * shards.length + s;
+    }
+
+    /**
+     * Returns the number of the shard holding the user with a given ID number.
+     *
+     * @param number the ID number
+     * @return the shard number
+     */
+    int shardIndex(int number) {
+        return Math.floorMod(number, shards.length);
+    }
+
+    /**
+     * Returns the shard holding the user with a given ID number.
+     *
+     * @param number the ID number
+     * @return the shard
+     */
+    private AppointmentSystem shard(int number) {
+        return shards[shardIndex(number)];
+    }
+
+    /**
+     * Returns the shard holding the user with a given ID.
+     *
+     * @param id the ID of a patient or doctor
+     * @return the shard, or null if the ID is not valid
+     */
+    private AppointmentSystem shardOf(String id) {
+        long key = User.parseKey(id);
+        return key < 0 ? null : shard((int) key);
+    }
+
+    /**
+     * Returns the number of registered patients in all shards.
+     *
+     * @return the patient count
+     */
+    public int patientCount() {
+        int count = 0;
+        for (AppointmentSystem shard : shards) {
+            count += shard.patients.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of registered doctors in all shards.
+     *
+     * @return the doctor count
+     */
+    public int doctorCount() {
+        int count = 0;
+        for (AppointmentSystem shard : shards) {
+            count += shard.doctors.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of appointments in all shards.
+     *
+     * @return the appointment count
+     */
+    public int appointmentCount() {
+        int count = 0;
+        for (AppointmentSystem shard : shards) {
+            count += shard.appointments.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of doctors in all shards who are free for a walk-in
+     * appointment.
+     *
+     * @return the available doctor count
+     */
+    public int availableDoctorCount() {
+        int count = 0;
+        for (AppointmentSystem shard : shards) {
+            count += shard.availableDoctorCount();
+        }
+        return count;
+    }
+}
\ No newline at end of file
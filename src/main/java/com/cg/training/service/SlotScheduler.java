@@ -0,0 +1,307 @@
+package com.cg.training.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+import com.cg.training.models.Doctor;
+import com.cg.training.models.TimeSlots;
+
+/**
+ * SlotScheduler finds the earliest free time slot across all doctors.
+ * <p>
+ * Every doctor has a {@link DoctorCalendar} and a leaf in a min segment tree
+ * that holds the doctor's first free slot. The root therefore holds the
+ * earliest free slot of the whole clinic, and booking it costs one walk down
+ * the tree plus one walk back up to store the doctor's next free slot:
+ * O(log doctors), independent of how far ahead the calendars are filled.
+ * </p>
+ * <p>
+ * Slots that have already started cannot be booked. The first slot that has
+ * not is kept as the floor, read from the clock on every search; a leaf that
+ * still points before the floor is recomputed when it reaches the root, and
+ * its calendar forgets the blocks that lie wholly in the past.
+ * </p>
+ * <p>
+ * A search that starts later than the root's slot cannot use the root, since
+ * a doctor's first free slot says nothing about the doctor's first free slot
+ * after a later time. It walks the tree depth first instead, skipping every
+ * subtree whose minimum, or the start of the search if that is later, is no
+ * earlier than the best slot found so far. When the calendars are empty at
+ * the start of the search, the first doctor already has it free and every
+ * other subtree is skipped. Ties go to the doctor who registered first. All
+ * methods are synchronized; a search takes microseconds even with thousands
+ * of doctors.
+ * </p>
+ */
+final class SlotScheduler {
+
+    /** Tree value of a leaf without a doctor. */
+    private static final int NONE = Integer.MAX_VALUE;
+
+    /** Doctor of every leaf, or null once removed. */
+    private Doctor[] doctors = new Doctor[8];
+
+    /** Calendar of every leaf. */
+    private DoctorCalendar[] calendars = new DoctorCalendar[8];
+
+    /** Min tree: node i has children 2i and 2i+1, leaf j is at capacity + j. */
+    private int[] tree = newTree(8);
+
+    /** Number of leaves handed out. */
+    private int count;
+
+    /** Leaf of every scheduled doctor. */
+    private final Map<Doctor, Integer> leaves = new IdentityHashMap<>();
+
+    /** Returns the first slot that has not started yet. */
+    private final IntSupplier clock;
+
+    /** First slot that had not started at the last search; earlier slots are in the past. */
+    private int floor;
+
+    /** Slot found by the last call of {@link #earliestLeaf(int)}. */
+    private int found;
+
+    /**
+     * Creates a scheduler that reads the time from the system clock.
+     */
+    SlotScheduler() {
+        this(() -> TimeSlots.firstSlotAtOrAfter(LocalDateTime.now()));
+    }
+
+    /**
+     * Creates a scheduler that reads the time from the given clock.
+     *
+     * @param clock returns the first slot that has not started yet
+     */
+    SlotScheduler(IntSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * The doctor and slot of a booking.
+     */
+    static final class Claim {
+
+        /** The doctor whose calendar was booked. */
+        final Doctor doctor;
+
+        /** The booked slot. */
+        final int slot;
+
+        /**
+         * Creates a claim.
+         *
+         * @param doctor the doctor
+         * @param slot   the slot
+         */
+        Claim(Doctor doctor, int slot) {
+            this.doctor = doctor;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Adds a doctor with an empty calendar.
+     *
+     * @param doctor the doctor to schedule
+     */
+    synchronized void add(Doctor doctor) {
+        if (leaves.containsKey(doctor)) {
+            return;
+        }
+        if (count == doctors.length) {
+            grow();
+        }
+        int leaf = count++;
+        doctors[leaf] = doctor;
+        calendars[leaf] = new DoctorCalendar();
+        leaves.put(doctor, leaf);
+        update(leaf, floor);
+    }
+
+    /**
+     * Stops offering a doctor's slots.
+     *
+     * @param doctor the doctor to remove
+     */
+    synchronized void remove(Doctor doctor) {
+        Integer leaf = leaves.remove(doctor);
+        if (leaf != null) {
+            doctors[leaf] = null;
+            calendars[leaf] = null;
+            update(leaf, NONE);
+        }
+    }
+
+    /**
+     * Books the earliest free slot at or after the given one, across all
+     * doctors. Slots that have already started are never booked.
+     *
+     * @param from the earliest acceptable slot
+     * @return the doctor and slot booked, or null if no doctor is scheduled
+     */
+    synchronized Claim claimEarliest(int from) {
+        int leaf = earliestLeaf(from);
+        if (leaf < 0) {
+            return null;
+        }
+        DoctorCalendar calendar = calendars[leaf];
+        int slot = found;
+        calendar.book(slot);
+        if (tree[doctors.length + leaf] == slot) {
+            update(leaf, calendar.nextFree(slot + 1));
+        }
+        return new Claim(doctors[leaf], slot);
+    }
+
+    /**
+     * Returns the earliest free slot at or after the given one, across all
+     * doctors, without booking it.
+     *
+     * @param from the earliest acceptable slot
+     * @return the slot, or {@link Integer#MAX_VALUE} if no doctor is scheduled
+     */
+    synchronized int peekEarliest(int from) {
+        return earliestLeaf(from) < 0 ? NONE : found;
+    }
+
+    /**
+     * Finds the leaf holding the earliest free slot at or after the given
+     * one, or after the floor if that is later, and stores the slot in
+     * {@link #found}. The floor is moved up to the clock first, and leaves
+     * that reach the root while still pointing before it are recomputed.
+     *
+     * @param from the earliest acceptable slot
+     * @return the leaf number, or -1 if no doctor is scheduled
+     */
+    private int earliestLeaf(int from) {
+        floor = Math.max(floor, clock.getAsInt());
+        int capacity = doctors.length;
+        while (tree[1] < floor) {
+            int node = 1;
+            while (node < capacity) {
+                node = tree[2 * node] <= tree[2 * node + 1] ? 2 * node : 2 * node + 1;
+            }
+            int leaf = node - capacity;
+            DoctorCalendar calendar = calendars[leaf];
+            calendar.forgetBefore(floor);
+            update(leaf, calendar.nextFree(floor));
+        }
+        if (tree[1] == NONE) {
+            return -1;
+        }
+        int start = Math.max(from, floor);
+        if (tree[1] >= start) {
+            int node = 1;
+            while (node < capacity) {
+                node = tree[2 * node] <= tree[2 * node + 1] ? 2 * node : 2 * node + 1;
+            }
+            found = tree[node];
+            return node - capacity;
+        }
+        found = NONE;
+        return search(1, start, -1);
+    }
+
+    /**
+     * Finds the earliest free slot at or after a start below a node, leftmost
+     * leaf first, skipping subtrees that cannot beat {@link #found}.
+     *
+     * @param node  the node to search below
+     * @param start the earliest acceptable slot
+     * @param best  the leaf of {@link #found}, or -1 if nothing is found yet
+     * @return the leaf of {@link #found} after the search
+     */
+    private int search(int node, int start, int best) {
+        if (Math.max(start, tree[node]) >= found) {
+            return best;
+        }
+        int capacity = doctors.length;
+        if (node >= capacity) {
+            int slot = calendars[node - capacity].nextFree(start);
+            if (slot >= found) {
+                return best;
+            }
+            found = slot;
+            return node - capacity;
+        }
+        best = search(2 * node, start, best);
+        return search(2 * node + 1, start, best);
+    }
+
+    /**
+     * Books a given slot of a given doctor, as when restoring saved appointments.
+     *
+     * @param doctor the doctor
+     * @param slot   the slot
+     * @return true if the slot was free, false if it was taken or the doctor is not scheduled
+     */
+    synchronized boolean reserve(Doctor doctor, int slot) {
+        Integer leaf = leaves.get(doctor);
+        if (leaf == null || !calendars[leaf].book(slot)) {
+            return false;
+        }
+        if (tree[doctors.length + leaf] == slot) {
+            update(leaf, calendars[leaf].nextFree(slot + 1));
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether a doctor's slot is booked.
+     *
+     * @param doctor the doctor
+     * @param slot   the slot
+     * @return true if the doctor is scheduled and the slot is booked
+     */
+    synchronized boolean isBooked(Doctor doctor, int slot) {
+        Integer leaf = leaves.get(doctor);
+        return leaf != null && calendars[leaf].isBooked(slot);
+    }
+
+    /**
+     * Stores a leaf value and recomputes the minimum of every node above it.
+     *
+     * @param leaf  the leaf number
+     * @param value the doctor's first free slot, or {@link #NONE}
+     */
+    private void update(int leaf, int value) {
+        int node = doctors.length + leaf;
+        tree[node] = value;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            tree[node] = Math.min(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Doubles the number of leaves and rebuilds the tree.
+     */
+    private void grow() {
+        int oldCapacity = doctors.length;
+        int capacity = oldCapacity * 2;
+        int[] grown = newTree(capacity);
+        System.arraycopy(tree, oldCapacity, grown, capacity, oldCapacity);
+        for (int node = capacity - 1; node >= 1; node--) {
+            grown[node] = Math.min(grown[2 * node], grown[2 * node + 1]);
+        }
+        doctors = Arrays.copyOf(doctors, capacity);
+        calendars = Arrays.copyOf(calendars, capacity);
+        tree = grown;
+    }
+
+    /**
+     * Creates a tree for the given number of leaves with every node empty.
+     *
+     * @param capacity the number of leaves, a power of two
+     * @return the tree array
+     */
+    private static int[] newTree(int capacity) {
+        int[] tree = new int[2 * capacity];
+        Arrays.fill(tree, NONE);
+        return tree;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,426 @@
+package com.cg.training.service;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A thread-safe list of distinct elements that removes an element by marking
+ * its slot as a tombstone instead of shifting the elements behind it.
+ * <p>
+ * Each element's slot is kept in a hash map, so finding the element to
+ * remove costs O(1). A Fenwick tree counts the live slots, so reading the
+ * element at a position and removing one both cost O(log n). Once more than
+ * half of the slots are tombstones the live elements are packed into a new
+ * array. That copy is paid for by the removals that caused it, so removing
+ * any number of elements costs amortized O(log n) each, and
+ * {@link #removeAll(Collection)} packs the array at most once per batch.
+ * </p>
+ * <p>
+ * Changes and positional reads take the list's lock. Iterators take the lock
+ * only to find their start and then read without it. They see every element
+ * added before they were created. An element removed while an iterator runs
+ * may or may not be returned. Like the iterators of CopyOnWriteArrayList,
+ * they do not support changes.
+ * </p>
+ *
+ * @param <E> the element type
+ */
+final class TombstoneList<E> extends AbstractList<E> {
+
+    /** Number of slots allocated with an empty list. */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** The slots; null marks a tombstone or an unused slot. A new array replaces this one when it grows or is packed. */
+    private volatile Object[] slots = new Object[INITIAL_CAPACITY];
+
+    /** Number of slots in use, live or tombstone. */
+    private volatile int end;
+
+    /** Number of live elements. */
+    private volatile int live;
+
+    /** Fenwick tree over the slots: {@code tree[i]} counts the live slots in {@code (i - lowbit(i), i]}. */
+    private int[] tree = new int[INITIAL_CAPACITY + 1];
+
+    /** Slot of every live element. */
+    private final Map<Object, Integer> positions = new HashMap<>();
+
+    /**
+     * Appends an element.
+     *
+     * @param element the element to add, never null
+     * @return true if it was added, false if it is already in the list
+     */
+    @Override
+    public synchronized boolean add(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        if (positions.containsKey(element)) {
+            return false;
+        }
+        if (end == slots.length) {
+            rebuild(live * 2 < end ? end : end * 2);
+        }
+        int slot = end;
+        slots[slot] = element;
+        positions.put(element, slot);
+        count(slot, 1);
+        live++;
+        end = slot + 1;
+        return true;
+    }
+
+    /**
+     * Appends every given element under one lock, so readers see either none
+     * or all of them.
+     *
+     * @param elements the elements to add, never null
+     * @return true if any element was added
+     */
+    @Override
+    public synchronized boolean addAll(Collection<? extends E> elements) {
+        boolean changed = false;
+        for (E element : elements) {
+            changed |= add(element);
+        }
+        return changed;
+    }
+
+    /**
+     * Removes an element by turning its slot into a tombstone.
+     *
+     * @param element the element to remove
+     * @return true if the element was in the list
+     */
+    @Override
+    public synchronized boolean remove(Object element) {
+        if (!bury(element)) {
+            return false;
+        }
+        packIfSparse();
+        return true;
+    }
+
+    /**
+     * Removes every given element, packing the slots at most once.
+     *
+     * @param elements the elements to remove
+     * @return true if any element was removed
+     */
+    @Override
+    public synchronized boolean removeAll(Collection<?> elements) {
+        boolean changed = false;
+        for (Object element : elements) {
+            changed |= bury(element);
+        }
+        if (changed) {
+            packIfSparse();
+        }
+        return changed;
+    }
+
+    /**
+     * Tells whether an element is in the list, in O(1).
+     *
+     * @param element the element to look for
+     * @return true if the element is live
+     */
+    @Override
+    public synchronized boolean contains(Object element) {
+        return positions.containsKey(element);
+    }
+
+    /**
+     * Returns the element at a position, counting live elements only.
+     *
+     * @param index the position
+     * @return the element
+     * @throws IndexOutOfBoundsException if the position is not below {@link #size()}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized E get(int index) {
+        if (index < 0 || index >= live) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + live);
+        }
+        return (E) slots[slotOf(index)];
+    }
+
+    /**
+     * Returns the number of live elements.
+     *
+     * @return the size of the list
+     */
+    @Override
+    public int size() {
+        return live;
+    }
+
+    /**
+     * Returns an iterator over the live elements.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return listIterator(0);
+    }
+
+    /**
+     * Returns an iterator over the live elements, starting at a position.
+     * Finding the start costs O(log n); every further step skips tombstones.
+     *
+     * @param index the position of the first element returned by {@link ListIterator#next()}
+     * @return the iterator
+     * @throws IndexOutOfBoundsException if the position is above {@link #size()}
+     */
+    @Override
+    public synchronized ListIterator<E> listIterator(int index) {
+        if (index < 0 || index > live) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + live);
+        }
+        return new Cursor(slots, end, index == live ? end : slotOf(index), index);
+    }
+
+    /**
+     * Turns the slot of an element into a tombstone.
+     *
+     * @param element the element to remove
+     * @return true if the element was live
+     */
+    private boolean bury(Object element) {
+        Integer slot = positions.remove(element);
+        if (slot == null) {
+            return false;
+        }
+        slots[slot] = null;
+        count(slot, -1);
+        live--;
+        return true;
+    }
+
+    /**
+     * Packs the live elements once tombstones fill more than half of the slots.
+     */
+    private void packIfSparse() {
+        if (end > INITIAL_CAPACITY && live * 2 < end) {
+            rebuild(Math.max(INITIAL_CAPACITY, slots.length / 2));
+        }
+    }
+
+    /**
+     * Copies the live elements to the front of a new slot array, dropping the
+     * tombstones, and rebuilds the slot map and the tree in O(n).
+     *
+     * @param capacity the length of the new array; at least the number of live elements
+     */
+    private void rebuild(int capacity) {
+        Object[] packed = new Object[capacity];
+        int[] counts = new int[capacity + 1];
+        int n = 0;
+        for (int slot = 0; slot < end; slot++) {
+            Object element = slots[slot];
+            if (element != null) {
+                packed[n] = element;
+                positions.put(element, n);
+                counts[++n] = 1;
+            }
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                counts[parent] += counts[i];
+            }
+        }
+        tree = counts;
+        end = n;
+        slots = packed;
+    }
+
+    /**
+     * Adds a delta to the live count of a slot.
+     *
+     * @param slot  the slot
+     * @param delta 1 for a new element, -1 for a tombstone
+     */
+    private void count(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Finds the slot of the live element at a position by descending the tree.
+     *
+     * @param index the position, below {@link #live}
+     * @return the slot
+     */
+    private int slotOf(int index) {
+        if (live == end) {
+            return index; // no tombstones
+        }
+        int node = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            int next = node + step;
+            if (next < tree.length && tree[next] <= remaining) {
+                node = next;
+                remaining -= tree[next];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * A read-only iterator over one slot array that skips tombstones.
+     */
+    private final class Cursor implements ListIterator<E> {
+
+        /** The slot array the iterator was created on. */
+        private final Object[] elements;
+
+        /** Number of slots in use when the iterator was created. */
+        private final int limit;
+
+        /** Slot to look at next. */
+        private int slot;
+
+        /** Position of the element returned by the next call to {@link #next()}. */
+        private int index;
+
+        /**
+         * Creates an iterator.
+         *
+         * @param elements the slot array
+         * @param limit    the number of slots in use
+         * @param slot     the first slot to look at
+         * @param index    the position of that slot's element
+         */
+        Cursor(Object[] elements, int limit, int slot, int index) {
+            this.elements = elements;
+            this.limit = limit;
+            this.slot = slot;
+            this.index = index;
+        }
+
+        /**
+         * Tells whether a live element follows.
+         *
+         * @return true if {@link #next()} returns an element
+         */
+        @Override
+        public boolean hasNext() {
+            while (slot < limit && elements[slot] == null) {
+                slot++;
+            }
+            return slot < limit;
+        }
+
+        /**
+         * Returns the next live element.
+         *
+         * @return the element
+         * @throws NoSuchElementException if there is none
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            index++;
+            return (E) elements[slot++];
+        }
+
+        /**
+         * Tells whether a live element precedes.
+         *
+         * @return true if {@link #previous()} returns an element
+         */
+        @Override
+        public boolean hasPrevious() {
+            int before = slot - 1;
+            while (before >= 0 && elements[before] == null) {
+                before--;
+            }
+            return before >= 0;
+        }
+
+        /**
+         * Returns the previous live element.
+         *
+         * @return the element
+         * @throws NoSuchElementException if there is none
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            if (!hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            do {
+                slot--;
+            } while (elements[slot] == null);
+            index--;
+            return (E) elements[slot];
+        }
+
+        /**
+         * Returns the position of the element {@link #next()} would return.
+         *
+         * @return the position
+         */
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the position of the element {@link #previous()} would return.
+         *
+         * @return the position, or -1 at the start
+         */
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        /**
+         * Not supported.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param element ignored
+         * @throws UnsupportedOperationException always
+         */
+        @Override
+        public void set(E element) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Not supported.
+         *
+         * @param element ignored
+         * @throws UnsupportedOperationException always
+         */
+        @Override
+        public void add(E element) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.cg.training.service;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * Picks two free doctors at random and hands the appointment to the one with
+ * fewer appointments; see {@link DoctorAssignment#TWO_CHOICES}.
+ * <p>
+ * With two random choices the busiest doctor ends up only about log log n
+ * appointments above the average, close to least-loaded, without keeping
+ * anything sorted. Free doctors are kept in an array with their index in a
+ * map, so a random pick is one array read and removing a doctor moves the
+ * last one into the gap. Offer and claim are O(1).
+ * </p>
+ * All methods are synchronized.
+ */
+final class TwoChoicesDoctorPool implements DoctorAssignmentStrategy {
+
+    /** Free doctors; the first {@link #count} slots are used. */
+    private Doctor[] free = new Doctor[8];
+
+    /** Number of doctors held. */
+    private int count;
+
+    /** Slot of every doctor held. */
+    private final Map<Doctor, Integer> slots = new IdentityHashMap<>();
+
+    /** Reads the number of appointments of a doctor. */
+    private final ToIntFunction<Doctor> load;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param load reads the number of appointments of a doctor
+     */
+    TwoChoicesDoctorPool(ToIntFunction<Doctor> load) {
+        this.load = load;
+    }
+
+    /**
+     * Adds a doctor who has just become available, unless already held.
+     *
+     * @param doctor the available doctor
+     */
+    @Override
+    public synchronized void offer(Doctor doctor) {
+        if (slots.containsKey(doctor)) {
+            return;
+        }
+        if (count == free.length) {
+            free = Arrays.copyOf(free, count * 2);
+        }
+        free[count] = doctor;
+        slots.put(doctor, count++);
+    }
+
+    /**
+     * Reserves the less loaded of two random free doctors.
+     *
+     * @param registered tells whether a doctor is still registered; removed
+     *                   doctors are dropped from the pool
+     * @return the reserved doctor, or null if no doctor is available
+     */
+    @Override
+    public synchronized Doctor claim(Predicate<Doctor> registered) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (count > 0) {
+            int slot = random.nextInt(count);
+            int other = random.nextInt(count);
+            if (other != slot && load.applyAsInt(free[other]) < load.applyAsInt(free[slot])) {
+                slot = other;
+            }
+            Doctor doctor = free[slot];
+            remove(slot);
+            if (registered.test(doctor) && doctor.tryReserve()) {
+                return doctor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of doctors held, including stale ones.
+     *
+     * @return the number of entries
+     */
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Removes the doctor in a slot by moving the last doctor into it.
+     *
+     * @param slot the slot to empty
+     */
+    private void remove(int slot) {
+        slots.remove(free[slot]);
+        Doctor moved = free[--count];
+        free[count] = null;
+        if (slot < count) {
+            free[slot] = moved;
+            slots.put(moved, slot);
+        }
+    }
+}
\ No newline at end of file
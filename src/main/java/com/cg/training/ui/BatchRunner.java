@@ -0,0 +1,266 @@
+package com.cg.training.ui;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cg.training.events.EventType;
+import com.cg.training.metrics.AppointmentMetrics;
+import com.cg.training.models.Patient;
+import com.cg.training.service.AppointmentSystem;
+import com.cg.training.service.MeasuredAppointmentSystem;
+
+/**
+ * Runs a script of commands against an appointment system without menus,
+ * so production-sized workloads can be replayed and bulk jobs automated.
+ * <p>
+ * A script has one command per line: a verb followed by its argument.
+ * Blank lines and lines starting with {@code #} are skipped. Lists of IDs
+ * are separated by commas.
+ * </p>
+ * <pre>
+ * register-patient &lt;name&gt;       register-doctor &lt;name&gt;
+ * book &lt;patient ID&gt;              book-slot &lt;patient ID&gt;
+ * complete &lt;appointment IDs&gt;     remove-doctor &lt;doctor IDs&gt;
+ * find-patient &lt;patient ID&gt;      find-doctor &lt;doctor ID&gt;
+ * find-appointment &lt;ID&gt;          doctor-appointments &lt;doctor ID&gt;
+ * patient-appointments &lt;ID&gt;      import &lt;roster file&gt;
+ * save
+ * </pre>
+ * <p>
+ * Nothing is printed per command: the system's events are only counted,
+ * and a command fails when it reports an error, throws, finds nothing or
+ * cannot be parsed. Every call goes through a {@link MeasuredAppointmentSystem},
+ * so the summary ends with the latency of each operation.
+ * </p>
+ */
+public class BatchRunner {
+
+    /** Number of rows fetched by the appointment queries. */
+    private static final int QUERY_LIMIT = 20;
+
+    /** The measured system every command runs against. */
+    private final MeasuredAppointmentSystem dao;
+
+    /** Number of errors the system has reported. */
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Creates a runner for the given system. The system's events are
+     * replaced by a sink that only counts errors.
+     *
+     * @param system the system to run commands against
+     */
+    public BatchRunner(AppointmentSystem system) {
+        system.setEventSink((type, subject, value, value2, text) -> {
+            if (type == EventType.ERROR) {
+                errors.incrementAndGet();
+            }
+        });
+        dao = new MeasuredAppointmentSystem(system);
+    }
+
+    /**
+     * Returns the metrics the commands are recorded into.
+     *
+     * @return the metrics
+     */
+    public AppointmentMetrics getMetrics() {
+        return dao.getMetrics();
+    }
+
+    /**
+     * Runs every command read from the given reader.
+     *
+     * @param in the script
+     * @return the number of commands run and failed, and how long they took
+     * @throws IOException if the script cannot be read
+     */
+    public Summary run(BufferedReader in) throws IOException {
+        long commands = 0;
+        long failed = 0;
+        long start = System.nanoTime();
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            commands++;
+            if (!execute(line)) {
+                failed++;
+            }
+        }
+        return new Summary(commands, failed, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs one command.
+     *
+     * @param line the command, without surrounding blanks
+     * @return true if the command succeeded
+     */
+    boolean execute(String line) {
+        int space = line.indexOf(' ');
+        String verb = space < 0 ? line : line.substring(0, space);
+        String argument = space < 0 ? "" : line.substring(space + 1).trim();
+        long errorsBefore = errors.get();
+        boolean found;
+        try {
+            found = dispatch(verb, argument);
+        } catch (RuntimeException e) {
+            return false;
+        }
+        return found && errors.get() == errorsBefore;
+    }
+
+    /**
+     * Calls the operation named by a verb.
+     *
+     * @param verb     the command name
+     * @param argument the rest of the line
+     * @return false if the command is unknown, lacks its argument or found nothing
+     */
+    private boolean dispatch(String verb, String argument) {
+        if (argument.isEmpty() && !verb.equals("save")) {
+            return false;
+        }
+        switch (verb) {
+            case "register-patient":
+                dao.registerPatient(argument);
+                return true;
+            case "register-doctor":
+                dao.registerDoctor(argument);
+                return true;
+            case "book": {
+                Patient patient = dao.findPatientById(argument);
+                return patient != null && dao.bookAppointment(patient) != null;
+            }
+            case "book-slot": {
+                Patient patient = dao.findPatientById(argument);
+                return patient != null && dao.bookAppointment(patient, LocalDateTime.now()) != null;
+            }
+            case "complete": {
+                List<String> ids = split(argument);
+                return dao.completeAppointments(ids) == ids.size();
+            }
+            case "remove-doctor": {
+                List<String> ids = split(argument);
+                if (ids.size() > 1) {
+                    dao.removeDoctors(ids);
+                } else {
+                    dao.removeDoctor(argument);
+                }
+                return true;
+            }
+            case "find-patient":
+                return dao.findPatientById(argument) != null;
+            case "find-doctor":
+                return dao.findDoctorById(argument) != null;
+            case "find-appointment":
+                return dao.findAppointmentById(argument) != null;
+            case "doctor-appointments":
+                dao.findAppointmentsByDoctorId(argument, 0, QUERY_LIMIT);
+                return true;
+            case "patient-appointments":
+                dao.findAppointmentsByPatientId(argument, 0, QUERY_LIMIT);
+                return true;
+            case "import":
+                return dao.importRoster(argument) != null;
+            case "save":
+                dao.saveAppointmentsToFile();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Splits a comma-separated list of IDs.
+     *
+     * @param argument the list
+     * @return the IDs
+     */
+    private static List<String> split(String argument) {
+        return Arrays.asList(argument.split("\\s*,\\s*"));
+    }
+
+    /**
+     * The outcome of a script: how many commands ran, how many failed and
+     * how long they took.
+     */
+    public static final class Summary {
+
+        /** Number of commands run. */
+        private final long commands;
+
+        /** Number of commands that failed. */
+        private final long failed;
+
+        /** Time taken by all commands, in nanoseconds. */
+        private final long elapsedNanos;
+
+        /**
+         * Creates a summary.
+         *
+         * @param commands     the number of commands run
+         * @param failed       the number of commands that failed
+         * @param elapsedNanos the time taken, in nanoseconds
+         */
+        Summary(long commands, long failed, long elapsedNanos) {
+            this.commands = commands;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the number of commands run.
+         *
+         * @return the command count
+         */
+        public long getCommands() {
+            return commands;
+        }
+
+        /**
+         * Returns the number of commands that failed.
+         *
+         * @return the failure count
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Returns the time taken by all commands.
+         *
+         * @return the elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the number of commands run per second.
+         *
+         * @return the throughput, or 0 if nothing ran
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns a one-line report of the summary.
+         *
+         * @return the report
+         */
+        @Override
+        public String toString() {
+            return String.format("Commands: %d, Failed: %d, Time: %.1f ms, Throughput: %.0f commands/s",
+                    commands, failed, elapsedNanos / 1e6, getThroughput());
+        }
+    }
+}
\ No newline at end of file
@@ -1,11 +1,40 @@
 package com.cg.training.ui;
 
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
+import javax.management.JMException;
+
+import com.cg.training.dao.WriteBehindJournal;
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.events.ConsoleRenderer;
+import com.cg.training.events.RingBufferEventSink;
 import com.cg.training.exceptions.InvalidAppointmentException;
+import com.cg.training.http.AppointmentHttpServer;
+import com.cg.training.metrics.AppointmentMetrics;
 import com.cg.training.models.Admin;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Page;
 import com.cg.training.models.Patient;
+import com.cg.training.security.Role;
 import com.cg.training.service.AppointmentSystem;
+import com.cg.training.service.MeasuredAppointmentSystem;
 
 /**
  * This is the main user interface class for the Medical Appointment System.
@@ -15,15 +44,78 @@ import com.cg.training.service.AppointmentSystem;
  * Author: Rishiraj Ray and Pritha Saha
  */
 public class Main {
-    
+
+    /** File holding the appointment journal that is replayed on startup. */
+    private static final String APPOINTMENT_FILE = "D:\\filesCreating\\Appointments.journal";
+
+    /** File holding the binary snapshot written on exit and loaded on startup. */
+    private static final String SNAPSHOT_FILE = "D:\\filesCreating\\Appointments.snapshot";
+
+    /** Directory the ended appointments are archived to, off the heap. */
+    private static final String ARCHIVE_DIRECTORY = "D:\\filesCreating\\archive";
+
+    /** Number of rows shown before asking whether to show more. */
+    private static final int PAGE_SIZE = 20;
+
+    /** Number of events the console event buffer holds. */
+    private static final int EVENT_BUFFER_SIZE = 1024;
+
+    /** Port the HTTP API listens on unless another is given. */
+    private static final int HTTP_PORT = 8080;
+
+    /** Command line usage, printed when the arguments are not understood. */
+    private static final String USAGE = "Usage: Main [--batch [file] | --http [port]]";
+
     /**
      * The main method is the entry point of the application.
-     * It uses a simple text-based menu to interact with the user.
+     * It uses a simple text-based menu to interact with the user, or runs a
+     * script of commands when started with {@code --batch}, or serves the
+     * HTTP API when started with {@code --http}.
      * 
-     * @param args command-line arguments (not used)
+     * @param args {@code --batch [file]} to run a script from the file, or from
+     *             standard input if no file is given; {@code --http [port]} to
+     *             serve the HTTP API on loopback; otherwise none. Anything
+     *             else prints the usage and exits.
      */
     public static void main(String[] args) {
-        AppointmentSystem system = new AppointmentSystem();
+        boolean batch = args.length > 0 && args[0].equals("--batch");
+        boolean http = args.length > 0 && args[0].equals("--http");
+        int port = HTTP_PORT;
+        if (args.length > (batch || http ? 2 : 0)) {
+            System.out.println(USAGE);
+            return;
+        }
+        if (http && args.length > 1) {
+            port = parsePort(args[1]);
+            if (port < 0) {
+                System.out.println("Error: Invalid port: " + args[1]);
+                System.out.println(USAGE);
+                return;
+            }
+        }
+        // Changes are written by a background thread within the journal's window; closing it writes the rest.
+        WriteBehindJournal journal = new WriteBehindJournal(APPOINTMENT_FILE);
+        AppointmentSystem system = new AppointmentSystem(SNAPSHOT_FILE, journal, true);
+        system.archiveTo(ARCHIVE_DIRECTORY);
+        if (batch) {
+            runBatch(system, journal, args.length > 1 ? args[1] : null);
+            return;
+        }
+        if (http) {
+            serveHttp(system, journal, port);
+            return;
+        }
+        // Messages are printed by a background thread; flush before every menu keeps them in order.
+        RingBufferEventSink events = new RingBufferEventSink(new ConsoleRenderer(), EVENT_BUFFER_SIZE);
+        system.setEventSink(events);
+        // Every call goes through the measured system so its latency ends up in the metrics.
+        MeasuredAppointmentSystem dao = new MeasuredAppointmentSystem(system);
+        AppointmentMetrics metrics = dao.getMetrics();
+        try {
+            metrics.register("main");
+        } catch (JMException e) {
+            System.out.println("Error: metrics are not available over JMX: " + e.getMessage());
+        }
         Scanner sc = new Scanner(System.in);
 
         System.out.println("Welcome to Medical Appointment System");
@@ -32,20 +124,23 @@ public class Main {
         try {
             // Main loop for selecting user role
             while (true) {
+                events.flush();
                 System.out.println("Are you a:");
-                System.out.println("1. Doctor\n2. Patient\n3. Exit");
-                System.out.print("Choose option (1, 2, or 3): ");
+                System.out.println("1. Doctor\n2. Patient\n3. Admin: Show Metrics\n4. Exit");
+                System.out.print("Choose option (1, 2, 3, or 4): ");
                 String roleChoice = sc.nextLine();
 
                 // Doctor menu
                 if (roleChoice.equals("1")) {
                     while (true) {
+                        events.flush();
                         System.out.println("\nDoctor Menu:");
                         System.out.println("1. Register a Doctor");
                         System.out.println("2. Show All Appointments");
                         System.out.println("3. Complete Appointment");
-                        System.out.println("4. Remove a Doctor");
-                        System.out.println("5. Exit");
+                        System.out.println("4. Remove Doctors");
+                        System.out.println("5. Import Roster (CSV)");
+                        System.out.println("6. Exit");
                         System.out.print("Enter choice: ");
                         String doctorChoice = sc.nextLine();
 
@@ -53,54 +148,75 @@ public class Main {
                             case "1":
                                 System.out.print("Enter Doctor Name: ");
                                 String dname = sc.nextLine();
-                                system.registerDoctor(dname);
+                                dao.registerDoctor(dname);
+                                dao.saveAppointmentsToFile();
                                 break;
 
                             case "2":
                                 System.out.print("Enter your Doctor ID (e.g., D1001): ");
                                 String docId = sc.nextLine();
-                                system.showAppointmentsByDoctorId(docId);
+                                showPages(sc, offset -> dao.findAppointmentsByDoctorId(docId, offset, PAGE_SIZE),
+                                        i -> printAppointment(dao, i),
+                                        "No appointments found for Doctor ID: " + docId, null);
                                 break;
 
                             case "3":
-                                system.showAllAppointments();
-                                System.out.print("Enter appointment index to complete: ");
-                                try {
-                                    int index = Integer.parseInt(sc.nextLine());
-                                    system.completeAppointment(index);
-                                    system.saveAppointmentsToFile();
-                                } catch (NumberFormatException e) {
-                                    System.out.println("Invalid index. Must be a number.");
+                                System.out.print("Enter appointment ID(s) to complete (e.g., A12 or A12,A13): ");
+                                String appointmentIds = sc.nextLine().trim();
+                                if (appointmentIds.indexOf(',') >= 0) {
+                                    dao.completeAppointments(Arrays.asList(appointmentIds.split("\\s*,\\s*")));
+                                } else {
+                                    Appointment toComplete = dao.findAppointmentById(appointmentIds);
+                                    if (toComplete == null) {
+                                        System.out.println("Appointment not found.");
+                                        break;
+                                    }
+                                    dao.completeAppointments(Collections.singletonList(toComplete.getId()));
                                 }
+                                dao.saveAppointmentsToFile();
                                 break;
 
                             case "4":
-                                System.out.print("Enter Doctor ID to remove (e.g., D1001): ");
+                                System.out.print("Enter Doctor ID(s) to remove (e.g., D1001 or D1001,D1002): ");
                                 String doctorId = sc.nextLine();
                                 Admin admin = new Admin("A1", "Admin");
-                                admin.removeDoctor(system.doctors, doctorId);
+                                if (doctorId.indexOf(',') >= 0) {
+                                    admin.removeDoctors(dao, Arrays.asList(doctorId.trim().split("\\s*,\\s*")));
+                                } else {
+                                    admin.removeDoctor(dao, doctorId);
+                                }
+                                dao.saveAppointmentsToFile();
                                 break;
 
                             case "5":
+                                System.out.print("Enter roster file (rows of role,name): ");
+                                String roster = sc.nextLine();
+                                dao.importRoster(roster);
+                                dao.saveAppointmentsToFile();
+                                break;
+
+                            case "6":
                                 System.out.println("Going back to main menu!!");
                                 break;
 
                             default:
-                                System.out.println("Invalid choice. Please enter a number from 1 to 5.");
+                                System.out.println("Invalid choice. Please enter a number from 1 to 6.");
                                 break;
                         }
-                        if (doctorChoice.equals("5")) break;
+                        if (doctorChoice.equals("6")) break;
                     }
 
                 // Patient menu
                 } else if (roleChoice.equals("2")) {
                     while (true) {
+                        events.flush();
                         System.out.println("\nPatient Menu:");
                         System.out.println("1. Register a Patient");
                         System.out.println("2. Show All Doctors");
                         System.out.println("3. Book Appointment");
-                        System.out.println("4. Show Appointments");
-                        System.out.println("5. Exit");
+                        System.out.println("4. Book Next Free Time Slot");
+                        System.out.println("5. Show Appointments");
+                        System.out.println("6. Exit");
                         System.out.print("Enter choice: ");
                         String patientChoice = sc.nextLine();
 
@@ -108,11 +224,13 @@ public class Main {
                             case "1":
                                 System.out.print("Enter Patient Name: ");
                                 String pname = sc.nextLine();
-                                system.registerPatient(pname);
+                                dao.registerPatient(pname);
+                                dao.saveAppointmentsToFile();
                                 break;
 
                             case "2":                                
-                                system.showAllDoctors();
+                                showPages(sc, offset -> dao.findDoctors(offset, PAGE_SIZE), Doctor::showProfile,
+                                        "No registered doctors", ".....All Doctors.....");
                                 break;
 
                             case "3":
@@ -122,11 +240,11 @@ public class Main {
                                     System.out.println("Invalid ID: Must contain only numbers.");
                                     break;
                                 }
-                                Patient p = system.findPatientById("P" + pid);
+                                Patient p = dao.findPatientById("P" + pid);
                                 if (p != null) {
                                     try {
-                                        system.bookAppointment(p);
-                                        system.saveAppointmentsToFile();
+                                        dao.bookAppointment(p);
+                                        dao.saveAppointmentsToFile();
                                     } catch (InvalidAppointmentException e) {
                                         System.out.println("Error: " + e.getMessage());
                                     }
@@ -137,34 +255,194 @@ public class Main {
 
                             case "4":
                                 System.out.print("Enter your Patient ID (e.g., P1001): ");
-                                String patId = sc.nextLine();
-                                system.showAppointmentsByPatientId(patId);
+                                Patient slotPatient = dao.findPatientById(sc.nextLine());
+                                if (slotPatient != null) {
+                                    dao.bookAppointment(slotPatient, LocalDateTime.now());
+                                    dao.saveAppointmentsToFile();
+                                } else {
+                                    System.out.println("Patient not found.");
+                                }
                                 break;
 
                             case "5":
+                                System.out.print("Enter your Patient ID (e.g., P1001): ");
+                                String patId = sc.nextLine();
+                                showPages(sc, offset -> dao.findAppointmentsByPatientId(patId, offset, PAGE_SIZE),
+                                        i -> printAppointment(dao, i),
+                                        "No appointments found for Patient ID: " + patId, null);
+                                break;
+
+                            case "6":
                                 System.out.println("Going back to main menu!!");
                                 break;
 
                             default:
-                                System.out.println("Invalid choice. Please enter a number from 1 to 5.");
+                                System.out.println("Invalid choice. Please enter a number from 1 to 6.");
                         }
 
-                        if (patientChoice.equals("5")) break;
+                        if (patientChoice.equals("6")) break;
                     }
 
-                // Exit the application
+                // Latency and size figures, also published over JMX
                 } else if (roleChoice.equals("3")) {
+                    System.out.print(metrics.dump());
+                    System.out.println();
+
+                // Exit the application
+                } else if (roleChoice.equals("4")) {
                     System.out.println("Exiting......, Thank You!");
-                    system.clearAllContentsOfTheFile();
+                    dao.saveAppointmentsToFile();
+                    system.saveSnapshot(SNAPSHOT_FILE);
+                    journal.close();
+                    events.close();
                     sc.close();
                     System.exit(0);
 
                 } else {
-                    System.out.println("Invalid role choice. Please enter 1, 2, or 3.");
+                    System.out.println("Invalid role choice. Please enter 1, 2, 3, or 4.");
                 }
             }
         } catch (Exception e) {
             System.out.println("An unexpected error occurred.");
         }
     }
+
+    /**
+     * Runs a script of commands without menus or messages, saves the result
+     * and prints the throughput and the latency of every operation.
+     * See {@link BatchRunner} for the commands.
+     *
+     * @param system  the appointment system
+     * @param journal the system's journal, closed at the end
+     * @param file    the script file, or null to read standard input
+     */
+    private static void runBatch(AppointmentSystem system, WriteBehindJournal journal, String file) {
+        BatchRunner runner = new BatchRunner(system);
+        try (InputStream stream = file == null ? System.in : new FileInputStream(file);
+                BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            BatchRunner.Summary summary = runner.run(in);
+            system.saveAppointmentsToFile();
+            system.saveSnapshot(SNAPSHOT_FILE);
+            journal.close();
+            System.out.println(summary);
+            System.out.print(runner.getMetrics().dump());
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves the HTTP API on loopback until Enter is pressed, then saves the
+     * journal and snapshot. Every request is measured, and the metrics are
+     * published over JMX as "http". A new token is made for every role on
+     * each start and printed, so only whoever can read this console can
+     * hand them out.
+     *
+     * @param system  the appointment system
+     * @param journal the system's journal, closed at the end
+     * @param port    the port to listen on
+     */
+    private static void serveHttp(AppointmentSystem system, WriteBehindJournal journal, int port) {
+        RingBufferEventSink events = new RingBufferEventSink(new ConsoleRenderer(), EVENT_BUFFER_SIZE);
+        system.setEventSink(events);
+        MeasuredAppointmentSystem dao = new MeasuredAppointmentSystem(system);
+        try {
+            dao.getMetrics().register("http");
+        } catch (JMException e) {
+            System.out.println("Error: metrics are not available over JMX: " + e.getMessage());
+        }
+        try {
+            Map<String, Role> tokens = new HashMap<>();
+            SecureRandom random = new SecureRandom();
+            for (Role role : Role.values()) {
+                byte[] bytes = new byte[16];
+                random.nextBytes(bytes);
+                StringBuilder token = new StringBuilder(32);
+                for (byte b : bytes) {
+                    token.append(String.format("%02x", b));
+                }
+                tokens.put(token.toString(), role);
+                System.out.println(role.getLabel() + " token: " + token);
+            }
+            AppointmentHttpServer server = new AppointmentHttpServer(dao, tokens,
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.start();
+            System.out.println("Listening on http://" + server.getAddress().getHostString() + ":"
+                    + server.getAddress().getPort() + "/ - press Enter to stop.");
+            new Scanner(System.in).nextLine();
+            server.stop(1);
+            dao.saveAppointmentsToFile();
+            system.saveSnapshot(SNAPSHOT_FILE);
+            journal.close();
+            events.close();
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a port number from the command line.
+     *
+     * @param text the argument
+     * @return the port, or -1 if the argument is not a number from 0 to 65535
+     */
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text);
+            return port >= 0 && port <= 0xFFFF ? port : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Prints a query result one page at a time, asking after each full page
+     * whether to show the next one. Only the pages actually shown are fetched.
+     *
+     * @param sc           the scanner reading the user's answers
+     * @param query        fetches the page starting at the given offset
+     * @param printer      prints one row
+     * @param emptyMessage printed when the result is empty, or null to print nothing
+     * @param header       printed before the first row, or null for no header
+     */
+    private static <T> void showPages(Scanner sc, IntFunction<Page<T>> query, Consumer<T> printer,
+            String emptyMessage, String header) {
+        Page<T> page = query.apply(0);
+        if (page.getTotal() == 0) {
+            if (emptyMessage != null) {
+                System.out.println(emptyMessage);
+            }
+            return;
+        }
+        if (header != null) {
+            System.out.println(header);
+        }
+        while (true) {
+            for (T row : page.getItems()) {
+                printer.accept(row);
+            }
+            if (!page.hasNext()) {
+                return;
+            }
+            System.out.print("Showing " + page.getNextOffset() + " of " + page.getTotal() + ". Show more? (y/n): ");
+            if (!sc.nextLine().trim().equalsIgnoreCase("y")) {
+                return;
+            }
+            page = query.apply(page.getNextOffset());
+        }
+    }
+
+    /**
+     * Prints one line describing the appointment at the given index,
+     * starting with its ID.
+     *
+     * @param system the appointment system
+     * @param index  the index of the appointment
+     */
+    private static void printAppointment(AppointmentSystemDAO system, int index) {
+        Appointment appointment = system.getAppointment(index);
+        if (appointment != null) {
+            System.out.println(appointment.appendDetails(new StringBuilder("Appointment ").append(appointment.getId()).append(": ")));
+        }
+    }
 }
\ No newline at end of file
@@ -23,6 +23,6 @@ public class SecurityTest {
         assertNotNull("Security annotation should be present", securityAnnotation);
         
         // Assert that the role is as expected
-        assertEquals("Role should be ADMIN", "ADMIN", securityAnnotation.role());
+        assertEquals("Role should be ADMIN", "ADMIN", securityAnnotation.role()[0]);
     }
 }
@@ -0,0 +1,86 @@
+package com.cg.training.dao;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class tests the AppointmentJournal to make sure records are
+ * appended to the file and read back in the same order.
+ */
+public class AppointmentJournalTest {
+
+    private File file;
+    private AppointmentJournal journal;
+
+    /**
+     * Creates a journal on a fresh temporary file before each test.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("appointments", ".journal");
+        file.delete();
+        journal = new AppointmentJournal(file.getPath());
+    }
+
+    /**
+     * Closes the journal and deletes its file after each test.
+     */
+    @After
+    public void tearDown() throws IOException {
+        journal.close();
+        file.delete();
+    }
+
+    /**
+     * Tests that appended records are replayed field by field in order.
+     */
+    @Test
+    public void testAppendAndReplay() throws IOException {
+        journal.append(AppointmentJournal.PATIENT, "P1000", "Ram");
+        journal.append(AppointmentJournal.COMPLETE, "0");
+        journal.flush();
+
+        List<String[]> records = new ArrayList<>();
+        journal.replay(records::add);
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[] { "P", "P1000", "Ram" }, records.get(0));
+        assertArrayEquals(new String[] { "C", "0" }, records.get(1));
+    }
+
+    /**
+     * Tests that a journal whose file does not exist replays nothing.
+     */
+    @Test
+    public void testReplayMissingFile() throws IOException {
+        List<String[]> records = new ArrayList<>();
+        journal.replay(records::add);
+        assertTrue(records.isEmpty());
+    }
+
+    /**
+     * Tests that every append adds exactly one line and clear empties the file.
+     */
+    @Test
+    public void testAppendOnlyGrowthAndClear() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            journal.append(AppointmentJournal.COMPLETE, String.valueOf(i));
+        }
+        journal.flush();
+        long size = file.length();
+        journal.append(AppointmentJournal.COMPLETE, "5");
+        journal.flush();
+        assertEquals(size + "C,5".length() + System.lineSeparator().length(), file.length());
+
+        journal.clear();
+        assertEquals(0, file.length());
+    }
+}
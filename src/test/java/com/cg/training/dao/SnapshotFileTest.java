@@ -0,0 +1,101 @@
+package com.cg.training.dao;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * This class tests the SnapshotFile reader and writer, including values
+ * that cross the boundary between two mapped windows.
+ */
+public class SnapshotFileTest {
+
+    private File file;
+
+    /**
+     * Creates a temporary file name before each test.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("appointments", ".snapshot");
+    }
+
+    /**
+     * Deletes the temporary file after each test.
+     */
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Tests that bytes, ints and strings are read back as written.
+     */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        long size = SnapshotFile.HEADER_SIZE + 1 + 4 + SnapshotFile.sizeOf("Ram") + SnapshotFile.sizeOf("");
+        try (SnapshotFile.Output out = new SnapshotFile.Output(file.toPath(), size)) {
+            out.putByte(200);
+            out.putInt(-1);
+            out.putString("Ram");
+            out.putString("");
+        }
+        assertEquals(size, file.length());
+
+        try (SnapshotFile.Input in = new SnapshotFile.Input(file.toPath())) {
+            assertEquals(200, in.getByte());
+            assertEquals(-1, in.getInt());
+            assertEquals("Ram", in.getString());
+            assertEquals("", in.getString());
+        }
+    }
+
+    /**
+     * Tests that a snapshot larger than one mapped window is written and read correctly.
+     */
+    @Test
+    public void testValuesAcrossWindows() throws IOException {
+        String name = "Laxman";
+        int count = SnapshotFile.WINDOW_SIZE / (4 + SnapshotFile.sizeOf(name)) + 10;
+        long size = SnapshotFile.HEADER_SIZE + (long) count * (4 + SnapshotFile.sizeOf(name));
+        try (SnapshotFile.Output out = new SnapshotFile.Output(file.toPath(), size)) {
+            for (int i = 0; i < count; i++) {
+                out.putInt(i);
+                out.putString(name);
+            }
+        }
+        try (SnapshotFile.Input in = new SnapshotFile.Input(file.toPath())) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, in.getInt());
+                assertEquals(name, in.getString());
+            }
+        }
+    }
+
+    /**
+     * Tests that a file which is not a snapshot is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("Appointment: Patient[Ram]".getBytes("UTF-8"));
+        }
+        new SnapshotFile.Input(file.toPath()).close();
+    }
+
+    /**
+     * Tests that writing less than the declared size is reported.
+     */
+    @Test(expected = IOException.class)
+    public void testSizeMismatch() throws IOException {
+        try (SnapshotFile.Output out = new SnapshotFile.Output(file.toPath(), SnapshotFile.HEADER_SIZE + 8)) {
+            out.putInt(1);
+        }
+    }
+}
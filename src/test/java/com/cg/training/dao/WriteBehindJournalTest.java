@@ -0,0 +1,212 @@
+package com.cg.training.dao;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.service.AppointmentSystem;
+
+/**
+ * This class tests the WriteBehindJournal to make sure records are written
+ * in order by the background writer or by an explicit flush.
+ */
+public class WriteBehindJournalTest {
+
+    private File file;
+    private WriteBehindJournal journal;
+
+    /**
+     * Creates a fresh temporary file name before each test.
+     */
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("appointments", ".journal");
+        file.delete();
+    }
+
+    /**
+     * Closes the journal and deletes its file after each test.
+     */
+    @After
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        file.delete();
+    }
+
+    /**
+     * Tests that commit leaves the records queued and flush writes them in order.
+     */
+    @Test
+    public void testCommitQueuesAndFlushWrites() throws IOException {
+        journal = new WriteBehindJournal(file.getPath(), 60_000);
+        journal.append(AppointmentJournal.PATIENT, "P1000", "Ram");
+        journal.append(AppointmentJournal.COMPLETE, "0");
+        journal.commit();
+        assertEquals(2, journal.getPendingCount());
+        assertFalse(file.exists());
+
+        journal.flush();
+        assertEquals(0, journal.getPendingCount());
+        List<String[]> records = new ArrayList<>();
+        new AppointmentJournal(file.getPath()).replay(records::add);
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[] { "P", "P1000", "Ram" }, records.get(0));
+        assertArrayEquals(new String[] { "C", "0" }, records.get(1));
+    }
+
+    /**
+     * Tests that the background writer writes the queue within the window.
+     */
+    @Test
+    public void testWriterCommitsWithinWindow() throws Exception {
+        journal = new WriteBehindJournal(file.getPath(), 5);
+        for (int i = 0; i < 100; i++) {
+            journal.append(AppointmentJournal.COMPLETE, Integer.toString(i));
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (journal.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, journal.getPendingCount());
+
+        List<String[]> records = new ArrayList<>();
+        new AppointmentJournal(file.getPath()).replay(records::add);
+        assertEquals(100, records.size());
+        assertEquals("99", records.get(99)[1]);
+    }
+
+    /**
+     * Tests that a batch failing part way is written exactly once on retry.
+     */
+    @Test
+    public void testFailedBatchNotWrittenTwice() throws IOException {
+        journal = new WriteBehindJournal(file.getPath(), 60_000) {
+            private boolean failed;
+
+            @Override
+            void writeRecord(String[] fields) throws IOException {
+                if (!failed && "X".equals(fields[0])) {
+                    failed = true;
+                    throw new IOException("disk full");
+                }
+                super.writeRecord(fields);
+            }
+        };
+        journal.append(AppointmentJournal.PATIENT, "P1000", "Ram");
+        journal.flush();
+        journal.append(AppointmentJournal.DOCTOR, "D1000", "Meera");
+        journal.append(AppointmentJournal.COMPLETE, "A0");
+        journal.append(AppointmentJournal.CANCEL, "A1");
+        try {
+            journal.flush();
+            fail("Expected the batch to fail");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        assertEquals(3, journal.getPendingCount());
+
+        journal.flush();
+        List<String[]> records = new ArrayList<>();
+        new AppointmentJournal(file.getPath()).replay(records::add);
+        assertEquals(4, records.size());
+        assertArrayEquals(new String[] { "P", "P1000", "Ram" }, records.get(0));
+        assertArrayEquals(new String[] { "D", "D1000", "Meera" }, records.get(1));
+        assertArrayEquals(new String[] { "C", "A0" }, records.get(2));
+        assertArrayEquals(new String[] { "X", "A1" }, records.get(3));
+    }
+
+    /**
+     * Tests that when a background batch fails while records keep being
+     * appended, the writer goes on and the file ends up with every record
+     * once, the failed batch ahead of the records appended meanwhile.
+     */
+    @Test
+    public void testFailedBatchWhileAppending() throws Exception {
+        journal = new WriteBehindJournal(file.getPath(), 5) {
+            private boolean failed;
+            private boolean cancelled;
+
+            @Override
+            void writeRecord(String[] fields) throws IOException {
+                if (!failed && "C".equals(fields[0])) {
+                    failed = true;
+                    append(AppointmentJournal.PATIENT, "P1003", "Sita");
+                    throw new IOException("disk full");
+                }
+                if (!cancelled && "P".equals(fields[0])) {
+                    cancelled = true;
+                    append(AppointmentJournal.CANCEL, "A1");
+                }
+                super.writeRecord(fields);
+            }
+        };
+        journal.append(AppointmentJournal.BOOK, "P1000", "Ram", "D1000", "A0");
+        journal.append(AppointmentJournal.COMPLETE, "A0");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<String[]> records = new ArrayList<>();
+        while (records.size() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            records.clear();
+            new AppointmentJournal(file.getPath()).replay(records::add);
+        }
+        assertEquals(4, records.size());
+        assertArrayEquals(new String[] { "B", "P1000", "Ram", "D1000", "A0" }, records.get(0));
+        assertArrayEquals(new String[] { "C", "A0" }, records.get(1));
+        assertArrayEquals(new String[] { "P", "P1003", "Sita" }, records.get(2));
+        assertArrayEquals(new String[] { "X", "A1" }, records.get(3));
+        try {
+            journal.commit();
+            fail("Expected the background error to be reported");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        journal.commit();
+    }
+
+    /**
+     * Tests that clear drops queued records as well as written ones.
+     */
+    @Test
+    public void testClearDropsQueuedRecords() throws IOException {
+        journal = new WriteBehindJournal(file.getPath(), 60_000);
+        journal.append(AppointmentJournal.DOCTOR, "D1000", "Meera");
+        journal.flush();
+        journal.append(AppointmentJournal.DOCTOR, "D1001", "Sushir");
+        journal.clear();
+        journal.flush();
+
+        List<String[]> records = new ArrayList<>();
+        journal.replay(records::add);
+        assertTrue(records.isEmpty());
+    }
+
+    /**
+     * Tests that a system saving through the journal is restored after a flush.
+     */
+    @Test
+    public void testSystemRestoredAfterFlush() throws IOException {
+        journal = new WriteBehindJournal(file.getPath(), 60_000);
+        AppointmentSystem system = new AppointmentSystem(journal);
+        system.setEventSink(EventSink.DISCARD);
+        system.registerDoctor("DrMeera");
+        system.registerPatient("Ram");
+        system.bookAppointment(system.findPatientById("P1000"));
+        system.saveAppointmentsToFile();
+        journal.flush();
+
+        AppointmentSystem restored = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+        assertNotNull(restored.findDoctorById("D1000"));
+        assertNotNull(restored.findAppointmentById("A0"));
+    }
+}
\ No newline at end of file
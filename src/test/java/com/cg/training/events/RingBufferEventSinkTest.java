@@ -0,0 +1,134 @@
+package com.cg.training.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * This class tests the RingBufferEventSink: every event is rendered once,
+ * in order per producer, even when producers have to wait for a full ring.
+ */
+public class RingBufferEventSinkTest {
+
+    /**
+     * A renderer that copies what it is given, since events are reused.
+     */
+    private static class Recorder implements EventRenderer {
+
+        final List<String> subjects = new ArrayList<>();
+        final List<Long> values = new ArrayList<>();
+        int batches;
+
+        @Override
+        public void render(SystemEvent event) {
+            subjects.add(event.getSubject());
+            values.add(event.getValue());
+        }
+
+        @Override
+        public void endOfBatch() {
+            batches++;
+        }
+    }
+
+    /**
+     * Tests that flush waits until queued events have been rendered.
+     */
+    @Test
+    public void testFlushRendersQueuedEvents() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        RingBufferEventSink sink = new RingBufferEventSink(recorder, 8);
+        try {
+            sink.publish(EventType.PATIENT_REGISTERED, "P1000", 0);
+            sink.publish(EventType.APPOINTMENT_COMPLETED, null, 7);
+            sink.flush();
+            assertEquals(2, recorder.subjects.size());
+            assertEquals("P1000", recorder.subjects.get(0));
+            assertEquals(Long.valueOf(7), recorder.values.get(1));
+            assertTrue(recorder.batches >= 1);
+            assertEquals(0, sink.getBacklog());
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Tests that many producers on a small ring lose no event and keep the
+     * order of each producer's events.
+     */
+    @Test
+    public void testProducersWaitForFullRing() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 20_000;
+        Recorder recorder = new Recorder();
+        final RingBufferEventSink sink = new RingBufferEventSink(recorder, 16);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final String subject = "P" + p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    sink.publish(EventType.PATIENT_REGISTERED, subject, i);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sink.close();
+
+        assertEquals(producers * perProducer, recorder.subjects.size());
+        long[] next = new long[producers];
+        for (int i = 0; i < recorder.subjects.size(); i++) {
+            int p = recorder.subjects.get(i).charAt(1) - '0';
+            assertEquals(next[p]++, (long) recorder.values.get(i));
+        }
+    }
+
+    /**
+     * Tests that every event accepted while the sink is being closed is
+     * rendered before the consumer stops.
+     */
+    @Test
+    public void testCloseLosesNoAcceptedEvent() throws InterruptedException {
+        final int producers = 4;
+        Recorder recorder = new Recorder();
+        final RingBufferEventSink sink = new RingBufferEventSink(recorder, 16);
+        final AtomicLong accepted = new AtomicLong();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    while (true) {
+                        sink.publish(EventType.PATIENT_REGISTERED, "P1000", 0);
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException e) {
+                    // closed
+                }
+            });
+            threads[p].start();
+        }
+        Thread.sleep(20);
+        sink.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(accepted.get(), recorder.subjects.size());
+        assertEquals(0, sink.getBacklog());
+    }
+
+    /**
+     * Tests that a closed sink rejects new events.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testPublishAfterClose() throws InterruptedException {
+        RingBufferEventSink sink = new RingBufferEventSink(EventRenderer.NONE, 4);
+        sink.close();
+        sink.info("late");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.cg.training.events;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class tests the messages built from events and the file renderer.
+ */
+public class SystemEventTest {
+
+    /**
+     * Tests that events render the messages the system used to print.
+     */
+    @Test
+    public void testMessages() {
+        assertEquals("Patient registered with ID: P1000",
+                new SystemEvent(EventType.PATIENT_REGISTERED, "P1000", 0, 0, null).getMessage());
+        assertEquals("Registered 3 doctors, rejected 1.",
+                new SystemEvent(EventType.DOCTORS_REGISTERED, null, 3, 1, null).getMessage());
+        assertEquals("Appointment booked with ID: A4.",
+                new SystemEvent(EventType.APPOINTMENT_BOOKED, null, 4, 1000, null).getMessage());
+        assertEquals("Error: No doctors registered.",
+                new SystemEvent(EventType.ERROR, null, 0, 0, "Error: No doctors registered.").getMessage());
+        assertTrue(new SystemEvent(EventType.SLOT_BOOKED, null, 0, 1001, null).getMessage()
+                .endsWith("with Doctor ID: D1001."));
+    }
+
+    /**
+     * Tests that the file renderer appends one line per event.
+     */
+    @Test
+    public void testFileRenderer() throws IOException {
+        File file = File.createTempFile("events", ".log");
+        try {
+            try (FileRenderer renderer = new FileRenderer(file.getPath())) {
+                new DirectEventSink(renderer).publish(EventType.DOCTOR_REMOVED, "D1000", 0);
+                renderer.render(new SystemEvent(EventType.JOURNAL_SAVED, null, 0, 0, null));
+            }
+            List<String> lines = Files.readAllLines(file.toPath());
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).endsWith(",DOCTOR_REMOVED,D1000,Doctor removed."));
+            assertTrue(lines.get(1).endsWith(",JOURNAL_SAVED,,Appointments saved to file."));
+        } finally {
+            file.delete();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.cg.training.http;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.models.NameValidator;
+import com.cg.training.security.Role;
+import com.cg.training.service.AppointmentSystem;
+
+/**
+ * Tests for {@link AppointmentHttpServer}, calling it over loopback.
+ */
+public class AppointmentHttpServerTest {
+
+    private AppointmentSystem system;
+    private AppointmentHttpServer server;
+
+    /** Status of the last request. */
+    private int status;
+
+    /** Token sent with the next requests, or null to send none. */
+    private String token = ADMIN_TOKEN;
+
+    private static final String ADMIN_TOKEN = "admin-token";
+    private static final String DOCTOR_TOKEN = "doctor-token";
+    private static final String PATIENT_TOKEN = "patient-token";
+
+    /**
+     * Starts a server for an empty system on a free loopback port.
+     */
+    @Before
+    public void setUp() throws IOException {
+        system = new AppointmentSystem();
+        system.setEventSink(EventSink.DISCARD);
+        Map<String, Role> tokens = new HashMap<>();
+        tokens.put(ADMIN_TOKEN, Role.ADMIN);
+        tokens.put(DOCTOR_TOKEN, Role.DOCTOR);
+        tokens.put(PATIENT_TOKEN, Role.PATIENT);
+        server = new AppointmentHttpServer(system, tokens, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Sends a request and returns the response body.
+     *
+     * @param method the HTTP method
+     * @param path   the path and query
+     * @param body   the request body, or null
+     * @return the response body, empty for 204
+     */
+    private String call(String method, String path, String body) throws IOException {
+        URL url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[1024];
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    bytes.write(buffer, 0, read);
+                }
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tests registering, booking, finding and completing over HTTP.
+     */
+    @Test
+    public void testBookingRoundTrip() throws IOException {
+        assertEquals("{\"ids\":[\"D1000\"],\"errors\":{}}", call("POST", "/doctors", "DrMeera\n"));
+        assertEquals(201, status);
+        assertEquals("{\"ids\":[\"P1000\"],\"errors\":{\"1\":\"" + NameValidator.INVALID_NAME + "\"}}",
+                call("POST", "/patients", "Rahul Das\nR2D2\n"));
+        assertEquals("{\"id\":\"P1000\",\"name\":\"Rahul Das\"}", call("GET", "/patients/P1000", null));
+
+        String booked = call("POST", "/appointments?patient=P1000", null);
+        assertEquals(201, status);
+        assertEquals("{\"id\":\"A0\",\"patient\":\"P1000\",\"doctor\":\"D1000\",\"status\":\"Scheduled\"}", booked);
+        assertEquals(409, statusOf("POST", "/appointments?patient=P1000"));
+
+        assertTrue(call("POST", "/appointments/A0/complete", null).contains("\"status\":\"Completed\""));
+        assertEquals(409, statusOf("POST", "/appointments/A0/complete"));
+        assertEquals("{\"offset\":0,\"total\":1,\"items\":[{\"id\":\"A0\",\"patient\":\"P1000\","
+                + "\"doctor\":\"D1000\",\"status\":\"Completed\"}]}", call("GET", "/appointments?doctor=D1000", null));
+    }
+
+    /**
+     * Tests the error statuses of unknown IDs, routes, methods and bad parameters.
+     */
+    @Test
+    public void testErrors() throws IOException {
+        assertEquals("{\"error\":\"Patient not found.\"}", call("GET", "/patients/P4242", null));
+        assertEquals(404, status);
+        assertEquals(404, statusOf("GET", "/nothing"));
+        assertEquals(404, statusOf("DELETE", "/doctors/D1000"));
+        assertEquals(405, statusOf("PUT", "/doctors"));
+        assertEquals(400, statusOf("GET", "/doctors?limit=0"));
+        assertEquals(400, statusOf("POST", "/appointments"));
+    }
+
+    /**
+     * Tests that a request needs a known token and that the token's role
+     * decides what it may do.
+     */
+    @Test
+    public void testTokensAndRoles() throws IOException {
+        token = null;
+        assertEquals(401, statusOf("GET", "/doctors"));
+        token = "guessed";
+        assertEquals(401, statusOf("GET", "/doctors"));
+
+        token = PATIENT_TOKEN;
+        assertEquals(200, statusOf("GET", "/doctors"));
+        assertEquals(403, statusOf("POST", "/doctors"));
+        assertTrue(call("POST", "/roster", "doctor,Meera").contains("Access denied"));
+        assertEquals(403, status);
+
+        token = DOCTOR_TOKEN;
+        call("POST", "/doctors", "DrMeera\n");
+        assertEquals(201, status);
+        assertEquals(403, statusOf("DELETE", "/doctors/D1000"));
+        assertNotNull(system.findDoctorById("D1000"));
+
+        token = ADMIN_TOKEN;
+        assertEquals(405, statusOf("DELETE", "/journal"));
+        assertEquals(200, statusOf("DELETE", "/doctors/D1000"));
+    }
+
+    /**
+     * Tests that a roster is imported from the request body and that no
+     * file is read or left behind by name.
+     */
+    @Test
+    public void testRosterUpload() throws IOException {
+        String report = call("POST", "/roster", "role,name\ndoctor,Sushir Das\npatient,Ram\nnurse,Sita\n");
+        assertEquals(200, status);
+        assertTrue(report.startsWith("{\"rowsRead\":3,\"patientsImported\":1,\"doctorsImported\":1,"));
+        assertTrue(report.contains("\"line\":4"));
+        assertEquals("Sushir Das", system.findDoctorById("D1000").getName());
+        assertEquals(404, statusOf("POST", "/roster/etc"));
+    }
+
+    /**
+     * Tests that concurrent clients are all served and get distinct appointments.
+     */
+    @Test
+    public void testConcurrentClients() throws Exception {
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < 32; i++) {
+            names.append("Doctor ").append((char) ('a' + i % 26)).append((char) ('a' + i / 26)).append('\n');
+        }
+        call("POST", "/doctors", names.toString());
+        call("POST", "/patients", "Rahul Das");
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<String>> bookings = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            bookings.add(clients.submit((Callable<String>) this::book));
+        }
+        List<String> ids = new ArrayList<>();
+        for (Future<String> booking : bookings) {
+            String id = booking.get();
+            assertFalse(ids.contains(id));
+            ids.add(id);
+        }
+        clients.shutdown();
+        assertEquals(32, system.findAppointments(0, 100).getTotal());
+    }
+
+    /**
+     * Books a walk-in appointment for the first patient without touching
+     * the shared status, so it can run on many threads.
+     *
+     * @return the response body
+     */
+    private String book() throws IOException {
+        URL url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/appointments?patient=P1000");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Authorization", "Bearer " + PATIENT_TOKEN);
+        assertEquals(201, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[256];
+            int read = in.read(buffer);
+            return new String(buffer, 0, read, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Sends a request and returns only its status.
+     *
+     * @param method the HTTP method
+     * @param path   the path and query
+     * @return the status
+     */
+    private int statusOf(String method, String path) throws IOException {
+        call(method, path, null);
+        return status;
+    }
+}
\ No newline at end of file
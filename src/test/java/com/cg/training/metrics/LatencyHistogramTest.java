@@ -0,0 +1,67 @@
+package com.cg.training.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class tests the buckets and percentiles of the latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests that every value falls into a bucket whose range holds it and
+     * that the range is within about 3% of the value.
+     */
+    @Test
+    public void testBucketPrecision() {
+        for (long value = 0; value < 100000; value += 7) {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertTrue(value <= highest);
+            assertTrue(index == 0 || LatencyHistogram.highestValueOf(index - 1) < value);
+            assertTrue(highest - value <= value / 32);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(LatencyHistogram.HIGHEST_VALUE));
+        assertEquals(LatencyHistogram.HIGHEST_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.BUCKETS - 1));
+    }
+
+    /**
+     * Tests the count, mean, maximum and percentiles of 1 to 1000 ns.
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500, histogram.getValueAtPercentile(50), 500 / 32);
+        assertEquals(990, histogram.getValueAtPercentile(99), 990 / 32);
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+        assertTrue(histogram.getValueAtPercentile(50) >= 500);
+    }
+
+    /**
+     * Tests that huge values are capped to the last bucket and that reset
+     * forgets everything.
+     */
+    @Test
+    public void testOverflowAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+        assertEquals(2, histogram.getCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.HIGHEST_VALUE, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
\ No newline at end of file
@@ -4,6 +4,8 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.cg.training.service.AppointmentSystem;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -174,4 +176,20 @@ public class AdminTest {
         // The list should remain unchanged, still containing 3 doctors
         assertEquals(3, doctors.size());
     }
+
+    /**
+     * Test case for removing a doctor through the appointment system.
+     * This test checks that the doctor is removed from both the list and the ID index.
+     */
+    @Test
+    public void testRemoveDoctor_ThroughSystem() {
+        AppointmentSystem system = new AppointmentSystem();
+        system.registerDoctor("Ram");
+        system.registerDoctor("Laxman");
+
+        admin.removeDoctor(system, "D1000");
+
+        assertEquals(1, system.doctors.size());
+        assertNull(system.findDoctorById("D1000"));
+    }
 }
\ No newline at end of file
@@ -129,4 +129,76 @@ public class AppointmentTest {
         appointment.completeAppointment();
         appointmentSystem.completeAppointment(0); // Trying to complete again
     }
+
+    /**
+     * Tests that completed and cancelled are final states.
+     */
+    @Test
+    public void testStatusTransitions() {
+        assertTrue(AppointmentStatus.SCHEDULED.canMoveTo(AppointmentStatus.COMPLETED));
+        assertTrue(AppointmentStatus.SCHEDULED.canMoveTo(AppointmentStatus.CANCELLED));
+        assertFalse(AppointmentStatus.COMPLETED.canMoveTo(AppointmentStatus.CANCELLED));
+        assertFalse(AppointmentStatus.CANCELLED.canMoveTo(AppointmentStatus.COMPLETED));
+
+        appointment.completeAppointment();
+        try {
+            appointment.cancelAppointment();
+            fail("A completed appointment cannot be cancelled");
+        } catch (InvalidAppointmentException e) {
+            assertEquals("Appointment already completed.", e.getMessage());
+        }
+        assertSame(AppointmentStatus.COMPLETED, appointment.getAppointmentStatus());
+    }
+
+    /**
+     * Tests that a booked appointment gets an ID that cannot be changed.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAppointmentId() {
+        assertEquals("A0", appointment.getId());
+        assertNull(new Appointment(patient, doctor).getId());
+        appointment.assignIdNumber(5);
+    }
+
+    /**
+     * Tests that the details are rendered once and rendered again after completion.
+     */
+    @Test
+    public void testDetailsCachedUntilStatusChanges() {
+        String details = appointment.appointmentDetails();
+        assertSame(details, appointment.appointmentDetails());
+        assertTrue(details.endsWith("Status: Scheduled"));
+
+        appointment.completeAppointment();
+        String completed = appointment.appointmentDetails();
+        assertTrue(completed.endsWith("Status: Completed"));
+        assertSame(completed, appointment.appointmentDetails());
+    }
+
+    /**
+     * Tests that details are appended to a caller's buffer, including a slot's time.
+     */
+    @Test
+    public void testAppendDetails() {
+        StringBuilder out = new StringBuilder("1: ");
+        assertSame(out, appointment.appendDetails(out));
+        assertEquals("1: " + appointment.appointmentDetails(), out.toString());
+
+        SlottedAppointment slotted = new SlottedAppointment(patient, doctor, 0);
+        String details = slotted.appendDetails(new StringBuilder()).toString();
+        assertTrue(details.startsWith("Appointment: Patient["));
+        assertTrue(details.endsWith(" - Time: " + TimeSlots.format(0)));
+        assertSame(slotted.appointmentDetails(), slotted.appointmentDetails());
+    }
+
+    /**
+     * Tests the status enum before and after completing an appointment.
+     */
+    @Test
+    public void testGetAppointmentStatus() {
+        assertSame(AppointmentStatus.SCHEDULED, appointment.getAppointmentStatus());
+
+        appointment.completeAppointment();
+        assertSame(AppointmentStatus.COMPLETED, appointment.getAppointmentStatus());
+    }
 }
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.cg.training.models;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -64,4 +67,33 @@ public class DoctorTest {
         }
     }
 
+    /**
+     * Test the availability listener.
+     * It checks the listener is told only when the doctor becomes available again.
+     */
+    @Test
+    public void testAvailabilityListener() {
+        List<Doctor> notified = new ArrayList<>();
+        doctor.setAvailabilityListener(notified::add);
+
+        doctor.setAvailable(true);
+        assertTrue(notified.isEmpty());
+
+        doctor.setAvailable(false);
+        doctor.setAvailable(true);
+        assertEquals(1, notified.size());
+        assertSame(doctor, notified.get(0));
+    }
+
+    /**
+     * Test the tryReserve method.
+     * It checks that an available doctor can be reserved only once.
+     */
+    @Test
+    public void testTryReserve() {
+        assertTrue(doctor.tryReserve());
+        assertFalse(doctor.isAvailable());
+        assertFalse(doctor.tryReserve());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.cg.training.models;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class tests the NameValidator class and checks that it accepts
+ * exactly the names the original regular expression accepted.
+ */
+public class NameValidatorTest {
+
+    /** The expression names were validated with before. */
+    private static final String REGEX = "^[A-Za-z||A-Za-z\\s]+";
+
+    /**
+     * Tests some valid and invalid names.
+     */
+    @Test
+    public void testIsValid() {
+        assertTrue(NameValidator.isValid("Ram"));
+        assertTrue(NameValidator.isValid("Ram Kumar"));
+        assertFalse(NameValidator.isValid("123Ram"));
+        assertFalse(NameValidator.isValid("Ram-Kumar"));
+        assertFalse(NameValidator.isValid(""));
+    }
+
+    /**
+     * Tests that every single character is judged like the regular expression.
+     */
+    @Test
+    public void testEveryCharacterMatchesRegex() {
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            String name = "A" + c + "b";
+            assertEquals("character " + (int) c, name.matches(REGEX), NameValidator.isValid(name));
+        }
+    }
+
+    /**
+     * Tests that validate trims the name and rejects invalid ones.
+     */
+    @Test
+    public void testValidate() {
+        assertEquals("Ram", NameValidator.validate("  Ram "));
+        try {
+            NameValidator.validate("   ");
+            fail("A blank name should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertEquals(NameValidator.INVALID_NAME, e.getMessage());
+        }
+    }
+}
\ No newline at end of file
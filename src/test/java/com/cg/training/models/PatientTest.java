@@ -49,4 +49,39 @@ public class PatientTest {
             fail("showProfile should not throw any exception");
         }
     }
+
+    /**
+     * This test checks that a patient created from an ID number
+     * formats its ID with the patient tag.
+     */
+    @Test
+    public void testNumericConstructor_shouldFormatId() {
+        Patient numbered = new Patient(1001, "Ram");
+        assertEquals("P1001", numbered.getId());
+        assertEquals(1001, numbered.getIdNumber());
+        assertEquals(patient.getKey(), numbered.getKey());
+        assertEquals(User.parseKey("P1001"), numbered.getKey());
+    }
+
+    /**
+     * This test checks that IDs which are not one letter followed
+     * by a number cannot be parsed.
+     */
+    @Test
+    public void testParseKey_shouldRejectInvalidIds() {
+        assertEquals(-1, User.parseKey("1001"));
+        assertEquals(-1, User.parseKey("P"));
+        assertEquals(-1, User.parseKey("P01"));
+        assertEquals(-1, User.parseKey("P99999999999"));
+        assertEquals(-1, User.parseKey(null));
+        assertTrue(User.parseKey("P0") >= 0);
+    }
+
+    /**
+     * This test checks that an invalid ID is rejected by the constructor.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPatientConstructor_shouldRejectInvalidId() {
+        new Patient("P-1", "Ram");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.cg.training.models;
+
+import static org.junit.Assert.*;
+
+import java.time.LocalDateTime;
+
+import org.junit.Test;
+
+/**
+ * This class tests the mapping between time slots and clock times.
+ */
+public class TimeSlotsTest {
+
+    /**
+     * Tests that a time is rounded up to the next slot start.
+     */
+    @Test
+    public void testFirstSlotAtOrAfter() {
+        int nine = TimeSlots.firstSlotAtOrAfter(LocalDateTime.of(2024, 5, 1, 9, 0));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 9, 0), TimeSlots.startOf(nine));
+        assertEquals(nine, TimeSlots.firstSlotAtOrAfter(LocalDateTime.of(2024, 5, 1, 7, 15)));
+        assertEquals(nine + 1, TimeSlots.firstSlotAtOrAfter(LocalDateTime.of(2024, 5, 1, 9, 0, 1)));
+        assertEquals(nine + TimeSlots.SLOTS_PER_DAY,
+                TimeSlots.firstSlotAtOrAfter(LocalDateTime.of(2024, 5, 1, 16, 31)));
+    }
+
+    /**
+     * Tests the display format of a slot.
+     */
+    @Test
+    public void testFormat() {
+        int slot = TimeSlots.firstSlotAtOrAfter(LocalDateTime.of(2024, 5, 1, 10, 20));
+        assertEquals("2024-05-01 10:30", TimeSlots.format(slot));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.cg.training.security;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.cg.training.annotations.Security;
+import com.cg.training.dao.AppointmentSystemDAO;
+import com.cg.training.metrics.Operation;
+import com.cg.training.models.Admin;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Patient;
+import com.cg.training.service.AppointmentSystem;
+
+/**
+ * Tests for {@link SecurityPolicy}: how the {@link Security} annotations of
+ * a class and its interfaces are resolved and checked.
+ */
+public class SecurityPolicyTest {
+
+    /**
+     * A system that closes every operation to all but admins, except
+     * booking, which it opens to patients.
+     */
+    @Security(role = "Admin")
+    public static class LockedSystem extends AppointmentSystem {
+
+        /**
+         * Books a walk-in appointment.
+         *
+         * @param patient the patient
+         * @return the appointment
+         */
+        @Override
+        @Security(role = "Patient")
+        public Appointment bookAppointment(Patient patient) {
+            return super.bookAppointment(patient);
+        }
+    }
+
+    /**
+     * A system that opens doctor removal to doctors only, which the
+     * interface allows to admins only.
+     */
+    public static class ClosedSystem extends AppointmentSystem {
+
+        /**
+         * Removes a doctor.
+         *
+         * @param doctorId the ID of the doctor
+         */
+        @Override
+        @Security(role = "Doctor")
+        public void removeDoctor(String doctorId) {
+            super.removeDoctor(doctorId);
+        }
+    }
+
+    /**
+     * A system naming a role that does not exist.
+     */
+    @Security(role = "Janitor")
+    public static class MisconfiguredSystem extends AppointmentSystem {
+    }
+
+    /**
+     * Tests the roles declared on the DAO interface.
+     */
+    @Test
+    public void testInterfacePolicy() {
+        SecurityPolicy policy = SecurityPolicy.of(AppointmentSystem.class);
+        assertTrue(policy.allows(Operation.FIND_PATIENT_BY_ID, Role.PATIENT));
+        assertTrue(policy.allows(Operation.BOOK_TIME_SLOT, Role.PATIENT));
+        assertTrue(policy.allows(Operation.COMPLETE_APPOINTMENT, Role.DOCTOR));
+        assertTrue(policy.allows(Operation.COMPLETE_APPOINTMENT, Role.ADMIN));
+        assertFalse(policy.allows(Operation.COMPLETE_APPOINTMENT, Role.PATIENT));
+        assertFalse(policy.allows(Operation.REMOVE_DOCTORS, Role.DOCTOR));
+        assertSame(policy, SecurityPolicy.of(AppointmentSystem.class));
+    }
+
+    /**
+     * Tests that a method annotation wins over the type annotation of its own
+     * class, and that across the class and the interface the stricter one
+     * wins: the interface opening completion to doctors does not undo the
+     * class's lock to admins.
+     */
+    @Test
+    public void testStricterAnnotationWins() {
+        SecurityPolicy policy = SecurityPolicy.of(LockedSystem.class);
+        assertTrue(policy.allows(Operation.BOOK_APPOINTMENT, Role.PATIENT));
+        assertFalse(policy.allows(Operation.BOOK_APPOINTMENT, Role.ADMIN));
+        assertFalse(policy.allows(Operation.FIND_DOCTORS, Role.DOCTOR));
+        assertTrue(policy.allows(Operation.FIND_DOCTORS, Role.ADMIN));
+        assertFalse(policy.allows(Operation.COMPLETE_APPOINTMENT, Role.DOCTOR));
+        assertTrue(policy.allows(Operation.COMPLETE_APPOINTMENT, Role.ADMIN));
+    }
+
+    /**
+     * Tests that an operation whose annotations allow no common role is
+     * closed to everyone, and the messages of denied calls.
+     */
+    @Test
+    public void testClosedOperation() {
+        SecurityPolicy policy = SecurityPolicy.of(ClosedSystem.class);
+        for (Role role : Role.values()) {
+            assertFalse(policy.allows(Operation.REMOVE_DOCTOR, role));
+        }
+        try {
+            policy.check(Operation.REMOVE_DOCTOR, Role.ADMIN);
+            fail("Nobody may remove doctors");
+        } catch (SecurityException e) {
+            assertEquals("Access denied: removeDoctor is closed to every role, not Admin.", e.getMessage());
+        }
+        try {
+            SecurityPolicy.of(AppointmentSystem.class).check(Operation.COMPLETE_APPOINTMENTS, Role.PATIENT);
+            fail("A patient may not complete appointments");
+        } catch (SecurityException e) {
+            assertEquals("Access denied: completeAppointments requires role Admin or Doctor, not Patient.",
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Tests the message of a denied call.
+     */
+    @Test
+    public void testCheckDenies() {
+        SecurityPolicy policy = SecurityPolicy.of(AppointmentSystemDAO.class);
+        policy.check(Operation.REMOVE_DOCTOR, Role.ADMIN);
+        try {
+            policy.check(Operation.REMOVE_DOCTOR, Role.DOCTOR);
+            fail("A doctor may not remove doctors");
+        } catch (SecurityException e) {
+            assertEquals("Access denied: removeDoctor requires role Admin, not Doctor.", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests that an unknown role is reported when the policy is resolved.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRole() {
+        SecurityPolicy.of(MisconfiguredSystem.class);
+    }
+
+    /**
+     * Tests the role of each kind of user.
+     */
+    @Test
+    public void testRoleOfUser() {
+        assertSame(Role.ADMIN, Role.of(new Admin("A1", "Admin")));
+        assertSame(Role.PATIENT, Role.of(new Patient("P1000", "Ram")));
+        assertSame(Role.DOCTOR, Role.fromLabel("Doctor"));
+    }
+}
\ No newline at end of file
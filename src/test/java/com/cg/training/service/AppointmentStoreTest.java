@@ -0,0 +1,126 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.AppointmentStatus;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+
+/**
+ * This class tests the AppointmentStore: ended appointments move to segment
+ * files and are still found by ID, doctor and patient.
+ */
+public class AppointmentStoreTest {
+
+    private Path directory;
+    private AppointmentSystem system;
+    private AppointmentStore store;
+
+    /**
+     * Creates a system where one more walk-in than fits a segment has been
+     * completed, and a few are still scheduled.
+     */
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("archive");
+        system = new AppointmentSystem();
+        system.setEventSink(EventSink.DISCARD);
+        store = system.getAppointmentStore();
+        system.registerDoctor("DrMeera");
+        system.registerDoctor("DrSushir");
+        system.registerPatient("Ram");
+        Patient ram = system.findPatientById("P1000");
+        for (int i = 0; i <= AppointmentStore.SEGMENT_RECORDS; i++) {
+            system.completeAppointment(system.bookAppointment(ram).getIdNumber());
+        }
+        system.bookAppointment(ram);
+        system.bookAppointment(system.findPatientById("P1000"), LocalDateTime.of(2030, 1, 1, 9, 0));
+    }
+
+    /**
+     * Deletes the segment files.
+     */
+    @After
+    public void tearDown() throws IOException {
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    /**
+     * Tests that a full segment is archived and read back unchanged.
+     */
+    @Test
+    public void testArchiveAndReadBack() throws IOException {
+        String details = system.findAppointmentById("A5").appointmentDetails();
+        store.archiveTo(directory, 0);
+        assertEquals(AppointmentStore.SEGMENT_RECORDS + 1, store.getPendingCount());
+
+        assertEquals(AppointmentStore.SEGMENT_RECORDS, store.archiveEnded());
+        assertEquals(1, store.getPendingCount());
+        assertEquals(1, directory.toFile().listFiles().length);
+        assertNull(store.getResident(5));
+        assertNotNull(store.getResident(AppointmentStore.SEGMENT_RECORDS));
+
+        Appointment archived = system.findAppointmentById("A5");
+        assertEquals(details, archived.appointmentDetails());
+        assertEquals("A5", archived.getId());
+        assertSame(system.findPatientById("P1000"), archived.patient);
+        assertEquals(AppointmentStore.SEGMENT_RECORDS + 3, system.findAppointmentsByPatientId("P1000", 0, 5).getTotal());
+        assertEquals(AppointmentStatus.COMPLETED, system.getAppointment(0).getAppointmentStatus());
+    }
+
+    /**
+     * Tests that rebuilding archived walk-ins leaves the doctors alone and
+     * that archived appointments can no longer be completed.
+     */
+    @Test
+    public void testArchivedAppointmentsDoNotChangeDoctors() throws IOException {
+        store.archiveTo(directory, 0);
+        store.archiveEnded();
+        Doctor busy = system.getAppointment(AppointmentStore.SEGMENT_RECORDS + 1).doctor;
+        assertFalse(busy.isAvailable());
+        for (int i = 0; i < AppointmentStore.SEGMENT_RECORDS; i++) {
+            system.getAppointment(i);
+        }
+        assertFalse(busy.isAvailable());
+        assertEquals(0, system.completeAppointments(Arrays.asList("A0", "A1")));
+    }
+
+    /**
+     * Tests that removing a doctor only cancels appointments still on the
+     * heap, and that a snapshot includes the archived ones.
+     */
+    @Test
+    public void testRemoveDoctorAndSnapshotAfterArchiving() throws IOException {
+        store.archiveTo(directory, 0);
+        store.archiveEnded();
+        system.removeDoctors(Arrays.asList("D1000", "D1001"));
+        assertEquals(AppointmentStatus.CANCELLED,
+                system.getAppointment(AppointmentStore.SEGMENT_RECORDS + 1).getAppointmentStatus());
+
+        File snapshot = File.createTempFile("appointments", ".snapshot");
+        try {
+            system.saveSnapshot(snapshot.getPath());
+            AppointmentSystem restored = new AppointmentSystem(snapshot.getPath(), null);
+            assertEquals(AppointmentStore.SEGMENT_RECORDS + 3, restored.appointments.size());
+            assertEquals(AppointmentStatus.COMPLETED, restored.getAppointment(7).getAppointmentStatus());
+        } finally {
+            snapshot.delete();
+        }
+    }
+}
\ No newline at end of file
@@ -1,15 +1,30 @@
 package com.cg.training.service;
 
+import com.cg.training.dao.AppointmentJournal;
+import com.cg.training.events.EventType;
 import com.cg.training.exceptions.InvalidAppointmentException;
 import com.cg.training.models.Appointment;
+import com.cg.training.models.AppointmentStatus;
 import com.cg.training.models.Doctor;
+import com.cg.training.models.ImportReport;
+import com.cg.training.models.Page;
 import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.SlottedAppointment;
+import com.cg.training.models.TimeSlots;
+import com.cg.training.models.User;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -210,4 +225,599 @@ public class AppointmentSystemTest {
 
         system.showAppointmentsByPatientId("P1000"); // Patient ID should match
     }
+
+    /**
+     * Tests that registered doctors can be found by ID through the doctor index.
+     */
+    @Test
+    public void testFindDoctorById() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+
+        assertSame(system.doctors.get(1), system.findDoctorById("D1001"));
+        assertNull(system.findDoctorById("D9999"));
+    }
+
+    /**
+     * Tests that removing a doctor through the system also removes it from the index.
+     */
+    @Test
+    public void testRemoveDoctorUpdatesIndex() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+
+        system.removeDoctor("D1000");
+
+        assertEquals(1, system.doctors.size());
+        assertNull(system.findDoctorById("D1000"));
+        assertNotNull(system.findDoctorById("D1001"));
+    }
+
+    /**
+     * Tests that removing a doctor cancels the doctor's scheduled appointments,
+     * keeps completed ones, and that a cancelled appointment cannot be completed.
+     */
+    @Test
+    public void testRemoveDoctorCancelsScheduledAppointments() {
+        system.registerDoctor("DrSushir");
+        Patient patient = new Patient("P2000", "Ram");
+        system.bookAppointment(patient);
+        system.completeAppointment(0);
+        system.bookAppointment(patient);
+        system.bookAppointment(patient, LocalDateTime.of(2030, 1, 7, 9, 0));
+        system.registerDoctor("DrMeera");
+
+        system.removeDoctor("D1000");
+
+        assertEquals(AppointmentStatus.COMPLETED, system.appointments.get(0).getAppointmentStatus());
+        assertEquals(AppointmentStatus.CANCELLED, system.appointments.get(1).getAppointmentStatus());
+        assertEquals(AppointmentStatus.CANCELLED, system.appointments.get(2).getAppointmentStatus());
+        system.completeAppointment(1);
+        assertEquals(AppointmentStatus.CANCELLED, system.appointments.get(1).getAppointmentStatus());
+        assertEquals("D1001", system.bookAppointment(patient, LocalDateTime.of(2030, 1, 7, 9, 0)).doctor.getId());
+    }
+
+    /**
+     * Tests removing many doctors in one call, skipping unknown IDs, and that
+     * the journal replays the removals and cancellations.
+     */
+    @Test
+    public void testRemoveDoctorsInBulk() throws IOException {
+        File file = File.createTempFile("appointments", ".journal");
+        file.delete();
+        try {
+            AppointmentSystem first = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            first.registerDoctors(Arrays.asList("DrA", "DrB", "DrC", "DrD", "DrE"));
+            Patient patient = new Patient("P2000", "Ram");
+            first.bookAppointment(patient);
+            first.bookAppointment(patient);
+
+            assertEquals(3, first.removeDoctors(Arrays.asList("D1000", "D1002", "D1003", "D9999", "bogus")));
+
+            assertEquals(2, first.doctors.size());
+            assertEquals("D1001", first.doctors.get(0).getId());
+            assertEquals("D1004", first.doctors.get(1).getId());
+            assertEquals("D1004", first.findDoctors(1, 10).getItems().get(0).getId());
+            assertEquals(AppointmentStatus.CANCELLED, first.appointments.get(0).getAppointmentStatus());
+            assertEquals(AppointmentStatus.SCHEDULED, first.appointments.get(1).getAppointmentStatus());
+            first.saveAppointmentsToFile();
+
+            AppointmentSystem second = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            assertEquals(2, second.doctors.size());
+            assertNull(second.findDoctorById("D1002"));
+            assertEquals(AppointmentStatus.CANCELLED, second.appointments.get(0).getAppointmentStatus());
+            assertEquals(AppointmentStatus.SCHEDULED, second.appointments.get(1).getAppointmentStatus());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that appointments get stable IDs and are found by them.
+     */
+    @Test
+    public void testFindAppointmentById() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        Appointment first = system.bookAppointment(new Patient("P2000", "Ram"));
+        SlottedAppointment second = system.bookAppointment(new Patient("P2001", "Sita"), LocalDateTime.of(2030, 1, 7, 9, 0));
+
+        assertEquals("A0", first.getId());
+        assertEquals("A1", second.getId());
+        assertSame(first, system.findAppointmentById("A0"));
+        assertSame(second, system.findAppointmentById("A1"));
+        assertNull(system.findAppointmentById("A2"));
+        assertNull(system.findAppointmentById("D1000"));
+        assertNull(system.findAppointmentById("bogus"));
+        assertNull(system.findAppointmentById(null));
+    }
+
+    /**
+     * Tests completing many appointments by ID in one call, skipping unknown
+     * and already completed ones, and that the journal replays them.
+     */
+    @Test
+    public void testCompleteAppointmentsInBulk() throws IOException {
+        File file = File.createTempFile("appointments", ".journal");
+        file.delete();
+        try {
+            AppointmentSystem first = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            first.registerDoctors(Arrays.asList("DrA", "DrB", "DrC"));
+            Patient patient = new Patient("P2000", "Ram");
+            for (int i = 0; i < 3; i++) {
+                first.bookAppointment(patient);
+            }
+            first.completeAppointment(1);
+
+            assertEquals(2, first.completeAppointments(Arrays.asList("A0", "A1", "A2", "A9", "bogus")));
+            assertEquals(0, first.completeAppointments(Arrays.asList("A0")));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(AppointmentStatus.COMPLETED, first.appointments.get(i).getAppointmentStatus());
+            }
+            assertEquals(3, first.availableDoctorCount());
+            first.saveAppointmentsToFile();
+
+            AppointmentSystem second = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            assertEquals("A2", second.appointments.get(2).getId());
+            assertEquals(AppointmentStatus.COMPLETED, second.findAppointmentById("A2").getAppointmentStatus());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that booked appointments are indexed by doctor ID and patient ID.
+     */
+    @Test
+    public void testAppointmentsIndexedByDoctorAndPatient() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        system.registerPatient("Ram");
+        system.registerPatient("Sita");
+
+        Patient ram = system.findPatientById("P1000");
+        Patient sita = system.findPatientById("P1001");
+        system.bookAppointment(ram);
+        system.bookAppointment(sita);
+        system.completeAppointment(0);
+        system.bookAppointment(ram);
+
+        assertEquals(Arrays.asList(0, 2), system.appointmentsByDoctorId.get(User.parseKey("D1000")));
+        assertEquals(Arrays.asList(1), system.appointmentsByDoctorId.get(User.parseKey("D1001")));
+        assertEquals(Arrays.asList(0, 2), system.appointmentsByPatientId.get(User.parseKey("P1000")));
+        assertEquals(Arrays.asList(1), system.appointmentsByPatientId.get(User.parseKey("P1001")));
+    }
+
+    /**
+     * Tests that a system rebuilt from its journal has the same patients,
+     * doctors, appointments and ID counters as the one that wrote it.
+     */
+    @Test
+    public void testJournalReplayRestoresState() throws IOException {
+        File file = File.createTempFile("appointments", ".journal");
+        file.delete();
+        try {
+            AppointmentSystem first = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            first.registerDoctor("DrSushir");
+            first.registerDoctor("DrMeera");
+            first.registerPatient("Ram");
+            first.bookAppointment(first.findPatientById("P1000"));
+            first.bookAppointment(new Patient("P5000", "Sita"));
+            first.completeAppointment(0);
+            first.removeDoctor("D1001");
+            first.saveAppointmentsToFile();
+
+            AppointmentSystem second = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            assertEquals(1, second.doctors.size());
+            assertNull(second.findDoctorById("D1001"));
+            assertEquals("Ram", second.findPatientById("P1000").getName());
+            assertEquals(2, second.appointments.size());
+            assertEquals("Completed", second.appointments.get(0).getStatus());
+            assertEquals("Sita", second.appointments.get(1).patient.getName());
+            assertTrue(second.findDoctorById("D1000").isAvailable());
+
+            second.registerPatient("Laxman");
+            assertNotNull(second.findPatientById("P1001"));
+            second.registerDoctor("DrRay");
+            assertNotNull(second.findDoctorById("D1002"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that completions and cancellations are journaled by appointment
+     * ID, and that a booking journaled after its doctor's removal is
+     * replayed as cancelled without moving later records onto another
+     * appointment.
+     */
+    @Test
+    public void testJournalNamesAppointmentsById() throws IOException {
+        File file = File.createTempFile("appointments", ".journal");
+        file.delete();
+        try {
+            AppointmentSystem first = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            first.registerDoctor("DrSushir");
+            first.registerDoctor("DrMeera");
+            first.bookAppointment(new Patient("P5000", "Sita"));
+            first.bookAppointment(new Patient("P5001", "Gita"));
+            first.completeAppointment(1);
+            first.removeDoctor("D1000");
+            first.saveAppointmentsToFile();
+            List<String> lines = Files.readAllLines(file.toPath());
+            assertTrue(lines.contains("C,A1"));
+            assertTrue(lines.contains("X,A0"));
+
+            Files.write(file.toPath(), Arrays.asList("D,D1000,DrSushir", "D,D1001,DrMeera", "R,D1000",
+                    "B,P5000,Sita,D1000,A0", "B,P5001,Gita,D1001,A1", "C,A1"));
+            AppointmentSystem second = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            assertNotNull(second.getJournal());
+            assertEquals(AppointmentStatus.CANCELLED, second.appointments.get(0).getAppointmentStatus());
+            assertEquals(AppointmentStatus.COMPLETED, second.appointments.get(1).getAppointmentStatus());
+            assertTrue(second.findDoctorById("D1001").isAvailable());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that replay stops at a record that cannot be applied instead of
+     * skipping it, and that nothing more is appended to that journal.
+     */
+    @Test
+    public void testCorruptJournalStopsReplay() throws IOException {
+        File file = File.createTempFile("appointments", ".journal");
+        try {
+            List<String> records = Arrays.asList("D,D1000,DrSushir", "R,D1005", "P,P1000,Ram");
+            Files.write(file.toPath(), records);
+            AppointmentSystem restored = new AppointmentSystem(new AppointmentJournal(file.getPath()));
+            assertNull(restored.getJournal());
+            assertEquals(1, restored.doctors.size());
+            assertNull(restored.findPatientById("P1000"));
+
+            restored.registerPatient("Sita");
+            restored.saveAppointmentsToFile();
+            assertEquals(records, Files.readAllLines(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that booking skips busy doctors and reuses a doctor once
+     * their appointment is completed.
+     */
+    @Test
+    public void testBookingUsesAvailableDoctorPool() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        Patient patient = new Patient("P2000", "Ram");
+
+        assertEquals("D1000", system.bookAppointment(patient).doctor.getId());
+        assertEquals("D1001", system.bookAppointment(patient).doctor.getId());
+        assertNull(system.bookAppointment(patient));
+
+        system.completeAppointment(1);
+        assertEquals("D1001", system.bookAppointment(patient).doctor.getId());
+    }
+
+    /**
+     * Tests that a removed doctor is never booked, even after becoming available.
+     */
+    @Test
+    public void testRemovedDoctorIsNotBooked() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        system.removeDoctor("D1000");
+
+        Appointment appointment = system.bookAppointment(new Patient("P2000", "Ram"));
+        assertEquals("D1001", appointment.doctor.getId());
+        assertNull(system.bookAppointment(new Patient("P2001", "Sita")));
+    }
+
+    /**
+     * Tests that a binary snapshot restores patients, doctors, appointments,
+     * doctor availability and the ID counters, and that the journal written
+     * before the snapshot is cleared.
+     */
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        File snapshot = File.createTempFile("appointments", ".snapshot");
+        File journalFile = File.createTempFile("appointments", ".journal");
+        journalFile.delete();
+        try {
+            AppointmentSystem first = new AppointmentSystem(snapshot.getPath() + ".missing",
+                    new AppointmentJournal(journalFile.getPath()));
+            first.registerDoctor("DrSushir");
+            first.registerDoctor("DrMeera");
+            first.registerDoctor("DrRay");
+            first.registerPatient("Ram");
+            first.bookAppointment(first.findPatientById("P1000"));
+            first.bookAppointment(new Patient("P5000", "Sita"));
+            first.completeAppointment(0);
+            first.removeDoctor("D1001");
+            first.findDoctorById("D1002").setAvailable(false);
+            first.saveSnapshot(snapshot.getPath());
+            assertEquals(0, journalFile.length());
+
+            AppointmentSystem second = new AppointmentSystem(snapshot.getPath(),
+                    new AppointmentJournal(journalFile.getPath()));
+            assertEquals(2, second.doctors.size());
+            assertNull(second.findDoctorById("D1001"));
+            assertEquals("Ram", second.findPatientById("P1000").getName());
+            assertEquals(2, second.appointments.size());
+            assertEquals("Completed", second.appointments.get(0).getStatus());
+            assertSame(second.findPatientById("P1000"), second.appointments.get(0).patient);
+            assertEquals("Sita", second.appointments.get(1).patient.getName());
+            assertEquals("Cancelled", second.appointments.get(1).getStatus());
+            assertEquals("D1001", second.appointments.get(1).doctor.getId());
+            assertTrue(second.findDoctorById("D1000").isAvailable());
+            assertFalse(second.findDoctorById("D1002").isAvailable());
+
+            second.registerPatient("Laxman");
+            assertNotNull(second.findPatientById("P1001"));
+            assertEquals("D1000", second.bookAppointment(new Patient("P6000", "Bharat")).doctor.getId());
+        } finally {
+            snapshot.delete();
+            journalFile.delete();
+        }
+    }
+
+    /**
+     * Tests that bulk patient registration assigns contiguous IDs, reports
+     * invalid rows and leaves their reserved IDs unused.
+     */
+    @Test
+    public void testRegisterPatientsInBulk() {
+        RegistrationResult result = system.registerPatients(Arrays.asList("Ram", "123Ram", "Sita", null));
+
+        assertEquals(2, result.getRegisteredCount());
+        assertEquals(2, result.getRejectedCount());
+        assertEquals(Arrays.asList("P1000", "P1002"), result.getAssignedIds());
+        assertNull(result.getId(1));
+        assertEquals(Arrays.asList(1, 3), new ArrayList<>(result.getErrors().keySet()));
+        assertEquals("Sita", system.findPatientById("P1002").getName());
+        assertEquals(2, system.patients.size());
+
+        system.registerPatient("Laxman");
+        assertNotNull(system.findPatientById("P1004"));
+    }
+
+    /**
+     * Tests that doctors registered in bulk are indexed and can be booked.
+     */
+    @Test
+    public void testRegisterDoctorsInBulk() {
+        RegistrationResult result = system.registerDoctors(Arrays.asList("DrSushir", "DrMeera"));
+
+        assertEquals(Arrays.asList("D1000", "D1001"), result.getAssignedIds());
+        assertEquals(2, system.doctors.size());
+        assertSame(system.doctors.get(1), system.findDoctorById("D1001"));
+        assertEquals("D1000", system.bookAppointment(new Patient("P2000", "Ram")).doctor.getId());
+        assertEquals("D1001", system.bookAppointment(new Patient("P2001", "Sita")).doctor.getId());
+    }
+
+    /**
+     * Tests that a doctor's appointments are returned one page at a time.
+     */
+    @Test
+    public void testFindAppointmentsByDoctorIdPaged() {
+        system.registerDoctor("DrSushir");
+        Doctor doctor = system.findDoctorById("D1000");
+        for (int i = 0; i < 5; i++) {
+            system.bookAppointment(new Patient("P" + (2000 + i), "Ram"));
+            system.completeAppointment(i);
+        }
+
+        Page<Integer> first = system.findAppointmentsByDoctorId("D1000", 0, 2);
+        assertEquals(Arrays.asList(0, 1), first.getItems());
+        assertEquals(5, first.getTotal());
+        assertTrue(first.hasNext());
+
+        Page<Integer> last = system.findAppointmentsByDoctorId("D1000", 4, 2);
+        assertEquals(Arrays.asList(4), last.getItems());
+        assertFalse(last.hasNext());
+        assertSame(doctor, system.getAppointment(last.getItems().get(0)).doctor);
+
+        assertTrue(system.findAppointmentsByDoctorId("D1000", 9, 2).getItems().isEmpty());
+        assertEquals(0, system.findAppointmentsByDoctorId("D9999", 0, 2).getTotal());
+        assertEquals(Arrays.asList(3, 4), system.findAppointments(3, 10).getItems());
+    }
+
+    /**
+     * Tests paging through the doctors and the patient query.
+     */
+    @Test
+    public void testFindDoctorsAndPatientAppointmentsPaged() {
+        system.registerDoctors(Arrays.asList("DrSushir", "DrMeera", "DrAsha"));
+        Patient patient = new Patient("P2000", "Ram");
+        system.bookAppointment(patient);
+
+        Page<Doctor> doctors = system.findDoctors(1, 5);
+        assertEquals(2, doctors.getItems().size());
+        assertEquals("D1001", doctors.getItems().get(0).getId());
+        assertEquals(3, doctors.getTotal());
+
+        assertEquals(Arrays.asList(0), system.findAppointmentsByPatientId("P2000", 0, 5).getItems());
+        assertNull(system.getAppointment(1));
+    }
+
+    /**
+     * Tests that a negative offset is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFindAppointmentsInvalidPage() {
+        system.findAppointments(-1, 10);
+    }
+
+    /**
+     * Tests that users with the same name share one name instance when
+     * interning is switched on, and that rejected names are not pooled.
+     */
+    @Test
+    public void testNameInterning() {
+        AppointmentSystem interning = new AppointmentSystem(true);
+        interning.registerPatient(new String("Ram"));
+        interning.registerPatient(new String(" Ram "));
+        interning.registerDoctor(new String("Ram"));
+        interning.registerPatient("123Ram");
+
+        assertSame(interning.patients.get(0).getName(), interning.patients.get(1).getName());
+        assertSame(interning.patients.get(0).getName(), interning.doctors.get(0).getName());
+        assertEquals(2, interning.patients.size());
+
+        system.registerPatient(new String("Ram"));
+        system.registerPatient(new String("Ram"));
+        assertNotSame(system.patients.get(0).getName(), system.patients.get(1).getName());
+    }
+
+    /**
+     * Tests importing a CSV roster with valid and invalid rows.
+     */
+    @Test
+    public void testImportRoster() throws IOException {
+        File roster = File.createTempFile("roster", ".csv");
+        File rejects = new File(roster.getPath() + ".rejects.csv");
+        try {
+            Files.write(roster.toPath(), Arrays.asList("role,name", "patient,Ram", "Doctor, \"Sushir Das\" ", "",
+                    "patient,123Ram", "nurse,Sita", "P,Sita", "no comma"));
+
+            ImportReport report = system.importRoster(roster.getPath());
+
+            assertEquals(6, report.getRowsRead());
+            assertEquals(2, report.getPatientsImported());
+            assertEquals(1, report.getDoctorsImported());
+            assertEquals(3, report.getRejects().size());
+            assertEquals(5, report.getRejects().get(0).getLine());
+            assertEquals("nurse,Sita", report.getRejects().get(1).getRow());
+            assertEquals(8, report.getRejects().get(2).getLine());
+            assertEquals("Sushir Das", system.doctors.get(0).getName());
+            assertEquals(2, system.patients.size());
+            assertEquals(4, Files.readAllLines(rejects.toPath()).size());
+        } finally {
+            roster.delete();
+            rejects.delete();
+        }
+    }
+
+    /**
+     * Tests that slotted bookings fill the earliest slots across doctors
+     * and leave the doctors available for walk-ins.
+     */
+    @Test
+    public void testBookEarliestTimeSlot() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        Patient patient = new Patient("P2000", "Ram");
+        LocalDateTime morning = LocalDateTime.of(2030, 5, 1, 8, 0);
+        int nine = TimeSlots.firstSlotAtOrAfter(morning);
+
+        SlottedAppointment first = system.bookAppointment(patient, morning);
+        SlottedAppointment second = system.bookAppointment(patient, morning);
+        SlottedAppointment third = system.bookAppointment(patient, morning);
+
+        assertEquals(nine, first.getSlot());
+        assertEquals("D1000", first.doctor.getId());
+        assertEquals(nine, second.getSlot());
+        assertEquals("D1001", second.doctor.getId());
+        assertEquals(nine + 1, third.getSlot());
+        assertTrue(system.findDoctorById("D1000").isAvailable());
+        assertTrue(first.appointmentDetails().endsWith("Time: 2030-05-01 09:00"));
+        assertEquals(3, system.findAppointmentsByPatientId("P2000", 0, 10).getTotal());
+
+        system.completeAppointment(0);
+        assertEquals("Completed", first.getStatus());
+        assertTrue(system.findDoctorById("D1000").isAvailable());
+    }
+
+    /**
+     * Tests that a booking far in the future does not stop a later booking
+     * from taking a free slot in the near future.
+     */
+    @Test
+    public void testNearSlotAfterFarBooking() {
+        system.registerDoctor("DrSushir");
+        Patient patient = new Patient("P2000", "Ram");
+        LocalDateTime far = LocalDateTime.of(2030, 1, 1, 9, 0);
+        LocalDateTime near = LocalDateTime.now().plusDays(2);
+
+        assertEquals(TimeSlots.firstSlotAtOrAfter(far), system.bookAppointment(patient, far).getSlot());
+        assertEquals(TimeSlots.firstSlotAtOrAfter(near), system.bookAppointment(patient, near).getSlot());
+        assertEquals(TimeSlots.firstSlotAtOrAfter(far) + 1, system.bookAppointment(patient, far).getSlot());
+    }
+
+    /**
+     * Tests that slotted bookings fail without doctors and skip removed doctors.
+     */
+    @Test
+    public void testBookTimeSlotWithoutDoctors() {
+        Patient patient = new Patient("P2000", "Ram");
+        assertNull(system.bookAppointment(patient, LocalDateTime.of(2030, 5, 1, 8, 0)));
+
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        system.removeDoctor("D1000");
+        assertEquals("D1001", system.bookAppointment(patient, LocalDateTime.of(2030, 5, 1, 8, 0)).doctor.getId());
+    }
+
+    /**
+     * Tests that the journal and the snapshot keep booked time slots.
+     */
+    @Test
+    public void testTimeSlotsSurviveRestart() throws IOException {
+        File snapshot = File.createTempFile("appointments", ".snapshot");
+        File journalFile = File.createTempFile("appointments", ".journal");
+        journalFile.delete();
+        LocalDateTime morning = LocalDateTime.of(2030, 5, 1, 8, 0);
+        int nine = TimeSlots.firstSlotAtOrAfter(morning);
+        try {
+            AppointmentSystem first = new AppointmentSystem(snapshot.getPath() + ".missing",
+                    new AppointmentJournal(journalFile.getPath()));
+            first.registerDoctor("DrSushir");
+            first.registerPatient("Ram");
+            first.bookAppointment(first.findPatientById("P1000"), morning);
+            first.completeAppointment(0);
+            first.saveAppointmentsToFile();
+
+            AppointmentSystem replayed = new AppointmentSystem(snapshot.getPath() + ".missing",
+                    new AppointmentJournal(journalFile.getPath()));
+            SlottedAppointment restored = (SlottedAppointment) replayed.appointments.get(0);
+            assertEquals(nine, restored.getSlot());
+            assertEquals("Completed", restored.getStatus());
+            replayed.bookAppointment(replayed.findPatientById("P1000"), morning);
+            replayed.saveSnapshot(snapshot.getPath());
+
+            AppointmentSystem second = new AppointmentSystem(snapshot.getPath(),
+                    new AppointmentJournal(journalFile.getPath()));
+            assertEquals(nine, ((SlottedAppointment) second.appointments.get(0)).getSlot());
+            assertEquals("Completed", second.appointments.get(0).getStatus());
+            assertEquals(nine + 1, ((SlottedAppointment) second.appointments.get(1)).getSlot());
+            assertEquals(nine + 2, second.bookAppointment(second.findPatientById("P1000"), morning).getSlot());
+        } finally {
+            snapshot.delete();
+            journalFile.delete();
+        }
+    }
+
+    /**
+     * Tests that changes are reported to the event sink instead of printed.
+     */
+    @Test
+    public void testEventsAreReportedToSink() {
+        List<EventType> types = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        system.setEventSink((type, subject, value, value2, text) -> {
+            types.add(type);
+            values.add(value);
+        });
+        system.registerDoctor("DrSushir");
+        system.registerPatient("123Ram");
+        system.bookAppointment(new Patient("P2000", "Ram"));
+        system.completeAppointment(0);
+        system.completeAppointment(0);
+
+        assertEquals(Arrays.asList(EventType.DOCTOR_REGISTERED, EventType.ERROR, EventType.APPOINTMENT_BOOKED,
+                EventType.APPOINTMENT_COMPLETED, EventType.ERROR), types);
+        assertEquals(Long.valueOf(0), values.get(2));
+    }
 }
\ No newline at end of file
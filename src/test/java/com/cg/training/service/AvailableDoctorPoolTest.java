@@ -0,0 +1,75 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * This class tests the AvailableDoctorPool to make sure doctors are handed
+ * out in the order they became available and that stale entries are skipped.
+ */
+public class AvailableDoctorPoolTest {
+
+    private AvailableDoctorPool pool;
+    private Doctor ram;
+    private Doctor sita;
+
+    /**
+     * Creates a pool holding two available doctors before each test.
+     */
+    @Before
+    public void setUp() {
+        pool = new AvailableDoctorPool();
+        ram = new Doctor("D1000", "Ram");
+        sita = new Doctor("D1001", "Sita");
+        ram.setAvailabilityListener(pool::offer);
+        sita.setAvailabilityListener(pool::offer);
+        pool.offer(ram);
+        pool.offer(sita);
+    }
+
+    /**
+     * Tests that doctors are claimed in the order they became available.
+     */
+    @Test
+    public void testClaimInOrder() {
+        assertSame(ram, pool.claim(d -> true));
+        assertSame(sita, pool.claim(d -> true));
+        assertNull(pool.claim(d -> true));
+        assertFalse(ram.isAvailable());
+    }
+
+    /**
+     * Tests that a doctor marked unavailable elsewhere is dropped from the pool.
+     */
+    @Test
+    public void testStaleEntryIsSkipped() {
+        ram.setAvailable(false);
+        assertSame(sita, pool.claim(d -> true));
+        assertEquals(0, pool.size());
+    }
+
+    /**
+     * Tests that a doctor who becomes available again is returned to the pool.
+     */
+    @Test
+    public void testDoctorReturnsWhenAvailableAgain() {
+        assertSame(ram, pool.claim(d -> true));
+        assertSame(sita, pool.claim(d -> true));
+        ram.setAvailable(true);
+        assertSame(ram, pool.claim(d -> true));
+    }
+
+    /**
+     * Tests that doctors rejected by the predicate are never claimed.
+     */
+    @Test
+    public void testUnregisteredDoctorIsDropped() {
+        assertSame(sita, pool.claim(d -> d != ram));
+        assertTrue(ram.isAvailable());
+        assertNull(pool.claim(d -> true));
+    }
+}
@@ -0,0 +1,103 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * This class tests the ConcurrentAppendList used by the appointment system
+ * for single threaded and multi threaded appends.
+ */
+public class ConcurrentAppendListTest {
+
+    /**
+     * Tests that elements are stored and read back across several segments.
+     */
+    @Test
+    public void testAppendAndGetAcrossSegments() {
+        ConcurrentAppendList<Integer> list = new ConcurrentAppendList<>();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, list.append(i, null));
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), list.get(i));
+        }
+    }
+
+    /**
+     * Tests that reading past the visible size throws an exception.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        ConcurrentAppendList<String> list = new ConcurrentAppendList<>();
+        list.add("Ram");
+        list.get(1);
+    }
+
+    /**
+     * Tests that a failed append does not block the appends after it.
+     */
+    @Test(timeout = 5_000)
+    public void testFailedAppendDoesNotBlock() {
+        ConcurrentAppendList<String> list = new ConcurrentAppendList<>();
+        try {
+            list.append(null, null);
+            fail("Expected a null element to be rejected");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            list.append("Ram", index -> {
+                throw new IllegalStateException("log failed");
+            });
+            fail("Expected the callback error");
+        } catch (IllegalStateException e) {
+            assertEquals("log failed", e.getMessage());
+        }
+        assertEquals(1, list.append("Sita", null));
+        assertEquals(2, list.size());
+    }
+
+    /**
+     * Tests that concurrent appends lose nothing and that the in-order
+     * callback sees every index exactly once, in increasing order.
+     */
+    @Test
+    public void testConcurrentAppendsAreOrdered() throws InterruptedException {
+        final ConcurrentAppendList<Integer> list = new ConcurrentAppendList<>();
+        final List<Integer> published = new ArrayList<>();
+        final int threads = 8;
+        final int perThread = 20_000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    list.append(i, published::add);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, list.size());
+        assertEquals(threads * perThread, published.size());
+        for (int i = 0; i < published.size(); i++) {
+            assertEquals(Integer.valueOf(i), published.get(i));
+            assertNotNull(list.get(i));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Patient;
+
+/**
+ * Multi-threaded stress test for bookAppointment.
+ * <p>
+ * Many threads book and complete appointments against a small pool of doctors
+ * at the same time. Every thread tracks how many open appointments each doctor
+ * has; if a doctor were ever handed to two patients at once the count would
+ * reach two and the test fails.
+ * </p>
+ */
+public class ConcurrentBookingStressTest {
+
+    private static final int THREADS = 8;
+    private static final int DOCTORS = 16;
+    private static final int ROUNDS = 20_000;
+
+    private PrintStream console;
+
+    /**
+     * Silences the service's console output while the threads run.
+     */
+    @Before
+    public void silenceConsole() {
+        console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+    }
+
+    /**
+     * Restores the console after the test.
+     */
+    @After
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    /**
+     * Tests that no doctor is ever double-booked and that no booking is lost.
+     */
+    @Test
+    public void testNoDoctorIsDoubleBooked() throws InterruptedException {
+        final AppointmentSystem system = new AppointmentSystem();
+        for (int i = 0; i < DOCTORS; i++) {
+            system.registerDoctor("Doctor");
+        }
+        final AtomicIntegerArray open = new AtomicIntegerArray(DOCTORS);
+        final AtomicInteger booked = new AtomicInteger();
+        final AtomicInteger doubleBooked = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] workers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final Patient patient = new Patient("P" + (5000 + t), "Patient");
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ROUNDS; i++) {
+                    Appointment appointment = system.bookAppointment(patient);
+                    if (appointment == null) {
+                        continue;
+                    }
+                    booked.incrementAndGet();
+                    int doctor = Integer.parseInt(appointment.doctor.getId().substring(1)) - 1000;
+                    if (open.incrementAndGet(doctor) != 1) {
+                        doubleBooked.incrementAndGet();
+                    }
+                    open.decrementAndGet(doctor);
+                    appointment.completeAppointment();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals("A doctor was given to two patients at once", 0, doubleBooked.get());
+        assertEquals(booked.get(), system.appointments.size());
+
+        Set<Appointment> distinct = new HashSet<>(system.appointments);
+        assertEquals(booked.get(), distinct.size());
+
+        int indexed = 0;
+        for (List<Integer> positions : system.appointmentsByDoctorId.values()) {
+            indexed += positions.size();
+        }
+        assertEquals(booked.get(), indexed);
+    }
+}
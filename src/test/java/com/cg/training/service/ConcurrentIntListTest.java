@@ -0,0 +1,78 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * This class tests the ConcurrentIntList used for the per-doctor and
+ * per-patient appointment positions.
+ */
+public class ConcurrentIntListTest {
+
+    /**
+     * Tests that values are stored and read back across several segments.
+     */
+    @Test
+    public void testAddAndGetAcrossSegments() {
+        ConcurrentIntList list = new ConcurrentIntList();
+        for (int i = 0; i < 1000; i++) {
+            list.addInt(i * 3);
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 3, list.getInt(i));
+            assertEquals(Integer.valueOf(i * 3), list.get(i));
+        }
+    }
+
+    /**
+     * Tests that reading past the visible size throws an exception.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        ConcurrentIntList list = new ConcurrentIntList();
+        list.addInt(7);
+        list.getInt(1);
+    }
+
+    /**
+     * Tests that concurrent appends lose no value.
+     */
+    @Test
+    public void testConcurrentAdds() throws InterruptedException {
+        final ConcurrentIntList list = new ConcurrentIntList();
+        final int threads = 8;
+        final int perThread = 20_000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    list.addInt(base + i + 1);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread, list.size());
+        boolean[] seen = new boolean[threads * perThread + 1];
+        for (int i = 0; i < list.size(); i++) {
+            int value = list.getInt(i);
+            assertFalse(seen[value]);
+            seen[value] = true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,188 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+
+/**
+ * This class tests the doctor assignment strategies on their own and through
+ * AppointmentSystem, to make sure each hands out the doctor it promises and
+ * spreads appointments evenly.
+ */
+public class DoctorAssignmentTest {
+
+    private Map<Doctor, Integer> loads;
+    private Doctor ram;
+    private Doctor sita;
+    private Doctor meera;
+
+    /**
+     * Creates three doctors without appointments before each test.
+     */
+    @Before
+    public void setUp() {
+        loads = new IdentityHashMap<>();
+        ram = new Doctor("D1000", "Ram");
+        sita = new Doctor("D1001", "Sita");
+        meera = new Doctor("D1002", "Meera");
+    }
+
+    /**
+     * Returns the appointment count set for a doctor in a test.
+     *
+     * @param doctor the doctor
+     * @return the count, 0 if none was set
+     */
+    private int load(Doctor doctor) {
+        return loads.getOrDefault(doctor, 0);
+    }
+
+    /**
+     * Tests that least-loaded hands out the doctor with the fewest
+     * appointments, even if the count grew after the doctor was offered.
+     */
+    @Test
+    public void testLeastLoadedPicksFewestAppointments() {
+        DoctorAssignmentStrategy pool = DoctorAssignment.LEAST_LOADED.create(this::load);
+        loads.put(ram, 5);
+        loads.put(sita, 1);
+        pool.offer(ram);
+        pool.offer(sita);
+        pool.offer(meera);
+        loads.put(meera, 9);
+
+        assertSame(sita, pool.claim(d -> true));
+        assertSame(ram, pool.claim(d -> true));
+        assertSame(meera, pool.claim(d -> true));
+        assertNull(pool.claim(d -> true));
+    }
+
+    /**
+     * Tests that round-robin goes through the free doctors in registration
+     * order, skips busy ones and starts over at the end.
+     */
+    @Test
+    public void testRoundRobinTakesTurns() {
+        DoctorAssignmentStrategy pool = DoctorAssignment.ROUND_ROBIN.create(this::load);
+        pool.offer(meera);
+        pool.offer(ram);
+        pool.offer(sita);
+
+        assertSame(ram, pool.claim(d -> true));
+        assertSame(sita, pool.claim(d -> true));
+        ram.setAvailable(true);
+        pool.offer(ram);
+        sita.setAvailable(true);
+        pool.offer(sita);
+        assertSame(meera, pool.claim(d -> true));
+        assertSame(ram, pool.claim(d -> true));
+        assertSame(sita, pool.claim(d -> true));
+        assertNull(pool.claim(d -> true));
+    }
+
+    /**
+     * Tests that two-choices hands out every free doctor once, drops removed
+     * ones and never keeps the same doctor twice.
+     */
+    @Test
+    public void testTwoChoicesClaimsEveryDoctorOnce() {
+        DoctorAssignmentStrategy pool = DoctorAssignment.TWO_CHOICES.create(this::load);
+        pool.offer(ram);
+        pool.offer(ram);
+        pool.offer(sita);
+        pool.offer(meera);
+        assertEquals(3, pool.size());
+
+        Doctor first = pool.claim(d -> d != meera);
+        Doctor second = pool.claim(d -> d != meera);
+        assertNotSame(first, second);
+        assertNotSame(meera, first);
+        assertNotSame(meera, second);
+        assertNull(pool.claim(d -> d != meera));
+        assertEquals(0, pool.size());
+        assertTrue(meera.isAvailable());
+    }
+
+    /**
+     * Tests that two-choices prefers the less loaded of two free doctors.
+     */
+    @Test
+    public void testTwoChoicesPrefersLessLoaded() {
+        int busyChosen = 0;
+        for (int i = 0; i < 200; i++) {
+            Doctor busy = new Doctor("D1000", "Ram");
+            Doctor idle = new Doctor("D1001", "Sita");
+            loads.put(busy, 100);
+            DoctorAssignmentStrategy pool = DoctorAssignment.TWO_CHOICES.create(this::load);
+            pool.offer(busy);
+            pool.offer(idle);
+            if (pool.claim(d -> true) == busy) {
+                busyChosen++;
+            }
+        }
+        // the busy doctor only wins when both picks land on them: a quarter of the time
+        assertTrue("busy doctor chosen " + busyChosen + " times", busyChosen < 100);
+    }
+
+    /**
+     * Tests that a system set to least-loaded spreads walk-in appointments
+     * evenly over its doctors, counting existing appointments as load.
+     */
+    @Test
+    public void testSystemSpreadsAppointmentsEvenly() {
+        AppointmentSystem system = new AppointmentSystem();
+        system.setEventSink(EventSink.DISCARD);
+        system.registerDoctor("Ram");
+        system.registerDoctor("Sita");
+        system.registerDoctor("Meera");
+        Patient patient = new Patient("P2000", "Ravi");
+        system.bookAppointment(patient);
+        system.completeAppointment(0);
+
+        system.setDoctorAssignment(DoctorAssignment.LEAST_LOADED);
+        assertEquals(DoctorAssignment.LEAST_LOADED, system.getDoctorAssignment());
+        Appointment second = system.bookAppointment(patient);
+        Appointment third = system.bookAppointment(patient);
+        assertNotEquals("D1000", second.doctor.getId());
+        assertNotEquals("D1000", third.doctor.getId());
+        system.completeAppointment(1);
+        system.completeAppointment(2);
+        for (int i = 3; i < 30; i++) {
+            system.bookAppointment(patient);
+            system.completeAppointment(i);
+        }
+        for (String id : new String[] { "D1000", "D1001", "D1002" }) {
+            assertEquals(10, system.appointmentCount(system.findDoctorById(id)));
+        }
+    }
+
+    /**
+     * Tests that a system set to round-robin books its doctors in turn.
+     */
+    @Test
+    public void testSystemRoundRobin() {
+        AppointmentSystem system = new AppointmentSystem();
+        system.setEventSink(EventSink.DISCARD);
+        system.registerDoctor("Ram");
+        system.registerDoctor("Sita");
+        system.setDoctorAssignment(DoctorAssignment.ROUND_ROBIN);
+        Patient patient = new Patient("P2000", "Ravi");
+
+        assertEquals("D1000", system.bookAppointment(patient).doctor.getId());
+        system.completeAppointment(0);
+        assertEquals("D1001", system.bookAppointment(patient).doctor.getId());
+        system.completeAppointment(1);
+        assertEquals("D1000", system.bookAppointment(patient).doctor.getId());
+        assertEquals("D1001", system.bookAppointment(patient).doctor.getId());
+        assertNull(system.bookAppointment(patient));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * This class tests the DoctorCalendar bitmap used for time slots.
+ */
+public class DoctorCalendarTest {
+
+    /**
+     * Tests booking, releasing and looking up single slots.
+     */
+    @Test
+    public void testBookAndRelease() {
+        DoctorCalendar calendar = new DoctorCalendar();
+        assertTrue(calendar.book(330_000));
+        assertFalse(calendar.book(330_000));
+        assertTrue(calendar.isBooked(330_000));
+        assertFalse(calendar.isBooked(330_001));
+
+        calendar.release(330_000);
+        assertFalse(calendar.isBooked(330_000));
+    }
+
+    /**
+     * Tests that the next free slot skips booked words and blocks.
+     */
+    @Test
+    public void testNextFreeSkipsBookedSlots() {
+        DoctorCalendar calendar = new DoctorCalendar();
+        int start = 5 * DoctorCalendar.BLOCK_SIZE - 70;
+        for (int slot = start; slot < start + 200; slot++) {
+            calendar.book(slot);
+        }
+        assertEquals(start - 1, calendar.nextFree(start - 1));
+        assertEquals(start + 200, calendar.nextFree(start));
+        assertEquals(start + 200, calendar.nextFree(start + 130));
+        assertEquals(start + 201, calendar.nextFree(start + 201));
+    }
+
+    /**
+     * Tests that forgetting the past drops whole blocks only.
+     */
+    @Test
+    public void testForgetBefore() {
+        DoctorCalendar calendar = new DoctorCalendar();
+        calendar.book(10);
+        calendar.book(DoctorCalendar.BLOCK_SIZE + 10);
+        calendar.forgetBefore(DoctorCalendar.BLOCK_SIZE + 5);
+
+        assertFalse(calendar.isBooked(10));
+        assertTrue(calendar.isBooked(DoctorCalendar.BLOCK_SIZE + 10));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.metrics.AppointmentMetrics;
+import com.cg.training.metrics.Operation;
+
+/**
+ * This class tests that the MeasuredAppointmentSystem records every call
+ * and that its metrics are published over JMX.
+ */
+public class MeasuredAppointmentSystemTest {
+
+    private AppointmentSystem system;
+
+    private MeasuredAppointmentSystem measured;
+
+    private AppointmentMetrics metrics;
+
+    /**
+     * Creates a measured system with one doctor and one patient.
+     */
+    @Before
+    public void setUp() {
+        system = new AppointmentSystem();
+        system.setEventSink(EventSink.DISCARD);
+        measured = new MeasuredAppointmentSystem(system);
+        metrics = measured.getMetrics();
+        measured.registerDoctor("DrSushir");
+        measured.registerPatient("Ram");
+    }
+
+    /**
+     * Tests that each call is counted under its own operation, including
+     * calls that throw.
+     */
+    @Test
+    public void testCallsAreCounted() {
+        measured.bookAppointment(measured.findPatientById("P1000"));
+        assertNull(measured.bookAppointment(measured.findPatientById("P1000")));
+        measured.findDoctorById("D1000");
+        try {
+            measured.findAppointments(-1, 10);
+            fail("Expected an invalid page");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertEquals(1, metrics.getHistogram(Operation.REGISTER_DOCTOR).getCount());
+        assertEquals(1, metrics.getHistogram(Operation.REGISTER_PATIENT).getCount());
+        assertEquals(2, metrics.getHistogram(Operation.FIND_PATIENT_BY_ID).getCount());
+        assertEquals(2, metrics.getHistogram(Operation.BOOK_APPOINTMENT).getCount());
+        assertEquals(1, metrics.getHistogram(Operation.FIND_DOCTOR_BY_ID).getCount());
+        assertEquals(1, metrics.getHistogram(Operation.FIND_APPOINTMENTS).getCount());
+        assertEquals(0, metrics.getHistogram(Operation.REMOVE_DOCTOR).getCount());
+        assertTrue(metrics.getHistogram(Operation.BOOK_APPOINTMENT).getMax() > 0);
+    }
+
+    /**
+     * Tests that the gauges follow the measured system.
+     */
+    @Test
+    public void testGauges() {
+        assertEquals(1, metrics.getPatientCount());
+        assertEquals(1, metrics.getDoctorCount());
+        assertEquals(1, metrics.getAvailableDoctorCount());
+        assertEquals(0, metrics.getAppointmentCount());
+
+        measured.bookAppointment(system.findPatientById("P1000"));
+        assertEquals(0, metrics.getAvailableDoctorCount());
+        assertEquals(1, metrics.getAppointmentCount());
+    }
+
+    /**
+     * Tests that the dump lists only the operations called and that reset
+     * clears them.
+     */
+    @Test
+    public void testDumpAndReset() {
+        String dump = metrics.dump();
+        assertTrue(dump.startsWith("Patients: 1, Doctors: 1 (1 available), Appointments: 0"));
+        assertTrue(dump.contains("registerDoctor"));
+        assertFalse(dump.contains("removeDoctor"));
+
+        metrics.reset();
+        assertFalse(metrics.dump().contains("registerDoctor"));
+        assertEquals(1, metrics.getDoctorCount());
+    }
+
+    /**
+     * Tests that the gauges and operations can be read from the platform
+     * MBean server.
+     */
+    @Test
+    public void testJmxAttributes() throws JMException {
+        ObjectName name = metrics.register("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1, server.getAttribute(name, "DoctorCount"));
+            assertEquals(0, server.getAttribute(name, "AppointmentCount"));
+            CompositeData[] operations = (CompositeData[]) server.getAttribute(name, "Operations");
+            assertEquals(Operation.values().length, operations.length);
+            CompositeData registerDoctor = operations[Operation.REGISTER_DOCTOR.ordinal()];
+            assertEquals("registerDoctor", registerDoctor.get("operation"));
+            assertEquals(1L, registerDoctor.get("count"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Doctor;
+import com.cg.training.models.Patient;
+import com.cg.training.models.SlottedAppointment;
+
+/**
+ * This class tests a system that keeps its appointments off the heap: the
+ * flyweight views must behave like the appointments they were copied from.
+ */
+public class OffHeapAppointmentsTest {
+
+    private AppointmentSystem system;
+    private Patient ram;
+
+    /**
+     * Creates an off-heap system with two doctors and one patient before each test.
+     */
+    @Before
+    public void setUp() {
+        system = new AppointmentSystem(false, true);
+        system.setEventSink(EventSink.DISCARD);
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        system.registerPatient("Ram");
+        ram = system.findPatientById("P1000");
+    }
+
+    /**
+     * Tests that booking and completing through the system changes the
+     * stored record and frees the doctor again.
+     */
+    @Test
+    public void testCompleteChangesRecord() {
+        Appointment booked = system.bookAppointment(ram);
+        assertFalse(booked.doctor.isAvailable());
+
+        Appointment stored = system.findAppointmentById(booked.getId());
+        assertNotSame(booked, stored);
+        assertEquals("Scheduled", stored.getStatus());
+        assertSame(ram, stored.patient);
+        assertSame(booked.doctor, stored.doctor);
+        assertEquals(booked.appointmentDetails(), stored.appointmentDetails());
+
+        system.completeAppointment(0);
+        assertEquals("Completed", stored.getStatus());
+        assertTrue(booked.doctor.isAvailable());
+        assertEquals(0, system.completeAppointments(Collections.singletonList(booked.getId())));
+    }
+
+    /**
+     * Tests that an appointment in a time slot is read back as a
+     * SlottedAppointment with its slot.
+     */
+    @Test
+    public void testSlottedView() {
+        SlottedAppointment booked = system.bookAppointment(ram, LocalDateTime.of(2030, 1, 1, 9, 0));
+        Appointment stored = system.findAppointmentById(booked.getId());
+        assertTrue(stored instanceof SlottedAppointment);
+        assertEquals(booked.getSlot(), ((SlottedAppointment) stored).getSlot());
+        assertFalse(stored.occupiesDoctor());
+        assertEquals(booked.appointmentDetails(), stored.appointmentDetails());
+    }
+
+    /**
+     * Tests that a view is moved from record to record when passed back,
+     * and replaced when the next record is of the other kind.
+     */
+    @Test
+    public void testViewIsReused() {
+        system.bookAppointment(ram);
+        system.bookAppointment(ram);
+        system.bookAppointment(ram, LocalDateTime.of(2030, 1, 1, 9, 0));
+        AppointmentStore store = system.getAppointmentStore();
+
+        Appointment first = store.get(0, null);
+        Appointment second = store.get(1, first);
+        assertSame(first, second);
+        assertEquals("A1", second.getId());
+        Appointment third = store.get(2, second);
+        assertNotSame(second, third);
+        assertTrue(third instanceof SlottedAppointment);
+    }
+
+    /**
+     * Tests that removing a doctor cancels the stored appointments and that
+     * the removed doctor and an unregistered patient are still shown.
+     */
+    @Test
+    public void testRemovedDoctorAndUnregisteredPatient() {
+        system.bookAppointment(new Patient("P5000", "Sita"));
+        system.removeDoctor("D1000");
+
+        Appointment stored = system.findAppointmentById("A0");
+        assertEquals("Cancelled", stored.getStatus());
+        assertEquals("DrSushir", stored.doctor.getName());
+        assertEquals("Sita", stored.patient.getName());
+    }
+
+    /**
+     * Tests that records are appended across chunk boundaries and read back
+     * with their ID numbers.
+     */
+    @Test
+    public void testManyRecords() {
+        OffHeapAppointments records = new OffHeapAppointments(key -> null, key -> null);
+        Patient patient = new Patient("P1000", "Ram");
+        Doctor doctor = new Doctor("D1000", "DrSushir");
+        int count = OffHeapAppointments.CHUNK_RECORDS + 10;
+        for (int i = 0; i < count; i++) {
+            Appointment appointment = Appointment.withoutReservation(patient, doctor);
+            records.append(appointment, appointment::assignIdNumber);
+        }
+        assertEquals(count, records.size());
+        Appointment view = records.view(OffHeapAppointments.CHUNK_RECORDS + 3);
+        assertEquals(OffHeapAppointments.CHUNK_RECORDS + 3, view.getIdNumber());
+        assertSame(patient, view.patient);
+        assertSame(doctor, view.doctor);
+        assertEquals(OffHeapAppointments.CHUNK_RECORDS * 2L * OffHeapAppointments.RECORD_SIZE,
+                records.allocatedBytes());
+    }
+
+    /**
+     * Tests that a snapshot of an off-heap system restores into a heap
+     * system, and that an off-heap system refuses to archive.
+     */
+    @Test
+    public void testSnapshotAndNoArchive() throws IOException {
+        system.bookAppointment(ram);
+        system.bookAppointment(ram);
+        system.completeAppointment(0);
+        File snapshot = File.createTempFile("appointments", ".snapshot");
+        try {
+            system.saveSnapshot(snapshot.getPath());
+            AppointmentSystem restored = new AppointmentSystem(snapshot.getPath(), null);
+            assertEquals(2, restored.appointments.size());
+            assertEquals("Completed", restored.appointments.get(0).getStatus());
+            assertEquals("Scheduled", restored.appointments.get(1).getStatus());
+        } finally {
+            snapshot.delete();
+        }
+
+        int[] errors = new int[1];
+        system.setEventSink((type, subject, value, value2, text) -> errors[0]++);
+        system.archiveTo(snapshot.getParent());
+        assertEquals(1, errors[0]);
+    }
+
+    /**
+     * Tests that an append failing before its record is written does not
+     * block the appends after it.
+     */
+    @Test(timeout = 5_000)
+    public void testFailedAppendDoesNotBlock() {
+        OffHeapAppointments store = new OffHeapAppointments(key -> null, key -> null);
+        Doctor doctor = new Doctor("D1000", "DrSushir");
+        try {
+            store.append(new Appointment(null, doctor), null);
+            fail("Expected an appointment without a patient to be rejected");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertEquals(0, store.append(new Appointment(new Patient("P1000", "Ram"), doctor), null));
+        assertEquals(1, store.size());
+    }
+}
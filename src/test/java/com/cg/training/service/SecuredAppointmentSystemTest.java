@@ -0,0 +1,63 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.events.EventSink;
+import com.cg.training.security.Role;
+
+/**
+ * Tests for {@link SecuredAppointmentSystem}: allowed calls reach the
+ * wrapped system and denied calls change nothing.
+ */
+public class SecuredAppointmentSystemTest {
+
+    private AppointmentSystem system;
+
+    /**
+     * Creates a system with one doctor, one patient and one appointment.
+     */
+    @Before
+    public void setUp() {
+        system = new AppointmentSystem();
+        system.setEventSink(EventSink.DISCARD);
+        system.registerDoctor("DrMeera");
+        system.registerPatient("Ram");
+        system.bookAppointment(system.findPatientById("P1000"));
+    }
+
+    /**
+     * Tests that a patient can book but not complete or remove.
+     */
+    @Test
+    public void testPatientRole() {
+        SecuredAppointmentSystem patient = new SecuredAppointmentSystem(system, Role.PATIENT);
+        assertNotNull(patient.findPatientById("P1000"));
+        try {
+            patient.completeAppointments(Arrays.asList("A0"));
+            fail("A patient may not complete appointments");
+        } catch (SecurityException e) {
+            assertEquals("Scheduled", system.findAppointmentById("A0").getStatus());
+        }
+        try {
+            patient.removeDoctor("D1000");
+            fail("A patient may not remove doctors");
+        } catch (SecurityException e) {
+            assertNotNull(system.findDoctorById("D1000"));
+        }
+    }
+
+    /**
+     * Tests that a doctor can complete and an admin can remove.
+     */
+    @Test
+    public void testDoctorAndAdminRoles() {
+        assertEquals(1, new SecuredAppointmentSystem(system, Role.DOCTOR).completeAppointments(Arrays.asList("A0")));
+        assertEquals(1, new SecuredAppointmentSystem(system, Role.ADMIN).removeDoctors(Arrays.asList("D1000")));
+        assertSame(Role.ADMIN, new SecuredAppointmentSystem(system, Role.ADMIN).getRole());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.models.Appointment;
+import com.cg.training.models.Page;
+import com.cg.training.models.Patient;
+import com.cg.training.models.RegistrationResult;
+import com.cg.training.models.TimeSlots;
+
+/**
+ * This class tests the ShardedAppointmentSystem: routing by ID, global
+ * appointment indexes and queries that gather from every shard.
+ */
+public class ShardedAppointmentSystemTest {
+
+    private ShardedAppointmentSystem system;
+
+    /**
+     * Creates a system of four empty shards.
+     */
+    @Before
+    public void setUp() {
+        system = new ShardedAppointmentSystem(4);
+    }
+
+    /**
+     * Tests that users are spread over the shards by ID number and found again.
+     */
+    @Test
+    public void testRegistrationIsRoutedByIdNumber() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        system.registerPatient("Ram");
+        system.registerPatient("123Ram");
+
+        assertSame(system.shards[0].findDoctorById("D1000"), system.findDoctorById("D1000"));
+        assertSame(system.shards[1].findDoctorById("D1001"), system.findDoctorById("D1001"));
+        assertEquals("Ram", system.findPatientById("P1000").getName());
+        assertNull(system.findPatientById("P1001"));
+        assertNull(system.findDoctorById("P1000"));
+        assertNull(system.findDoctorById("bogus"));
+        assertEquals(2, system.doctorCount());
+        assertEquals(1, system.patientCount());
+    }
+
+    /**
+     * Tests that bulk registration reserves one ID range for all shards.
+     */
+    @Test
+    public void testBulkRegistration() {
+        RegistrationResult doctors = system.registerDoctors(Arrays.asList("DrSushir", "123", "DrMeera", "DrRay"));
+        assertEquals(3, doctors.getRegisteredCount());
+        assertEquals(1, system.shards[0].doctors.size());
+        assertEquals(0, system.shards[1].doctors.size());
+        assertNotNull(system.findDoctorById("D1003"));
+
+        system.registerPatients(Arrays.asList("Ram", "Sita"));
+        system.registerPatient("Laxman");
+        assertEquals("Laxman", system.findPatientById("P1002").getName());
+    }
+
+    /**
+     * Tests that a booking moves on to other shards when the patient's own
+     * shard has no free doctor, and that global indexes reach the appointment.
+     */
+    @Test
+    public void testBookingMovesToShardWithFreeDoctor() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        Patient patient = new Patient("P1001", "Ram");
+
+        Appointment first = system.bookAppointment(patient);
+        Appointment second = system.bookAppointment(patient);
+        assertEquals("D1001", first.doctor.getId());
+        assertEquals("D1000", second.doctor.getId());
+        assertNull(system.bookAppointment(patient));
+
+        Page<Integer> page = system.findAppointmentsByPatientId("P1001", 0, 10);
+        assertEquals(2, page.getTotal());
+        assertEquals(Arrays.asList(0, 1), page.getItems());
+        assertSame(second, system.getAppointment(0));
+        assertSame(first, system.getAppointment(1));
+
+        system.completeAppointment(1);
+        assertEquals("Completed", first.getStatus());
+        assertEquals("D1001", system.bookAppointment(patient).doctor.getId());
+        assertEquals(Arrays.asList(1, 5), system.findAppointmentsByDoctorId("D1001", 0, 10).getItems());
+        assertNull(system.getAppointment(2));
+        assertNull(system.getAppointment(-1));
+    }
+
+    /**
+     * Tests that pages gathered from several shards skip and count correctly.
+     */
+    @Test
+    public void testPagesAcrossShards() {
+        for (int i = 0; i < 10; i++) {
+            system.registerDoctor("Doctor");
+        }
+        Page<com.cg.training.models.Doctor> doctors = system.findDoctors(2, 4);
+        assertEquals(10, doctors.getTotal());
+        assertEquals(4, doctors.getItems().size());
+        assertEquals("D1008", doctors.getItems().get(0).getId());
+        assertEquals("D1001", doctors.getItems().get(1).getId());
+
+        Patient patient = new Patient("P2000", "Ram");
+        for (int i = 0; i < 10; i++) {
+            system.bookAppointment(patient);
+        }
+        Page<Integer> all = system.findAppointments(8, 5);
+        assertEquals(10, all.getTotal());
+        assertEquals(2, all.getItems().size());
+        assertEquals(10, system.findAppointmentsByPatientId("P2000", 9, 5).getTotal());
+        assertEquals(1, system.findAppointmentsByPatientId("P2000", 9, 5).getItems().size());
+        assertTrue(system.findAppointmentsByPatientId("P2000", 20, 5).getItems().isEmpty());
+    }
+
+    /**
+     * Tests that a time-slot booking takes the earliest slot of any shard.
+     */
+    @Test
+    public void testBookEarliestSlotAcrossShards() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        Patient patient = new Patient("P2000", "Ram");
+        LocalDateTime morning = LocalDateTime.of(2030, 5, 1, 8, 0);
+        int nine = TimeSlots.firstSlotAtOrAfter(morning);
+
+        assertEquals(nine, system.bookAppointment(patient, morning).getSlot());
+        assertEquals(nine, system.bookAppointment(patient, morning).getSlot());
+        assertEquals(nine + 1, system.bookAppointment(patient, morning).getSlot());
+        assertNull(new ShardedAppointmentSystem(2).bookAppointment(patient, morning));
+    }
+
+    /**
+     * Tests removing a doctor through its shard.
+     */
+    @Test
+    public void testRemoveDoctor() {
+        system.registerDoctor("DrSushir");
+        system.registerDoctor("DrMeera");
+        system.removeDoctor("D1001");
+        system.removeDoctor("D1001");
+        assertNull(system.findDoctorById("D1001"));
+        assertEquals(1, system.doctorCount());
+        assertEquals("D1000", system.bookAppointment(new Patient("P2001", "Ram")).doctor.getId());
+    }
+
+    /**
+     * Tests that appointment IDs carry the global index and that they are
+     * found and completed in their shard.
+     */
+    @Test
+    public void testAppointmentIdsAcrossShards() {
+        system.registerDoctors(Arrays.asList("DrA", "DrB", "DrC", "DrD"));
+        Appointment[] booked = new Appointment[4];
+        for (int i = 0; i < 4; i++) {
+            booked[i] = system.bookAppointment(new Patient("P" + (2000 + i), "Ram"));
+        }
+        for (Appointment appointment : booked) {
+            assertSame(appointment, system.getAppointment(appointment.getIdNumber()));
+            assertSame(appointment, system.findAppointmentById(appointment.getId()));
+        }
+        assertNull(system.findAppointmentById("A99"));
+
+        assertEquals(2, system.completeAppointments(Arrays.asList(booked[0].getId(), booked[3].getId(), "A99")));
+        assertEquals("Completed", booked[0].getStatus());
+        assertEquals("Scheduled", booked[1].getStatus());
+        assertEquals("Completed", booked[3].getStatus());
+    }
+
+    /**
+     * Tests removing doctors from several shards in one call.
+     */
+    @Test
+    public void testRemoveDoctors() {
+        system.registerDoctors(Arrays.asList("DrA", "DrB", "DrC", "DrD", "DrE"));
+        system.bookAppointment(new Patient("P2001", "Ram"));
+
+        assertEquals(3, system.removeDoctors(Arrays.asList("D1001", "D1002", "D1004", "D1001", "bogus")));
+
+        assertEquals(2, system.doctorCount());
+        assertNull(system.findDoctorById("D1004"));
+        assertNotNull(system.findDoctorById("D1003"));
+        int index = system.findAppointmentsByDoctorId("D1001", 0, 1).getItems().get(0);
+        assertEquals("Cancelled", system.getAppointment(index).getStatus());
+    }
+
+    /**
+     * Tests that every shard is restored from its own journal and that the
+     * ID counters continue after the highest restored ID.
+     */
+    @Test
+    public void testJournalsRestoreEveryShard() throws IOException {
+        File base = File.createTempFile("sharded", ".journal");
+        try {
+            ShardedAppointmentSystem first = new ShardedAppointmentSystem(3, base.getPath(), false);
+            first.registerDoctor("DrSushir");
+            first.registerDoctor("DrMeera");
+            first.registerPatient("Ram");
+            first.bookAppointment(first.findPatientById("P1000"));
+            int index = first.findAppointmentsByPatientId("P1000", 0, 1).getItems().get(0);
+            first.completeAppointment(index);
+            first.saveAppointmentsToFile();
+
+            ShardedAppointmentSystem second = new ShardedAppointmentSystem(3, base.getPath(), false);
+            assertEquals(2, second.doctorCount());
+            assertEquals("Ram", second.findPatientById("P1000").getName());
+            assertEquals("Completed", second.getAppointment(index).getStatus());
+            second.registerDoctor("DrRay");
+            assertNotNull(second.findDoctorById("D1002"));
+            assertEquals(1, second.shards[0].doctors.size());
+            second.clearAllContentsOfTheFile();
+        } finally {
+            for (int s = 0; s < 3; s++) {
+                new File(base.getPath() + "." + s).delete();
+            }
+            base.delete();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,150 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.cg.training.models.Doctor;
+
+/**
+ * This class tests the SlotScheduler that finds the earliest free slot
+ * across all doctors.
+ */
+public class SlotSchedulerTest {
+
+    /**
+     * Tests that slots are handed out earliest first, first doctor first.
+     */
+    @Test
+    public void testClaimEarliestAcrossDoctors() {
+        SlotScheduler scheduler = new SlotScheduler(() -> 0);
+        Doctor first = new Doctor("D1000", "DrSushir");
+        Doctor second = new Doctor("D1001", "DrMeera");
+        scheduler.add(first);
+        scheduler.add(second);
+
+        SlotScheduler.Claim a = scheduler.claimEarliest(100);
+        SlotScheduler.Claim b = scheduler.claimEarliest(100);
+        SlotScheduler.Claim c = scheduler.claimEarliest(100);
+
+        assertSame(first, a.doctor);
+        assertEquals(100, a.slot);
+        assertSame(second, b.doctor);
+        assertEquals(100, b.slot);
+        assertSame(first, c.doctor);
+        assertEquals(101, c.slot);
+    }
+
+    /**
+     * Tests that reserved slots are skipped, that an earlier search after a
+     * later one still finds the earlier slot, and that slots which have
+     * started by the clock are never booked.
+     */
+    @Test
+    public void testReserveAndClock() {
+        int[] now = { 0 };
+        SlotScheduler scheduler = new SlotScheduler(() -> now[0]);
+        Doctor doctor = new Doctor("D1000", "DrSushir");
+        scheduler.add(doctor);
+        assertTrue(scheduler.reserve(doctor, 200));
+        assertFalse(scheduler.reserve(doctor, 200));
+
+        assertEquals(201, scheduler.claimEarliest(200).slot);
+        assertEquals(50, scheduler.claimEarliest(50).slot);
+        assertTrue(scheduler.isBooked(doctor, 201));
+
+        now[0] = 201;
+        assertEquals(202, scheduler.claimEarliest(50).slot);
+        assertEquals(203, scheduler.peekEarliest(0));
+    }
+
+    /**
+     * Tests that a booking far in the future does not hide the free slots
+     * before it from a later search that starts near.
+     */
+    @Test
+    public void testFarBookingDoesNotHideNearSlots() {
+        SlotScheduler scheduler = new SlotScheduler(() -> 1_000);
+        Doctor first = new Doctor("D1000", "DrSushir");
+        Doctor second = new Doctor("D1001", "DrMeera");
+        scheduler.add(first);
+        scheduler.add(second);
+
+        SlotScheduler.Claim far = scheduler.claimEarliest(100_000);
+        assertSame(first, far.doctor);
+        assertEquals(100_000, far.slot);
+        assertEquals(100_000, scheduler.claimEarliest(100_000).slot);
+
+        SlotScheduler.Claim near = scheduler.claimEarliest(1_010);
+        assertSame(first, near.doctor);
+        assertEquals(1_010, near.slot);
+        assertEquals(100_001, scheduler.claimEarliest(100_000).slot);
+    }
+
+    /**
+     * Tests searches from random starts against every doctor's calendar
+     * searched one by one.
+     */
+    @Test
+    public void testSearchMatchesEveryCalendar() {
+        SlotScheduler scheduler = new SlotScheduler(() -> 0);
+        Doctor[] doctors = new Doctor[13];
+        DoctorCalendar[] expected = new DoctorCalendar[doctors.length];
+        for (int i = 0; i < doctors.length; i++) {
+            doctors[i] = new Doctor(1000 + i, "Doctor");
+            expected[i] = new DoctorCalendar();
+            scheduler.add(doctors[i]);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            int from = random.nextInt(3_000);
+            int best = -1;
+            int bestSlot = Integer.MAX_VALUE;
+            for (int d = 0; d < doctors.length; d++) {
+                int slot = expected[d].nextFree(from);
+                if (slot < bestSlot) {
+                    best = d;
+                    bestSlot = slot;
+                }
+            }
+            SlotScheduler.Claim claim = scheduler.claimEarliest(from);
+            assertEquals(bestSlot, claim.slot);
+            assertSame(doctors[best], claim.doctor);
+            expected[best].book(bestSlot);
+        }
+    }
+
+    /**
+     * Tests that a removed doctor is no longer offered.
+     */
+    @Test
+    public void testRemovedDoctorIsNotOffered() {
+        SlotScheduler scheduler = new SlotScheduler(() -> 0);
+        Doctor removed = new Doctor("D1000", "DrSushir");
+        scheduler.add(removed);
+        scheduler.remove(removed);
+        assertNull(scheduler.claimEarliest(0));
+        assertFalse(scheduler.reserve(removed, 5));
+    }
+
+    /**
+     * Tests that the scheduler keeps working while it grows to many doctors.
+     */
+    @Test
+    public void testManyDoctors() {
+        SlotScheduler scheduler = new SlotScheduler(() -> 0);
+        int doctors = 5_000;
+        for (int i = 0; i < doctors; i++) {
+            scheduler.add(new Doctor(1000 + i, "Doctor"));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < doctors; i++) {
+                SlotScheduler.Claim claim = scheduler.claimEarliest(0);
+                assertEquals(round, claim.slot);
+                assertEquals(1000 + i, claim.doctor.getIdNumber());
+            }
+        }
+    }
+}
\ No newline at end of file
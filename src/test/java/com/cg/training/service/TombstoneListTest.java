@@ -0,0 +1,126 @@
+package com.cg.training.service;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Test;
+
+/**
+ * This class tests the TombstoneList that holds the registered doctors.
+ */
+public class TombstoneListTest {
+
+    /**
+     * Tests that removals leave the remaining elements in order and that
+     * positional reads skip the tombstones.
+     */
+    @Test
+    public void testRemoveKeepsOrder() {
+        TombstoneList<String> list = new TombstoneList<>();
+        list.addAll(Arrays.asList("a", "b", "c", "d", "e"));
+
+        assertTrue(list.remove("b"));
+        assertTrue(list.remove("d"));
+        assertFalse(list.remove("d"));
+
+        assertEquals(3, list.size());
+        assertEquals("a", list.get(0));
+        assertEquals("c", list.get(1));
+        assertEquals("e", list.get(2));
+        assertEquals(Arrays.asList("a", "c", "e"), new ArrayList<>(list));
+        assertFalse(list.contains("b"));
+        assertFalse(list.add("a"));
+    }
+
+    /**
+     * Tests that a list iterator starts at a position and can walk both ways.
+     */
+    @Test
+    public void testListIteratorFromPosition() {
+        TombstoneList<Integer> list = new TombstoneList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        list.remove(Integer.valueOf(3));
+        list.remove(Integer.valueOf(4));
+
+        ListIterator<Integer> rows = list.listIterator(3);
+        assertEquals(3, rows.nextIndex());
+        assertEquals(Integer.valueOf(5), rows.next());
+        assertEquals(Integer.valueOf(6), rows.next());
+        assertEquals(Integer.valueOf(6), rows.previous());
+        assertEquals(Integer.valueOf(5), rows.previous());
+        assertEquals(Integer.valueOf(2), rows.previous());
+        assertEquals(2, rows.nextIndex());
+        assertFalse(list.listIterator(8).hasNext());
+    }
+
+    /**
+     * Tests removing most elements one by one and in bulk, which packs the
+     * slots several times, against a plain ArrayList.
+     */
+    @Test
+    public void testMatchesArrayListThroughPacking() {
+        TombstoneList<Integer> list = new TombstoneList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+            expected.add(i);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            list.remove(Integer.valueOf(i));
+            expected.remove(Integer.valueOf(i));
+        }
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 1; i < 1000; i += 3) {
+            batch.add(i);
+        }
+        assertTrue(list.removeAll(batch));
+        expected.removeAll(batch);
+        for (int i = 1000; i < 1100; i++) {
+            list.add(i);
+            expected.add(i);
+        }
+
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), list.get(i));
+        }
+        assertEquals(expected, new ArrayList<>(list));
+    }
+
+    /**
+     * Tests that an iterator keeps working on the elements it started with
+     * while the list is changed.
+     */
+    @Test
+    public void testIteratorIsWeaklyConsistent() {
+        TombstoneList<String> list = new TombstoneList<>();
+        list.addAll(Arrays.asList("a", "b", "c"));
+        Iterator<String> rows = list.iterator();
+        list.add("d");
+        list.remove("a");
+
+        List<String> seen = new ArrayList<>();
+        while (rows.hasNext()) {
+            seen.add(rows.next());
+        }
+        assertEquals(Arrays.asList("b", "c"), seen);
+    }
+
+    /**
+     * Tests that reading past the live elements throws an exception.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        TombstoneList<String> list = new TombstoneList<>();
+        list.add("a");
+        list.remove("a");
+        list.get(0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.cg.training.ui;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cg.training.metrics.Operation;
+import com.cg.training.models.AppointmentStatus;
+import com.cg.training.service.AppointmentSystem;
+
+/**
+ * Tests for {@link BatchRunner}: commands run against the system, failures
+ * are counted and every call is measured.
+ */
+public class BatchRunnerTest {
+
+    private AppointmentSystem system;
+    private BatchRunner runner;
+
+    /**
+     * Creates an empty system and a runner for it.
+     */
+    @Before
+    public void setUp() {
+        system = new AppointmentSystem();
+        runner = new BatchRunner(system);
+    }
+
+    /**
+     * Runs a script given as text.
+     *
+     * @param script the lines of the script
+     * @return the summary of the run
+     * @throws IOException never, the script is in memory
+     */
+    private BatchRunner.Summary run(String... script) throws IOException {
+        return runner.run(new BufferedReader(new StringReader(String.join("\n", script))));
+    }
+
+    /**
+     * Tests that a script registers, books and completes through the system.
+     */
+    @Test
+    public void testRunScript() throws IOException {
+        BatchRunner.Summary summary = run(
+                "# a small workload",
+                "register-doctor DrMeera",
+                "register-patient Rahul Das",
+                "",
+                "book P1000",
+                "find-appointment A0",
+                "complete A0",
+                "patient-appointments P1000");
+
+        assertEquals(6, summary.getCommands());
+        assertEquals(0, summary.getFailed());
+        assertEquals("Rahul Das", system.findPatientById("P1000").getName());
+        assertSame(AppointmentStatus.COMPLETED, system.findAppointmentById("A0").getAppointmentStatus());
+        assertEquals(1, runner.getMetrics().getHistogram(Operation.BOOK_APPOINTMENT).getCount());
+    }
+
+    /**
+     * Tests that unknown commands, missing arguments, lookups that find
+     * nothing and operations that report an error count as failures.
+     */
+    @Test
+    public void testFailuresAreCounted() throws IOException {
+        BatchRunner.Summary summary = run(
+                "register-patient Rahul Das",
+                "dance",
+                "book",
+                "book P9999",
+                "book P1000",
+                "register-doctor 123");
+
+        assertEquals(6, summary.getCommands());
+        assertEquals(5, summary.getFailed());
+        assertTrue(summary.toString().startsWith("Commands: 6, Failed: 5, "));
+    }
+}
\ No newline at end of file